@@ -0,0 +1,72 @@
+package factory.benchmarks;
+
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import factory.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole Matrix.run with pacing turned off, so units act back to back
+ * instead of sleeping between actions. Every unit performs ACTIONS actions;
+ * divide by the score for actions per millisecond.
+ *
+ * Robots and belts come in equal numbers so the threaded modes can't end up
+ * waiting on items that are never produced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class MatrixBenchmark {
+
+    /** Actions each unit performs per run. */
+    public static final int ACTIONS = 10_000;
+
+    @Param({"platform", "virtual", "discrete", "scheduled", "work_stealing"})
+    public String executionMode;
+
+    @Param({"array", "mpmc"})
+    public String bufferBackend;
+
+    /** Robots, and also belts. */
+    @Param({"1", "4", "16"})
+    public int pairs;
+
+    private SimulationInput input;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        StatisticsContainer.resetInstance();
+        input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of(String.valueOf(ACTIONS)));
+        input.addInput("NumRobots",        List.of(String.valueOf(pairs)));
+        input.addInput("NumBelts",         List.of(String.valueOf(pairs)));
+        input.addInput("ExecutionMode",    List.of(executionMode));
+        input.addInput("BufferBackend",    List.of(bufferBackend));
+        input.addInput("Pacing",           List.of("none"));
+        StatisticsContainer.getInstance(input);
+    }
+
+    @Benchmark
+    public StatisticsContainer run() {
+        Matrix.run(input);
+        return StatisticsContainer.getInstance();
+    }
+}
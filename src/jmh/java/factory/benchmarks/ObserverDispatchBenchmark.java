@@ -0,0 +1,92 @@
+package factory.benchmarks;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.StatisticsContainer;
+import factory.StatisticEventBus;
+import factory.StatisticObserver;
+import factory.StatisticUpdate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a unit pays to report one statistic update to observers: straight
+ * to each observer on its own thread ("sync"), or through the
+ * StatisticEventBus with each overflow policy. Observers just consume the
+ * values, so this measures dispatch rather than observer work.
+ *
+ * Observers are registered globally, which is fine because every parameter
+ * combination runs in its own forked JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ObserverDispatchBenchmark {
+
+    @Param({"sync", "block", "drop", "coalesce"})
+    public String mode;
+
+    @Param({"1", "4"})
+    public int observers;
+
+    private StatisticsContainer container;
+    private StatisticEventBus bus;
+    private CounterStatistic stat;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        for (int i = 0; i < observers; i++) {
+            Statistic.registerObserver(new StatisticObserver() {
+                @Override
+                public void onStatisticUpdated(String component, String statName, float newValue) {
+                    blackhole.consume(newValue);
+                }
+
+                @Override
+                public void onStatisticsUpdated(List<StatisticUpdate> batch) {
+                    blackhole.consume(batch);
+                }
+            });
+        }
+        container = StatisticsContainer.newInstance(new SimulationInput());
+        if (!"sync".equals(mode)) {
+            bus = new StatisticEventBus(Statistic.getObservers(), StatisticEventBus.DEFAULT_CAPACITY,
+                    StatisticEventBus.DEFAULT_BATCH_SIZE,
+                    StatisticEventBus.OverflowPolicy.valueOf(mode.toUpperCase()));
+            container.setEventBus(bus);
+        }
+        stat = (CounterStatistic) container.addComponent("belt-1")
+                .addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.setEventBus(null);
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        stat.addValue(1);
+    }
+}
@@ -0,0 +1,106 @@
+package factory.benchmarks;
+
+import factory.SharedBuffer;
+import factory.buffer.BufferType;
+import factory.buffer.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Put/take throughput of SharedBuffer for a few producer/consumer ratios.
+ *
+ * Each group's threads share one buffer. The non-blocking offer/poll are
+ * used because JMH stops threads one by one at the end of an iteration, and
+ * a blocking put with nobody left to take would hang the run. A call that
+ * finds the buffer full (or empty) still counts as an operation, so compare
+ * put and take scores together.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SharedBufferBenchmark {
+
+    /** Backends that allow several producers and consumers. */
+    @Param({"ARRAY", "MPMC"})
+    public String backend;
+
+    @Param({"16", "1024"})
+    public int capacity;
+
+    @Param({"1", "16"})
+    public int batch;
+
+    private SharedBuffer<String> buffer;
+    private List<String> items;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        buffer = new SharedBuffer<>(BufferType.valueOf(backend).create(capacity, WaitStrategy.YIELD));
+        items = Collections.nCopies(batch, "widget");
+    }
+
+    /** Per-thread list to poll into. */
+    @State(Scope.Thread)
+    public static class Sink {
+        final List<String> into = new ArrayList<>();
+
+        int pollFrom(SharedBuffer<String> buffer, int max) {
+            into.clear();
+            return max == 1 ? (buffer.poll() == null ? 0 : 1) : buffer.pollAll(into, max);
+        }
+    }
+
+    private int put() {
+        return batch == 1 ? (buffer.offer("widget") ? 1 : 0) : buffer.offerAll(items, 0);
+    }
+
+    @Benchmark @Group("oneToOne") @GroupThreads(1)
+    public int oneToOne_put() {
+        return put();
+    }
+
+    @Benchmark @Group("oneToOne") @GroupThreads(1)
+    public int oneToOne_take(Sink sink) {
+        return sink.pollFrom(buffer, batch);
+    }
+
+    @Benchmark @Group("fourToOne") @GroupThreads(4)
+    public int fourToOne_put() {
+        return put();
+    }
+
+    @Benchmark @Group("fourToOne") @GroupThreads(1)
+    public int fourToOne_take(Sink sink) {
+        return sink.pollFrom(buffer, batch);
+    }
+
+    @Benchmark @Group("oneToFour") @GroupThreads(1)
+    public int oneToFour_put() {
+        return put();
+    }
+
+    @Benchmark @Group("oneToFour") @GroupThreads(4)
+    public int oneToFour_take(Sink sink) {
+        return sink.pollFrom(buffer, batch);
+    }
+}
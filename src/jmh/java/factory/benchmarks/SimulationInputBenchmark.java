@@ -0,0 +1,68 @@
+package factory.benchmarks;
+
+import Skeleton.InputSnapshot;
+import Skeleton.SimulationInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input lookups the way units make them: through SimulationInput, and
+ * through the InputSnapshot a unit keeps. The looked-up key is added last.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimulationInputBenchmark {
+
+    /** How many other keys the input has. */
+    @Param({"5", "50"})
+    public int keys;
+
+    private SimulationInput input;
+    private InputSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        input = new SimulationInput();
+        for (int i = 0; i < keys; i++) {
+            input.addInput("Key" + i, List.of(String.valueOf(i)));
+        }
+        input.addInput("NumBelts", List.of("3"));
+        snapshot = input.snapshot();
+    }
+
+    @Benchmark
+    public int integerFromInput() {
+        return input.getIntegerInput("NumBelts");
+    }
+
+    @Benchmark
+    public int integerFromSnapshot() {
+        return snapshot.getIntegerInput("NumBelts");
+    }
+
+    @Benchmark
+    public List<String> copyOfValues() {
+        return input.getInput("NumBelts");
+    }
+
+    @Benchmark
+    public List<String> viewOfValues() {
+        return input.getValues("NumBelts");
+    }
+}
@@ -0,0 +1,70 @@
+package factory.benchmarks;
+
+import Skeleton.CounterStatistic;
+import Skeleton.HistogramStatistic;
+import Skeleton.RateStatistic;
+import Skeleton.Statistic;
+import Skeleton.StreamingStatistic;
+import Skeleton.WorkerStatistic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of Statistic.addValue and summarize for each kind of statistic,
+ * starting from "size" values already recorded. No observers are registered,
+ * so this is the statistic alone; see ObserverDispatchBenchmark for delivery.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StatisticBenchmark {
+
+    @Param({"worker", "counter", "streaming", "rate", "histogram"})
+    public String type;
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    private Statistic stat;
+
+    // refilled every iteration so the list-backed statistic doesn't keep growing
+    @Setup(Level.Iteration)
+    public void fill() {
+        switch (type) {
+            case "worker":    stat = new WorkerStatistic("Bench"); break;
+            case "counter":   stat = new CounterStatistic("Bench"); break;
+            case "streaming": stat = new StreamingStatistic("Bench"); break;
+            case "rate":      stat = new RateStatistic("Bench"); break;
+            case "histogram": stat = new HistogramStatistic("Bench"); break;
+            default: throw new IllegalArgumentException("Unknown statistic type: " + type);
+        }
+        for (int i = 0; i < size; i++) {
+            stat.addValue(i % 100);
+        }
+    }
+
+    @Benchmark
+    public void addValue() {
+        stat.addValue(1);
+    }
+
+    @Benchmark
+    public float summarize() {
+        return stat.summarize();
+    }
+}
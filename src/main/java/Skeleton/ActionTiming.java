@@ -0,0 +1,154 @@
+package Skeleton;
+
+import java.util.SplittableRandom;
+
+/**
+ * When a Skeleton.Unit acts next: a fixed period from `ActionsPerSecond`, or
+ * random gaps and breakdowns configured per unit type. For a unit of type
+ * "Robot" the input keys are:
+ * 		RobotActionTime       distribution of the time from one action to the next
+ * 		RobotFailureInterval  distribution of working time between breakdowns
+ * 		RobotRepairTime       distribution of how long a breakdown lasts
+ * and likewise "BeltActionTime" etc. for belts, where the action time is the
+ * time between arrivals of a batch. See Skeleton.Distribution for the syntax.
+ *
+ * Every unit draws from its own random stream, seeded from the "Seed" input
+ * key and the unit's name, so a seeded run draws the same values however its
+ * threads are scheduled. Without a Seed each run draws differently.
+ *
+ * A unit with random timing runs for `Time` seconds, however many actions
+ * fit in, instead of a fixed `Time` * `ActionsPerSecond` actions.
+ */
+public final class ActionTiming {
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double MIN_FAILURE_INTERVAL = 1 / NANOS_PER_SECOND;
+
+	private final Distribution actionTime;      // null: 1 / ActionsPerSecond
+	private final Distribution failureInterval; // null: never breaks down
+	private final Distribution repairTime;
+	private final SplittableRandom random;
+	private double untilFailure; // working seconds left before the next breakdown
+	private int lastFailures;
+	private long lastRepairNanos;
+
+	/**
+	 * @param actionTime      time between actions, or null for the fixed period
+	 * @param failureInterval working time between breakdowns, or null for none
+	 * @param repairTime      length of a breakdown; needed with a failureInterval
+	 * @param random          the stream to draw from
+	 * @throws IllegalArgumentException if the action time or failure interval
+	 *         doesn't have a positive mean, since the unit would never get on
+	 */
+	public ActionTiming(Distribution actionTime, Distribution failureInterval,
+			Distribution repairTime, SplittableRandom random) {
+		if (failureInterval != null && repairTime == null) {
+			throw new IllegalArgumentException("A failure interval needs a repair time");
+		}
+		requirePositiveMean("Action time", actionTime);
+		requirePositiveMean("Failure interval", failureInterval);
+		this.actionTime = actionTime;
+		this.failureInterval = failureInterval;
+		this.repairTime = repairTime;
+		this.random = random;
+		if (failureInterval != null) {
+			this.untilFailure = failureInterval.sample(random);
+		}
+	}
+
+	/** @return timing at the fixed `ActionsPerSecond` period, with no breakdowns. */
+	public static ActionTiming fixed() {
+		return new ActionTiming(null, null, null, null);
+	}
+
+	/**
+	 * Reads the timing of one unit from its input.
+	 * @param settings The unit's input.
+	 * @param type     The key prefix of the unit's type, e.g. "Robot" or "Belt".
+	 * @param unitName The unit's name, which picks its random stream.
+	 */
+	public static ActionTiming fromSettings(InputSnapshot settings, String type, String unitName) {
+		Distribution action = distribution(settings, type + "ActionTime");
+		Distribution failures = distribution(settings, type + "FailureInterval");
+		Distribution repair = distribution(settings, type + "RepairTime");
+		if (action == null && failures == null) {
+			return fixed();
+		}
+		SplittableRandom random;
+		String seed = settings.getStringInput("Seed", null);
+		if (seed == null) {
+			random = new SplittableRandom();
+		} else {
+			try {
+				random = streamOf(Long.parseLong(seed.trim()), unitName);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Seed must be a whole number: " + seed);
+			}
+		}
+		return new ActionTiming(action, failures, repair, random);
+	}
+
+	/** The random stream of one unit: the same seed and name always give the same stream. */
+	public static SplittableRandom streamOf(long seed, String unitName) {
+		// SplittableRandom hashes what it draws, not its seed, so mix the two first
+		long mixed = new SplittableRandom(seed + GOLDEN_GAMMA * unitName.hashCode()).nextLong();
+		return new SplittableRandom(mixed);
+	}
+
+	private static void requirePositiveMean(String what, Distribution d) {
+		if (d != null && !(d.getMean() > 0)) {
+			throw new IllegalArgumentException(what + " must have a positive mean: " + d);
+		}
+	}
+
+	private static Distribution distribution(InputSnapshot settings, String key) {
+		String text = settings.getStringInput(key, null);
+		return text == null ? null : Distribution.parse(text);
+	}
+
+	/** @return true if the gaps or breakdowns are random, so the unit runs for `Time` seconds. */
+	public boolean isRandom() {
+		return this.actionTime != null || this.failureInterval != null;
+	}
+
+	/** @return true if the unit breaks down now and then. */
+	public boolean hasFailures() {
+		return this.failureInterval != null;
+	}
+
+	/**
+	 * Draws the time from the start of this action to the start of the next,
+	 * including any breakdown that happens in between.
+	 * @param fixedPeriodNanos The period used when the action time isn't random.
+	 * @return the delay in nanoseconds.
+	 */
+	public long nextDelayNanos(long fixedPeriodNanos) {
+		long workNanos = this.actionTime == null
+				? fixedPeriodNanos
+				: Math.round(this.actionTime.sample(this.random) * NANOS_PER_SECOND);
+		double repair = 0;
+		int failures = 0;
+		if (this.failureInterval != null) {
+			this.untilFailure -= workNanos / NANOS_PER_SECOND;
+			while (this.untilFailure <= 0) {
+				repair += this.repairTime.sample(this.random);
+				failures++;
+				// the odd zero draw still moves on, so this always ends
+				this.untilFailure += Math.max(this.failureInterval.sample(this.random), MIN_FAILURE_INTERVAL);
+			}
+		}
+		this.lastFailures = failures;
+		this.lastRepairNanos = Math.round(repair * NANOS_PER_SECOND);
+		return workNanos + this.lastRepairNanos;
+	}
+
+	/** @return breakdowns that began during the latest delay. */
+	public int getLastFailures() {
+		return this.lastFailures;
+	}
+
+	/** @return how much of the latest delay was spent broken down, in nanoseconds. */
+	public long getLastRepairNanos() {
+		return this.lastRepairNanos;
+	}
+}
@@ -0,0 +1,114 @@
+package Skeleton;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Use this for statistics that only ever add up, like "ActionsPerformed" in
+ * Robot or "ItemsMoved" in ConveyorBelt.
+ *
+ * Unlike Skeleton.WorkerStatistic, the values aren't kept: they're added into
+ * striped adders, so memory stays constant however long the run is and
+ * summarize() is O(1). addValue takes no lock, so units on many threads can
+ * count at the same time without contending.
+ */
+public class CounterStatistic extends Statistic {
+	private final LongAdder whole = new LongAdder();
+	private final DoubleAdder fractional = new DoubleAdder();
+
+	public CounterStatistic(String name) {
+		super(name);
+	}
+
+	/**
+	 * Add a value to the counter. Integer types are counted exactly; anything
+	 * else is parsed as a floating point number.
+	 * @throws NumberFormatException if the value isn't a number.
+	 */
+	@Override
+	public void addValue(Object item) {
+		if (item instanceof Integer || item instanceof Long
+				|| item instanceof Short || item instanceof Byte) {
+			this.add(((Number) item).longValue());
+		} else if (item instanceof Number) {
+			this.add(((Number) item).doubleValue());
+		} else {
+			this.add(Double.parseDouble(item.toString()));
+		}
+	}
+
+	/** Add one to the counter. */
+	public void increment() {
+		this.add(1L);
+	}
+
+	/** Add a whole amount to the counter. */
+	public void add(long amount) {
+		this.whole.add(amount);
+		this.notifyObservers(this.getComponentName(), this.getName(), amount);
+	}
+
+	/** Add a fractional amount to the counter. */
+	public void add(double amount) {
+		this.fractional.add(amount);
+		this.notifyObservers(this.getComponentName(), this.getName(), (float) amount);
+	}
+
+	/**
+	 * The counter doesn't keep its values, so there is nothing to iterate.
+	 */
+	@Override
+	public Iterator<Object> iterator() {
+		return Collections.emptyIterator();
+	}
+
+	/** @throws UnsupportedOperationException counters can only go up. */
+	@Override
+	public void removeValue(int index) {
+		throw new UnsupportedOperationException("Cannot remove values from a counter");
+	}
+
+	/** @throws UnsupportedOperationException the values aren't kept. */
+	@Override
+	public Object getValue(int index) {
+		throw new UnsupportedOperationException("Counters do not keep individual values");
+	}
+
+	/**
+	 * Sum of everything added so far, without rounding it to a float, so
+	 * long runs can be checkpointed and reported exactly (whole counts stay
+	 * exact up to 2^53).
+	 */
+	public double getTotal() {
+		return this.whole.sum() + this.fractional.sum();
+	}
+
+	/**
+	 * Sum of everything added so far.
+	 * @return the total as a float, which is only exact up to 2^24
+	 *         (16,777,216); use getTotal() or summarizeExact() past that.
+	 */
+	public float summarize() {
+		return (float) this.getTotal();
+	}
+
+	/** Same as getTotal(). */
+	@Override
+	public double summarizeExact() {
+		return this.getTotal();
+	}
+
+	@Override
+	public String describe() {
+		return String.format("%.2f", this.getTotal());
+	}
+
+	/**
+	 * Print out the summary value.
+	 */
+	public void printStatistic() {
+		System.out.printf("\t\tSummary value: %f%n", this.summarize());
+	}
+}
@@ -0,0 +1,198 @@
+package Skeleton;
+
+import java.util.SplittableRandom;
+
+/**
+ * A random duration in seconds, drawn from a caller's random stream so that
+ * a seeded run draws the same values every time.
+ *
+ * Distributions are written in the input as a name and its parameters,
+ * separated by colons (commas would split the value into a list):
+ * 		constant:0.1              always 0.1 (a bare number means the same)
+ * 		exponential:0.1           mean 0.1, e.g. arrivals of a Poisson stream
+ * 		normal:0.1:0.02           mean 0.1, standard deviation 0.02, never negative
+ * 		triangular:0.05:0.1:0.2   minimum, most likely and maximum
+ */
+public abstract class Distribution {
+
+	/**
+	 * Draw one value.
+	 * @param random The stream to draw from.
+	 * @return the value in seconds, never negative.
+	 */
+	public abstract double sample(SplittableRandom random);
+
+	/** @return the mean in seconds. */
+	public abstract double getMean();
+
+	/**
+	 * Reads a distribution written as described above.
+	 * @throws IllegalArgumentException if the text isn't a known distribution
+	 *         or its parameters are out of range.
+	 */
+	public static Distribution parse(String text) {
+		String[] parts = text.trim().split(":");
+		String kind = parts[0].trim().toLowerCase();
+		double[] p = new double[parts.length - 1];
+		try {
+			for (int i = 1; i < parts.length; i++) {
+				p[i - 1] = Double.parseDouble(parts[i].trim());
+			}
+			if (parts.length == 1) {
+				return constant(Double.parseDouble(kind)); // a bare number
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Unknown distribution: " + text);
+		}
+		switch (kind) {
+			case "constant":
+				requireParameters(text, p, 1);
+				return constant(p[0]);
+			case "exponential":
+				requireParameters(text, p, 1);
+				return exponential(p[0]);
+			case "normal":
+				requireParameters(text, p, 2);
+				return normal(p[0], p[1]);
+			case "triangular":
+				requireParameters(text, p, 3);
+				return triangular(p[0], p[1], p[2]);
+			default:
+				throw new IllegalArgumentException("Unknown distribution: " + text);
+		}
+	}
+
+	public static Distribution constant(double value) {
+		requireNonNegative("Constant value", value);
+		return new Distribution() {
+			@Override
+			public double sample(SplittableRandom random) {
+				return value;
+			}
+
+			@Override
+			public double getMean() {
+				return value;
+			}
+
+			@Override
+			public String toString() {
+				return "constant:" + value;
+			}
+		};
+	}
+
+	public static Distribution exponential(double mean) {
+		requirePositive("Exponential mean", mean);
+		return new Distribution() {
+			@Override
+			public double sample(SplittableRandom random) {
+				// 1 - u is in (0, 1], so the log is finite
+				return -mean * Math.log(1.0 - random.nextDouble());
+			}
+
+			@Override
+			public double getMean() {
+				return mean;
+			}
+
+			@Override
+			public String toString() {
+				return "exponential:" + mean;
+			}
+		};
+	}
+
+	/**
+	 * A normal distribution cut off at 0: negative draws are drawn again (a
+	 * few times, then taken as 0), so keep the mean a few deviations above 0
+	 * or the actual mean ends up higher than the one given.
+	 */
+	public static Distribution normal(double mean, double stdDev) {
+		requireNonNegative("Normal mean", mean);
+		requireNonNegative("Normal standard deviation", stdDev);
+		return new Distribution() {
+			@Override
+			public double sample(SplittableRandom random) {
+				for (int attempt = 0; attempt < 8; attempt++) {
+					double value = mean + stdDev * gaussian(random);
+					if (value >= 0) {
+						return value;
+					}
+				}
+				return 0;
+			}
+
+			@Override
+			public double getMean() {
+				return mean;
+			}
+
+			@Override
+			public String toString() {
+				return "normal:" + mean + ":" + stdDev;
+			}
+		};
+	}
+
+	public static Distribution triangular(double min, double mode, double max) {
+		requireNonNegative("Triangular minimum", min);
+		if (mode < min || max < mode || max == min) {
+			throw new IllegalArgumentException(
+					"Triangular needs minimum <= mode <= maximum and minimum < maximum: "
+							+ min + ":" + mode + ":" + max);
+		}
+		double split = (mode - min) / (max - min); // share of the area left of the mode
+		return new Distribution() {
+			@Override
+			public double sample(SplittableRandom random) {
+				double u = random.nextDouble();
+				if (u < split) {
+					return min + Math.sqrt(u * (max - min) * (mode - min));
+				}
+				return max - Math.sqrt((1 - u) * (max - min) * (max - mode));
+			}
+
+			@Override
+			public double getMean() {
+				return (min + mode + max) / 3;
+			}
+
+			@Override
+			public String toString() {
+				return "triangular:" + min + ":" + mode + ":" + max;
+			}
+		};
+	}
+
+	/** A standard normal draw (Marsaglia's polar method). */
+	private static double gaussian(SplittableRandom random) {
+		double u;
+		double v;
+		double s;
+		do {
+			u = 2 * random.nextDouble() - 1;
+			v = 2 * random.nextDouble() - 1;
+			s = u * u + v * v;
+		} while (s >= 1 || s == 0);
+		return u * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	private static void requireParameters(String text, double[] parameters, int count) {
+		if (parameters.length != count) {
+			throw new IllegalArgumentException("Expected " + count + " parameter(s): " + text);
+		}
+	}
+
+	private static void requireNonNegative(String what, double value) {
+		if (!(value >= 0) || Double.isInfinite(value)) {
+			throw new IllegalArgumentException(what + " must be a non-negative number: " + value);
+		}
+	}
+
+	private static void requirePositive(String what, double value) {
+		if (!(value > 0) || Double.isInfinite(value)) {
+			throw new IllegalArgumentException(what + " must be a positive number: " + value);
+		}
+	}
+}
@@ -15,7 +15,7 @@ public class FloatWorkerStatistic extends Statistic {
 	 * Summarize all the valeus that were added to this statistic.
 	 * @return an int that summarizes this statistic.
 	 */
-	public float summarize() {
+	public synchronized float summarize() {
 		float sum = 0;
 		for (Object i : this) {
 			sum += (Float) i;
@@ -0,0 +1,173 @@
+package Skeleton;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Use this for durations whose tail matters more than their mean, like how
+ * long a unit waited on a full or empty SharedBuffer ("BufferWait"). It
+ * answers percentiles (p50, p99, p999) instead of just a total.
+ *
+ * Durations are recorded in nanoseconds into a log-linear histogram: each
+ * power of two is split into SUB_BUCKETS equal buckets, so any value is
+ * known to within about 3% whatever its size, from nanoseconds to days.
+ * The buckets are a fixed array of atomic counters, so record takes no lock
+ * and memory doesn't grow with the run. Percentiles are reported in
+ * milliseconds, like Skeleton.Unit's "ActionTime".
+ */
+public class HistogramStatistic extends Statistic {
+	private static final int SUB_BITS = 5;
+	public static final int SUB_BUCKETS = 1 << SUB_BITS;
+	// values below SUB_BUCKETS get a bucket each, then SUB_BUCKETS per power of two
+	private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+	public HistogramStatistic(String name) {
+		super(name);
+	}
+
+	/**
+	 * Add a duration in nanoseconds.
+	 * @throws NumberFormatException if the value isn't a number.
+	 */
+	@Override
+	public void addValue(Object item) {
+		if (item instanceof Number) {
+			this.record(((Number) item).longValue());
+		} else {
+			this.record(Long.parseLong(item.toString()));
+		}
+	}
+
+	/**
+	 * Add a duration without boxing it. Negative durations count as 0.
+	 * @param nanos The duration in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		this.counts.incrementAndGet(bucketOf(value));
+		this.count.increment();
+		this.sum.add(value);
+		this.max.accumulate(value);
+		this.notifyObservers(this.getComponentName(), this.getName(), (float) (value / NANOS_PER_MILLI));
+	}
+
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/** @return the mean in milliseconds, or NaN if nothing was recorded. */
+	public double getMean() {
+		long n = this.count.sum();
+		return n == 0 ? Double.NaN : this.sum.sum() / NANOS_PER_MILLI / n;
+	}
+
+	/** @return the longest duration in milliseconds, exact, or NaN if nothing was recorded. */
+	public double getMax() {
+		return this.count.sum() == 0 ? Double.NaN : this.max.get() / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * The duration that the given share of recordings did not exceed, to within
+	 * one bucket.
+	 * @param quantile Between 0 and 1, e.g. 0.99 for p99.
+	 * @return the duration in milliseconds, or NaN if nothing was recorded.
+	 */
+	public double getPercentile(double quantile) {
+		if (quantile < 0 || quantile > 1) {
+			throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+		}
+		long total = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return Double.NaN;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				// the middle of the bucket, but never past the largest value seen
+				long middle = lowerBound(i) + (bucketWidth(i) - 1) / 2;
+				return Math.min(middle, this.max.get()) / NANOS_PER_MILLI;
+			}
+		}
+		return this.getMax();
+	}
+
+	/** Index of the bucket holding a non-negative value. */
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BITS;
+		int sub = (int) (value >>> shift) - SUB_BUCKETS;
+		return (shift + 1) * SUB_BUCKETS + sub;
+	}
+
+	/** Smallest value in the bucket. */
+	static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+	}
+
+	private static long bucketWidth(int bucket) {
+		return bucket < SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+	}
+
+	/** The 99th percentile in milliseconds, the figure buffers are sized by. */
+	@Override
+	public float summarize() {
+		return this.count.sum() == 0 ? 0f : (float) this.getPercentile(0.99);
+	}
+
+	@Override
+	public String describe() {
+		return String.format("n=%d p50=%.3f p99=%.3f p999=%.3f max=%.3f",
+				this.getCount(), this.getPercentile(0.5), this.getPercentile(0.99),
+				this.getPercentile(0.999), this.getMax());
+	}
+
+	/**
+	 * The durations aren't kept, so there is nothing to iterate.
+	 */
+	@Override
+	public Iterator<Object> iterator() {
+		return Collections.emptyIterator();
+	}
+
+	/** @throws UnsupportedOperationException recordings can't be taken back. */
+	@Override
+	public void removeValue(int index) {
+		throw new UnsupportedOperationException("Cannot remove values from a histogram");
+	}
+
+	/** @throws UnsupportedOperationException the values aren't kept. */
+	@Override
+	public Object getValue(int index) {
+		throw new UnsupportedOperationException("Histograms do not keep individual values");
+	}
+
+	/**
+	 * Print out the p99 and the percentiles.
+	 */
+	public void printStatistic() {
+		System.out.printf("\t\tSummary value: %f%n", this.summarize());
+		System.out.printf("\t\tPercentiles (ms): %s%n", this.describe());
+	}
+}
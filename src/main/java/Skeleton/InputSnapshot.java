@@ -0,0 +1,109 @@
+package Skeleton;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A frozen, hash-indexed copy of a Skeleton.SimulationInput.
+ *
+ * Values are indexed by key and integers are parsed once, when the snapshot
+ * is taken, so lookups don't scan, copy or parse anything. Later changes to
+ * the input are not seen; take a new snapshot for those. Safe to share
+ * between threads.
+ * */
+public final class InputSnapshot {
+	private final Map<String, List<String>> values;
+	private final Map<String, Integer> integers;
+
+	/**
+	 * Indexes the given key/value pairings. When a key appears more than
+	 * once, the first pairing wins, same as Skeleton.SimulationInput.
+	 *
+	 * @param input The input in the form of an array of string arrays.
+	 * */
+	InputSnapshot(List<? extends List<String>> input) {
+		Map<String, List<String>> values = new HashMap<>();
+		Map<String, Integer> integers = new HashMap<>();
+		for (List<String> pairing : input) {
+			String key = pairing.get(0);
+			if (values.containsKey(key)) {
+				continue;
+			}
+			List<String> value = Collections.unmodifiableList(
+					new ArrayList<>(pairing.subList(1, pairing.size())));
+			values.put(key, value);
+			if (!value.isEmpty()) {
+				try {
+					integers.put(key, Integer.valueOf(value.get(0)));
+				} catch (NumberFormatException e) {
+					// not an integer; getIntegerInput reports it if asked
+				}
+			}
+		}
+		this.values = values;
+		this.integers = integers;
+	}
+
+	/**
+	 * Return the values at the key as a read-only list.
+	 *
+	 * @param key The key to search for.
+	 * @throws RuntimeException when the key is missing.
+	 * */
+	public List<String> getInput(String key) {
+		List<String> value = this.values.get(key);
+		if (value == null) {
+			throw new RuntimeException(String.format("Cannot find input key: %s", key));
+		}
+		return value;
+	}
+
+	/**
+	 * Return the first value at the key as an Integer.
+	 *
+	 * @param key The key to search for.
+	 * @throws RuntimeException when the key is missing.
+	 * @throws NumberFormatException when the value isn't an integer.
+	 * */
+	public Integer getIntegerInput(String key) {
+		Integer value = this.integers.get(key);
+		if (value != null) {
+			return value;
+		}
+		return Integer.valueOf(this.getInput(key).get(0));
+	}
+
+	/**
+	 * Return the first value at the key as an int, or the fallback when the
+	 * key is missing.
+	 *
+	 * @throws NumberFormatException when the value isn't an integer.
+	 * */
+	public int getIntegerInput(String key, int fallback) {
+		Integer value = this.integers.get(key);
+		if (value != null) {
+			return value;
+		}
+		return this.hasInput(key) ? this.getIntegerInput(key) : fallback;
+	}
+
+	/** Return the first value at the key, or the fallback when the key is missing. */
+	public String getStringInput(String key, String fallback) {
+		List<String> value = this.values.get(key);
+		return value == null || value.isEmpty() ? fallback : value.get(0);
+	}
+
+	/** Whether the key is present. */
+	public boolean hasInput(String key) {
+		return this.values.containsKey(key);
+	}
+
+	/** The keys in this snapshot, read-only. */
+	public Set<String> keys() {
+		return Collections.unmodifiableSet(this.values.keySet());
+	}
+}
@@ -0,0 +1,199 @@
+package Skeleton;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Use this to see how fast something is happening right now, not just how
+ * much has happened (e.g. "ItemsMovedRate" next to "ItemsMoved" in
+ * ConveyorBelt). It reports events per second over the last 1, 10 or 60
+ * seconds, so a belt that slows down halfway through a run shows it.
+ *
+ * Counts go into two fixed rings of time buckets: 100 ms buckets for windows
+ * up to a second and 1 s buckets for longer ones. Each bucket is one long
+ * holding its bucket number and its count, updated with a single CAS, so
+ * add takes no lock. A slot is reset by the first add for a newer bucket;
+ * an add that read the time before the slot moved on is dropped, since its
+ * bucket is older than any window. Memory is constant and a query sums at
+ * most MAX_WINDOW_SECONDS buckets, however long the run.
+ *
+ * Time comes from the given clock, so rates follow simulated time in a
+ * discrete-event run. A window never reaches back before the first update.
+ * Observers are told the amount added, like with Skeleton.CounterStatistic;
+ * call getRate or summarize for the rate itself.
+ */
+public class RateStatistic extends Statistic {
+	public static final int MAX_WINDOW_SECONDS = 60;
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final long NO_ORIGIN = Long.MIN_VALUE;
+
+	private final SimulationClock clock;
+	private final Ring fine = new Ring(NANOS_PER_SECOND / 10, 16);
+	private final Ring coarse = new Ring(NANOS_PER_SECOND, 64);
+	private final AtomicLong origin = new AtomicLong(NO_ORIGIN);
+
+	/** A rate against the wall clock. */
+	public RateStatistic(String name) {
+		this(name, SimulationClock.SYSTEM);
+	}
+
+	/**
+	 * @param name The name of the statistic.
+	 * @param clock Where to read the time of each update and query from.
+	 */
+	public RateStatistic(String name, SimulationClock clock) {
+		super(name);
+		this.clock = clock;
+	}
+
+	/**
+	 * Count a number of events now.
+	 * @throws NumberFormatException if the value isn't a number.
+	 */
+	@Override
+	public void addValue(Object item) {
+		if (item instanceof Number) {
+			this.add(((Number) item).longValue());
+		} else {
+			this.add(Long.parseLong(item.toString()));
+		}
+	}
+
+	/** Count one event now. */
+	public void increment() {
+		this.add(1L);
+	}
+
+	/** Count a number of events now. */
+	public void add(long amount) {
+		long now = this.clock.nanoTime();
+		if (this.origin.get() == NO_ORIGIN) {
+			this.origin.compareAndSet(NO_ORIGIN, now);
+		}
+		this.fine.add(now, amount);
+		this.coarse.add(now, amount);
+		this.notifyObservers(this.getComponentName(), this.getName(), amount);
+	}
+
+	/**
+	 * Events per second over the last few seconds, or since the first update
+	 * if that was more recent.
+	 * @param seconds Length of the window, 1 to MAX_WINDOW_SECONDS.
+	 * @return the rate, 0 before anything was counted.
+	 */
+	public double getRate(int seconds) {
+		if (seconds < 1 || seconds > MAX_WINDOW_SECONDS) {
+			throw new IllegalArgumentException("Rate window must be 1 to " + MAX_WINDOW_SECONDS + " seconds: " + seconds);
+		}
+		long start = this.origin.get();
+		if (start == NO_ORIGIN) {
+			return 0;
+		}
+		long now = this.clock.nanoTime();
+		long window = seconds * NANOS_PER_SECOND;
+		Ring ring = seconds == 1 ? this.fine : this.coarse;
+		return ring.rate(now, window, now - start);
+	}
+
+	/** The rate over the last 10 seconds, steady enough for tables. */
+	@Override
+	public float summarize() {
+		return (float) this.getRate(10);
+	}
+
+	@Override
+	public String describe() {
+		return String.format("%.2f/s (1s), %.2f/s (10s), %.2f/s (60s)",
+				this.getRate(1), this.getRate(10), this.getRate(60));
+	}
+
+	/**
+	 * The counts aren't kept, so there is nothing to iterate.
+	 */
+	@Override
+	public Iterator<Object> iterator() {
+		return Collections.emptyIterator();
+	}
+
+	/** @throws UnsupportedOperationException counts can't be taken back. */
+	@Override
+	public void removeValue(int index) {
+		throw new UnsupportedOperationException("Cannot remove values from a rate");
+	}
+
+	/** @throws UnsupportedOperationException the values aren't kept. */
+	@Override
+	public Object getValue(int index) {
+		throw new UnsupportedOperationException("Rates do not keep individual values");
+	}
+
+	/**
+	 * Print out the rates.
+	 */
+	public void printStatistic() {
+		System.out.printf("\t\tRate: %s%n", this.describe());
+	}
+
+	/**
+	 * Buckets of one width, the bucket number in the upper 32 bits of each
+	 * slot and the count in the lower 32.
+	 */
+	private static final class Ring {
+		private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+		private final long width;
+		private final int mask;
+		private final AtomicLongArray slots;
+
+		Ring(long width, int size) {
+			this.width = width;
+			this.mask = size - 1;
+			this.slots = new AtomicLongArray(size);
+		}
+
+		void add(long now, long amount) {
+			long bucket = Math.floorDiv(now, this.width);
+			int slot = (int) bucket & this.mask;
+			long tag = bucket << 32;
+			while (true) {
+				long current = this.slots.get(slot);
+				// buckets ahead of the slot's, modulo 2^32 like the tag
+				int ahead = (int) bucket - (int) (current >>> 32);
+				long next;
+				if (ahead == 0) {
+					next = current + Math.min(amount, COUNT_MASK - (current & COUNT_MASK));
+				} else if (ahead > 0) {
+					next = tag | Math.min(amount, COUNT_MASK);
+				} else {
+					return; // a writer with a later time already took the slot
+				}
+				if (this.slots.compareAndSet(slot, current, next)) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Sums the buckets the window ends in, from the current partial one
+		 * back, and divides by the time they cover.
+		 */
+		double rate(long now, long window, long sinceOrigin) {
+			long bucket = Math.floorDiv(now, this.width);
+			int buckets = (int) (window / this.width);
+			long sum = 0;
+			for (long b = bucket - buckets + 1; b <= bucket; b++) {
+				long value = this.slots.get((int) b & this.mask);
+				if ((value & ~COUNT_MASK) == b << 32) {
+					sum += value & COUNT_MASK;
+				}
+			}
+			long covered = (buckets - 1) * this.width + (now - bucket * this.width);
+			// before the window fills up, only count the time since the first update,
+			// but at least one bucket so a fresh count doesn't look infinitely fast
+			covered = Math.max(Math.min(covered, sinceOrigin), this.width);
+			return sum * (double) NANOS_PER_SECOND / covered;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package Skeleton;
+
+/**
+ * The time source a Skeleton.Unit runs against. Threaded runs use the wall
+ * clock, while the discrete-event engine swaps in a Skeleton.VirtualClock.
+ */
+public interface SimulationClock {
+
+	/** The real clock, backed by System.nanoTime(). */
+	SimulationClock SYSTEM = System::nanoTime;
+
+	/**
+	 * @return the current time in nanoseconds. Only differences between two
+	 * 		   readings are meaningful.
+	 */
+	long nanoTime();
+}
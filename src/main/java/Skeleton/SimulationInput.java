@@ -2,17 +2,23 @@ package Skeleton;
 
 import java.lang.RuntimeException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 /**
  * This class helps you retrieve values from the given input.
+ *
+ * Lookups go through a hash-indexed Skeleton.InputSnapshot, rebuilt after
+ * addInput or setInputArray. Code that reads the input often (like units
+ * acting thousands of times a second) should keep the snapshot() itself.
  * */
 public class SimulationInput {
 	// The inner implementation of the input
 	private ArrayList<ArrayList<String>> input;
+	// Index of the input, built on first lookup and dropped when the input changes
+	private volatile InputSnapshot snapshot;
 
 	public SimulationInput() {
 		this(new ArrayList<ArrayList<String>>());
@@ -32,8 +38,9 @@ public class SimulationInput {
 	 *
 	 * @param input The input in the form of an array of string arrays.
 	 * */
-	public void setInputArray(ArrayList<ArrayList<String>> input) {
+	public synchronized void setInputArray(ArrayList<ArrayList<String>> input) {
 		this.input = input;
+		this.snapshot = null;
 	}
 
 	/**
@@ -42,9 +49,48 @@ public class SimulationInput {
 	 * @param key The name of the input (used for searching).
 	 * @param value The value of the input.
 	 * */
-	public void addInput(String key, Collection<String> value) {
+	public synchronized void addInput(String key, Collection<String> value) {
 		this.input.add(new ArrayList<String>(List.of(key)));
 		this.input.get(this.input.size()-1).addAll(value);
+		this.snapshot = null;
+	}
+
+	/**
+	 * Returns a copy of the input where the given keys have the given values
+	 * instead. The rest of the input is shared with this one as it is now.
+	 *
+	 * @param overrides Keys to replace, with their new values.
+	 * */
+	public synchronized SimulationInput withOverrides(Map<String, ? extends Collection<String>> overrides) {
+		SimulationInput copy = new SimulationInput();
+		for (Map.Entry<String, ? extends Collection<String>> entry : overrides.entrySet()) {
+			copy.addInput(entry.getKey(), entry.getValue());
+		}
+		// the overrides come first, so lookups find them before the originals
+		for (ArrayList<String> pairing : this.input) {
+			copy.addInput(pairing.get(0), pairing.subList(1, pairing.size()));
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns a frozen, indexed copy of the input as it is now. The same
+	 * snapshot is handed out until the input changes.
+	 *
+	 * Changes made directly to the array passed to the constructor or to
+	 * setInputArray are not noticed; use addInput.
+	 * */
+	public InputSnapshot snapshot() {
+		InputSnapshot current = this.snapshot;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (this.snapshot == null) {
+				this.snapshot = new InputSnapshot(this.input);
+			}
+			return this.snapshot;
+		}
 	}
 
 	/**
@@ -53,11 +99,23 @@ public class SimulationInput {
 	 * @param key The key to search for.
 	 * */
 	public Integer getIntegerInput(String key) {
-		return Integer.valueOf(this.getInput(key).get(0));
+		return this.snapshot().getIntegerInput(key);
 	}
 
 	/**
-	 * Return the values in the input.
+	 * Return the first value in the input as an int, or the fallback when
+	 * the key is missing.
+	 *
+	 * @param key The key to search for.
+	 * @param fallback The value to use when the key is missing.
+	 * */
+	public int getIntegerInput(String key, int fallback) {
+		return this.snapshot().getIntegerInput(key, fallback);
+	}
+
+	/**
+	 * Return the values in the input. The list is a copy the caller may change;
+	 * use getValues to avoid the copy.
 	 *
 	 * @param key The key to search for.
 	 * */
@@ -65,21 +123,30 @@ public class SimulationInput {
 		return new ArrayList<String>(this.findKey(key));
 	}
 
+	/**
+	 * Return the values in the input as a read-only view.
+	 *
+	 * @param key The key to search for.
+	 * */
+	public List<String> getValues(String key) {
+		return this.findKey(key);
+	}
+
+	/** Whether the input has the key. */
+	public boolean hasInput(String key) {
+		return this.snapshot().hasInput(key);
+	}
+
 	/**
 	 * Searches for a given key in the input array.
 	 *
 	 * @param key The input key to search for (the first value).
-	 * @return An array of values found at the key.
+	 * @return A read-only list of values found at the key.
 	 * @throws RuntimeException Throws this failure when we can't
 	 * 		   find the input key. This should fail the entire
 	 * 		   simulation.
 	 **/
-	private ArrayList<String> findKey(String key) throws RuntimeException {
-		for (ArrayList<String> pairing : input) {
-			if (pairing.get(0).equals(key)) {
-				return new ArrayList<String>(pairing.subList(1, pairing.size()));
-			}
-		}
-		throw new RuntimeException(String.format("Cannot find input key: %s", key));
+	private List<String> findKey(String key) throws RuntimeException {
+		return this.snapshot().getInput(key);
 	}
 }
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import factory.EventTrace;
+import factory.StatisticEventBus;
 import factory.StatisticObserver;
 
 /**
@@ -16,13 +18,15 @@ import factory.StatisticObserver;
  *
  * In general, you should be able to get by using the Skeleton.WorkerStatistic,
  * but it would be helpful to make a different ones for more specialized summarization,
- * or value parsing.
+ * or value parsing. For plain counts, Skeleton.CounterStatistic avoids keeping
+ * every value around.
  */
 
 public abstract class Statistic implements Iterable<Object> {
 	protected ArrayList<Object> values;
 	private final String name;
 	private String componentName; // Added to track which component this statistic belongs to
+	private StatisticsContainer container; // The simulation it belongs to, once added to one
 
 	private static final List<StatisticObserver> observers = new CopyOnWriteArrayList<>();
 
@@ -31,8 +35,39 @@ public abstract class Statistic implements Iterable<Object> {
 		observers.add(obs);
 	}
 
-	/** Notify observers of an update */
-	private void notifyObservers(String component, String statName, float newValue) {
+	/** Stop notifying an observer that was registered before. */
+	public static void unregisterObserver(StatisticObserver obs) {
+		observers.remove(obs);
+	}
+
+	/** The registered observers, for handing to a factory.StatisticEventBus. */
+	public static Iterable<StatisticObserver> getObservers() {
+		return observers;
+	}
+
+	/**
+	 * Notify observers of an update, and the trace and recorder of its
+	 * simulation first. Observers are served through the simulation's event
+	 * bus if it has one (see StatisticsContainer.setEventBus).
+	 */
+	protected void notifyObservers(String component, String statName, float newValue) {
+		StatisticsContainer owner = this.container;
+		StatisticEventBus bus = null;
+		if (owner != null) {
+			EventTrace trace = owner.getTrace();
+			if (trace != null) {
+				trace.recordStatistic(component, statName, newValue);
+			}
+			StatisticObserver rec = owner.getRecorder();
+			if (rec != null) {
+				rec.onStatisticUpdated(component, statName, newValue);
+			}
+			bus = owner.getEventBus();
+		}
+		if (bus != null) {
+			bus.publish(component, statName, newValue);
+			return;
+		}
 		for (var obs : observers) {
 			obs.onStatisticUpdated(component, statName, newValue);
 		}
@@ -49,6 +84,16 @@ public abstract class Statistic implements Iterable<Object> {
 		this.componentName = componentName;
 	}
 
+	/** Called by Skeleton.Statistics when the statistic joins a simulation's container. */
+	void setContainer(StatisticsContainer container) {
+		this.container = container;
+	}
+
+	/** Returns the container of the simulation this statistic belongs to, or null. */
+	public StatisticsContainer getContainer() {
+		return this.container;
+	}
+
 	public String getName() {
 		return this.name;
 	}
@@ -63,15 +108,23 @@ public abstract class Statistic implements Iterable<Object> {
 	}
 
 	// Use these methods to add/remove/get values
-	public synchronized void addValue(Object item) {
-		this.values.add(item);
-		// notify observers with the correct component name and statistic name
-		try {
-			float v = Float.parseFloat(item.toString());
-			notifyObservers(this.componentName, this.name, v);
-		} catch (NumberFormatException e) {
-			// ignore
+	public void addValue(Object item) {
+		synchronized (this) {
+			this.values.add(item);
 		}
+		// notify observers with the correct component name and statistic name,
+		// outside the lock so observers can't hold up other writers
+		float v;
+		if (item instanceof Number) {
+			v = ((Number) item).floatValue();
+		} else {
+			try {
+				v = Float.parseFloat(item.toString());
+			} catch (NumberFormatException e) {
+				return; // not a number, nothing to report
+			}
+		}
+		notifyObservers(this.componentName, this.name, v);
 	}
 
 	public synchronized void removeValue() {
@@ -89,4 +142,22 @@ public abstract class Statistic implements Iterable<Object> {
 	// Implement these to summarize, and print the statistic
 	public abstract float summarize();
 	public abstract void printStatistic();
+
+	/**
+	 * The summary without rounding it to a float. A float only counts whole
+	 * numbers exactly up to 2^24, so statistics that can grow past that
+	 * (see Skeleton.CounterStatistic) override this; reports and totals
+	 * should use it instead of summarize().
+	 */
+	public double summarizeExact() {
+		return this.summarize();
+	}
+
+	/**
+	 * A short, human-readable summary for tables and reports. Override this
+	 * when a single number doesn't say enough (see Skeleton.StreamingStatistic).
+	 */
+	public String describe() {
+		return String.format("%.2f", this.summarize());
+	}
 }
\ No newline at end of file
@@ -1,24 +1,45 @@
 package Skeleton;
 
-import java.util.HashMap;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class contains the set of statistics for an object in the simulation. These sets are
- * contained within the Singleton StatisticsContainer class. See Main.Robot for an example of
- * how to add to this set.
+ * contained within a StatisticsContainer. See Main.Robot for an example of
+ * how to add to this set. Safe to use from several threads.
  * */
 
 public class Statistics {
 	private SimulationInput input;
-	private HashMap<String, Statistic> allStats;
+	private final String componentName;
+	private final StatisticsContainer container; // may be null
+	private ConcurrentHashMap<String, Statistic> allStats;
 
 	/**
 	 * @param input The simulation input.
 	 **/
 	public Statistics(SimulationInput input) {
+		this(input, null);
+	}
+
+	/**
+	 * @param input The simulation input.
+	 * @param componentName Name of the component these statistics belong to;
+	 * 		  statistics added here report updates under it.
+	 **/
+	public Statistics(SimulationInput input, String componentName) {
+		this(input, componentName, null);
+	}
+
+	/**
+	 * Statistics of a component in the given container; statistics added
+	 * here report their updates to its recorder too.
+	 **/
+	Statistics(SimulationInput input, String componentName, StatisticsContainer container) {
 		this.input = input;
-		this.allStats = new HashMap<String, Statistic>();
+		this.componentName = componentName;
+		this.container = container;
+		this.allStats = new ConcurrentHashMap<String, Statistic>();
 	}
 
 	/**
@@ -28,8 +49,15 @@ public class Statistics {
 	 * @return The statistics object that was added.
 	 */
 	public Statistic addStatistic(String name, Statistic stat) {
-		this.allStats.putIfAbsent(name, stat);
-		return this.allStats.get(name);
+		Statistic existing = this.allStats.putIfAbsent(name, stat);
+		if (existing != null) {
+			return existing;
+		}
+		if (this.componentName != null) {
+			stat.setComponentName(this.componentName);
+		}
+		stat.setContainer(this.container);
+		return stat;
 	}
 
 	/**
@@ -1,36 +1,57 @@
 package Skeleton;
 
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import factory.EventTrace;
+import factory.StatisticEventBus;
+import factory.StatisticObserver;
 
 /**
- * Singleton object for all statistics. At this level, we have one set of Skeleton.Statistics
+ * All statistics of one simulation. At this level, we have one set of Skeleton.Statistics
  * for each Skeleton.Unit. The name of the object is the key used here in the HashMap.
  *
+ * Each simulation should get its own container (newInstance) and hand it to
+ * its units. The static getInstance() singleton is kept for older code that
+ * looks it up instead. Components may be added from any number of threads.
  */
 public class StatisticsContainer {
 
 	// Contains each statistic for the unit of a given name
-	private LinkedHashMap<String, Statistics> allStatistics;
-	private static StatisticsContainer stats;
+	private final ConcurrentHashMap<String, Statistics> allStatistics;
+	// Component names in the order they were first added
+	private final Queue<String> order;
+	private static volatile StatisticsContainer stats;
+	// Bound by runWith, so a simulation on this thread uses its own container
+	private static final ThreadLocal<StatisticsContainer> current = new ThreadLocal<>();
 	private SimulationInput input;
+	// When set, sees every update of this simulation on the publishing thread
+	private volatile StatisticObserver recorder;
+	// When set, this simulation's events are traced to it
+	private volatile EventTrace trace;
+	// When set, observers get this simulation's updates through it
+	private volatile StatisticEventBus eventBus;
 
 	/* Clear out any existing singleton so each test starts fresh. */
-	public static void resetInstance() {
+	public static synchronized void resetInstance() {
 		stats = null;
 	}
 
 	/** Constructor that creates the hash table. */
 	private StatisticsContainer(SimulationInput input) {
 		this.input = input;
-		this.allStatistics = new LinkedHashMap<>();
+		this.allStatistics = new ConcurrentHashMap<>();
+		this.order = new ConcurrentLinkedQueue<>();
 	}
 
 	/** Constructs a container with statistics split into components. */
 	private StatisticsContainer(SimulationInput input, String[] compNames) {
 		this(input);
 		for (String comp : compNames) {
-			this.allStatistics.put(comp, new Statistics(this.input));
+			this.addComponent(comp);
 		}
 	}
 
@@ -41,13 +62,57 @@ public class StatisticsContainer {
 
 	/**
 	 * Returns the statistics object if it exists, otherwise it creates it.
+	 * Inside runWith, returns the container bound to this thread instead.
 	 * @param si SimulationInput to initialize if new
 	 */
 	public static StatisticsContainer getInstance(SimulationInput si) {
-		if (StatisticsContainer.stats == null) {
-			StatisticsContainer.stats = new StatisticsContainer(si);
+		StatisticsContainer bound = current.get();
+		if (bound != null) {
+			return bound;
+		}
+		StatisticsContainer instance = StatisticsContainer.stats;
+		if (instance == null) {
+			synchronized (StatisticsContainer.class) {
+				if (StatisticsContainer.stats == null) {
+					StatisticsContainer.stats = new StatisticsContainer(si);
+				}
+				instance = StatisticsContainer.stats;
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Creates a container that is not the singleton, for a simulation that
+	 * must not share statistics with others. Pass it to the simulation
+	 * (e.g. Matrix.run(input, container)), or see runWith.
+	 * @param si SimulationInput of that simulation
+	 */
+	public static StatisticsContainer newInstance(SimulationInput si) {
+		return new StatisticsContainer(si);
+	}
+
+	/**
+	 * Runs the task with getInstance() returning the given container on the
+	 * calling thread, for code that still looks the container up instead of
+	 * being handed one. Lookups happen when units are created, so a
+	 * simulation built and run inside the task records into the container,
+	 * even though its units act on other threads.
+	 * @param container where the task's simulation records its statistics
+	 * @param task what to run
+	 */
+	public static void runWith(StatisticsContainer container, Runnable task) {
+		StatisticsContainer previous = current.get();
+		current.set(container);
+		try {
+			task.run();
+		} finally {
+			if (previous == null) {
+				current.remove();
+			} else {
+				current.set(previous);
+			}
 		}
-		return StatisticsContainer.stats;
 	}
 
 	/**
@@ -55,8 +120,11 @@ public class StatisticsContainer {
 	 * @param component Name of the component
 	 */
 	public Statistics addComponent(String component) {
-		allStatistics.put(component, new Statistics(this.input));
-		return this.getComponent(component);
+		Statistics added = new Statistics(this.input, component, this);
+		if (this.allStatistics.put(component, added) == null) {
+			this.order.add(component);
+		}
+		return added;
 	}
 
 	/**
@@ -67,20 +135,68 @@ public class StatisticsContainer {
 	public Statistics getComponent(String component) {
 		return this.allStatistics.computeIfAbsent(
 				component,
-				key -> new Statistics(this.input)
+				key -> {
+					this.order.add(key);
+					return new Statistics(this.input, key, this);
+				}
 		);
 	}
 
 	/**
-	 * Returns the names of all registered components.
+	 * Returns the names of all registered components, in the order they were
+	 * added. This is a copy; components added later won't show up in it.
 	 */
 	public Set<String> getComponentNames() {
-		return this.allStatistics.keySet();
+		return Collections.unmodifiableSet(new LinkedHashSet<>(this.order));
+	}
+
+	/**
+	 * Hand every update of this simulation's statistics to the given observer
+	 * on the unit's own thread, even when a bus delivers to the others, so
+	 * none are coalesced or dropped. Other simulations running at the same
+	 * time keep their own. The unit waits for it, so it must return quickly
+	 * (see factory.StatisticsFileWriter). Null removes it.
+	 */
+	public void setRecorder(StatisticObserver recorder) {
+		this.recorder = recorder;
+	}
+
+	/** Returns the observer set with setRecorder, or null. */
+	public StatisticObserver getRecorder() {
+		return this.recorder;
+	}
+
+	/**
+	 * Record this simulation's unit actions, buffer moves and statistic
+	 * updates in the given trace; other simulations running at the same time
+	 * aren't affected. Null stops tracing.
+	 */
+	public void setTrace(EventTrace trace) {
+		this.trace = trace;
+	}
+
+	/** Returns the trace set with setTrace, or null. */
+	public EventTrace getTrace() {
+		return this.trace;
+	}
+
+	/**
+	 * Deliver this simulation's updates to the observers asynchronously
+	 * through the given bus; other simulations running at the same time keep
+	 * their own. Null delivers them on the unit's thread again.
+	 */
+	public void setEventBus(StatisticEventBus bus) {
+		this.eventBus = bus;
+	}
+
+	/** Returns the bus set with setEventBus, or null. */
+	public StatisticEventBus getEventBus() {
+		return this.eventBus;
 	}
 
 	/** Print the statistics container. */
 	public void printStatisticsContainer() {
-		for (String key : this.allStatistics.keySet()) {
+		for (String key : this.order) {
 			System.out.println(String.format("Statistics for %s:", key));
 			this.allStatistics.get(key).printStatistics();
 			System.out.println();
@@ -0,0 +1,166 @@
+package Skeleton;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Use this for measurements where the spread matters, not just the total
+ * (e.g. how long each action took). It keeps a running count, sum, min, max,
+ * mean and variance in primitive fields (Welford's method), so it doesn't
+ * grow with the length of the run.
+ *
+ * If you still want some raw samples, give it a reservoir size: it then keeps
+ * a uniform random sample of at most that many values, which is what the
+ * iterator walks over.
+ */
+public class StreamingStatistic extends Statistic {
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	private double mean;
+	private double m2; // sum of squared distances from the mean
+
+	private final double[] reservoir;
+	private final SplittableRandom random;
+
+	/** A streaming statistic that keeps no samples. */
+	public StreamingStatistic(String name) {
+		this(name, 0);
+	}
+
+	/**
+	 * @param name The name of the statistic.
+	 * @param reservoirSize How many raw samples to keep (0 for none).
+	 */
+	public StreamingStatistic(String name, int reservoirSize) {
+		super(name);
+		if (reservoirSize < 0) {
+			throw new IllegalArgumentException("Reservoir size cannot be negative: " + reservoirSize);
+		}
+		this.reservoir = new double[reservoirSize];
+		// Seeded from the name so runs stay reproducible
+		this.random = new SplittableRandom(name.hashCode());
+	}
+
+	@Override
+	public void addValue(Object item) {
+		if (item instanceof Number) {
+			this.record(((Number) item).doubleValue());
+		} else {
+			this.record(Double.parseDouble(item.toString()));
+		}
+	}
+
+	/**
+	 * Add a sample without boxing it.
+	 * @param value The sample.
+	 */
+	public void record(double value) {
+		synchronized (this) {
+			this.count++;
+			this.sum += value;
+			this.min = Math.min(this.min, value);
+			this.max = Math.max(this.max, value);
+			double delta = value - this.mean;
+			this.mean += delta / this.count;
+			this.m2 += delta * (value - this.mean);
+
+			if (this.reservoir.length > 0) {
+				if (this.count <= this.reservoir.length) {
+					this.reservoir[(int) this.count - 1] = value;
+				} else {
+					long slot = this.random.nextLong(this.count);
+					if (slot < this.reservoir.length) {
+						this.reservoir[(int) slot] = value;
+					}
+				}
+			}
+		}
+		this.notifyObservers(this.getComponentName(), this.getName(), (float) value);
+	}
+
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	public synchronized double getSum() {
+		return this.sum;
+	}
+
+	/** @return the smallest sample, or NaN if there are none. */
+	public synchronized double getMin() {
+		return this.count == 0 ? Double.NaN : this.min;
+	}
+
+	/** @return the largest sample, or NaN if there are none. */
+	public synchronized double getMax() {
+		return this.count == 0 ? Double.NaN : this.max;
+	}
+
+	/** @return the mean, or NaN if there are no samples. */
+	public synchronized double getMean() {
+		return this.count == 0 ? Double.NaN : this.mean;
+	}
+
+	/** @return the sample variance, or NaN with fewer than two samples. */
+	public synchronized double getVariance() {
+		return this.count < 2 ? Double.NaN : this.m2 / (this.count - 1);
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+
+	/** Iterates over a copy of the reservoir (empty if there is none). */
+	@Override
+	public Iterator<Object> iterator() {
+		return this.getSamples().iterator();
+	}
+
+	/** @return a copy of the samples currently in the reservoir. */
+	public synchronized List<Object> getSamples() {
+		int kept = (int) Math.min(this.count, this.reservoir.length);
+		List<Object> samples = new ArrayList<>(kept);
+		for (int i = 0; i < kept; i++) {
+			samples.add(this.reservoir[i]);
+		}
+		return samples;
+	}
+
+	/** @throws UnsupportedOperationException samples can't be taken back out. */
+	@Override
+	public void removeValue(int index) {
+		throw new UnsupportedOperationException("Cannot remove values from a streaming statistic");
+	}
+
+	/** @return the reservoir sample at the index. */
+	@Override
+	public Object getValue(int index) {
+		return this.getSamples().get(index);
+	}
+
+	/**
+	 * Sum of all samples, to match the other statistics.
+	 * @return the sum as a float.
+	 */
+	public float summarize() {
+		return (float) this.getSum();
+	}
+
+	@Override
+	public synchronized String describe() {
+		return String.format("n=%d mean=%.3f sd=%.3f min=%.3f max=%.3f",
+				this.count, this.getMean(), this.getStandardDeviation(), this.getMin(), this.getMax());
+	}
+
+	/**
+	 * Print out the sum and the distribution.
+	 */
+	public void printStatistic() {
+		System.out.printf("\t\tSummary value: %f%n", this.summarize());
+		System.out.printf("\t\tDistribution: %s%n", this.describe());
+	}
+}
@@ -1,5 +1,8 @@
 package Skeleton;
 
+import factory.EventTrace;
+import factory.TraceEvent;
+
 import java.lang.Math;
 import java.util.concurrent.TimeUnit;
 
@@ -12,33 +15,61 @@ import java.util.concurrent.TimeUnit;
 public abstract class Unit implements Runnable {
 	private String name; // Name of the unit
 	private SimulationInput input; // The input settings
+	private final InputSnapshot settings; // The input as it was when the unit was made
 	private Statistics stats;
+	private final StatisticsContainer container; // The simulation it belongs to
+	private final StreamingStatistic actionTime;
+	private SimulationClock clock = SimulationClock.SYSTEM; // Where the unit reads time from
+	private ActionTiming timing = ActionTiming.fixed(); // When the unit acts next
+	private volatile UnitState state = UnitState.IDLE; // Read by samplers on other threads
+	private volatile int completedActions; // Actions finished, including any resumed from a checkpoint
+	private volatile int progressVersion;  // Odd while an action is being finished, see readAtActionBoundary
 
 	public Unit(SimulationInput input) {
 		this("DefaultUnitName", input);
 	}
 
 	/**
-	 * General constructor for the Skeleton.Unit.
+	 * General constructor for the Skeleton.Unit. Its statistics go into the
+	 * shared StatisticsContainer.getInstance().
 	 * 
 	 * @param name The name of the unit.
 	 * @param input The input settings.
 	 * */
 	public Unit(String name, SimulationInput input) {
+		this(name, input, StatisticsContainer.getInstance());
+	}
+
+	/**
+	 * Constructor for a Skeleton.Unit of a simulation with its own statistics.
+	 * 
+	 * @param name The name of the unit.
+	 * @param input The input settings.
+	 * @param container Where the simulation keeps its statistics.
+	 * */
+	public Unit(String name, SimulationInput input, StatisticsContainer container) {
 		this.name = name;
 		this.input = input;
+		this.settings = input.snapshot();
+		this.container = container;
 
 		// Get the statistics object for this Skeleton.Unit
-		this.stats = StatisticsContainer.getInstance().addComponent(this.getName());
+		this.stats = container.addComponent(this.getName());
 
-		// Add a statistic for the number of active units performing an action
-		this.stats.addStatistic("ActiveUnits", new WorkerStatistic("ActiveUnits"));
+		// How long each action took in milliseconds, including time spent blocked
+		this.actionTime = (StreamingStatistic) this.stats.addStatistic(
+				"ActionTime", new StreamingStatistic("ActionTime"));
 	}
 
 	public Statistics getStats() {
 		return this.stats;
 	}
 
+	/** Returns the trace of the simulation this unit belongs to, or null if it isn't traced. */
+	public EventTrace getTrace() {
+		return this.container.getTrace();
+	}
+
 	/**
 	 * Has your unit perform a single action. For example:
 	 * 		Minning some ore.
@@ -59,6 +90,22 @@ public abstract class Unit implements Runnable {
 	 * */
 	public abstract void performAction();
 
+	/**
+	 * Non-blocking version of performAction, used by engines that must not
+	 * block their thread (like the discrete-event engine). Instead of waiting
+	 * on a full or empty buffer, the unit reports that it couldn't act and
+	 * gets retried later.
+	 *
+	 * The default just calls performAction, which is only safe for units that
+	 * never block. Override this if your performAction can block.
+	 *
+	 * @return true if the action was performed, false if it would have blocked.
+	 * */
+	public boolean tryPerformAction() {
+		this.performAction();
+		return true;
+	}
+
 	/**
 	 * Submit some statistics to the Skeleton.Statistics object.
 	 * 
@@ -70,11 +117,144 @@ public abstract class Unit implements Runnable {
 	 * */
 	public abstract void submitStatistics();
 
+	/**
+	 * Records how long one action took in the "ActionTime" statistic.
+	 * @param nanos The duration of the action in nanoseconds.
+	 */
+	public void recordActionTime(long nanos) {
+		this.actionTime.record(nanos / 1_000_000.0);
+	}
+
+	/** Adds an event about this unit to its simulation's trace, if it has one. */
+	private void trace(TraceEvent event, long value) {
+		EventTrace trace = this.container.getTrace();
+		if (trace != null) {
+			trace.record(event, this.name, 0, value);
+		}
+	}
+
+	/**
+	 * Books a finished action: records how long it took, submits the
+	 * statistics and counts it. Every engine calls this once per action.
+	 * Only the thread running the Skeleton.Unit may call it.
+	 * @param nanos The duration of the action in nanoseconds.
+	 */
+	public void finishAction(long nanos) {
+		this.progressVersion++;
+		this.trace(TraceEvent.ACTION_END, nanos);
+		this.recordActionTime(nanos);
+		this.submitStatistics();
+		this.completedActions++;
+		this.progressVersion++;
+	}
+
+	/** Returns how many actions the Skeleton.Unit has finished. **/
+	public int getCompletedActions() {
+		return this.completedActions;
+	}
+
+	/**
+	 * Picks up from a checkpoint: the Skeleton.Unit acts as if it had already
+	 * finished that many actions. Call before it runs.
+	 * */
+	public void setCompletedActions(int completedActions) {
+		this.completedActions = completedActions;
+	}
+
+	/**
+	 * Runs the reader between two actions, so whatever it reads of this
+	 * Skeleton.Unit's statistics matches getCompletedActions. It is run again
+	 * if an action finished meanwhile, so it must only read. Never waits for
+	 * more than the end of one action's bookkeeping.
+	 * @return the completed actions the reader saw
+	 * */
+	public int readAtActionBoundary(Runnable reader) {
+		while (true) {
+			int version = this.progressVersion;
+			if ((version & 1) != 0) {
+				Thread.onSpinWait();
+				continue;
+			}
+			int completed = this.completedActions;
+			reader.run();
+			if (this.progressVersion == version) {
+				return completed;
+			}
+		}
+	}
+
 	/** Returns the Skeleton.SimulationInput **/
 	public SimulationInput getSimInput() {
 		return this.input;
 	}
 
+	/**
+	 * Returns the input as it was when this Skeleton.Unit was created. Lookups
+	 * are cheap, so prefer this over getSimInput in performAction.
+	 * */
+	public InputSnapshot getSettings() {
+		return this.settings;
+	}
+
+	/** Returns the clock this Skeleton.Unit runs against. **/
+	public SimulationClock getClock() {
+		return this.clock;
+	}
+
+	/** Swap the clock, e.g. for a Skeleton.VirtualClock in a discrete-event run. **/
+	public void setClock(SimulationClock clock) {
+		this.clock = clock;
+	}
+
+	/** Returns how the Skeleton.Unit spaces its actions. **/
+	public ActionTiming getTiming() {
+		return this.timing;
+	}
+
+	/**
+	 * Give the Skeleton.Unit random gaps between actions, or breakdowns. A
+	 * timing with breakdowns adds the "Failures" and "Downtime" statistics.
+	 * */
+	public void setTiming(ActionTiming timing) {
+		this.timing = timing;
+		if (timing.hasFailures()) {
+			this.stats.addStatistic("Failures", new CounterStatistic("Failures"));
+			// how long each breakdown lasted in milliseconds
+			this.stats.addStatistic("Downtime", new StreamingStatistic("Downtime"));
+		}
+	}
+
+	/**
+	 * Draws the time from the start of this action to the start of the next
+	 * from the Skeleton.Unit's timing, and records any breakdown in between.
+	 * @param fixedPeriodNanos The period at `ActionsPerSecond`.
+	 * @return the delay in nanoseconds.
+	 */
+	public long nextActionDelay(long fixedPeriodNanos) {
+		long delay = this.timing.nextDelayNanos(fixedPeriodNanos);
+		int failures = this.timing.getLastFailures();
+		if (failures > 0) {
+			this.stats.getStatistic("Failures").addValue(failures);
+			((StreamingStatistic) this.stats.getStatistic("Downtime"))
+					.record(this.timing.getLastRepairNanos() / 1_000_000.0);
+		}
+		return delay;
+	}
+
+	/** Returns what the Skeleton.Unit is doing right now. **/
+	public UnitState getState() {
+		return this.state;
+	}
+
+	/**
+	 * Tell samplers what the Skeleton.Unit is doing. Engines set WORKING around
+	 * each action and IDLE between them; whatever waits on a buffer sets
+	 * BLOCKED and back.
+	 * */
+	public void setState(UnitState state) {
+		this.state = state;
+	}
+
 	/** Returns the Skeleton.Unit's name. **/
 	public String getName() {
 		return this.name;
@@ -97,43 +277,109 @@ public abstract class Unit implements Runnable {
 	 * If you override this method in a subclass, ensure that all of the
 	 * above is still implemented.
 	 * 
+	 * Setting the `Pacing` input to "none" skips the waiting, so the Skeleton.Unit
+	 * runs its actions back to back (used for benchmarking).
+	 * 
+	 * With random timing (see Skeleton.ActionTiming) the Skeleton.Unit instead
+	 * acts for as long as its drawn schedule stays within `Time` seconds.
+	 * Either way it stops when interrupted, without counting the action it
+	 * was interrupted in.
+	 * 
+	 * A Skeleton.Unit resumed from a checkpoint (see setCompletedActions) only
+	 * performs the actions it has left.
+	 * 
 	 * The run method performs the following:
-	 * 		Add a worker/unit to the stats object.
+	 * 		Mark the Skeleton.Unit WORKING (see Skeleton.UnitState).
 	 * 		Perform the action.
-	 * 		Submit the statistics.
-	 * 		Remove the worker/unit from the stats object.
-	 * 		Wait until the next action needs to be performed.
+	 * 		Submit the statistics (and how long the action took).
+	 * 		Mark it IDLE until the next action needs to be performed, then
+	 * 		WORKING again.
+	 * 		Mark it IDLE once every action is done.
 	 * 
 	 * */
 	@Override
 	public void run() {
-		int timeSec = this.input.getIntegerInput("Time");
-		int actionsPerSec = this.input.getIntegerInput("ActionsPerSecond");
+		int timeSec = this.settings.getIntegerInput("Time");
+		int actionsPerSec = this.settings.getIntegerInput("ActionsPerSecond");
 		long msPerAction = (long) ((1.0 / actionsPerSec) * 1000);
+		boolean paced = !"none".equalsIgnoreCase(this.settings.getStringInput("Pacing", "realtime"));
+		this.setState(UnitState.WORKING);
+		try {
+			if (this.timing.isRandom()) {
+				this.runRandom(timeSec * 1_000_000_000L, 1_000_000_000L / actionsPerSec, paced);
+			} else {
+				this.runFixed(timeSec * actionsPerSec, msPerAction, paced);
+			}
+		} finally {
+			this.setState(UnitState.IDLE);
+		}
+	}
 
-		int totalActions = timeSec * actionsPerSec;
-		for (int actionCount = 0; actionCount < totalActions; actionCount++) {
+	private void runFixed(int totalActions, long msPerAction, boolean paced) {
+		while (this.completedActions < totalActions) {
 			long actionStart = System.currentTimeMillis();
 
-			// 1) mark active
-			Statistic activeStat = this.getStats().getStatistic("ActiveUnits");
-			activeStat.addValue(1);
-
-			// 2) perform and record
+			// 1) perform and record
+			long performStart = this.clock.nanoTime();
+			this.trace(TraceEvent.ACTION_START, 0);
 			this.performAction();
-			this.submitStatistics();
-
-			// 3) unmark active
-			activeStat.removeValue();
+			if (Thread.currentThread().isInterrupted()) {
+				break; // stopped while blocked, so the action never happened
+			}
+			this.finishAction(this.clock.nanoTime() - performStart);
 
-			// 4) wait for next action
+			// 2) wait for next action
+			if (!paced) {
+				continue;
+			}
 			long drift = System.currentTimeMillis() - actionStart;
 			long sleep = Math.max(0, msPerAction - drift);
+			if (sleep == 0) {
+				continue;
+			}
+			this.setState(UnitState.IDLE);
 			try {
 				Thread.sleep(sleep);
 			} catch (InterruptedException e) {
 				Thread.currentThread().interrupt();
 			}
+			this.setState(UnitState.WORKING);
+		}
+	}
+
+	/**
+	 * Acts at the gaps drawn from the timing until the next action would
+	 * start after the horizon. Unpaced, the schedule is followed without
+	 * waiting, so the same actions happen, only sooner.
+	 */
+	private void runRandom(long horizonNanos, long fixedPeriodNanos, boolean paced) {
+		long runStart = System.nanoTime();
+		long due = 0; // when the current action was due, since runStart
+		while (due < horizonNanos && !Thread.currentThread().isInterrupted()) {
+			long performStart = this.clock.nanoTime();
+			this.trace(TraceEvent.ACTION_START, 0);
+			this.performAction();
+			if (Thread.currentThread().isInterrupted()) {
+				break; // stopped while blocked past the end of the run
+			}
+			this.finishAction(this.clock.nanoTime() - performStart);
+
+			due += this.nextActionDelay(fixedPeriodNanos);
+			if (!paced) {
+				continue;
+			}
+			// an overrun pushes the schedule back, as with the fixed period
+			long now = System.nanoTime() - runStart;
+			due = Math.max(due, now);
+			if (due > now && due < horizonNanos) {
+				this.setState(UnitState.IDLE);
+				try {
+					TimeUnit.NANOSECONDS.sleep(due - now);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				this.setState(UnitState.WORKING);
+			}
 		}
 	}
 
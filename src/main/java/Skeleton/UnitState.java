@@ -0,0 +1,16 @@
+package Skeleton;
+
+/**
+ * What a Skeleton.Unit is doing right now, as seen by samplers.
+ *
+ * A unit is WORKING while it performs an action and records it, BLOCKED
+ * while it waits for room or for an item in a buffer, and IDLE otherwise:
+ * before it starts, once it is done, and while it waits for its next
+ * action to be due. A unit paced by its `ActionsPerSecond` is therefore
+ * only as busy as its actions are long.
+ */
+public enum UnitState {
+	IDLE,
+	WORKING,
+	BLOCKED
+}
@@ -0,0 +1,27 @@
+package Skeleton;
+
+/**
+ * A simulated clock that only moves when the scheduler advances it. It starts
+ * at zero, so readings are the simulated time since the run began.
+ */
+public class VirtualClock implements SimulationClock {
+	private volatile long now;
+
+	@Override
+	public long nanoTime() {
+		return this.now;
+	}
+
+	/**
+	 * Move the clock forward.
+	 * @param time The new time in nanoseconds.
+	 * @throws IllegalArgumentException if the time would go backwards.
+	 */
+	public void advanceTo(long time) {
+		if (time < this.now) {
+			throw new IllegalArgumentException(
+					String.format("Clock cannot go back from %d to %d", this.now, time));
+		}
+		this.now = time;
+	}
+}
@@ -0,0 +1,61 @@
+package factory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a strategy may need about the unit it acts for. Robots build one
+ * when they're created and pass the same instance to every action.
+ */
+public class ActionContext {
+    private final String name;
+    private final SharedBuffer<String> buffer;
+    private final ResourcePools pools;
+    private final int batchSize;
+    private final List<String> scratch;
+
+    /**
+     * @param name   the unit’s name
+     * @param buffer shared buffer (may be null)
+     * @param pools  resource pools of the simulation
+     */
+    public ActionContext(String name, SharedBuffer<String> buffer, ResourcePools pools) {
+        this(name, buffer, pools, 1);
+    }
+
+    /**
+     * @param batchSize most items to consume per action
+     */
+    public ActionContext(String name, SharedBuffer<String> buffer, ResourcePools pools, int batchSize) {
+        this.name = name;
+        this.buffer = buffer;
+        this.pools = pools;
+        this.batchSize = batchSize;
+        this.scratch = new ArrayList<>(batchSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SharedBuffer<String> getBuffer() {
+        return buffer;
+    }
+
+    public ResourcePools getPools() {
+        return pools;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * An empty list to drain items into. It's reused for every action of the
+     * unit, so don't keep a reference to it.
+     */
+    public List<String> scratch() {
+        scratch.clear();
+        return scratch;
+    }
+}
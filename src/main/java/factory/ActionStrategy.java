@@ -11,4 +11,42 @@ public interface ActionStrategy {
      * @throws InterruptedException if interrupted
      */
     void execute(String name, SharedBuffer<String> buffer) throws InterruptedException;
+
+    /**
+     * Non-blocking version of execute for the discrete-event engine.
+     * The default runs execute, so override this if execute can block.
+     * @param name   the unit’s name
+     * @param buffer shared buffer (may be null)
+     * @return false if the action would have blocked
+     */
+    default boolean tryExecute(String name, SharedBuffer<String> buffer) {
+        try {
+            execute(name, buffer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * Execute one action with access to the unit's resource pools and batch
+     * size. Robots call this one; the default ignores both and runs execute above.
+     * @param context the acting unit's name, buffer, pools and batch size
+     * @return how many items the action consumed
+     * @throws InterruptedException if interrupted
+     */
+    default int execute(ActionContext context) throws InterruptedException {
+        execute(context.getName(), context.getBuffer());
+        return 1;
+    }
+
+    /**
+     * Non-blocking version of execute(ActionContext). The default ignores the
+     * pools and batch size.
+     * @param context the acting unit's name, buffer, pools and batch size
+     * @return how many items the action consumed, 0 if it would have blocked
+     */
+    default int tryExecute(ActionContext context) {
+        return tryExecute(context.getName(), context.getBuffer()) ? 1 : 0;
+    }
 }
@@ -0,0 +1,275 @@
+package factory;
+
+import Skeleton.Statistic;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where a run was held back, from what an OccupancySampler published.
+ *
+ * Units are grouped into stages by name ("Robot-3" belongs to "Robot",
+ * "pack-2" to pipeline stage "pack"). For each stage it shows the items per
+ * second and the average share of time its units were working, blocked on
+ * a buffer, or idle (waiting for its next action to be due). The bottleneck
+ * is the stage that was blocked the least: the others end up waiting on it,
+ * upstream for room and downstream for items. Discrete runs take no
+ * simulated time to act, so there their units barely work at all. In a
+ * Pipeline it is the stage Pipeline.getBottleneck named instead, so the two
+ * agree. Stations there wait for room and items like any unit, but stop
+ * waiting once a neighbouring stage is done: they idle when everything
+ * upstream has finished and drop items when everything downstream has. Their
+ * blocked share then says more about when each stage ran out than about
+ * which one held the line back.
+ *
+ * For each queue it checks Little's law, L = lambda * W: the time-weighted
+ * mean depth L against the throughput lambda times the mean wait W. The two
+ * were measured separately, so a ratio far from 1 means the run was too
+ * short to settle, or the samples too coarse for how quickly items pass.
+ */
+public class BottleneckReport {
+    // stages blocked within this share of the least blocked one count as tied
+    private static final double TIE = 0.02;
+    // component prefix of a pipeline stage's own statistics (see PipelineStage)
+    private static final String PIPELINE_STAGE = "Stage-";
+
+    /** One group of identical units. */
+    public static final class Stage {
+        private final String name;
+        private int units;
+        private double items;
+        private double working;
+        private double blocked;
+        private double throughput;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getUnits() {
+            return units;
+        }
+
+        /** @return items per second over the whole stage */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        /** @return mean share of the run its units were working, 0..1 */
+        public double getUtilization() {
+            return working / units;
+        }
+
+        /** @return mean share of the run its units waited on a buffer, 0..1 */
+        public double getBlockedShare() {
+            return blocked / units;
+        }
+
+        public double getIdleShare() {
+            return Math.max(0, 1 - getUtilization() - getBlockedShare());
+        }
+    }
+
+    /** The measurements of one queue. */
+    public static final class Queue {
+        private final String name;
+        private final int capacity;
+        private final double meanDepth;
+        private final int maxDepth;
+        private final double throughput;
+        private final double meanWaitMillis;
+
+        Queue(String name, int capacity, double meanDepth, int maxDepth,
+              double throughput, double meanWaitMillis) {
+            this.name = name;
+            this.capacity = capacity;
+            this.meanDepth = meanDepth;
+            this.maxDepth = maxDepth;
+            this.throughput = throughput;
+            this.meanWaitMillis = meanWaitMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /** @return L, the time-weighted mean number of items waiting */
+        public double getMeanDepth() {
+            return meanDepth;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        /** @return lambda, items taken out per second */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        /** @return W, how long an item waited on average, in ms; NaN if none left */
+        public double getMeanWaitMillis() {
+            return meanWaitMillis;
+        }
+
+        /** @return L / (lambda * W): 1 when Little's law holds, NaN when nothing passed */
+        public double getLittleRatio() {
+            double expected = throughput * meanWaitMillis / 1000.0;
+            return expected > 0 ? meanDepth / expected : Double.NaN;
+        }
+    }
+
+    private final double elapsedSeconds;
+    private final List<Stage> stages;
+    private final List<Queue> queues;
+    private final String pipelineBottleneck; // null unless a pipeline named one
+
+    private BottleneckReport(double elapsedSeconds, List<Stage> stages, List<Queue> queues,
+                             String pipelineBottleneck) {
+        this.elapsedSeconds = elapsedSeconds;
+        this.pipelineBottleneck = pipelineBottleneck;
+        this.stages = Collections.unmodifiableList(stages);
+        this.queues = Collections.unmodifiableList(queues);
+    }
+
+    /**
+     * Builds the report from a finished run's statistics.
+     * @return the report, or null if the run wasn't sampled
+     */
+    public static BottleneckReport of(StatisticsContainer container) {
+        if (!container.getComponentNames().contains(OccupancySampler.COMPONENT)) {
+            return null;
+        }
+        Statistics sampler = container.getComponent(OccupancySampler.COMPONENT);
+        if (sampler.getStatistic("Elapsed") == null) {
+            return null;
+        }
+        double elapsed = sampler.getStatistic("Elapsed").summarize();
+        Map<String, Stage> stages = new LinkedHashMap<>();
+        List<Queue> queues = new ArrayList<>();
+        String pipelineBottleneck = null;
+        for (String component : container.getComponentNames()) {
+            Statistics stats = container.getComponent(component);
+            if (component.startsWith(PIPELINE_STAGE) && value(stats, "Bottleneck") > 0) {
+                pipelineBottleneck = component.substring(PIPELINE_STAGE.length());
+            }
+            if (stats.getStatistic("BlockedShare") != null) {
+                int dash = component.lastIndexOf('-');
+                String name = dash > 0 ? component.substring(0, dash) : component;
+                Stage stage = stages.computeIfAbsent(name, Stage::new);
+                stage.units++;
+                stage.working += value(stats, "Utilization");
+                stage.blocked += value(stats, "BlockedShare");
+                // what a unit finished with: robots and stations process, belts move
+                stage.items += stats.getStatistic("ItemsProcessed") != null
+                        ? value(stats, "ItemsProcessed") : value(stats, "ItemsMoved");
+            }
+            if (stats.getStatistic("MeanDepth") != null) {
+                queues.add(new Queue(component, (int) value(stats, "Capacity"),
+                        value(stats, "MeanDepth"), (int) value(stats, "MaxDepth"),
+                        value(stats, "DepartureRate"), value(stats, "MeanWait")));
+            }
+        }
+        for (Stage stage : stages.values()) {
+            stage.throughput = elapsed > 0 ? stage.items / elapsed : 0;
+        }
+        return new BottleneckReport(elapsed, new ArrayList<>(stages.values()), queues, pipelineBottleneck);
+    }
+
+    private static double value(Statistics stats, String name) {
+        Statistic stat = stats.getStatistic(name);
+        return stat == null ? 0 : stat.summarize();
+    }
+
+    /** @return seconds between the first and last sample */
+    public double getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    public List<Queue> getQueues() {
+        return queues;
+    }
+
+    /**
+     * The stage the pipeline named, if the run was one; otherwise the stage
+     * that was blocked least, and among stages about as free, the one that
+     * worked most.
+     * @return the bottleneck, or null if there are no units
+     */
+    public Stage getBottleneck() {
+        if (pipelineBottleneck != null) {
+            for (Stage stage : stages) {
+                if (stage.getName().equals(pipelineBottleneck)) {
+                    return stage;
+                }
+            }
+        }
+        Stage best = null;
+        for (Stage stage : stages) {
+            if (best == null
+                    || stage.getBlockedShare() < best.getBlockedShare() - TIE
+                    || (stage.getBlockedShare() < best.getBlockedShare() + TIE
+                        && stage.getUtilization() > best.getUtilization())) {
+                best = stage;
+            }
+        }
+        return best;
+    }
+
+    /** Writes the report as aligned text tables. */
+    public void write(Appendable out) {
+        String nl = System.lineSeparator();
+        try {
+            out.append(String.format("Bottleneck report (%.1f s sampled)%n", elapsedSeconds));
+            out.append(String.format("%-16s %6s %10s %8s %8s %8s%n",
+                    "Stage", "Units", "Items/s", "Working", "Blocked", "Idle"));
+            for (Stage s : stages) {
+                out.append(String.format("%-16s %6d %10.2f %7.1f%% %7.1f%% %7.1f%%%n", s.getName(), s.getUnits(),
+                        s.getThroughput(), 100 * s.getUtilization(), 100 * s.getBlockedShare(),
+                        100 * s.getIdleShare()));
+            }
+            Stage bottleneck = getBottleneck();
+            if (bottleneck != null) {
+                out.append(String.format("Bottleneck: %s (blocked %.1f%% of the time)%n",
+                        bottleneck.getName(), 100 * bottleneck.getBlockedShare()));
+            }
+            if (!queues.isEmpty()) {
+                out.append(nl).append(String.format("%-16s %8s %9s %8s %10s %12s %10s%n",
+                        "Queue", "Capacity", "MeanDepth", "MaxDepth", "Items/s", "MeanWait ms", "L/(lam*W)"));
+                for (Queue q : queues) {
+                    out.append(String.format("%-16s %8d %9.2f %8d %10.2f %12.2f %10.2f%n", q.getName(),
+                            q.getCapacity(), q.getMeanDepth(), q.getMaxDepth(), q.getThroughput(),
+                            q.getMeanWaitMillis(), q.getLittleRatio()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        write(out);
+        return out.toString();
+    }
+}
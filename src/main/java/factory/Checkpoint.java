@@ -0,0 +1,337 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.FloatWorkerStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+import Skeleton.WorkerStatistic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of a running plant of robots and belts, to resume it later or to
+ * start what-if runs from a warmed-up plant: how many actions each unit has
+ * finished, how many items wait in the buffer, and every statistic's total.
+ *
+ * Units keep running while a checkpoint is taken. Each one is read between
+ * two of its actions (see Unit.readAtActionBoundary), so its action count
+ * and statistics agree. Items are all alike, so the buffer is stored as the
+ * count the belts put in minus what the robots took out. That way supply
+ * and demand still match on resume, however the buffer moved during the
+ * read. A belt with a BatchSize above one may be partway through a batch,
+ * its first items already in the buffer (and maybe taken) but not yet
+ * counted, so those are stored with the belt and resumed from. If units
+ * were read too far apart for the count to fit the buffer, capture gives
+ * up and the previous checkpoint stays.
+ *
+ * On resume, counter-like statistics (CounterStatistic, WorkerStatistic,
+ * FloatWorkerStatistic) continue from their totals. Distributions and rates
+ * (ActionTime, waits, ...) start over and describe the resumed part only.
+ * Units with random timing can't be checkpointed, because their schedule
+ * runs against the clock rather than an action count.
+ *
+ * The file is binary: a header, the buffer's item count, then each unit's
+ * action count and placed items, and every statistic's total, by name.
+ */
+public final class Checkpoint {
+    static final long MAGIC = 0x464143544F525943L; // "FACTORYC"
+    static final int VERSION = 2;
+    private static final int CAPTURE_ATTEMPTS = 8;
+
+    private final long elapsedNanos;
+    private final Map<String, Integer> completed;
+    private final Map<String, Integer> placed; // items of an unfinished batch, by belt
+    private final int bufferItems;
+    private final Map<String, Map<String, Double>> statistics;
+
+    Checkpoint(long elapsedNanos, Map<String, Integer> completed, int bufferItems,
+               Map<String, Map<String, Double>> statistics) {
+        this(elapsedNanos, completed, Map.of(), bufferItems, statistics);
+    }
+
+    Checkpoint(long elapsedNanos, Map<String, Integer> completed, Map<String, Integer> placed,
+               int bufferItems, Map<String, Map<String, Double>> statistics) {
+        this.elapsedNanos = elapsedNanos;
+        this.completed = Collections.unmodifiableMap(completed);
+        this.placed = Collections.unmodifiableMap(placed);
+        this.bufferItems = bufferItems;
+        this.statistics = Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * Checks that units of this layout can be checkpointed.
+     * @throws IllegalArgumentException for pipelines and random timing
+     */
+    static void checkSupported(List<Unit> units, Pipeline pipeline) {
+        if (!pipeline.isEmpty()) {
+            throw new IllegalArgumentException("Checkpoints only support the robots and belts layout, not pipelines");
+        }
+        for (Unit unit : units) {
+            if (unit.getTiming().isRandom()) {
+                throw new IllegalArgumentException("Checkpoints need fixed action rates, but "
+                        + unit.getName() + " has random timing");
+            }
+        }
+    }
+
+    /**
+     * Reads the checkpoint named by the "ResumeFrom" input key, if any, into
+     * freshly created units, their buffer and statistics.
+     * @return the checkpoint resumed from, or null if there was none
+     * @throws UncheckedIOException if the file can't be read
+     */
+    static Checkpoint resume(SimulationInput input, List<Unit> units, Pipeline pipeline,
+                             StatisticsContainer container) {
+        String path = input.snapshot().getStringInput("ResumeFrom", null);
+        if (path == null) {
+            return null;
+        }
+        checkSupported(units, pipeline);
+        Checkpoint checkpoint;
+        try {
+            checkpoint = read(Paths.get(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+        checkpoint.restore(units, sharedBuffer(units), container);
+        return checkpoint;
+    }
+
+    /**
+     * Takes a checkpoint of running units.
+     * @param buffer       the buffer between belts and robots, or null if there is none
+     * @param elapsedNanos how far into the run this is
+     * @return the checkpoint, or null if no consistent one could be read
+     */
+    public static Checkpoint capture(List<Unit> units, SharedBuffer<String> buffer,
+                                     StatisticsContainer container, long elapsedNanos) {
+        for (int attempt = 0; attempt < CAPTURE_ATTEMPTS; attempt++) {
+            Map<String, Map<String, Double>> statistics = new LinkedHashMap<>();
+            Map<String, Integer> completed = new LinkedHashMap<>();
+            Map<String, Integer> placed = new LinkedHashMap<>();
+            double items = 0;
+            for (Unit unit : units) {
+                Map<String, Double> totals = new LinkedHashMap<>();
+                int[] inBatch = new int[1];
+                completed.put(unit.getName(), unit.readAtActionBoundary(() -> {
+                    totals.clear();
+                    read(unit.getStats(), totals);
+                    if (unit instanceof ConveyorBelt) {
+                        inBatch[0] = ((ConveyorBelt) unit).getPlacedItems();
+                    }
+                }));
+                statistics.put(unit.getName(), totals);
+                if (unit instanceof ConveyorBelt) {
+                    items += totals.getOrDefault("ItemsMoved", 0.0) + inBatch[0];
+                    if (inBatch[0] > 0) {
+                        placed.put(unit.getName(), inBatch[0]);
+                    }
+                } else if (unit instanceof Robot) {
+                    items -= totals.getOrDefault("ItemsProcessed", 0.0);
+                }
+            }
+            int capacity = buffer == null ? 0 : buffer.capacity();
+            if (items < 0 || items > capacity) {
+                continue; // units read too far apart; try again
+            }
+            for (String component : container.getComponentNames()) {
+                if (!statistics.containsKey(component)) {
+                    Map<String, Double> totals = new LinkedHashMap<>();
+                    read(container.getComponent(component), totals);
+                    statistics.put(component, totals);
+                }
+            }
+            return new Checkpoint(elapsedNanos, completed, placed, (int) Math.round(items), statistics);
+        }
+        return null;
+    }
+
+    private static void read(Statistics stats, Map<String, Double> into) {
+        for (String name : stats.getStatisticNames()) {
+            Statistic stat = stats.getStatistic(name);
+            into.put(name, stat.summarizeExact());
+        }
+    }
+
+    /**
+     * Puts freshly created units back where the checkpoint left them. Units
+     * that aren't in the checkpoint start from scratch.
+     * @param buffer the buffer between belts and robots, or null if there is none
+     * @throws IllegalArgumentException if the checkpoint's items don't fit the buffer,
+     *         or a belt's unfinished batch doesn't fit its BatchSize
+     */
+    public void restore(List<Unit> units, SharedBuffer<String> buffer, StatisticsContainer container) {
+        int capacity = buffer == null ? 0 : buffer.capacity();
+        if (bufferItems > capacity) {
+            throw new IllegalArgumentException("Checkpoint holds " + bufferItems
+                    + " items, but the buffer only has room for " + capacity);
+        }
+        for (Unit unit : units) {
+            Integer actions = completed.get(unit.getName());
+            if (actions != null) {
+                unit.setCompletedActions(actions);
+            }
+            Integer inBatch = placed.get(unit.getName());
+            if (inBatch != null && unit instanceof ConveyorBelt) {
+                ((ConveyorBelt) unit).setPlacedItems(inBatch);
+            }
+        }
+        for (String component : container.getComponentNames()) {
+            Map<String, Double> totals = statistics.get(component);
+            if (totals == null) {
+                continue;
+            }
+            Statistics stats = container.getComponent(component);
+            for (Map.Entry<String, Double> total : totals.entrySet()) {
+                restore(stats.getStatistic(total.getKey()), total.getValue());
+            }
+        }
+        for (int i = 0; i < bufferItems; i++) {
+            buffer.offer(ConveyorBelt.ITEM);
+        }
+    }
+
+    private static void restore(Statistic stat, double total) {
+        if (stat instanceof CounterStatistic) {
+            CounterStatistic counter = (CounterStatistic) stat;
+            if (total == Math.rint(total)) {
+                counter.add((long) total);
+            } else {
+                counter.add(total);
+            }
+        } else if (stat instanceof WorkerStatistic) {
+            stat.addValue((int) Math.round(total));
+        } else if (stat instanceof FloatWorkerStatistic) {
+            stat.addValue((float) total);
+        }
+    }
+
+    /** @return the buffer the robots and belts share, or null if there are none */
+    static SharedBuffer<String> sharedBuffer(List<Unit> units) {
+        for (Unit unit : units) {
+            if (unit instanceof Robot) {
+                return ((Robot) unit).getBuffer();
+            }
+            if (unit instanceof ConveyorBelt) {
+                return ((ConveyorBelt) unit).getBuffer();
+            }
+        }
+        return null;
+    }
+
+    /** @return how far into the run the checkpoint was taken */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** @return actions the unit had finished, or 0 if it isn't in the checkpoint */
+    public int getCompletedActions(String unit) {
+        return completed.getOrDefault(unit, 0);
+    }
+
+    /** @return items of an unfinished batch the belt had already put in the buffer */
+    public int getPlacedItems(String belt) {
+        return placed.getOrDefault(belt, 0);
+    }
+
+    /** @return items that were waiting in the buffer */
+    public int getBufferItems() {
+        return bufferItems;
+    }
+
+    /** @return the statistic's total, or NaN if it isn't in the checkpoint */
+    public double getTotal(String component, String statistic) {
+        Map<String, Double> totals = statistics.get(component);
+        Double total = totals == null ? null : totals.get(statistic);
+        return total == null ? Double.NaN : total;
+    }
+
+    /**
+     * Writes the checkpoint next to the file and then moves it over, so a
+     * crash while writing leaves the previous checkpoint intact.
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(elapsedNanos);
+            out.writeInt(bufferItems);
+            out.writeInt(completed.size());
+            for (Map.Entry<String, Integer> unit : completed.entrySet()) {
+                out.writeUTF(unit.getKey());
+                out.writeInt(unit.getValue());
+                out.writeInt(placed.getOrDefault(unit.getKey(), 0));
+            }
+            out.writeInt(statistics.size());
+            for (Map.Entry<String, Map<String, Double>> component : statistics.entrySet()) {
+                out.writeUTF(component.getKey());
+                out.writeInt(component.getValue().size());
+                for (Map.Entry<String, Double> total : component.getValue().entrySet()) {
+                    out.writeUTF(total.getKey());
+                    out.writeDouble(total.getValue());
+                }
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a checkpoint written by write.
+     * @throws IOException if the file can't be read or isn't a checkpoint
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+            }
+            long elapsedNanos = in.readLong();
+            int bufferItems = in.readInt();
+            Map<String, Integer> completed = new LinkedHashMap<>();
+            Map<String, Integer> placed = new LinkedHashMap<>();
+            for (int units = in.readInt(); units > 0; units--) {
+                String unit = in.readUTF();
+                completed.put(unit, in.readInt());
+                int inBatch = in.readInt();
+                if (inBatch > 0) {
+                    placed.put(unit, inBatch);
+                }
+            }
+            Map<String, Map<String, Double>> statistics = new LinkedHashMap<>();
+            for (int components = in.readInt(); components > 0; components--) {
+                String component = in.readUTF();
+                Map<String, Double> totals = new LinkedHashMap<>();
+                for (int stats = in.readInt(); stats > 0; stats--) {
+                    totals.put(in.readUTF(), in.readDouble());
+                }
+                statistics.put(component, totals);
+            }
+            return new Checkpoint(elapsedNanos, completed, placed, bufferItems, statistics);
+        }
+    }
+}
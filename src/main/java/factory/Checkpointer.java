@@ -0,0 +1,196 @@
+package factory;
+
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes a Checkpoint of a run to "CheckpointFile" every
+ * "CheckpointEverySeconds" (60 by default), and once more at the end, so a
+ * stopped run can go on with "ResumeFrom" set to the file, and a finished
+ * warm-up can be the start of what-if runs with other settings.
+ *
+ * In real time a daemon thread takes the checkpoints (start/close); the
+ * discrete-event engine calls advanceTo as simulated time passes instead,
+ * which gives exact checkpoints since no unit is mid-action then. Each file
+ * replaces the last, so only the latest checkpoint is kept. One that fails
+ * to write is counted and the run goes on; the failure is thrown to the
+ * caller of close or finish, along with the final checkpoint.
+ */
+public class Checkpointer implements AutoCloseable {
+    public static final int DEFAULT_PERIOD_SECONDS = 60;
+
+    private final Path file;
+    private final SimulationClock clock;
+    private final long periodNanos;
+    private final List<Unit> units;
+    private final SharedBuffer<String> buffer;
+    private final StatisticsContainer container;
+    private final long resumedAt; // how far into the run the resumed checkpoint was
+
+    private long startedAt;
+    private long nextCheckpoint;
+    // only the thread taking checkpoints updates these, but anyone may read them
+    private volatile int written;
+    private volatile int skipped;
+    private volatile int failed;
+    private volatile IOException lastFailure;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param clock      where time is read from; only used by start and close
+     * @param resumedAt  nanoseconds into the run the units were resumed at, 0 for a fresh run
+     */
+    public Checkpointer(Path file, SimulationClock clock, long periodNanos, List<Unit> units,
+                        SharedBuffer<String> buffer, StatisticsContainer container, long resumedAt) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Checkpoint period must be positive: " + periodNanos);
+        }
+        this.file = file;
+        this.clock = clock;
+        this.periodNanos = periodNanos;
+        this.units = units;
+        this.buffer = buffer;
+        this.container = container;
+        this.resumedAt = resumedAt;
+    }
+
+    /**
+     * Builds a checkpointer for the units of a layout.
+     * @param resumed the checkpoint the units were resumed from, or null
+     * @return the checkpointer, or null if "CheckpointFile" isn't set
+     * @throws IllegalArgumentException if the layout can't be checkpointed, or a
+     *         thread-per-unit run has a BatchSize above one: a belt waiting for
+     *         room partway through a batch can't tell how much of it is in
+     */
+    static Checkpointer forLayout(SimulationInput input, SimulationClock clock, List<Unit> units,
+                                  Pipeline pipeline, StatisticsContainer container, Checkpoint resumed) {
+        String path = input.snapshot().getStringInput("CheckpointFile", null);
+        if (path == null) {
+            return null;
+        }
+        Checkpoint.checkSupported(units, pipeline);
+        ExecutionMode mode = ExecutionMode.fromInput(input);
+        if ((mode == ExecutionMode.PLATFORM || mode == ExecutionMode.VIRTUAL) && ConveyorBelt.batchSize(input) > 1) {
+            throw new IllegalArgumentException("Checkpoints of " + mode + " runs need BatchSize 1;"
+                    + " use the discrete, scheduled or work_stealing mode for larger batches");
+        }
+        int seconds = input.getIntegerInput("CheckpointEverySeconds", DEFAULT_PERIOD_SECONDS);
+        return new Checkpointer(Paths.get(path), clock, seconds * 1_000_000_000L, units,
+                Checkpoint.sharedBuffer(units), container, resumed == null ? 0 : resumed.getElapsedNanos());
+    }
+
+    /** Takes checkpoints on a daemon thread, every period of the clock. */
+    public void start() {
+        begin(clock.nanoTime());
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                long wait = nextCheckpoint - clock.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                checkpoint(clock.nanoTime(), false);
+                nextCheckpoint += periodNanos;
+            }
+        }, "checkpointer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the thread, if any, and writes the final checkpoint.
+     * @throws UncheckedIOException if the final checkpoint, or any before it, couldn't be written
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+            checkpoint(clock.nanoTime(), true);
+        }
+    }
+
+    /** Starts counting the period at the given time, without a thread (see advanceTo). */
+    public void begin(long now) {
+        startedAt = now;
+        nextCheckpoint = now + periodNanos;
+    }
+
+    /**
+     * Takes the checkpoint due by the given time, if any. For engines with
+     * their own clock: call it between actions.
+     */
+    public void advanceTo(long now) {
+        if (nextCheckpoint <= now) {
+            checkpoint(now, false);
+            while (nextCheckpoint <= now) {
+                nextCheckpoint += periodNanos;
+            }
+        }
+    }
+
+    /**
+     * Writes the final checkpoint at the given time, e.g. the simulated end of the run.
+     * @throws UncheckedIOException if it, or any checkpoint before it, couldn't be written
+     */
+    public void finish(long now) {
+        checkpoint(now, true);
+    }
+
+    /** @return checkpoints written so far */
+    public int getWritten() {
+        return written;
+    }
+
+    /** @return checkpoints given up on because the units couldn't be read consistently */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /** @return checkpoints that couldn't be written to the file */
+    public int getFailed() {
+        return failed;
+    }
+
+    private void checkpoint(long now, boolean last) {
+        Checkpoint checkpoint = Checkpoint.capture(units, buffer, container, resumedAt + now - startedAt);
+        if (checkpoint == null) {
+            skipped++;
+        } else {
+            try {
+                checkpoint.write(file);
+                written++;
+            } catch (IOException e) {
+                failed++;
+                if (last) {
+                    UncheckedIOException failure = new UncheckedIOException("Cannot write checkpoint " + file, e);
+                    if (lastFailure != null) {
+                        failure.addSuppressed(lastFailure);
+                    }
+                    throw failure;
+                }
+                lastFailure = e;
+            }
+        }
+        if (last && lastFailure != null) {
+            throw new UncheckedIOException(failed + " checkpoints could not be written to " + file, lastFailure);
+        }
+    }
+}
@@ -3,7 +3,8 @@ package factory;
 import Skeleton.StatisticsContainer;
 
 /**
- * Default robot strategy: just consume from the buffer.
+ * Default robot strategy: just consume from the buffer, up to the
+ * unit's batch size per action.
  */
 public class ConsumeStrategy implements ActionStrategy {
     @Override
@@ -13,4 +14,20 @@ public class ConsumeStrategy implements ActionStrategy {
 
 
     }
+
+    @Override
+    public boolean tryExecute(String name, SharedBuffer<String> buffer) {
+        return buffer.poll() != null;
+    }
+
+    /** Waits for at least one widget, then takes up to the batch size. */
+    @Override
+    public int execute(ActionContext context) throws InterruptedException {
+        return context.getBuffer().drainTo(context.scratch(), context.getBatchSize());
+    }
+
+    @Override
+    public int tryExecute(ActionContext context) {
+        return context.getBuffer().pollAll(context.scratch(), context.getBatchSize());
+    }
 }
@@ -1,20 +1,53 @@
 package factory;
 
+import Skeleton.ActionTiming;
 import Skeleton.SimulationInput;
-import Skeleton.WorkerStatistic;
+import Skeleton.CounterStatistic;
+import Skeleton.HistogramStatistic;
+import Skeleton.RateStatistic;
+import Skeleton.StatisticsContainer;
 import Skeleton.Unit;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
- * A conveyor belt that moves items and tracks how many items it’s moved.
+ * A conveyor belt that moves items and tracks how many items it’s moved
+ * ("ItemsMoved") and how fast it is moving them lately ("ItemsMovedRate").
+ * "BufferWait" records how long each put waited for room in the buffer.
+ * Each action puts "BatchSize" items (1 by default) into the buffer at once.
+ * Batches arrive at a fixed rate unless "BeltActionTime" draws the time
+ * between them (see Skeleton.ActionTiming).
  */
 public class ConveyorBelt extends Unit {
+    /** What a belt puts into the buffer; items are all alike. */
+    static final String ITEM = "widget";
+
     private final SharedBuffer<String> buffer;
+    private final List<String> batch;
+    private final RateStatistic itemsRate;
+    private volatile int remaining; // items of the current batch not yet in the buffer; read by checkpoints
+
+    /** Primary constructor: name, input, shared buffer and the simulation's statistics */
+    public ConveyorBelt(String name, SimulationInput input, SharedBuffer<String> buffer,
+                        StatisticsContainer container) {
+        super(name, input, container);
+        this.getStats().addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved"));
+        // read the clock on each update, since a discrete-event run swaps it after construction
+        this.itemsRate = (RateStatistic) this.getStats().addStatistic("ItemsMovedRate",
+                new RateStatistic("ItemsMovedRate", () -> getClock().nanoTime()));
+        HistogramStatistic waits = (HistogramStatistic) this.getStats().addStatistic("BufferWait",
+                new HistogramStatistic("BufferWait"));
+        this.buffer = buffer.recordingWaits(waits, this);
+        this.batch = Collections.nCopies(batchSize(input), ITEM);
+        this.remaining = batch.size();
+        // random arrivals and breakdowns from "BeltActionTime" etc., if set
+        this.setTiming(ActionTiming.fromSettings(getSettings(), "Belt", name));
+    }
 
-    /** Primary constructor: name, input and shared buffer */
+    /** Statistics go into the shared StatisticsContainer */
     public ConveyorBelt(String name, SimulationInput input, SharedBuffer<String> buffer) {
-        super(name, input);
-        this.getStats().addStatistic("ItemsMoved", new WorkerStatistic("ItemsMoved"));
-        this.buffer = buffer;
+        this(name, input, buffer, StatisticsContainer.getInstance());
     }
 
     /** For tests or convenience: uses a tiny dummy buffer of capacity 1 */
@@ -30,17 +63,69 @@ public class ConveyorBelt extends Unit {
     @Override
     public void performAction() {
         try {
-            buffer.put("widget");      // produce one item
+            // produce one batch of items, or the rest of one a checkpoint left partly placed
+            buffer.putAll(batch.subList(batch.size() - remaining, batch.size()));
+            remaining = 0;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Places as much of the batch as fits; the action only completes once the
+     * whole batch is in, possibly over several attempts.
+     */
+    @Override
+    public boolean tryPerformAction() {
+        remaining -= buffer.offerAll(batch, batch.size() - remaining);
+        return remaining == 0;
+    }
+
+    /** @return this unit's view of the buffer it works on, or null */
+    SharedBuffer<String> getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return items of the current batch already in the buffer but not yet
+     *         counted in ItemsMoved, because the batch isn't finished
+     */
+    int getPlacedItems() {
+        return batch.size() - remaining;
+    }
+
+    /**
+     * Resumes partway through a batch whose first items are already in the
+     * buffer (see Checkpoint). Call it before the belt starts.
+     * @throws IllegalArgumentException if that's not less than a whole batch
+     */
+    void setPlacedItems(int placed) {
+        if (placed < 0 || placed >= batch.size()) {
+            throw new IllegalArgumentException(getName() + " can't resume with " + placed
+                    + " items of a batch of " + batch.size() + " placed");
+        }
+        remaining = batch.size() - placed;
+    }
 
     @Override
     public void submitStatistics() {
+        // items are still counted individually
         this.getStats()
                 .getStatistic("ItemsMoved")
-                .addValue(1);
+                .addValue(batch.size());
+        itemsRate.add(batch.size());
+        // only now, inside finishAction, so checkpoints never see the batch both placed and uncounted
+        remaining = batch.size();
+    }
+
+    /** Reads "BatchSize", the items moved per action (1 by default). */
+    static int batchSize(SimulationInput input) {
+        int size;
+        try { size = input.getIntegerInput("BatchSize"); }
+        catch (RuntimeException e) { return 1; }
+        if (size < 1) {
+            throw new IllegalArgumentException("BatchSize must be positive: " + size);
+        }
+        return size;
     }
 }
@@ -0,0 +1,375 @@
+package factory;
+
+import Skeleton.InputSnapshot;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+import Skeleton.UnitState;
+import Skeleton.VirtualClock;
+import factory.buffer.BufferBackend;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Discrete-event engine: runs the same units as Matrix, but on one thread
+ * against a VirtualClock instead of sleeping in real time.
+ *
+ * Every unit action is an event in a priority queue ordered by simulated time
+ * (ties go to whichever was scheduled first, so runs are deterministic). When
+ * a unit can't act because its buffer is full or empty, it is parked on that
+ * buffer and rescheduled once for every item (or slot) another unit makes
+ * available there, so units waiting on other buffers aren't retried in vain.
+ * Stations are also woken when a stage next to them finishes, and units the
+ * engine doesn't know the buffers of whenever any unit makes progress. This
+ * mirrors Unit.run: time spent blocked counts against the action's slot, and
+ * the next action is due one period after the blocked attempt started.
+ *
+ * Units with random timing (see ActionTiming) draw each period instead and
+ * act until the next action would start after `Time` seconds. One that is
+ * still blocked at that point has simply run out of time, not starved.
+ *
+ * Actions take no simulated time, so a unit is IDLE while its next action
+ * is pending, BLOCKED while it is parked, and WORKING only for the instant
+ * of an action. An
+ * OccupancySampler, if set, samples at even steps of simulated time, and a
+ * Checkpointer checkpoints between events, where no unit is mid-action.
+ */
+public class DiscreteEventSimulation {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final VirtualClock clock = new VirtualClock();
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Map<BufferBackend<?>, Waiters> waiters = new IdentityHashMap<>();
+    private final ArrayDeque<Event> blocked = new ArrayDeque<>(); // parked on no buffer in particular
+    private final Set<Event> parked = new LinkedHashSet<>();
+    private final List<Unit> starved = new ArrayList<>();
+    private OccupancySampler sampler;
+    private Checkpointer checkpointer;
+    private long nextSequence;
+
+    /**
+     * Builds the Matrix layout for the given input and runs it to completion.
+     * @param input simulation input
+     * @return the finished simulation, for its clock and starved units
+     */
+    public static DiscreteEventSimulation run(SimulationInput input) {
+        return run(input, StatisticsContainer.getInstance());
+    }
+
+    /**
+     * Like run(input), with the statistics kept in the given container.
+     */
+    public static DiscreteEventSimulation run(SimulationInput input, StatisticsContainer container) {
+        DiscreteEventSimulation sim = new DiscreteEventSimulation();
+        EventTrace trace = container.getTrace();
+        if (trace != null) {
+            trace.setClock(sim.clock); // trace simulated time, not how long it took to compute
+        }
+        ResourcePools pools = ResourcePools.fromInput(input, sim.clock, container);
+        // every unit acts on this one thread, so any backend will do
+        Pipeline pipeline = Pipeline.fromInput(input, sim.clock, container, 1);
+        List<Unit> units = Matrix.createLayout(input, pipeline, pools, 1, container);
+        Checkpoint resumed = Checkpoint.resume(input, units, pipeline, container);
+        for (Unit unit : units) {
+            sim.addUnit(unit);
+        }
+        sim.setSampler(OccupancySampler.forLayout(input, sim.clock, units, pipeline));
+        sim.setCheckpointer(Checkpointer.forLayout(input, sim.clock, units, pipeline, container, resumed));
+        sim.run();
+        pools.publishStatistics();
+        pipeline.publishStatistics();
+        if (sim.sampler != null) {
+            sim.sampler.publish(container);
+        }
+        return sim;
+    }
+
+    /**
+     * Schedules a unit to perform `Time` * `ActionsPerSecond` actions from its
+     * input, less any it has already completed, starting at the current
+     * simulated time.
+     */
+    public void addUnit(Unit unit) {
+        InputSnapshot input = unit.getSettings();
+        int actionsPerSec = input.getIntegerInput("ActionsPerSecond");
+        int totalActions = input.getIntegerInput("Time") * actionsPerSec;
+        long end = Long.MAX_VALUE;
+        if (unit.getTiming().isRandom()) {
+            end = clock.nanoTime() + input.getIntegerInput("Time") * NANOS_PER_SECOND;
+            totalActions = end > clock.nanoTime() ? Integer.MAX_VALUE : 0;
+        }
+        unit.setClock(this.clock);
+        if (totalActions > unit.getCompletedActions()) {
+            Event event = new Event(unit, actionsPerSec, totalActions, clock.nanoTime(), end);
+            watchBuffers(event);
+            schedule(event, clock.nanoTime());
+        }
+    }
+
+    /**
+     * Samples queues and unit states as simulated time passes; set it after
+     * the units are added and before run().
+     * @param sampler the sampler, or null for none
+     */
+    public void setSampler(OccupancySampler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Checkpoints the run as simulated time passes; set it before run().
+     * @param checkpointer the checkpointer, or null for none
+     */
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    /** Processes events until none are left. */
+    public void run() {
+        if (sampler != null) {
+            sampler.begin(clock.nanoTime());
+        }
+        if (checkpointer != null) {
+            checkpointer.begin(clock.nanoTime());
+        }
+        Event event;
+        while ((event = events.poll()) != null) {
+            if (sampler != null) {
+                sampler.advanceTo(event.time);
+            }
+            if (checkpointer != null) {
+                checkpointer.advanceTo(event.time);
+            }
+            clock.advanceTo(event.time);
+            Unit unit = event.unit;
+            EventTrace trace = unit.getTrace();
+            if (trace != null) {
+                trace.record(TraceEvent.ACTION_START, unit.getName(), 0, 0);
+            }
+            unit.setState(UnitState.WORKING);
+            event.sizesBefore();
+            boolean acted = unit.tryPerformAction();
+            // even a blocked attempt may have placed part of a batch
+            wakeWaiters(event);
+            if (!acted) {
+                if (trace != null) {
+                    trace.record(TraceEvent.ACTION_BLOCKED, unit.getName(), 0, 0);
+                }
+                unit.setState(UnitState.BLOCKED);
+                park(event);
+                continue;
+            }
+            unit.finishAction(clock.nanoTime() - event.slotStart);
+            wake(blocked, Integer.MAX_VALUE);
+            if (unit instanceof Station && ((Station) unit).getStage().isFinished()) {
+                stageFinished(((Station) unit).getStage());
+            }
+
+            if (unit.getCompletedActions() < event.totalActions) {
+                long next = event.slotStart + unit.nextActionDelay(event.period());
+                event.slotStart = Math.max(next, clock.nanoTime());
+                if (event.slotStart < event.end) {
+                    unit.setState(UnitState.IDLE);
+                    schedule(event, event.slotStart);
+                    continue;
+                }
+            }
+            unit.setState(UnitState.IDLE);
+        }
+        // whoever is still parked can never be served, unless their time was up anyway
+        for (Event e : parked) {
+            if (clock.nanoTime() < e.end) {
+                starved.add(e.unit);
+            }
+        }
+        if (sampler != null) {
+            sampler.finish(clock.nanoTime());
+        }
+        if (checkpointer != null) {
+            checkpointer.finish(clock.nanoTime());
+        }
+        for (Event e : parked) {
+            e.unit.setState(UnitState.IDLE);
+        }
+        parked.clear();
+        blocked.clear();
+        waiters.clear();
+    }
+
+    /** @return the simulated clock; after run() it reads the simulated end time */
+    public VirtualClock getClock() {
+        return this.clock;
+    }
+
+    /** @return units that were still blocked when no other unit could make progress */
+    public List<Unit> getStarvedUnits() {
+        return this.starved;
+    }
+
+    /** Finds the buffers a unit takes from and puts into, the same way OccupancySampler does. */
+    private void watchBuffers(Event event) {
+        Unit unit = event.unit;
+        if (unit instanceof Robot) {
+            SharedBuffer<String> buffer = ((Robot) unit).getBuffer();
+            if (buffer != null) {
+                event.takes.add(waiters(buffer));
+            }
+        } else if (unit instanceof ConveyorBelt) {
+            event.puts.add(waiters(((ConveyorBelt) unit).getBuffer()));
+        } else if (unit instanceof Station) {
+            PipelineStage stage = ((Station) unit).getStage();
+            if (!stage.isSource()) {
+                event.takes.add(waiters(stage.getInbound()));
+            }
+            for (PipelineStage next : stage.getDownstream()) {
+                event.puts.add(waiters(next.getInbound()));
+            }
+        }
+        event.sizes = new int[event.takes.size() + event.puts.size()];
+    }
+
+    /** Units' views of one buffer share its backend, so that is what waiters are kept by. */
+    private Waiters waiters(SharedBuffer<String> buffer) {
+        return waiters.computeIfAbsent(buffer.getBackend(), backend -> new Waiters(buffer));
+    }
+
+    /**
+     * Parks a unit until what it's waiting for turns up: items in the buffers
+     * it takes from or room in those it puts into. A station waits for one or
+     * the other depending on whether it is holding an item.
+     */
+    private void park(Event event) {
+        parked.add(event);
+        boolean station = event.unit instanceof Station;
+        boolean holding = station && ((Station) event.unit).isHolding();
+        if (!station || !holding) {
+            for (Waiters w : event.takes) {
+                event.waitOn(w.forItems);
+            }
+        }
+        if (!station || holding) {
+            for (Waiters w : event.puts) {
+                event.waitOn(w.forRoom);
+            }
+        }
+        if (event.waitingIn.isEmpty()) {
+            event.waitOn(blocked);
+        }
+    }
+
+    /** Wakes one waiter for each item or slot the latest attempt made available. */
+    private void wakeWaiters(Event event) {
+        int i = 0;
+        for (Waiters w : event.takes) {
+            wakeFor(w, w.buffer.size() - event.sizes[i++]);
+        }
+        for (Waiters w : event.puts) {
+            wakeFor(w, w.buffer.size() - event.sizes[i++]);
+        }
+    }
+
+    private void wakeFor(Waiters w, int change) {
+        if (change > 0) {
+            wake(w.forItems, change);
+        } else if (change < 0) {
+            wake(w.forRoom, -change);
+        }
+    }
+
+    /** Once a stage is done, the stations waiting on it idle or drop their item instead: wake them all. */
+    private void stageFinished(PipelineStage stage) {
+        if (!stage.isSource()) {
+            wake(waiters(stage.getInbound()).forRoom, Integer.MAX_VALUE);
+        }
+        for (PipelineStage next : stage.getDownstream()) {
+            wake(waiters(next.getInbound()).forItems, Integer.MAX_VALUE);
+        }
+    }
+
+    /** Reschedules up to n units from the queue now, taking each off every queue it waited in. */
+    private void wake(ArrayDeque<Event> queue, int n) {
+        Event event;
+        while (n > 0 && (event = queue.poll()) != null) {
+            for (ArrayDeque<Event> other : event.waitingIn) {
+                if (other != queue) {
+                    other.remove(event);
+                }
+            }
+            event.waitingIn.clear();
+            parked.remove(event);
+            schedule(event, clock.nanoTime());
+            n--;
+        }
+    }
+
+    private void schedule(Event event, long time) {
+        event.time = time;
+        event.sequence = nextSequence++;
+        events.add(event);
+    }
+
+    /** Units parked on one buffer, waiting for an item or for room. */
+    private static final class Waiters {
+        final SharedBuffer<String> buffer;
+        final ArrayDeque<Event> forItems = new ArrayDeque<>();
+        final ArrayDeque<Event> forRoom = new ArrayDeque<>();
+
+        Waiters(SharedBuffer<String> buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /** The next pending action of one unit. */
+    private static final class Event implements Comparable<Event> {
+        final Unit unit;
+        final int actionsPerSec;
+        final int totalActions;
+        final long end; // no action starts at or after this; MAX_VALUE when counting actions
+        final List<Waiters> takes = new ArrayList<>(1); // buffers the unit takes from
+        final List<Waiters> puts = new ArrayList<>(1);  // buffers the unit puts into
+        final List<ArrayDeque<Event>> waitingIn = new ArrayList<>(1); // while parked
+        int[] sizes;    // of takes then puts, before the latest attempt
+        long slotStart; // when the current action was first attempted
+        long time;
+        long sequence;
+
+        Event(Unit unit, int actionsPerSec, int totalActions, long start, long end) {
+            this.unit = unit;
+            this.actionsPerSec = actionsPerSec;
+            this.totalActions = totalActions;
+            this.slotStart = start;
+            this.end = end;
+        }
+
+        long period() {
+            return NANOS_PER_SECOND / actionsPerSec;
+        }
+
+        void sizesBefore() {
+            int i = 0;
+            for (Waiters w : takes) {
+                sizes[i++] = w.buffer.size();
+            }
+            for (Waiters w : puts) {
+                sizes[i++] = w.buffer.size();
+            }
+        }
+
+        void waitOn(ArrayDeque<Event> queue) {
+            queue.add(this);
+            waitingIn.add(queue);
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            int byTime = Long.compare(this.time, o.time);
+            return byTime != 0 ? byTime : Long.compare(this.sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package factory;
+
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import factory.buffer.MpmcRingBuffer;
+import factory.buffer.MpscRingBuffer;
+import factory.buffer.WaitStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Records every buffer put and take, unit action and statistic update of a
+ * run to a binary file, with nanosecond timestamps, fast enough to leave on
+ * for a whole run (see TraceDecoder to read it back as CSV).
+ *
+ * Each record is RECORD_BYTES: timestamp (ns since the trace was opened, or
+ * since setClock), event code, thread id, subject id (a unit or component),
+ * detail and value (see TraceEvent). Every thread writes its records into
+ * its own off-heap chunk, so recording takes no lock and, once the names
+ * involved have ids, allocates nothing. When it fills, the thread swaps it
+ * for a spare and hands it to a writer thread through a lock-free ring. At
+ * most maxChunks spares exist, so a trace holds (threads + maxChunks) chunks
+ * at most, however many units record into it. If the disk falls behind and
+ * no spare is free, records are dropped and counted rather than holding up
+ * the run.
+ *
+ * A trace belongs to one run: set it on the run's StatisticsContainer
+ * (setTrace), and that simulation's units, buffers and statistics record
+ * into it. Records of one thread are in order; threads' chunks interleave
+ * in the order they filled. Close the trace once the threads being traced
+ * are done; the names are written as a footer then.
+ *
+ * Layout: a HEADER_BYTES header (magic, version, record size, records,
+ * dropped, footer offset), the records, then the footer (names, then thread
+ * names, in id order).
+ */
+public class EventTrace implements AutoCloseable {
+    static final long MAGIC = 0x4654524143453031L; // "FTRACE01"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    // timestamp, event, thread, subject, detail, value
+    static final int RECORD_BYTES = Long.BYTES + 4 * Integer.BYTES + Long.BYTES;
+    static final long NOT_CLOSED = -1;
+
+    public static final int DEFAULT_CHUNK_RECORDS = 512; // 16 KB per thread
+    public static final int DEFAULT_MAX_CHUNKS = 256;    // 4 MB of spares
+
+    private final Path path;
+    private final FileChannel channel;
+    private volatile SimulationClock clock;
+    private volatile long origin;
+    private final int chunkBytes;
+    private final int maxChunks;
+    private final AtomicInteger chunks = new AtomicInteger();
+    private final MpscRingBuffer<ByteBuffer> full;
+    private final MpmcRingBuffer<ByteBuffer> empty;
+    private final NameDictionary names = new NameDictionary();
+    private final List<ThreadChunk> threads = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ThreadChunk> local = ThreadLocal.withInitial(this::register);
+    private final Thread writer;
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private volatile boolean closed;
+    private volatile boolean draining;
+    private long written; // bytes, only touched by the writer thread
+
+    /** Opens a trace with the default chunk sizes, timed by the wall clock. */
+    public EventTrace(Path path) throws IOException {
+        this(path, SimulationClock.SYSTEM, DEFAULT_CHUNK_RECORDS, DEFAULT_MAX_CHUNKS);
+    }
+
+    /**
+     * Creates (or replaces) the file and starts the writer thread.
+     * @param clock        time source for the timestamps
+     * @param chunkRecords records per chunk
+     * @param maxChunks    most spare chunks, on top of the one each recording thread holds
+     */
+    public EventTrace(Path path, SimulationClock clock, int chunkRecords, int maxChunks) throws IOException {
+        if (chunkRecords < 1 || maxChunks < 1) {
+            throw new IllegalArgumentException("Chunk records and max chunks must be positive");
+        }
+        this.path = path;
+        this.clock = clock;
+        this.chunkBytes = chunkRecords * RECORD_BYTES;
+        this.maxChunks = maxChunks;
+        this.full = new MpscRingBuffer<>(maxChunks, WaitStrategy.PARK);
+        this.empty = new MpmcRingBuffer<>(maxChunks, WaitStrategy.PARK);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(NOT_CLOSED, 0, NOT_CLOSED);
+        this.origin = clock.nanoTime();
+        this.writer = new Thread(this::writeLoop, "event-trace-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens a trace for the file named by the "TraceFile" input key.
+     * @return the trace, or null if the key isn't set
+     */
+    public static EventTrace fromInput(SimulationInput input) throws IOException {
+        if (!input.hasInput("TraceFile")) {
+            return null;
+        }
+        return new EventTrace(Paths.get(input.getValues("TraceFile").get(0)));
+    }
+
+    /** Records an event about a unit. Never blocks; does nothing once closed. */
+    public void record(TraceEvent event, String subject, int detail, long value) {
+        write(event, names.idOf(subject), detail, value);
+    }
+
+    /** Records a statistic update. Never blocks; does nothing once closed. */
+    public void recordStatistic(String component, String statName, float value) {
+        if (component != null) { // null until the statistic joins a component
+            write(TraceEvent.STATISTIC, names.idOf(component), names.idOf(statName),
+                    Float.floatToRawIntBits(value));
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Times the records by the given clock from now on, starting from zero,
+     * e.g. the VirtualClock of a DiscreteEventSimulation so timestamps are
+     * simulated time. Set it before anything is recorded.
+     */
+    public void setClock(SimulationClock clock) {
+        this.origin = clock.nanoTime();
+        this.clock = clock;
+    }
+
+    /** @return records dropped because no spare chunk was free */
+    public long getDropped() {
+        long dropped = 0;
+        for (ThreadChunk thread : threads) {
+            dropped += thread.dropped;
+        }
+        return dropped;
+    }
+
+    private void write(TraceEvent event, int subject, int detail, long value) {
+        if (closed) {
+            return;
+        }
+        ThreadChunk thread = local.get();
+        thread.writing = true;
+        try {
+            if (closed) {
+                return; // close saw us idle and has taken the chunk
+            }
+            ByteBuffer chunk = thread.chunk;
+            if (!chunk.hasRemaining()) {
+                ByteBuffer spare = spare();
+                if (spare == null) {
+                    thread.dropped++; // keep the full one until the writer frees a spare
+                    return;
+                }
+                chunk.flip();
+                full.offer(chunk); // never full: only spares' worth of chunks are ever in it
+                chunk = thread.chunk = spare;
+            }
+            chunk.putLong(clock.nanoTime() - origin)
+                    .putInt(event.ordinal())
+                    .putInt(thread.id)
+                    .putInt(subject)
+                    .putInt(detail)
+                    .putLong(value);
+        } finally {
+            thread.writing = false;
+        }
+    }
+
+    /** An empty chunk the writer is done with, a new one while under maxChunks, or null. */
+    private ByteBuffer spare() {
+        ByteBuffer chunk = empty.poll();
+        if (chunk != null) {
+            return chunk;
+        }
+        int count = chunks.get();
+        while (count < maxChunks) {
+            if (chunks.compareAndSet(count, count + 1)) {
+                return ByteBuffer.allocateDirect(chunkBytes);
+            }
+            count = chunks.get();
+        }
+        return null;
+    }
+
+    private ThreadChunk register() {
+        ThreadChunk thread = new ThreadChunk(Thread.currentThread().getName(),
+                ByteBuffer.allocateDirect(chunkBytes));
+        synchronized (threads) {
+            thread.id = threads.size();
+            threads.add(thread);
+        }
+        return thread;
+    }
+
+    private void writeLoop() {
+        int idle = 0;
+        while (true) {
+            boolean last = draining; // read first: close hands over the last chunks before setting it
+            ByteBuffer chunk = full.poll();
+            if (chunk == null) {
+                if (last) {
+                    return;
+                }
+                idle = WaitStrategy.PARK.idle(idle);
+                continue;
+            }
+            idle = 0;
+            try {
+                while (chunk.hasRemaining()) {
+                    written += channel.write(chunk, HEADER_BYTES + written);
+                }
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+            chunk.clear();
+            empty.offer(chunk);
+        }
+    }
+
+    /**
+     * Stops recording, writes what's left, then the footer and the final header.
+     * @throws IOException if writing the file failed at any point
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ThreadChunk thread : threads) {
+            while (thread.writing) {
+                Thread.onSpinWait();
+            }
+            if (thread.chunk.position() > 0) {
+                thread.chunk.flip();
+                while (!full.offer(thread.chunk)) {
+                    Thread.onSpinWait(); // the writer is still draining, room comes soon
+                }
+            }
+            thread.chunk = null;
+        }
+        draining = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            long footerOffset = HEADER_BYTES + written;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                names.writeTo(out);
+                out.writeInt(threads.size());
+                for (ThreadChunk thread : threads) {
+                    out.writeUTF(thread.name);
+                }
+            }
+            ByteBuffer footer = ByteBuffer.wrap(bytes.toByteArray());
+            long position = footerOffset;
+            while (footer.hasRemaining()) {
+                position += channel.write(footer, position);
+            }
+            writeHeader(written / RECORD_BYTES, getDropped(), footerOffset);
+            channel.truncate(position);
+        } finally {
+            channel.close();
+        }
+        IOException failed = failure.get();
+        if (failed != null) {
+            throw new IOException("Some trace records could not be written to " + path, failed);
+        }
+    }
+
+    private void writeHeader(long records, long dropped, long footerOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_BYTES)
+                .putLong(records).putLong(dropped).putLong(footerOffset);
+        header.clear();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /** One thread's chunk; only that thread writes to it until close. */
+    private static final class ThreadChunk {
+        final String name;
+        int id;
+        ByteBuffer chunk;
+        long dropped;
+        volatile boolean writing;
+
+        ThreadChunk(String name, ByteBuffer chunk) {
+            this.name = name;
+            this.chunk = chunk;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package factory;
+
+import Skeleton.SimulationInput;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * How Matrix runs its units, selected with the "ExecutionMode" input key.
+ */
+public enum ExecutionMode {
+    /** One platform thread per unit (the default). */
+    PLATFORM,
+    /**
+     * One virtual thread per unit, so large plants don't need an OS thread
+     * each. Needs Java 21 or later: on older runtimes it warns once and runs a
+     * platform thread per unit, so for large layouts there prefer SCHEDULED or
+     * WORK_STEALING, which bound the thread count on any runtime.
+     */
+    VIRTUAL,
+    /** Single-threaded discrete-event engine in simulated time; see DiscreteEventSimulation. */
+    DISCRETE,
+    /** Real time, but paced by one shared TickScheduler on a small worker pool. */
+    SCHEDULED,
+    /** Like SCHEDULED, with the actions as tasks on a work-stealing ForkJoinPool. */
+    WORK_STEALING;
+
+    private static final AtomicBoolean WARNED_NO_VIRTUAL_THREADS = new AtomicBoolean();
+
+    /**
+     * Reads the "ExecutionMode" key, defaulting to PLATFORM when it is missing.
+     * @param input simulation input
+     * @return the selected mode
+     * @throws IllegalArgumentException if the value is not a known mode
+     */
+    public static ExecutionMode fromInput(SimulationInput input) {
+        String value;
+        try { value = input.getInput("ExecutionMode").get(0); }
+        catch (RuntimeException e) { return PLATFORM; }
+        try {
+            return ExecutionMode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown execution mode: " + value);
+        }
+    }
+
+    /**
+     * Creates a thread-per-task executor for this mode. The caller shuts it down.
+     * @throws UnsupportedOperationException for DISCRETE, SCHEDULED and
+     *         WORK_STEALING, which don't give each unit a thread
+     */
+    public ExecutorService newExecutor() {
+        if (this == DISCRETE) {
+            throw new UnsupportedOperationException("Discrete mode runs on the caller's thread");
+        }
+        if (this == SCHEDULED || this == WORK_STEALING) {
+            throw new UnsupportedOperationException(this.name() + " mode runs units on the TickScheduler's workers");
+        }
+        if (this == VIRTUAL) {
+            return newVirtualThreadExecutor();
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Virtual threads only exist from Java 21 on, while this project still builds
+     * for Java 17, so the factory is looked up reflectively. Older runtimes fall
+     * back to platform threads, with a warning the first time.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            if (WARNED_NO_VIRTUAL_THREADS.compareAndSet(false, true)) {
+                System.err.println("ExecutionMode=virtual needs Java 21+, running a platform thread per unit"
+                        + " on Java " + Runtime.version().feature()
+                        + "; use scheduled or work_stealing for large layouts");
+            }
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -2,11 +2,19 @@ package factory;
 
 import Skeleton.SimulationInput;
 import Skeleton.StatisticsContainer;
+import factory.cli.BatchCli;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import Skeleton.Statistic;
 
 public class Main {
+	/** Closing a resource of a run, which may fail. */
+	private interface Closer {
+		void close() throws IOException;
+	}
+
 	/**
 	 * Runs a test with the given input and returns the statistics
 	 * produced from the test run. Simplifies the testing process.
@@ -19,14 +27,22 @@ public class Main {
 		Skeleton.StatisticsContainer.resetInstance();
 		StatisticsContainer stats = StatisticsContainer.getInstance(input);
 
-		StatisticObserver consoleLogger = (component, statName, newValue) ->
-				System.out.printf("Observer: %s → %s updated by %s%n",
-						component, statName, newValue);
+		// Printing every update is slow, so it's only done when asked for
+		StatisticObserver consoleLogger = null;
+		if ("true".equalsIgnoreCase(input.snapshot().getStringInput("ConsoleLog", "false"))) {
+			consoleLogger = (component, statName, newValue) ->
+					System.out.printf("Observer: %s -> %s updated by %s%n",
+							component, statName, newValue);
+			Statistic.registerObserver(consoleLogger);
+		}
 
-		Statistic.registerObserver(consoleLogger);
-
-		// Run the simulation
-		Matrix.run(input);
+		try {
+			run(input, stats);
+		} finally {
+			if (consoleLogger != null) {
+				Statistic.unregisterObserver(consoleLogger);
+			}
+		}
 
 		// Debug: print all component names
 		System.out.println("DEBUG Keys: " + stats.getComponentNames());
@@ -34,6 +50,94 @@ public class Main {
 		return stats;
 	}
 
+	/**
+	 * Runs the simulation into the given container, with observers served
+	 * through a StatisticEventBus, samples streamed to a StatisticsFile and
+	 * events to a TraceFile as the input asks. Prints nothing.
+	 *
+	 * @param input The input to run with.
+	 * @param stats Where the run records its statistics.
+	 **/
+	public static void run(SimulationInput input, StatisticsContainer stats) {
+		// Deliver updates off the unit threads unless ObserverMode=sync or nobody observes
+		StatisticEventBus bus = StatisticEventBus.fromInput(input, Statistic.getObservers());
+		stats.setEventBus(bus);
+
+		// Stream every sample to disk if a StatisticsFile was given
+		StatisticsFileWriter writer;
+		try {
+			writer = StatisticsFileWriter.fromInput(input, stats);
+		} catch (IOException e) {
+			stats.setEventBus(null);
+			if (bus != null) bus.close();
+			throw new UncheckedIOException("Cannot open statistics file", e);
+		}
+		stats.setRecorder(writer);
+
+		// Trace buffer and unit activity if a TraceFile was given
+		EventTrace trace;
+		try {
+			trace = EventTrace.fromInput(input);
+		} catch (IOException e) {
+			stats.setEventBus(null);
+			if (bus != null) bus.close();
+			stats.setRecorder(null);
+			RuntimeException failure = new UncheckedIOException("Cannot open trace file", e);
+			if (writer != null) {
+				close(writer::close, "Cannot finish statistics file", failure);
+			}
+			throw failure;
+		}
+		stats.setTrace(trace);
+
+		// Run the simulation, then close everything even if something fails
+		RuntimeException failure = null;
+		try {
+			Matrix.run(input, stats);
+		} catch (RuntimeException e) {
+			failure = e;
+		} finally {
+			stats.setTrace(null);
+			if (bus != null) {
+				stats.setEventBus(null);
+				// flushes whatever observers haven't seen yet
+				failure = close(bus::close, "Cannot stop the event bus", failure);
+			}
+			if (writer != null) {
+				stats.setRecorder(null);
+				failure = close(writer::close, "Cannot finish statistics file", failure);
+			}
+			if (trace != null) {
+				failure = close(trace::close, "Cannot finish trace file", failure);
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Closes one resource of a run.
+	 * @return the failure to throw: the earlier one, with this one added as
+	 *         suppressed, or this one if it is the first
+	 */
+	private static RuntimeException close(Closer closer, String message, RuntimeException failure) {
+		RuntimeException thrown;
+		try {
+			closer.close();
+			return failure;
+		} catch (IOException e) {
+			thrown = new UncheckedIOException(message, e);
+		} catch (RuntimeException e) {
+			thrown = e;
+		}
+		if (failure == null) {
+			return thrown;
+		}
+		failure.addSuppressed(thrown);
+		return failure;
+	}
+
 	/**
 	 * Overload for array-based inputs.
 	 **/
@@ -41,7 +145,14 @@ public class Main {
 		return runTest(new SimulationInput(input));
 	}
 
+	/**
+	 * With arguments, runs scenario files headless (see factory.cli.BatchCli);
+	 * without, runs a short demo and prints its statistics and bottleneck report.
+	 **/
 	public static void main(String[] args) {
+		if (args.length > 0) {
+			System.exit(BatchCli.run(args, System.out, System.err));
+		}
 		SimulationInput si = new SimulationInput();
 		si.addInput("Time",             List.of("10")); // seconds
 		si.addInput("ActionsPerSecond", List.of("1"));
@@ -52,5 +163,10 @@ public class Main {
 		// Run and print stats
 		StatisticsContainer stats = runTest(si);
 		stats.printStatisticsContainer();
+		BottleneckReport report = BottleneckReport.of(stats);
+		if (report != null) {
+			System.out.println();
+			System.out.print(report);
+		}
 	}
 }
@@ -1,51 +1,305 @@
 package factory;
 
+import Skeleton.SimulationClock;
 import Skeleton.SimulationInput;
-import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
 import factory.UnitFactory;
 import Skeleton.Unit;
+import Skeleton.UnitState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class that is responsible for running the simulation.
  */
 public class Matrix {
+	// how long past `Time` units with random timing may take to finish on their own
+	private static final long STOP_GRACE_MILLIS = 1000;
+	// how long every unit left must be blocked, with none finishing an action, to count as starved
+	private static final long STALL_MILLIS = 500;
+
+	/**
+	 * Runs the simulation in the mode picked by the "ExecutionMode" input key:
+	 * "platform" threads by default, "virtual" threads, the single-threaded
+	 * "discrete" event engine, which runs in simulated time, "scheduled",
+	 * where one TickScheduler paces every unit, or "work_stealing", the same
+	 * with the actions as tasks on a ForkJoinPool.
+	 * Statistics go into StatisticsContainer.getInstance().
+	 * @return the units that starved, in any mode (see run(input, executor, container))
+	 */
+	public static List<Unit> run(SimulationInput input) {
+		return run(input, StatisticsContainer.getInstance());
+	}
+
+	/**
+	 * Runs the simulation like run(input), with its statistics kept in the given
+	 * container, so several simulations can run side by side.
+	 * @return the units that starved
+	 */
+	public static List<Unit> run(SimulationInput input, StatisticsContainer container) {
+		ExecutionMode mode = ExecutionMode.fromInput(input);
+		if (mode == ExecutionMode.DISCRETE) {
+			return DiscreteEventSimulation.run(input, container).getStarvedUnits();
+		}
+		if (mode == ExecutionMode.SCHEDULED || mode == ExecutionMode.WORK_STEALING) {
+			return runScheduled(input, container).getStarvedUnits();
+		}
+		ExecutorService executor = mode.newExecutor();
+		try {
+			return run(input, executor, container);
+		} finally {
+			executor.shutdown();
+		}
+	}
 
-	public static void run(SimulationInput input) {
-		// 1) create a shared buffer
-		SharedBuffer<String> buffer = new SharedBuffer<>(10);
+	/**
+	 * Runs the simulation with every unit submitted to the given executor.
+	 * The executor must be able to run all units at once, since robots and
+	 * belts block on each other through the shared buffer.
+	 *
+	 * @param input    simulation input
+	 * @param executor where the units run; it is not shut down here
+	 * @return the units that starved
+	 */
+	public static List<Unit> run(SimulationInput input, Executor executor) {
+		return run(input, executor, StatisticsContainer.getInstance());
+	}
 
-		// 2) determine how many robots and belts
-		int numRobots;
-		try { numRobots = input.getIntegerInput("NumRobots"); }
-		catch (RuntimeException e) { numRobots = 3; }
-		int numBelts;
-		try { numBelts  = input.getIntegerInput("NumBelts"); }
-		catch (RuntimeException e) { numBelts = 1; }
+	/**
+	 * Runs the simulation on the given executor, recording into the given container.
+	 *
+	 * With fixed timing, units that are all blocked on buffers while none of
+	 * them finishes an action for STALL_MILLIS can never be served, like the
+	 * starved units of the other engines. They are interrupted, so the run
+	 * ends instead of hanging, and returned.
+	 * @return the units that starved
+	 */
+	public static List<Unit> run(SimulationInput input, Executor executor, StatisticsContainer container) {
+		// 1) create the resource pools and the layout: a declared pipeline, or
+		//    robots and belts sharing one buffer, with a thread per unit
+		ResourcePools pools = ResourcePools.fromInput(input, SimulationClock.SYSTEM, container);
+		Pipeline pipeline = Pipeline.fromInput(input, SimulationClock.SYSTEM, container, Integer.MAX_VALUE);
+		List<Unit> units = createLayout(input, pipeline, pools, Integer.MAX_VALUE, container);
+		CountDownLatch finished = new CountDownLatch(units.size());
+		Map<Unit, Thread> running = new ConcurrentHashMap<>();
+		Checkpoint resumed = Checkpoint.resume(input, units, pipeline, container);
+		Checkpointer checkpointer = Checkpointer.forLayout(input, SimulationClock.SYSTEM, units, pipeline,
+				container, resumed);
+		OccupancySampler sampler = OccupancySampler.forLayout(input, SimulationClock.SYSTEM, units, pipeline);
 
-		// 3) start robot threads via factory
-		Thread[] robots = new Thread[numRobots];
+		// 2) start them all
+		if (checkpointer != null) {
+			checkpointer.start();
+		}
+		if (sampler != null) {
+			sampler.start();
+		}
+		for (Unit unit : units) {
+			submit(executor, unit, finished, running);
+		}
+
+		// 3) wait for all to finish. With random timing, supply and demand
+		//    don't match, so whoever is still blocked once the time is up is stopped
+		List<Unit> starved = new ArrayList<>();
+		try {
+			if (!hasRandomTiming(units)) {
+				awaitOrStarve(units, finished, running, starved);
+			} else if (!finished.await(input.getIntegerInput("Time") * 1000L + STOP_GRACE_MILLIS,
+					TimeUnit.MILLISECONDS)) {
+				running.values().forEach(Thread::interrupt);
+				finished.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (checkpointer != null) {
+			checkpointer.close();
+		}
+		pools.publishStatistics();
+		pipeline.publishStatistics();
+		publish(sampler, container);
+		return starved;
+	}
+
+	/**
+	 * Waits for every unit to finish, or until the ones left are stalled:
+	 * all started, all blocked, and no action finished for STALL_MILLIS.
+	 * Those are interrupted and added to starved.
+	 */
+	private static void awaitOrStarve(List<Unit> units, CountDownLatch finished,
+									  Map<Unit, Thread> running, List<Unit> starved)
+			throws InterruptedException {
+		long progress = completedActions(units);
+		while (!finished.await(STALL_MILLIS, TimeUnit.MILLISECONDS)) {
+			long now = completedActions(units);
+			if (now == progress && running.size() == finished.getCount() && allBlocked(running.keySet())) {
+				starved.addAll(running.keySet());
+				running.values().forEach(Thread::interrupt);
+				finished.await();
+				return;
+			}
+			progress = now;
+		}
+	}
+
+	private static long completedActions(List<Unit> units) {
+		long total = 0;
+		for (Unit unit : units) {
+			total += unit.getCompletedActions();
+		}
+		return total;
+	}
+
+	private static boolean allBlocked(Iterable<Unit> units) {
+		for (Unit unit : units) {
+			if (unit.getState() != UnitState.BLOCKED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the simulation on a TickScheduler built from the input (see
+	 * TickScheduler.fromInput) instead of a thread per unit. Random timing
+	 * is followed as with a thread per unit.
+	 * @return the closed scheduler, for its tick counts and starved units
+	 */
+	static TickScheduler runScheduled(SimulationInput input, StatisticsContainer container) {
+		TickScheduler scheduler = TickScheduler.fromInput(input, container);
+		// any worker may run any unit, so at most that many put or take at once
+		int threads = scheduler.getWorkerThreads();
+		ResourcePools pools = ResourcePools.fromInput(input, SimulationClock.SYSTEM, container);
+		Pipeline pipeline = Pipeline.fromInput(input, SimulationClock.SYSTEM, container, threads);
+		List<Unit> units = createLayout(input, pipeline, pools, threads, container);
+		CountDownLatch finished = new CountDownLatch(units.size());
+		Checkpoint resumed = Checkpoint.resume(input, units, pipeline, container);
+		Checkpointer checkpointer = Checkpointer.forLayout(input, SimulationClock.SYSTEM, units, pipeline,
+				container, resumed);
+		OccupancySampler sampler = OccupancySampler.forLayout(input, SimulationClock.SYSTEM, units, pipeline);
+		try {
+			if (checkpointer != null) {
+				checkpointer.start();
+			}
+			if (sampler != null) {
+				sampler.start();
+			}
+			for (Unit unit : units) {
+				scheduler.schedule(unit, finished::countDown);
+			}
+			finished.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			scheduler.close();
+		}
+		if (checkpointer != null) {
+			checkpointer.close();
+		}
+		pools.publishStatistics();
+		pipeline.publishStatistics();
+		publish(sampler, container);
+		return scheduler;
+	}
+
+	/** Takes the sampler's last sample and adds its averages, if there is one. */
+	private static void publish(OccupancySampler sampler, StatisticsContainer container) {
+		if (sampler != null) {
+			sampler.close();
+			sampler.publish(container);
+		}
+	}
+
+	/**
+	 * Creates the units to run: the pipeline's stations if one was declared,
+	 * otherwise robots and belts sharing one buffer.
+	 * @param maxThreads most threads that may use the buffer at once
+	 * @param container  the simulation's statistics
+	 */
+	static List<Unit> createLayout(SimulationInput input, Pipeline pipeline,
+								   ResourcePools pools, int maxThreads,
+								   StatisticsContainer container) {
+		if (!pipeline.isEmpty()) {
+			return pipeline.createUnits();
+		}
+		SharedBuffer<String> buffer = createBuffer(input,
+				Math.min(numBelts(input), maxThreads), Math.min(numRobots(input), maxThreads));
+		return createUnits(input, buffer, pools, container);
+	}
+
+	/**
+	 * Creates the robots and conveyor belts for the input, all sharing one buffer
+	 * and one set of resource pools. Robots come first, then belts.
+	 */
+	static List<Unit> createUnits(SimulationInput input, SharedBuffer<String> buffer,
+								  ResourcePools pools, StatisticsContainer container) {
+		// determine how many robots and belts
+		int numRobots = numRobots(input);
+		int numBelts = numBelts(input);
+
+		List<Unit> units = new ArrayList<>(numRobots + numBelts);
+		// robots via factory
 		for (int i = 0; i < numRobots; i++) {
 			String name = "Robot-" + (i+1);
-			robots[i] = new Thread(
-					UnitFactory.create("robot", name, input, buffer)
-			);
-			robots[i].start();
+			units.add(UnitFactory.create("robot", name, input, buffer, pools, container));
 		}
-
-		// 4) start conveyor belt threads via factory
-		Thread[] belts = new Thread[numBelts];
+		// conveyor belts via factory
 		for (int i = 0; i < numBelts; i++) {
 			String name = "belt-" + (i+1);
-			belts[i] = new Thread(
-					UnitFactory.create("belt", name, input, buffer)
-			);
-			belts[i].start();
+			units.add(UnitFactory.create("belt", name, input, buffer, pools, container));
 		}
+		return units;
+	}
 
-		// 5) wait for all to finish
-		try {
-			for (Thread t : robots) t.join();
-			for (Thread t : belts)  t.join();
-		} catch (InterruptedException ignored) { }
+	/**
+	 * Creates the buffer between belts and robots: "BufferCapacity" items (10 by
+	 * default) in the backend picked by "BufferBackend" and "WaitStrategy".
+	 * @param producers threads that will put into it
+	 * @param consumers threads that will take from it
+	 */
+	static SharedBuffer<String> createBuffer(SimulationInput input, int producers, int consumers) {
+		int capacity;
+		try { capacity = input.getIntegerInput("BufferCapacity"); }
+		catch (RuntimeException e) { capacity = 10; }
+		return SharedBuffer.fromInput(input, capacity, producers, consumers);
+	}
+
+	private static int numRobots(SimulationInput input) {
+		try { return input.getIntegerInput("NumRobots"); }
+		catch (RuntimeException e) { return 3; }
+	}
+
+	private static int numBelts(SimulationInput input) {
+		try { return input.getIntegerInput("NumBelts"); }
+		catch (RuntimeException e) { return 1; }
+	}
+
+	private static boolean hasRandomTiming(List<Unit> units) {
+		for (Unit unit : units) {
+			if (unit.getTiming().isRandom()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void submit(Executor executor, Unit unit, CountDownLatch finished,
+							   Map<Unit, Thread> running) {
+		executor.execute(() -> {
+			running.put(unit, Thread.currentThread());
+			try {
+				unit.run();
+			} finally {
+				running.remove(unit);
+				finished.countDown();
+			}
+		});
 	}
 }
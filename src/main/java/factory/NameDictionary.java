@@ -0,0 +1,34 @@
+package factory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Names to dense ids, assigned on first sight from any thread, for binary
+ * files that store ids and write the names once at the end. Looking up a
+ * name that already has an id doesn't allocate.
+ */
+final class NameDictionary {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : ids.computeIfAbsent(name, n -> nextId.getAndIncrement());
+    }
+
+    /** Writes the names in id order: a count, then each as UTF. */
+    void writeTo(DataOutputStream out) throws IOException {
+        String[] names = new String[nextId.get()];
+        for (Map.Entry<String, Integer> e : ids.entrySet()) {
+            names[e.getValue()] = e.getKey();
+        }
+        out.writeInt(names.length);
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.FloatWorkerStatistic;
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+import Skeleton.UnitState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Looks at every queue and unit of a run at a fixed period and keeps
+ * time-weighted averages: how deep each queue was, and what share of the
+ * run each unit spent WORKING, BLOCKED or IDLE (see Skeleton.UnitState).
+ *
+ * Units only flip a volatile field when their state changes, so the cost
+ * on their side is next to nothing; all the counting happens here, on one
+ * thread. In real time a daemon thread samples (start/close); the
+ * discrete-event engine instead calls advanceTo as simulated time passes,
+ * so both see the run at the same even spacing.
+ *
+ * For each queue it also estimates how long items waited in it, from the
+ * sampled arrival and departure counts (first in, first out), so that
+ * Little's law L = lambda * W can be checked against the measured depth.
+ *
+ * publish adds "Utilization" and "BlockedShare" to every unit; "MeanDepth",
+ * "MaxDepth", "Capacity", "DepartureRate" (items/s) and "MeanWait" (ms) to
+ * every queue's component; and "Elapsed" (s) and "Samples" under "Sampler".
+ * BottleneckReport reads them back.
+ *
+ * The "SamplePeriodMillis" input key sets the period (10 ms by default); 0
+ * turns sampling off.
+ */
+public class OccupancySampler implements AutoCloseable {
+    public static final long DEFAULT_PERIOD_MILLIS = 10;
+    static final String COMPONENT = "Sampler";
+
+    private final SimulationClock clock;
+    private final long periodNanos;
+    private final List<Unit> units = new ArrayList<>();
+    private final List<Queue> queues = new ArrayList<>();
+    private long[][] stateNanos = new long[0][]; // unit, state
+    private UnitState[] lastStates = new UnitState[0];
+
+    private long startedAt = -1;
+    private long lastSample;
+    private long nextSample;
+    private long samples;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param clock       where time is read from; only used by start
+     * @param periodNanos time between samples
+     */
+    public OccupancySampler(SimulationClock clock, long periodNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Sample period must be positive: " + periodNanos);
+        }
+        this.clock = clock;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Builds a sampler for the units of a layout, with its shared buffer or
+     * its pipeline's stage buffers as the queues.
+     * @return the sampler, or null if "SamplePeriodMillis" is 0
+     */
+    static OccupancySampler forLayout(SimulationInput input, SimulationClock clock,
+                                      List<Unit> units, Pipeline pipeline) {
+        long periodMillis = input.getIntegerInput("SamplePeriodMillis", (int) DEFAULT_PERIOD_MILLIS);
+        if (periodMillis < 0) {
+            throw new IllegalArgumentException("SamplePeriodMillis must not be negative: " + periodMillis);
+        }
+        if (periodMillis == 0) {
+            return null;
+        }
+        OccupancySampler sampler = new OccupancySampler(clock, periodMillis * 1_000_000L);
+        for (Unit unit : units) {
+            sampler.addUnit(unit);
+        }
+        if (!pipeline.isEmpty()) {
+            for (PipelineStage stage : pipeline.getStages()) {
+                SharedBuffer<String> inbound = stage.getInbound();
+                if (inbound != null) {
+                    sampler.addQueue("Stage-" + stage.getName(), inbound.capacity(),
+                            inbound::size, stage::getItemsProcessed);
+                }
+            }
+            return sampler;
+        }
+        SharedBuffer<String> buffer = null;
+        List<CounterStatistic> taken = new ArrayList<>();
+        for (Unit unit : units) {
+            if (unit instanceof Robot) {
+                Robot robot = (Robot) unit;
+                buffer = buffer != null ? buffer : robot.getBuffer();
+                taken.add((CounterStatistic) robot.getStats().getStatistic("ItemsProcessed"));
+            } else if (unit instanceof ConveyorBelt && buffer == null) {
+                buffer = ((ConveyorBelt) unit).getBuffer();
+            }
+        }
+        if (buffer != null) {
+            sampler.addQueue("Buffer", buffer.capacity(), buffer::size, () -> {
+                long sum = 0;
+                for (CounterStatistic counter : taken) {
+                    sum += (long) counter.getTotal();
+                }
+                return sum;
+            });
+        }
+        return sampler;
+    }
+
+    /** Follows a unit's state; call before sampling starts. */
+    public void addUnit(Unit unit) {
+        units.add(unit);
+    }
+
+    /**
+     * Follows a queue; call before sampling starts.
+     * @param component  where its statistics go, e.g. "Buffer"
+     * @param capacity   most items it holds
+     * @param depth      items in it right now
+     * @param departures items taken out of it so far
+     */
+    public void addQueue(String component, int capacity, IntSupplier depth, LongSupplier departures) {
+        queues.add(new Queue(component, capacity, depth, departures));
+    }
+
+    /** Starts sampling on a daemon thread, every period of the clock. */
+    public void start() {
+        begin(clock.nanoTime());
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                long wait = nextSample - clock.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    continue;
+                }
+                sample(clock.nanoTime());
+                nextSample += periodNanos;
+            }
+        }, "occupancy-sampler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the sampling thread, if any, and takes a last sample at the end of the run. */
+    @Override
+    public void close() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+            sample(clock.nanoTime());
+        }
+    }
+
+    /** Starts the books at the given time, without a thread (see advanceTo). */
+    public void begin(long now) {
+        startedAt = now;
+        lastSample = now;
+        nextSample = now + periodNanos;
+        stateNanos = new long[units.size()][UnitState.values().length];
+        lastStates = new UnitState[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            lastStates[i] = units.get(i).getState();
+        }
+        for (Queue queue : queues) {
+            queue.begin(now);
+        }
+    }
+
+    /**
+     * Takes every sample due up to the given time. For engines with their own
+     * clock: call it before each step, while the state is still that of the
+     * time before the step.
+     */
+    public void advanceTo(long now) {
+        while (nextSample <= now) {
+            sample(nextSample);
+            nextSample += periodNanos;
+        }
+    }
+
+    /** Closes the books at the given time, e.g. the simulated end of the run. */
+    public void finish(long now) {
+        advanceTo(now);
+        sample(now);
+    }
+
+    /**
+     * Credits the time since the last sample to what was seen then, and
+     * looks again. Called from one thread at a time.
+     */
+    void sample(long now) {
+        long dt = now - lastSample;
+        if (dt < 0) {
+            return;
+        }
+        for (int i = 0; i < lastStates.length; i++) {
+            stateNanos[i][lastStates[i].ordinal()] += dt;
+            lastStates[i] = units.get(i).getState();
+        }
+        for (Queue queue : queues) {
+            queue.sample(now, dt);
+        }
+        lastSample = now;
+        samples++;
+    }
+
+    /** @return nanoseconds from the start to the last sample */
+    public long getElapsedNanos() {
+        return startedAt < 0 ? 0 : lastSample - startedAt;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    /** @return share of the run the unit spent in the state, 0..1 */
+    public double getShare(Unit unit, UnitState state) {
+        int index = units.indexOf(unit);
+        long elapsed = getElapsedNanos();
+        if (index < 0 || elapsed == 0) {
+            return 0;
+        }
+        return stateNanos[index][state.ordinal()] / (double) elapsed;
+    }
+
+    /** @return the queue's statistics component names, in the order they were added */
+    public List<String> getQueueNames() {
+        List<String> names = new ArrayList<>(queues.size());
+        for (Queue queue : queues) {
+            names.add(queue.component);
+        }
+        return names;
+    }
+
+    /** @return time-weighted mean items in the queue */
+    public double getMeanDepth(String component) {
+        return queue(component).meanDepth(getElapsedNanos());
+    }
+
+    /** @return mean time an item spent in the queue, in nanoseconds, or NaN if none left it */
+    public double getMeanWaitNanos(String component) {
+        return queue(component).meanWait();
+    }
+
+    /** @return items taken out of the queue per second */
+    public double getThroughput(String component) {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : queue(component).departed() * 1e9 / elapsed;
+    }
+
+    /** Adds the averages to the container; call once, after the last sample. */
+    public void publish(StatisticsContainer container) {
+        for (int i = 0; i < units.size(); i++) {
+            Statistics stats = units.get(i).getStats();
+            add(stats, "Utilization", (float) getShare(units.get(i), UnitState.WORKING));
+            add(stats, "BlockedShare", (float) getShare(units.get(i), UnitState.BLOCKED));
+        }
+        for (Queue queue : queues) {
+            Statistics stats = container.getComponent(queue.component); // may be a stage's own
+            add(stats, "MeanDepth", (float) getMeanDepth(queue.component));
+            add(stats, "MaxDepth", queue.maxDepth);
+            add(stats, "Capacity", queue.capacity);
+            add(stats, "DepartureRate", (float) getThroughput(queue.component));
+            add(stats, "MeanWait", (float) (queue.meanWait() / 1_000_000.0));
+        }
+        Statistics sampler = container.getComponent(COMPONENT);
+        add(sampler, "Elapsed", (float) (getElapsedNanos() / 1e9));
+        add(sampler, "Samples", samples);
+    }
+
+    private static void add(Statistics stats, String name, float value) {
+        Statistic stat = stats.getStatistic(name);
+        if (stat == null) {
+            stat = stats.addStatistic(name, new FloatWorkerStatistic(name));
+        }
+        stat.addValue(value);
+    }
+
+    private Queue queue(String component) {
+        for (Queue queue : queues) {
+            if (queue.component.equals(component)) {
+                return queue;
+            }
+        }
+        throw new IllegalArgumentException("Unknown queue: " + component);
+    }
+
+    /** The books of one queue. */
+    private static final class Queue {
+        final String component;
+        final int capacity;
+        final IntSupplier depth;
+        final LongSupplier departures;
+
+        int lastDepth;
+        int maxDepth;
+        double depthNanos; // integral of depth over time
+        long departedAtStart;
+        long lastDepartures;
+
+        // sampled cumulative arrivals, to find when the n-th item arrived
+        long[] times = new long[64];
+        long[] arrivals = new long[64];
+        int head;
+        int tail;
+        double waitNanos;  // summed over departed items
+        long waited;       // items whose wait was summed
+
+        Queue(String component, int capacity, IntSupplier depth, LongSupplier departures) {
+            this.component = component;
+            this.capacity = capacity;
+            this.depth = depth;
+            this.departures = departures;
+        }
+
+        void begin(long now) {
+            lastDepth = depth.getAsInt();
+            maxDepth = lastDepth;
+            departedAtStart = departures.getAsLong();
+            lastDepartures = departedAtStart;
+            append(now, departedAtStart + lastDepth);
+        }
+
+        void sample(long now, long dt) {
+            depthNanos += (double) lastDepth * dt;
+            int d = depth.getAsInt();
+            long out = departures.getAsLong();
+            lastDepth = d;
+            maxDepth = Math.max(maxDepth, d);
+            append(now, out + d);
+            if (out > lastDepartures) {
+                // FIFO: the items that left since the last sample arrived
+                // around when the arrival count first reached the middle one
+                long middle = lastDepartures + (out - lastDepartures + 1) / 2;
+                while (head < tail - 1 && arrivals[head] < middle) {
+                    head++;
+                }
+                waitNanos += (double) (out - lastDepartures) * (now - times[head]);
+                waited += out - lastDepartures;
+                lastDepartures = out;
+            }
+        }
+
+        private void append(long time, long arrived) {
+            if (tail == times.length) {
+                if (head > times.length / 2) {
+                    // drop what no later departure can need
+                    System.arraycopy(times, head, times, 0, tail - head);
+                    System.arraycopy(arrivals, head, arrivals, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                } else {
+                    times = Arrays.copyOf(times, times.length * 2);
+                    arrivals = Arrays.copyOf(arrivals, arrivals.length * 2);
+                }
+            }
+            times[tail] = time;
+            arrivals[tail] = arrived;
+            tail++;
+        }
+
+        double meanDepth(long elapsed) {
+            return elapsed == 0 ? lastDepth : depthNanos / elapsed;
+        }
+
+        double meanWait() {
+            return waited == 0 ? Double.NaN : waitNanos / waited;
+        }
+
+        long departed() {
+            return lastDepartures - departedAtStart;
+        }
+    }
+}
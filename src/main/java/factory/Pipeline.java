@@ -0,0 +1,225 @@
+package factory;
+
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A production line made of stages, each with its own buffer and stations,
+ * connected into a directed acyclic graph.
+ *
+ * Stages are declared with the "Stages" input key, one value per stage in the
+ * form name:units, name:units:capacity or name:units:capacity:rate, e.g.
+ * 		Stages = [belt:2, machining:3:20:5, inspection:1:10, packing:2, storage:1]
+ * Capacity is the size of the buffer in front of the stage ("BufferCapacity",
+ * or 10, by default) and rate its stations' actions per second (the input's
+ * "ActionsPerSecond" by default).
+ *
+ * "StageEdges" lists the connections as from-&gt;to, e.g.
+ * 		StageEdges = [belt->machining, machining->inspection, machining->packing]
+ * Without it, the stages form a chain in the order they were declared.
+ * Stages nothing feeds are sources; stages that feed nothing are sinks.
+ */
+public class Pipeline {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // queues this close to the fullest one count as just as full
+    private static final double OCCUPANCY_TOLERANCE = 0.05;
+
+    private final List<PipelineStage> stages; // upstream before downstream
+    private final SimulationClock clock;
+    private final long createdAt;
+
+    private Pipeline(List<PipelineStage> stages, SimulationClock clock) {
+        this.stages = stages;
+        this.clock = clock;
+        this.createdAt = clock.nanoTime();
+    }
+
+    /** @return an empty pipeline, for inputs that use plain belts and robots */
+    public static Pipeline none() {
+        return new Pipeline(Collections.emptyList(), SimulationClock.SYSTEM);
+    }
+
+    /**
+     * Builds the pipeline declared in the input (none if "Stages" is missing).
+     * @param input      simulation input
+     * @param clock      time source for the throughput figures
+     * @param stats      container to register the stages' statistics in
+     * @param maxThreads most threads that may use one buffer at once, to pick
+     *                   the buffer backend's producer and consumer counts
+     * @throws IllegalArgumentException if a declaration is malformed or the
+     *         stages form a cycle
+     */
+    public static Pipeline fromInput(SimulationInput input, SimulationClock clock,
+                                     StatisticsContainer stats, int maxThreads) {
+        if (!input.hasInput("Stages")) {
+            return none();
+        }
+        int defaultCapacity = input.getIntegerInput("BufferCapacity", 10);
+        Map<String, PipelineStage> byName = new LinkedHashMap<>();
+        for (String declaration : input.getValues("Stages")) {
+            PipelineStage stage = parseStage(declaration, input, defaultCapacity, stats);
+            if (byName.put(stage.getName(), stage) != null) {
+                throw new IllegalArgumentException("Stage declared twice: " + stage.getName());
+            }
+        }
+
+        List<PipelineStage> declared = new ArrayList<>(byName.values());
+        if (input.hasInput("StageEdges")) {
+            for (String edge : input.getValues("StageEdges")) {
+                String[] ends = edge.split("->");
+                if (ends.length != 2) {
+                    throw new IllegalArgumentException("Bad stage edge: " + edge);
+                }
+                stage(byName, ends[0].trim()).connect(stage(byName, ends[1].trim()));
+            }
+        } else {
+            for (int i = 1; i < declared.size(); i++) {
+                declared.get(i - 1).connect(declared.get(i));
+            }
+        }
+
+        List<PipelineStage> ordered = topologicalOrder(declared);
+        for (PipelineStage stage : ordered) {
+            if (stage.isSource()) {
+                continue;
+            }
+            int producers = 0;
+            for (PipelineStage up : stage.getUpstream()) {
+                producers += up.getUnits();
+            }
+            stage.setInbound(SharedBuffer.fromInput(input, stage.getCapacity(),
+                    Math.min(producers, maxThreads), Math.min(stage.getUnits(), maxThreads)));
+        }
+        return new Pipeline(ordered, clock);
+    }
+
+    private static PipelineStage parseStage(String declaration, SimulationInput input,
+                                            int defaultCapacity, StatisticsContainer stats) {
+        String[] parts = declaration.split(":");
+        if (parts.length < 2 || parts.length > 4) {
+            throw new IllegalArgumentException("Bad stage declaration: " + declaration);
+        }
+        String name = parts[0].trim();
+        int units, capacity, rate;
+        try {
+            units = Integer.parseInt(parts[1].trim());
+            capacity = parts.length > 2 ? Integer.parseInt(parts[2].trim()) : defaultCapacity;
+            rate = parts.length > 3 ? Integer.parseInt(parts[3].trim()) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number in stage declaration: " + declaration);
+        }
+        SimulationInput stageInput = rate > 0
+                ? input.withOverrides(Map.of("ActionsPerSecond", List.of(String.valueOf(rate))))
+                : input;
+        return new PipelineStage(name, units, capacity, stageInput, stats);
+    }
+
+    private static PipelineStage stage(Map<String, PipelineStage> byName, String name) {
+        PipelineStage stage = byName.get(name);
+        if (stage == null) {
+            throw new IllegalArgumentException("Unknown stage: " + name);
+        }
+        return stage;
+    }
+
+    /** Kahn's algorithm, keeping declaration order among stages that are ready together. */
+    private static List<PipelineStage> topologicalOrder(List<PipelineStage> declared) {
+        Map<PipelineStage, Integer> waitingOn = new HashMap<>();
+        Deque<PipelineStage> ready = new ArrayDeque<>();
+        for (PipelineStage stage : declared) {
+            waitingOn.put(stage, stage.getUpstream().size());
+            if (stage.isSource()) {
+                ready.add(stage);
+            }
+        }
+        List<PipelineStage> ordered = new ArrayList<>(declared.size());
+        while (!ready.isEmpty()) {
+            PipelineStage stage = ready.poll();
+            ordered.add(stage);
+            for (PipelineStage next : stage.getDownstream()) {
+                if (waitingOn.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        if (ordered.size() != declared.size()) {
+            throw new IllegalArgumentException("Stages form a cycle");
+        }
+        return ordered;
+    }
+
+    /** @return true when no stages were declared */
+    public boolean isEmpty() {
+        return stages.isEmpty();
+    }
+
+    /** @return the stages, every stage after the ones feeding it */
+    public List<PipelineStage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Creates the stations of every stage through UnitFactory, named
+     * "&lt;stage&gt;-1", "&lt;stage&gt;-2" and so on, in stage order.
+     */
+    public List<Unit> createUnits() {
+        List<Unit> units = new ArrayList<>();
+        for (PipelineStage stage : stages) {
+            for (int i = 1; i <= stage.getUnits(); i++) {
+                units.add(UnitFactory.createStation(stage.getName() + "-" + i, stage));
+            }
+        }
+        return units;
+    }
+
+    /**
+     * The stage holding the line back: the one whose buffer was fullest on
+     * average. Every buffer upstream of a bottleneck fills up too, so among
+     * buffers about as full as the fullest, the one furthest down the line wins.
+     * If no buffer ever filled, the sources can't keep up and the first one is
+     * returned.
+     * @return the bottleneck stage, or null for an empty pipeline
+     */
+    public PipelineStage getBottleneck() {
+        double fullest = 0;
+        for (PipelineStage stage : stages) {
+            fullest = Math.max(fullest, stage.getMeanOccupancy());
+        }
+        if (fullest < OCCUPANCY_TOLERANCE) {
+            return stages.isEmpty() ? null : stages.get(0);
+        }
+        PipelineStage bottleneck = null;
+        for (PipelineStage stage : stages) {
+            if (!stage.isSource() && stage.getMeanOccupancy() >= fullest - OCCUPANCY_TOLERANCE) {
+                bottleneck = stage;
+            }
+        }
+        return bottleneck;
+    }
+
+    /**
+     * Records each stage's throughput since the pipeline was built, and which
+     * stage is the bottleneck, for BottleneckReport. Call once, after the run.
+     */
+    public void publishStatistics() {
+        double elapsedSeconds = (clock.nanoTime() - createdAt) / (double) NANOS_PER_SECOND;
+        for (PipelineStage stage : stages) {
+            stage.publishThroughput(elapsedSeconds);
+        }
+        PipelineStage bottleneck = getBottleneck();
+        if (bottleneck != null) {
+            bottleneck.markBottleneck();
+        }
+    }
+}
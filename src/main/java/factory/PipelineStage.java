@@ -0,0 +1,181 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.FloatWorkerStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+import Skeleton.StreamingStatistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One stage of a Pipeline: a group of identical Stations fed by the stage's
+ * own bounded buffer. Stages without upstream stages are sources and make
+ * items; the others take items from their buffer and pass them on.
+ *
+ * Statistics live under the component "Stage-&lt;name&gt;": "ItemsProcessed",
+ * "QueueOccupancy" (items waiting in the buffer, sampled each time a station
+ * looks for work), "ItemsDropped" (items nobody downstream could take any
+ * more) and, once the run is over, "Throughput" in items per second and
+ * "Bottleneck", 1 for the stage Pipeline.getBottleneck names and 0 otherwise.
+ */
+public class PipelineStage {
+    private final String name;
+    private final int units;
+    private final int capacity;
+    private final SimulationInput input;
+    private final StatisticsContainer container;
+    private final List<PipelineStage> upstream = new ArrayList<>();
+    private final List<PipelineStage> downstream = new ArrayList<>();
+    private SharedBuffer<String> inbound; // null for sources
+    private final AtomicInteger running;
+
+    private final CounterStatistic itemsProcessed;
+    private final CounterStatistic itemsDropped;
+    private final StreamingStatistic queueOccupancy;
+    private final FloatWorkerStatistic throughput;
+    private final CounterStatistic bottleneck;
+
+    /**
+     * @param name     stage name, also the prefix of its stations' names
+     * @param units    how many stations work the stage
+     * @param capacity size of the stage's buffer
+     * @param input     input its stations run with
+     * @param container the simulation's statistics; the stage's own go under "Stage-&lt;name&gt;"
+     */
+    PipelineStage(String name, int units, int capacity, SimulationInput input, StatisticsContainer container) {
+        if (units < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Stage " + name + " needs at least one unit and one buffer slot");
+        }
+        this.name = name;
+        this.units = units;
+        this.capacity = capacity;
+        this.input = input;
+        this.container = container;
+        this.running = new AtomicInteger(units);
+        Statistics stats = container.addComponent("Stage-" + name);
+        this.itemsProcessed = (CounterStatistic) stats.addStatistic("ItemsProcessed", new CounterStatistic("ItemsProcessed"));
+        this.itemsDropped = (CounterStatistic) stats.addStatistic("ItemsDropped", new CounterStatistic("ItemsDropped"));
+        this.queueOccupancy = (StreamingStatistic) stats.addStatistic("QueueOccupancy", new StreamingStatistic("QueueOccupancy"));
+        this.throughput = (FloatWorkerStatistic) stats.addStatistic("Throughput", new FloatWorkerStatistic("Throughput"));
+        this.bottleneck = (CounterStatistic) stats.addStatistic("Bottleneck", new CounterStatistic("Bottleneck"));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** @return the input this stage's stations run with (it may set its own rate) */
+    public SimulationInput getInput() {
+        return input;
+    }
+
+    /** @return the simulation's statistics, where its stations register too */
+    public StatisticsContainer getContainer() {
+        return container;
+    }
+
+    /** @return the buffer feeding this stage, or null for a source */
+    public SharedBuffer<String> getInbound() {
+        return inbound;
+    }
+
+    public List<PipelineStage> getUpstream() {
+        return Collections.unmodifiableList(upstream);
+    }
+
+    public List<PipelineStage> getDownstream() {
+        return Collections.unmodifiableList(downstream);
+    }
+
+    public boolean isSource() {
+        return upstream.isEmpty();
+    }
+
+    public boolean isSink() {
+        return downstream.isEmpty();
+    }
+
+    /** @return true once every station of this stage has done all its actions */
+    public boolean isFinished() {
+        return running.get() == 0;
+    }
+
+    /** @return true once no upstream stage will add to this stage's buffer again */
+    public boolean isUpstreamFinished() {
+        for (PipelineStage stage : upstream) {
+            if (!stage.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return true once no downstream stage will take items any more */
+    public boolean isDownstreamFinished() {
+        for (PipelineStage stage : downstream) {
+            if (!stage.isFinished()) {
+                return false;
+            }
+        }
+        return !downstream.isEmpty();
+    }
+
+    /** @return mean items waiting in the buffer as a share of its capacity, 0 for sources */
+    public double getMeanOccupancy() {
+        if (inbound == null || queueOccupancy.getCount() == 0) {
+            return 0;
+        }
+        return queueOccupancy.getMean() / capacity;
+    }
+
+    /** @return items the stage's stations have finished with */
+    public long getItemsProcessed() {
+        return (long) itemsProcessed.getTotal();
+    }
+
+    void connect(PipelineStage next) {
+        downstream.add(next);
+        next.upstream.add(this);
+    }
+
+    void setInbound(SharedBuffer<String> inbound) {
+        this.inbound = inbound;
+    }
+
+    void sampleQueue() {
+        queueOccupancy.record(inbound.size());
+    }
+
+    void itemProcessed() {
+        itemsProcessed.increment();
+    }
+
+    void itemDropped() {
+        itemsDropped.increment();
+    }
+
+    void unitFinished() {
+        running.decrementAndGet();
+    }
+
+    void publishThroughput(double elapsedSeconds) {
+        throughput.addValue(elapsedSeconds > 0 ? (float) (getItemsProcessed() / elapsedSeconds) : 0f);
+    }
+
+    void markBottleneck() {
+        bottleneck.increment();
+    }
+}
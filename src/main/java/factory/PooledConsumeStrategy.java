@@ -0,0 +1,47 @@
+package factory;
+
+import java.util.List;
+
+/**
+ * Robot strategy that holds a permit from each of the named resource pools
+ * while it consumes from the buffer, e.g. a tool and a work cell.
+ * Robots use it when the "RobotResources" input key lists pool names.
+ */
+public class PooledConsumeStrategy implements ActionStrategy {
+    private final List<String> poolNames;
+    private final ConsumeStrategy consume = new ConsumeStrategy();
+
+    /** @param poolNames the pools to hold during each action */
+    public PooledConsumeStrategy(List<String> poolNames) {
+        this.poolNames = List.copyOf(poolNames);
+    }
+
+    /** Without pools there is nothing to hold, so this just consumes. */
+    @Override
+    public void execute(String name, SharedBuffer<String> buffer) throws InterruptedException {
+        consume.execute(name, buffer);
+    }
+
+    @Override
+    public int execute(ActionContext context) throws InterruptedException {
+        List<ResourcePool> held = context.getPools().acquireAll(poolNames);
+        try {
+            return consume.execute(context);
+        } finally {
+            context.getPools().releaseAll(held);
+        }
+    }
+
+    @Override
+    public int tryExecute(ActionContext context) {
+        List<ResourcePool> held = context.getPools().tryAcquireAll(poolNames);
+        if (held == null) {
+            return 0;
+        }
+        try {
+            return consume.tryExecute(context);
+        } finally {
+            context.getPools().releaseAll(held);
+        }
+    }
+}
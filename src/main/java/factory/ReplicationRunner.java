@@ -0,0 +1,146 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the same layout several times with different seeds (Monte Carlo
+ * replications) and estimates each total with a confidence interval, so a
+ * capacity question gets an answer with error bars instead of one sample.
+ *
+ * Replication i runs with its own "Seed", drawn in order from the base
+ * "Seed", so the whole set is reproducible while each run draws its random
+ * action times and breakdowns independently (see Skeleton.ActionTiming).
+ * Replications run several at a time, each in its own StatisticsContainer.
+ * Use ExecutionMode=discrete so runs take CPU time rather than `Time`
+ * seconds each.
+ *
+ * Input keys: "Replications" (10 by default), "ReplicationThreads" (one per
+ * core by default), "Seed" (0 by default) and "Confidence" (0.95 by default).
+ * The totals are the sum of every CounterStatistic by name over all
+ * components, as in a SweepRunner row.
+ */
+public class ReplicationRunner {
+    private final SimulationInput base;
+    private final int replications;
+    private final int threads;
+    private final long seed;
+    private final double confidence;
+
+    /**
+     * @param base         input every replication starts from
+     * @param replications how many runs; at least 2 for an interval
+     * @param threads      most runs at once
+     * @param seed         seed the replications' seeds are drawn from
+     * @param confidence   level of the intervals, e.g. 0.95
+     */
+    public ReplicationRunner(SimulationInput base, int replications, int threads,
+                             long seed, double confidence) {
+        if (replications < 2) {
+            throw new IllegalArgumentException("Need at least 2 replications: " + replications);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Replication threads must be positive: " + threads);
+        }
+        if (!(confidence > 0 && confidence < 1)) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1: " + confidence);
+        }
+        this.base = base;
+        this.replications = replications;
+        this.threads = threads;
+        this.seed = seed;
+        this.confidence = confidence;
+    }
+
+    /** Builds a runner from the "Replications", "ReplicationThreads", "Seed" and "Confidence" keys. */
+    public static ReplicationRunner fromInput(SimulationInput input) {
+        String seed = input.snapshot().getStringInput("Seed", "0");
+        String confidence = input.snapshot().getStringInput("Confidence", "0.95");
+        try {
+            return new ReplicationRunner(input,
+                    input.getIntegerInput("Replications", 10),
+                    input.getIntegerInput("ReplicationThreads", Runtime.getRuntime().availableProcessors()),
+                    Long.parseLong(seed.trim()),
+                    Double.parseDouble(confidence.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad Seed or Confidence: " + seed + ", " + confidence);
+        }
+    }
+
+    /** @return the seed of each replication, in order */
+    public long[] seeds() {
+        SplittableRandom source = new SplittableRandom(seed);
+        long[] seeds = new long[replications];
+        for (int i = 0; i < replications; i++) {
+            seeds[i] = source.nextLong();
+        }
+        return seeds;
+    }
+
+    /**
+     * Runs every replication and waits for all of them.
+     * @throws IllegalStateException if a replication failed, since the
+     *         estimates would be biased without it
+     */
+    public ReplicationResult run() {
+        long[] seeds = seeds();
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, replications), r -> {
+            Thread t = new Thread(r, "replication-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<Map<String, Double>>> futures = new ArrayList<>(replications);
+        try {
+            for (long replicationSeed : seeds) {
+                SimulationInput input = base.withOverrides(Map.of("Seed", List.of(String.valueOf(replicationSeed))));
+                futures.add(pool.submit(runOf(input)));
+            }
+            ReplicationResult result = new ReplicationResult(seeds, confidence);
+            for (int i = 0; i < futures.size(); i++) {
+                result.add(i, futures.get(i).get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replications interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replication failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Callable<Map<String, Double>> runOf(SimulationInput input) {
+        return () -> {
+            StatisticsContainer container = StatisticsContainer.newInstance(input);
+            Matrix.run(input, container);
+            Map<String, Double> totals = new TreeMap<>();
+            for (String component : container.getComponentNames()) {
+                Statistics stats = container.getComponent(component);
+                for (String name : stats.getStatisticNames()) {
+                    Statistic stat = stats.getStatistic(name);
+                    if (stat instanceof CounterStatistic) {
+                        totals.merge(name, stat.summarizeExact(), Double::sum);
+                    }
+                }
+            }
+            return totals;
+        };
+    }
+}
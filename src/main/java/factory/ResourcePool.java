@@ -0,0 +1,115 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.FloatWorkerStatistic;
+import Skeleton.SimulationClock;
+import Skeleton.Statistics;
+import Skeleton.StreamingStatistic;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named, limited resource that units compete for (tools, work cells, a power
+ * budget, ...), with its own permit count and fairness.
+ *
+ * Besides handing out permits, it records how long callers waited ("WaitTime",
+ * in ms) and how busy it was ("Utilization", the average share of permits in
+ * use since it was created), so contention shows up in the statistics.
+ */
+public class ResourcePool {
+    private final String name;
+    private final int permits;
+    private final Semaphore semaphore;
+    private final SimulationClock clock;
+    private final long createdAt;
+
+    private final StreamingStatistic waitTime;
+    private final CounterStatistic acquisitions;
+    private final FloatWorkerStatistic utilization;
+
+    // permit-nanoseconds in use: -acquireTime + releaseTime per permit, so that
+    // heldNanos + inUse * now is the total busy time without taking a lock
+    private final LongAdder heldNanos = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    /**
+     * @param name    pool name, e.g. "tools"
+     * @param permits how many holders it allows at once
+     * @param fair    whether waiting callers are served first-come first-served
+     * @param clock   time source for wait and utilization tracking
+     * @param stats   where to register the pool's statistics
+     */
+    public ResourcePool(String name, int permits, boolean fair, SimulationClock clock, Statistics stats) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Pool " + name + " needs at least one permit");
+        }
+        this.name = name;
+        this.permits = permits;
+        this.semaphore = new Semaphore(permits, fair);
+        this.clock = clock;
+        this.createdAt = clock.nanoTime();
+        this.waitTime = (StreamingStatistic) stats.addStatistic("WaitTime", new StreamingStatistic("WaitTime"));
+        this.acquisitions = (CounterStatistic) stats.addStatistic("Acquisitions", new CounterStatistic("Acquisitions"));
+        this.utilization = (FloatWorkerStatistic) stats.addStatistic("Utilization", new FloatWorkerStatistic("Utilization"));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    /** Take a permit, waiting as long as needed; a fair pool serves callers in order. */
+    public void acquire() throws InterruptedException {
+        long start = clock.nanoTime();
+        // not tryAcquire() first: that takes a free permit even from a fair
+        // semaphore's waiting callers
+        semaphore.acquire();
+        onAcquired(start);
+    }
+
+    /** Take a permit only if one is free right now, even ahead of waiting callers. */
+    public boolean tryAcquire() {
+        long start = clock.nanoTime();
+        if (!semaphore.tryAcquire()) {
+            return false;
+        }
+        onAcquired(start);
+        return true;
+    }
+
+    /** Give back a permit taken with acquire or tryAcquire. */
+    public void release() {
+        heldNanos.add(clock.nanoTime());
+        inUse.decrementAndGet();
+        semaphore.release();
+    }
+
+    /** @return average share of permits in use since the pool was created, 0..1 */
+    public double getUtilization() {
+        long now = clock.nanoTime();
+        long elapsed = now - createdAt;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        double busy = heldNanos.sum() + (double) inUse.get() * now;
+        return busy / ((double) permits * elapsed);
+    }
+
+    /** Adds the utilization so far to the "Utilization" statistic; call once at the end of a run. */
+    public void publishUtilization() {
+        utilization.addValue((float) getUtilization());
+    }
+
+    private void onAcquired(long start) {
+        long now = clock.nanoTime();
+        inUse.incrementAndGet();
+        heldNanos.add(-now);
+        waitTime.record((now - start) / 1_000_000.0);
+        acquisitions.increment();
+    }
+}
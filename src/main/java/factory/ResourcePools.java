@@ -0,0 +1,136 @@
+package factory;
+
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The named ResourcePools of one simulation.
+ *
+ * They are declared with the "ResourcePools" input key, one value per pool in
+ * the form name:permits or name:permits:fair, e.g.
+ * 		ResourcePools = [tools:2, cells:4:fair]
+ * Each pool's statistics live under the component "Pool-&lt;name&gt;".
+ */
+public class ResourcePools {
+    private final Map<String, ResourcePool> pools;
+
+    private ResourcePools(Map<String, ResourcePool> pools) {
+        this.pools = pools;
+    }
+
+    /** @return a set with no pools, for units that don't share resources */
+    public static ResourcePools none() {
+        return new ResourcePools(Collections.emptyMap());
+    }
+
+    /**
+     * Creates the pools declared in the input (none if the key is missing).
+     * @param input simulation input
+     * @param clock time source for wait and utilization tracking
+     * @param stats container to register the pools' statistics in
+     * @throws IllegalArgumentException if a declaration is malformed
+     */
+    public static ResourcePools fromInput(SimulationInput input, SimulationClock clock,
+                                          StatisticsContainer stats) {
+        List<String> declarations;
+        try { declarations = input.getInput("ResourcePools"); }
+        catch (RuntimeException e) { return none(); }
+
+        // sorted, so acquireAll always takes pools in the same order
+        Map<String, ResourcePool> pools = new TreeMap<>();
+        for (String declaration : declarations) {
+            String[] parts = declaration.split(":");
+            if (parts.length < 2 || parts.length > 3
+                    || (parts.length == 3 && !parts[2].equalsIgnoreCase("fair"))) {
+                throw new IllegalArgumentException("Bad resource pool declaration: " + declaration);
+            }
+            String name = parts[0].trim();
+            int permits;
+            try { permits = Integer.parseInt(parts[1].trim()); }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad permit count in: " + declaration);
+            }
+            boolean fair = parts.length == 3;
+            pools.put(name, new ResourcePool(name, permits, fair, clock, stats.getComponent("Pool-" + name)));
+        }
+        return new ResourcePools(pools);
+    }
+
+    /**
+     * @param name pool name
+     * @return the pool
+     * @throws IllegalArgumentException if no pool has that name
+     */
+    public ResourcePool get(String name) {
+        ResourcePool pool = pools.get(name);
+        if (pool == null) {
+            throw new IllegalArgumentException("Unknown resource pool: " + name);
+        }
+        return pool;
+    }
+
+    public Collection<ResourcePool> getAll() {
+        return pools.values();
+    }
+
+    /**
+     * Acquires one permit from each named pool, always in name order so two
+     * units asking for the same pools can't deadlock. If interrupted, the
+     * permits already taken are given back.
+     * @return the pools in the order they were acquired, for releaseAll
+     */
+    public List<ResourcePool> acquireAll(Collection<String> names) throws InterruptedException {
+        List<ResourcePool> held = new ArrayList<>(names.size());
+        try {
+            for (String name : new TreeSet<>(names)) {
+                ResourcePool pool = get(name);
+                pool.acquire();
+                held.add(pool);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            releaseAll(held);
+            throw e;
+        }
+        return held;
+    }
+
+    /**
+     * Non-blocking acquireAll: takes every permit or none.
+     * @return the held pools, or null if one of them had no free permit
+     */
+    public List<ResourcePool> tryAcquireAll(Collection<String> names) {
+        List<ResourcePool> held = new ArrayList<>(names.size());
+        for (String name : new TreeSet<>(names)) {
+            ResourcePool pool = get(name);
+            if (!pool.tryAcquire()) {
+                releaseAll(held);
+                return null;
+            }
+            held.add(pool);
+        }
+        return held;
+    }
+
+    /** Releases pools returned by acquireAll or tryAcquireAll. */
+    public void releaseAll(List<ResourcePool> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).release();
+        }
+    }
+
+    /** Records every pool's utilization; call once when the run ends. */
+    public void publishStatistics() {
+        for (ResourcePool pool : pools.values()) {
+            pool.publishUtilization();
+        }
+    }
+}
@@ -1,26 +1,65 @@
 package factory;
 
+import Skeleton.ActionTiming;
 import Skeleton.SimulationInput;
-import Skeleton.WorkerStatistic;
+import Skeleton.CounterStatistic;
+import Skeleton.HistogramStatistic;
+import Skeleton.RateStatistic;
+import Skeleton.StatisticsContainer;
 import Skeleton.Unit;
-import java.util.concurrent.Semaphore;
 import factory.ActionStrategy;
 import factory.ConsumeStrategy;
 
 
 public class Robot extends Unit {
-    private static final Semaphore robotSemaphore = new Semaphore(2);
     private final ActionStrategy strategy;
 
     private final SharedBuffer<String> buffer;
-    /** Primary constructor */
+    private final ActionContext context;
+    private final boolean consumes; // false when there are no belts to consume from
+    private final RateStatistic actionsRate;
+    private int lastItems; // items consumed by the latest action
+
+    /**
+     * Primary constructor
+     * @param pools     resource pools the strategy may acquire (see ResourcePools)
+     * @param container the simulation's statistics
+     */
     public Robot(String name, SimulationInput input,
                  SharedBuffer<String> buffer,
-                 ActionStrategy strategy) {
-        super(name, input);
-        this.getStats().addStatistic("ActionsPerformed", new WorkerStatistic("ActionsPerformed"));
-        this.buffer = buffer;
+                 ActionStrategy strategy,
+                 ResourcePools pools,
+                 StatisticsContainer container) {
+        super(name, input, container);
+        this.getStats().addStatistic("ActionsPerformed", new CounterStatistic("ActionsPerformed"));
+        this.getStats().addStatistic("ItemsProcessed", new CounterStatistic("ItemsProcessed"));
+        // recent actions per second; the clock is read on each update, as a discrete-event run swaps it
+        this.actionsRate = (RateStatistic) this.getStats().addStatistic("ActionsPerformedRate",
+                new RateStatistic("ActionsPerformedRate", () -> getClock().nanoTime()));
+        // how long each take waited for an item, through the robot's own view of the buffer
+        HistogramStatistic waits = (HistogramStatistic) this.getStats().addStatistic("BufferWait",
+                new HistogramStatistic("BufferWait"));
+        this.buffer = buffer == null ? null : buffer.recordingWaits(waits, this);
         this.strategy = strategy;
+        this.context = new ActionContext(name, this.buffer, pools, ConveyorBelt.batchSize(input));
+        this.consumes = getSettings().getIntegerInput("NumBelts", 1) > 0;
+        // random action times and breakdowns from "RobotActionTime" etc., if set
+        this.setTiming(ActionTiming.fromSettings(getSettings(), "Robot", name));
+    }
+
+    /** Statistics go into the shared StatisticsContainer */
+    public Robot(String name, SimulationInput input,
+                 SharedBuffer<String> buffer,
+                 ActionStrategy strategy,
+                 ResourcePools pools) {
+        this(name, input, buffer, strategy, pools, StatisticsContainer.getInstance());
+    }
+
+    /** No shared resource pools */
+    public Robot(String name, SimulationInput input,
+                 SharedBuffer<String> buffer,
+                 ActionStrategy strategy) {
+        this(name, input, buffer, strategy, ResourcePools.none());
     }
 
     /** Default to ConsumeStrategy */
@@ -48,25 +87,42 @@ public class Robot extends Unit {
 @Override
 public void performAction() {
     try {
-        robotSemaphore.acquire();
         // Only consume if there's at least one belt producing
-        int beltCount = getSimInput().getIntegerInput("NumBelts");
-        if (beltCount > 0) {
-            strategy.execute(getName(), buffer);
+        lastItems = 0;
+        if (consumes) {
+            lastItems = strategy.execute(context);
         }
         // else: skip consuming, just count via submitStatistics()
     } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
-    } finally {
-        robotSemaphore.release();
     }
 }
 
+    @Override
+    public boolean tryPerformAction() {
+        lastItems = 0;
+        if (consumes) {
+            lastItems = strategy.tryExecute(context);
+            return lastItems > 0;
+        }
+        return true;
+    }
+
+    /** @return this unit's view of the buffer it works on, or null */
+    SharedBuffer<String> getBuffer() {
+        return buffer;
+    }
 
     @Override
     public void submitStatistics() {
         this.getStats()
                 .getStatistic("ActionsPerformed")
                 .addValue(1);
+        actionsRate.increment();
+        if (lastItems > 0) {
+            this.getStats()
+                    .getStatistic("ItemsProcessed")
+                    .addValue(lastItems);
+        }
     }
 }
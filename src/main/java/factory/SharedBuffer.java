@@ -1,23 +1,251 @@
 package factory;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import Skeleton.HistogramStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Unit;
+import Skeleton.UnitState;
+import factory.buffer.BufferBackend;
+import factory.buffer.BufferType;
+import factory.buffer.LockedArrayBackend;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A bounded buffer where ConveyorBelts put items and Robots take them.
+ * The storage is pluggable (see factory.buffer.BufferType); by default
+ * it's a locked circular array. Items can also be moved in batches, which
+ * costs one hand-off per group instead of one per item.
+ *
+ * A unit can get its own view of the buffer with recordingWaits, which
+ * records how long each of its blocking calls waited for room or for an
+ * item. Calls that didn't have to wait are recorded as 0, so the
+ * percentiles show how often and how long the unit was held up. Given the
+ * unit, the view also marks it BLOCKED while it waits, for samplers.
+ *
+ * While the owner's simulation is traced (see Unit.getTrace), every put and
+ * take of its view that moved items is traced with the item count and the
+ * depth after it, under the owner's name. Buffers without an owner aren't
+ * part of any one run and aren't traced.
  */
 public class SharedBuffer<T> {
-    private final BlockingQueue<T> queue;
+    private final BufferBackend<T> backend;
+    private final HistogramStatistic waits; // null when not recording
+    private final Unit owner;               // marked BLOCKED while waiting; may be null
 
     public SharedBuffer(int capacity) {
-        this.queue = new ArrayBlockingQueue<>(capacity);
+        this(new LockedArrayBackend<>(capacity));
+    }
+
+    public SharedBuffer(BufferBackend<T> backend) {
+        this(backend, null, null);
+    }
+
+    private SharedBuffer(BufferBackend<T> backend, HistogramStatistic waits, Unit owner) {
+        this.backend = backend;
+        this.waits = waits;
+        this.owner = owner;
+    }
+
+    /**
+     * Creates a buffer with the backend named by the "BufferBackend" and
+     * "WaitStrategy" input keys.
+     * @param capacity  most items the buffer holds
+     * @param producers how many threads will put (checked against the backend)
+     * @param consumers how many threads will take (checked against the backend)
+     * @throws IllegalArgumentException if the backend can't serve that many threads
+     */
+    public static <T> SharedBuffer<T> fromInput(SimulationInput input, int capacity,
+                                                int producers, int consumers) {
+        BufferType type = BufferType.fromInput(input);
+        type.checkThreads(producers, consumers);
+        return new SharedBuffer<>(type.create(capacity, BufferType.waitStrategyFromInput(input)));
+    }
+
+    /**
+     * A view of the same buffer that records the time every blocking call
+     * (put, take, the timed offer and poll, putAll and drainTo) spends waiting.
+     * @param waits where to record, in nanoseconds; usually the caller's "BufferWait"
+     */
+    public SharedBuffer<T> recordingWaits(HistogramStatistic waits) {
+        return recordingWaits(waits, null);
+    }
+
+    /**
+     * Like recordingWaits(waits), and the unit is BLOCKED while a call waits.
+     * @param owner the unit making the calls
+     */
+    public SharedBuffer<T> recordingWaits(HistogramStatistic waits, Unit owner) {
+        return new SharedBuffer<>(backend, waits, owner);
     }
 
     public void put(T item) throws InterruptedException {
-        queue.put(item);
+        if (waits == null) {
+            backend.put(item);
+        } else if (backend.offer(item)) {
+            waits.record(0);
+        } else {
+            long start = startWait();
+            backend.put(item);
+            endWait(start);
+        }
+        traced(TraceEvent.PUT, 1);
     }
 
     public T take() throws InterruptedException {
-        return queue.take();
+        T item = waits == null ? null : backend.poll();
+        if (item != null) {
+            waits.record(0);
+        } else if (waits == null) {
+            item = backend.take();
+        } else {
+            long start = startWait();
+            item = backend.take();
+            endWait(start);
+        }
+        traced(TraceEvent.TAKE, 1);
+        return item;
+    }
+
+    /** Non-blocking put. @return false if the buffer is full */
+    public boolean offer(T item) {
+        boolean put = backend.offer(item);
+        traced(TraceEvent.PUT, put ? 1 : 0);
+        return put;
+    }
+
+    /** Non-blocking take. @return the item, or null if the buffer is empty */
+    public T poll() {
+        T item = backend.poll();
+        traced(TraceEvent.TAKE, item != null ? 1 : 0);
+        return item;
+    }
+
+    /** Put, waiting at most the timeout for room. @return false if it timed out */
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean put;
+        if (waits == null) {
+            put = backend.offer(item, timeout, unit);
+        } else if (backend.offer(item)) {
+            waits.record(0);
+            put = true;
+        } else {
+            long start = startWait();
+            put = backend.offer(item, timeout, unit);
+            endWait(start);
+        }
+        traced(TraceEvent.PUT, put ? 1 : 0);
+        return put;
+    }
+
+    /** Take, waiting at most the timeout for an item. @return null if it timed out */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T item = waits == null ? null : backend.poll();
+        if (item != null) {
+            waits.record(0);
+        } else if (waits == null) {
+            item = backend.poll(timeout, unit);
+        } else {
+            long start = startWait();
+            item = backend.poll(timeout, unit);
+            endWait(start);
+        }
+        traced(TraceEvent.TAKE, item != null ? 1 : 0);
+        return item;
+    }
+
+    /** Put every item, waiting for room as often as needed. */
+    public void putAll(List<? extends T> items) throws InterruptedException {
+        if (waits == null) {
+            backend.putAll(items);
+        } else {
+            int placed = backend.offerAll(items, 0);
+            if (placed == items.size()) {
+                waits.record(0);
+            } else {
+                long start = startWait();
+                backend.putAll(items.subList(placed, items.size()));
+                endWait(start);
+            }
+        }
+        traced(TraceEvent.PUT, items.size());
+    }
+
+    /**
+     * Wait for at least one item, then take up to max items into the collection.
+     * @return how many items were taken
+     */
+    public int drainTo(Collection<? super T> into, int max) throws InterruptedException {
+        int taken = waits == null ? 0 : backend.pollAll(into, max);
+        if (taken > 0) {
+            waits.record(0);
+        } else if (waits == null) {
+            taken = backend.drainTo(into, max);
+        } else {
+            long start = startWait();
+            taken = backend.drainTo(into, max);
+            endWait(start);
+        }
+        traced(TraceEvent.TAKE, taken);
+        return taken;
+    }
+
+    /**
+     * Non-blocking putAll: puts items from index `from` on while there is room.
+     * @return how many were put
+     */
+    public int offerAll(List<? extends T> items, int from) {
+        int put = backend.offerAll(items, from);
+        traced(TraceEvent.PUT, put);
+        return put;
+    }
+
+    /**
+     * Non-blocking drainTo: takes up to max items that are already waiting.
+     * @return how many were taken (possibly 0)
+     */
+    public int pollAll(Collection<? super T> into, int max) {
+        int taken = backend.pollAll(into, max);
+        traced(TraceEvent.TAKE, taken);
+        return taken;
+    }
+
+    /** Adds the items moved, and the depth after, to the owner's EventTrace if it has one. */
+    private void traced(TraceEvent event, int items) {
+        if (items > 0 && owner != null) {
+            EventTrace trace = owner.getTrace();
+            if (trace != null) {
+                trace.record(event, owner.getName(), backend.size(), items);
+            }
+        }
+    }
+
+    private long startWait() {
+        if (owner != null) {
+            owner.setState(UnitState.BLOCKED);
+        }
+        return System.nanoTime();
+    }
+
+    private void endWait(long start) {
+        waits.record(System.nanoTime() - start);
+        if (owner != null) {
+            owner.setState(UnitState.WORKING);
+        }
+    }
+
+    /** @return the storage behind this buffer, which all its views share */
+    BufferBackend<T> getBackend() {
+        return backend;
+    }
+
+    /** @return how many items are waiting; only a snapshot while units run */
+    public int size() {
+        return backend.size();
+    }
+
+    public int capacity() {
+        return backend.capacity();
     }
 }
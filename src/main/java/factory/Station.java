@@ -0,0 +1,181 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.HistogramStatistic;
+import Skeleton.Unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A unit working one PipelineStage: each action takes an item from the
+ * stage's buffer (or makes one, at a source) and passes it to a downstream
+ * stage, round-robin when there are several. A full downstream buffer makes
+ * it wait, so backpressure travels up the line stage by stage.
+ *
+ * Once everything upstream is done and the buffer is empty, the remaining
+ * actions are idle, the same way a Robot without belts just counts its
+ * actions. Items that no downstream stage will ever take are dropped, and
+ * count towards "ItemsDropped" instead of "ItemsProcessed".
+ *
+ * Like belts and robots, a station works its buffers through its own views
+ * (see SharedBuffer.recordingWaits), so its puts and takes are traced and
+ * "BufferWait" records how long it waited for an item or for room. A long
+ * wait is checked on every WAIT_MILLIS and so shows up as several samples.
+ */
+public class Station extends Unit {
+    // how long a blocking wait lasts before checking whether the line is done
+    private static final long WAIT_MILLIS = 10;
+
+    private final PipelineStage stage;
+    private final SharedBuffer<String> inbound;        // null at a source
+    private final List<SharedBuffer<String>> outbound; // the downstream stages' buffers, in order
+    private final HistogramStatistic waits;
+    private final int totalActions;
+    private int actions;
+    private int next;       // round-robin position among downstream stages
+    private String held;    // taken by tryPerformAction but not yet passed on
+    private boolean moved;  // whether the latest action passed an item on (or used it up, at a sink)
+
+    public Station(String name, PipelineStage stage) {
+        super(name, stage.getInput(), stage.getContainer());
+        this.getStats().addStatistic("ItemsProcessed", new CounterStatistic("ItemsProcessed"));
+        this.stage = stage;
+        this.waits = (HistogramStatistic) this.getStats().addStatistic("BufferWait",
+                new HistogramStatistic("BufferWait"));
+        this.inbound = stage.isSource() ? null : stage.getInbound().recordingWaits(waits, this);
+        this.outbound = new ArrayList<>();
+        for (PipelineStage target : stage.getDownstream()) {
+            outbound.add(target.getInbound().recordingWaits(waits, this));
+        }
+        this.totalActions = getSettings().getIntegerInput("Time") * getSettings().getIntegerInput("ActionsPerSecond");
+    }
+
+    public PipelineStage getStage() {
+        return stage;
+    }
+
+    /** @return true while tryPerformAction holds an item it couldn't pass on yet */
+    boolean isHolding() {
+        return held != null;
+    }
+
+    @Override
+    public void performAction() {
+        moved = false;
+        try {
+            String item = stage.isSource() ? ConveyorBelt.ITEM : takeItem();
+            if (item != null) {
+                moved = route(item) == Routing.DELIVERED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean tryPerformAction() {
+        moved = false;
+        if (held == null) {
+            if (stage.isSource()) {
+                held = ConveyorBelt.ITEM;
+            } else {
+                stage.sampleQueue();
+                held = inbound.poll();
+                if (held == null) {
+                    if (!stage.isUpstreamFinished()) {
+                        return false;
+                    }
+                    held = inbound.poll();
+                    if (held == null) {
+                        return true; // nothing will ever arrive: an idle action, not a blocked one
+                    }
+                }
+            }
+        }
+        Routing routing = tryRoute(held);
+        if (routing == Routing.PENDING) {
+            return false;
+        }
+        held = null;
+        moved = routing == Routing.DELIVERED;
+        return true;
+    }
+
+    @Override
+    public void submitStatistics() {
+        if (moved) {
+            this.getStats().getStatistic("ItemsProcessed").addValue(1);
+            stage.itemProcessed();
+        }
+        if (++actions == totalActions) {
+            stage.unitFinished();
+        }
+    }
+
+    /** Waits for an item, or returns null once the upstream stages are done and the buffer is empty. */
+    private String takeItem() throws InterruptedException {
+        stage.sampleQueue();
+        String item;
+        while ((item = inbound.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            if (stage.isUpstreamFinished()) {
+                // everything upstream was put before it finished, so one last look is enough
+                return inbound.poll();
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Passes the item on, waiting for room if every downstream buffer is full.
+     * @return DELIVERED, or DROPPED once no downstream stage will take it
+     */
+    private Routing route(String item) throws InterruptedException {
+        if (outbound.isEmpty()) {
+            return Routing.DELIVERED;
+        }
+        Routing routing = tryRoute(item);
+        if (routing == Routing.DELIVERED) {
+            waits.record(0);
+        }
+        while (routing == Routing.PENDING) {
+            SharedBuffer<String> target = outbound.get(next);
+            next = (next + 1) % outbound.size();
+            if (target.offer(item, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                routing = Routing.DELIVERED;
+            } else if (stage.isDownstreamFinished()) {
+                stage.itemDropped();
+                routing = Routing.DROPPED;
+            }
+        }
+        return routing;
+    }
+
+    /** Offers the item to each downstream stage once, starting after the last one used. */
+    private Routing tryRoute(String item) {
+        int n = outbound.size();
+        if (n == 0) {
+            return Routing.DELIVERED; // a sink is done with it
+        }
+        for (int i = 0; i < n; i++) {
+            int index = (next + i) % n;
+            if (outbound.get(index).offer(item)) {
+                next = (index + 1) % n;
+                return Routing.DELIVERED;
+            }
+        }
+        if (stage.isDownstreamFinished()) {
+            stage.itemDropped();
+            return Routing.DROPPED;
+        }
+        return Routing.PENDING;
+    }
+
+    /** What became of an item a station tried to pass on. */
+    private enum Routing {
+        DELIVERED, // into a downstream buffer, or finished with at a sink
+        DROPPED,   // no downstream stage will ever take it; counted in ItemsDropped
+        PENDING    // every downstream buffer is full for now
+    }
+}
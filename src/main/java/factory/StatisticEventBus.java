@@ -0,0 +1,266 @@
+package factory;
+
+import Skeleton.SimulationInput;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands statistic updates from unit threads to observers on a dedicated
+ * dispatcher thread, so a slow logger or dashboard can't slow the units down.
+ *
+ * Units publish into a bounded lock-free queue; the dispatcher drains it and
+ * delivers the updates in batches. What happens when observers fall behind
+ * and the queue fills up is decided by the OverflowPolicy.
+ *
+ * Install one on a simulation with StatisticsContainer.setEventBus; Main.run
+ * does this based on the "ObserverMode" input key.
+ */
+public class StatisticEventBus implements AutoCloseable {
+
+    /** What publishing does when the queue is full. */
+    public enum OverflowPolicy {
+        /** Wait for space. Never loses updates, but units wait on observers again. */
+        BLOCK,
+        /** Throw the new update away and count it in getDropped(). */
+        DROP,
+        /**
+         * Keep only the latest update per component and statistic until the
+         * dispatcher catches up. Observers see fewer, later values, so they
+         * should read totals from the statistic itself rather than adding up
+         * the values they're sent.
+         */
+        COALESCE
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private final Iterable<StatisticObserver> observers;
+    private final OverflowPolicy policy;
+    private final int batchSize;
+
+    // bounded multi-producer/single-consumer ring, see offer/poll
+    private final AtomicReferenceArray<StatisticUpdate> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // only touched by the dispatcher
+
+    private final Map<String, StatisticUpdate> coalesced = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * Starts a bus and its dispatcher thread.
+     * @param observers who to deliver to; iterated once per batch, so it may change while running
+     * @param capacity  queue size, rounded up to a power of two
+     * @param batchSize most updates handed to observers in one call
+     * @param policy    what to do when the queue is full
+     */
+    public StatisticEventBus(Iterable<StatisticObserver> observers, int capacity,
+                             int batchSize, OverflowPolicy policy) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.observers = observers;
+        this.batchSize = batchSize;
+        this.policy = policy;
+
+        this.dispatcher = new Thread(this::dispatchLoop, "statistic-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Builds a bus from the input, or returns null when "ObserverMode" is "sync"
+     * or there are no observers yet, so updates then cost nothing to deliver.
+     * Keys: ObserverMode (async|sync, default async), ObserverQueueSize,
+     * ObserverBatchSize and ObserverOverflow (block|drop|coalesce, default coalesce).
+     */
+    public static StatisticEventBus fromInput(SimulationInput input, Iterable<StatisticObserver> observers) {
+        if ("sync".equalsIgnoreCase(optional(input, "ObserverMode", "async"))) {
+            return null;
+        }
+        int capacity = Integer.parseInt(optional(input, "ObserverQueueSize", String.valueOf(DEFAULT_CAPACITY)));
+        int batch = Integer.parseInt(optional(input, "ObserverBatchSize", String.valueOf(DEFAULT_BATCH_SIZE)));
+        String overflow = optional(input, "ObserverOverflow", "coalesce");
+        OverflowPolicy policy;
+        try {
+            policy = OverflowPolicy.valueOf(overflow.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown observer overflow policy: " + overflow);
+        }
+        if (!observers.iterator().hasNext()) {
+            return null; // nobody to deliver to; observers added later are served synchronously
+        }
+        return new StatisticEventBus(observers, capacity, batch, policy);
+    }
+
+    private static String optional(SimulationInput input, String key, String fallback) {
+        try { return input.getInput(key).get(0); }
+        catch (RuntimeException e) { return fallback; }
+    }
+
+    /**
+     * Queue an update for delivery. Never blocks unless the policy is BLOCK.
+     */
+    public void publish(String component, String statName, float value) {
+        StatisticUpdate update = new StatisticUpdate(component, statName, value);
+        // once coalescing, keep going until the dispatcher catches up, so the
+        // pending values stay newer than anything in the queue
+        if (policy == OverflowPolicy.COALESCE && !coalesced.isEmpty()) {
+            coalesce(update);
+            return;
+        }
+        if (offer(update)) {
+            return;
+        }
+        switch (policy) {
+            case BLOCK:
+                while (!offer(update)) {
+                    if (!running) return;
+                    LockSupport.parkNanos(10_000L);
+                }
+                break;
+            case DROP:
+                dropped.incrementAndGet();
+                break;
+            case COALESCE:
+                coalesce(update);
+                break;
+        }
+    }
+
+    private void coalesce(StatisticUpdate update) {
+        if (coalesced.put(update.key(), update) != null) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /** @return updates thrown away (or replaced by a newer one) because the queue was full */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** @return updates handed to observers so far */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * Stops accepting work, delivers whatever is still queued and waits for
+     * the dispatcher to finish.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatchLoop() {
+        List<StatisticUpdate> batch = new ArrayList<>(batchSize);
+        while (true) {
+            // read the flag first so nothing published before close() is missed
+            boolean stopping = !running;
+            drainInto(batch);
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                batch = new ArrayList<>(batchSize);
+            } else if (stopping) {
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void drainInto(List<StatisticUpdate> batch) {
+        StatisticUpdate u;
+        while (batch.size() < batchSize && (u = poll()) != null) {
+            batch.add(u);
+        }
+        if (batch.size() < batchSize && !coalesced.isEmpty()) {
+            // pending latest values go after anything that was queued; only the
+            // value read is removed, so one a producer put meanwhile stays pending
+            Iterator<StatisticUpdate> it = coalesced.values().iterator();
+            while (batch.size() < batchSize && it.hasNext()) {
+                StatisticUpdate latest = it.next();
+                batch.add(latest);
+                coalesced.remove(latest.key(), latest);
+            }
+        }
+    }
+
+    private void deliver(List<StatisticUpdate> batch) {
+        for (StatisticObserver obs : observers) {
+            try {
+                obs.onStatisticsUpdated(batch);
+            } catch (RuntimeException e) {
+                // one broken observer shouldn't stop the others
+                System.err.println("Statistic observer failed: " + e);
+            }
+        }
+        delivered.addAndGet(batch.size());
+    }
+
+    /**
+     * Claims a slot by advancing tail, then publishes the slot by bumping its
+     * sequence. A slot is free when its sequence equals the position being
+     * claimed, and readable when it is one past it.
+     */
+    private boolean offer(StatisticUpdate update) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, update);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private StatisticUpdate poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null; // empty, or the producer hasn't finished writing
+        }
+        StatisticUpdate update = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return update;
+    }
+}
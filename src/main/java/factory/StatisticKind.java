@@ -0,0 +1,92 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.FloatWorkerStatistic;
+import Skeleton.HistogramStatistic;
+import Skeleton.RateStatistic;
+import Skeleton.SimulationClock;
+import Skeleton.Statistic;
+import Skeleton.StreamingStatistic;
+import Skeleton.WorkerStatistic;
+
+/**
+ * Which Statistic class recorded the samples of a statistics file, so
+ * StatisticsFileReader can rebuild it as the same kind. The ordinal is the
+ * code in the file, so new kinds go at the end.
+ */
+enum StatisticKind {
+    /** Not one of the kinds below; read back as a StreamingStatistic of the samples. */
+    OTHER,
+    /** Samples are the amounts added. */
+    COUNTER,
+    /** Samples are the events counted; the sample timestamps drive the rate's clock. */
+    RATE,
+    /** Samples are durations in milliseconds. */
+    HISTOGRAM,
+    /** Samples are the recorded values. */
+    STREAMING,
+    /** Samples are the Integer values added. */
+    WORKER,
+    /** Samples are the Float values added. */
+    FLOAT_WORKER;
+
+    private static final StatisticKind[] BY_CODE = values();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    static StatisticKind of(Statistic stat) {
+        if (stat instanceof CounterStatistic) return COUNTER;
+        if (stat instanceof RateStatistic) return RATE;
+        if (stat instanceof HistogramStatistic) return HISTOGRAM;
+        if (stat instanceof StreamingStatistic) return STREAMING;
+        if (stat instanceof WorkerStatistic) return WORKER;
+        if (stat instanceof FloatWorkerStatistic) return FLOAT_WORKER;
+        return OTHER;
+    }
+
+    /** Unknown codes (from a newer writer) fall back to OTHER. */
+    static StatisticKind ofCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : OTHER;
+    }
+
+    /**
+     * An empty statistic of this kind.
+     * @param clock time source for kinds that read one; the reader points it at the sample being replayed
+     */
+    Statistic create(String name, SimulationClock clock) {
+        switch (this) {
+            case COUNTER:      return new CounterStatistic(name);
+            case RATE:         return new RateStatistic(name, clock);
+            case HISTOGRAM:    return new HistogramStatistic(name);
+            case WORKER:       return new WorkerStatistic(name);
+            case FLOAT_WORKER: return new FloatWorkerStatistic(name);
+            default:           return new StreamingStatistic(name);
+        }
+    }
+
+    /** Adds one sample, as the writer saw it, to a statistic made by create(). */
+    void replay(Statistic stat, float value) {
+        switch (this) {
+            case COUNTER:
+                if (value == Math.rint(value)) {
+                    ((CounterStatistic) stat).add((long) value);
+                } else {
+                    ((CounterStatistic) stat).add((double) value);
+                }
+                break;
+            case RATE:
+                ((RateStatistic) stat).add(Math.round(value));
+                break;
+            case HISTOGRAM:
+                ((HistogramStatistic) stat).record(Math.round(value * NANOS_PER_MILLI));
+                break;
+            case WORKER:
+                stat.addValue(Math.round(value));
+                break;
+            case FLOAT_WORKER:
+                stat.addValue(value);
+                break;
+            default:
+                ((StreamingStatistic) stat).record(value);
+        }
+    }
+}
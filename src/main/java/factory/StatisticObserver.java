@@ -1,5 +1,7 @@
 package factory;
 
+import java.util.List;
+
 /**
  * Observer for statistic updates.
  */
@@ -11,4 +13,16 @@ public interface StatisticObserver {
      * @param newValue  the value just added
      */
     void onStatisticUpdated(String component, String statName, float newValue);
+
+    /**
+     * Called by the StatisticEventBus with a batch of updates, in the order they
+     * were published. Override this to handle a whole batch at once (e.g. one
+     * repaint per batch); by default each update is passed on individually.
+     * @param batch updates since the previous batch
+     */
+    default void onStatisticsUpdated(List<StatisticUpdate> batch) {
+        for (StatisticUpdate u : batch) {
+            onStatisticUpdated(u.getComponent(), u.getStatName(), u.getValue());
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package factory;
+
+/**
+ * One statistic update, as handed to observers in batches by the StatisticEventBus.
+ */
+public final class StatisticUpdate {
+    private final String component;
+    private final String statName;
+    private final float value;
+
+    public StatisticUpdate(String component, String statName, float value) {
+        this.component = component;
+        this.statName = statName;
+        this.value = value;
+    }
+
+    /** @return name of the unit (e.g., "Robot-1") */
+    public String getComponent() {
+        return component;
+    }
+
+    /** @return name of the statistic (e.g., "ActionsPerformed") */
+    public String getStatName() {
+        return statName;
+    }
+
+    /** @return the value that was added */
+    public float getValue() {
+        return value;
+    }
+
+    /** @return "component|statName", the key updates are coalesced under */
+    public String key() {
+        return component + "|" + statName;
+    }
+}
@@ -0,0 +1,176 @@
+package factory;
+
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.StatisticsContainer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads back a file written by StatisticsFileWriter, one mapped segment at
+ * a time, so files larger than the heap can be read too.
+ */
+public final class StatisticsFileReader {
+
+    /** Receives the samples of a file in the order they were recorded. */
+    @FunctionalInterface
+    public interface SampleVisitor {
+        /**
+         * @param component name of the unit (e.g., "Robot-1")
+         * @param statName  name of the statistic (e.g., "ActionsPerformed")
+         * @param nanos     when it was recorded, in nanoseconds since the writer opened
+         * @param value     the value that was added
+         */
+        void sample(String component, String statName, long nanos, float value);
+    }
+
+    private StatisticsFileReader() {
+    }
+
+    /**
+     * Loads a file into a new StatisticsContainer. Each statistic is rebuilt
+     * as the kind that recorded it, by replaying its samples: counters come
+     * back with the same total, histograms with the same durations, and rates
+     * as of the last sample, their clock following the sample timestamps.
+     * Statistics of other kinds, or from a writer that didn't know the kinds,
+     * come back as a StreamingStatistic of the values that were added.
+     */
+    public static StatisticsContainer read(Path file) throws IOException {
+        StatisticsContainer container = StatisticsContainer.newInstance(new SimulationInput());
+        Map<String, Statistic> byKey = new HashMap<>();
+        long[] now = new long[1];
+        SimulationClock sampleClock = () -> now[0];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Layout layout = Layout.read(channel, file);
+            visit(channel, layout, (component, statName, nanos, value) -> {
+                String key = component + "|" + statName;
+                StatisticKind kind = layout.kinds.getOrDefault(key, StatisticKind.OTHER);
+                Statistic stat = byKey.computeIfAbsent(key, k -> container.getComponent(component)
+                        .addStatistic(statName, kind.create(statName, sampleClock)));
+                now[0] = nanos;
+                kind.replay(stat, value);
+            });
+        }
+        return container;
+    }
+
+    /**
+     * Hands every sample in the file to the visitor. Slots that were claimed
+     * but never written (the write failed) are empty and skipped.
+     * @return how many samples were visited
+     * @throws IOException if the file can't be read, isn't a statistics file,
+     *         or wasn't closed by its writer
+     */
+    public static long forEach(Path file, SampleVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return visit(channel, Layout.read(channel, file), visitor);
+        }
+    }
+
+    private static long visit(FileChannel channel, Layout layout, SampleVisitor visitor) throws IOException {
+        int blockRecords = layout.blockRecords;
+        int blocksPerSegment = layout.blocksPerSegment;
+        long records = layout.records;
+        long blockBytes = (long) blockRecords * StatisticsFileWriter.RECORD_BYTES;
+        long segmentBytes = blockBytes * blocksPerSegment;
+        long blocks = (records + blockRecords - 1) / blockRecords;
+        long visited = 0;
+        for (long block = 0; block < blocks; block += blocksPerSegment) {
+            long inSegment = Math.min(blocksPerSegment, blocks - block);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    StatisticsFileWriter.HEADER_BYTES + (block / blocksPerSegment) * segmentBytes,
+                    inSegment * blockBytes);
+            for (int b = 0; b < inSegment; b++) {
+                int base = (int) (b * blockBytes);
+                long first = (block + b) * blockRecords;
+                int count = (int) Math.min(blockRecords, records - first);
+                int statColumn = base + blockRecords * Integer.BYTES;
+                int timeColumn = base + blockRecords * 2 * Integer.BYTES;
+                int valueColumn = base + blockRecords * (2 * Integer.BYTES + Long.BYTES);
+                for (int i = 0; i < count; i++) {
+                    int component = segment.getInt(base + i * Integer.BYTES);
+                    if (component == 0) {
+                        continue; // empty slot
+                    }
+                    visited++;
+                    visitor.sample(layout.components[component - 1],
+                            layout.statistics[segment.getInt(statColumn + i * Integer.BYTES)],
+                            segment.getLong(timeColumn + i * Long.BYTES),
+                            segment.getFloat(valueColumn + i * Float.BYTES));
+                }
+            }
+        }
+        return visited;
+    }
+
+    /** The header and footer of a file: how its blocks are laid out, and the names and kinds. */
+    private static final class Layout {
+        int blockRecords;
+        int blocksPerSegment;
+        long records;
+        String[] components;
+        String[] statistics;
+        final Map<String, StatisticKind> kinds = new HashMap<>(); // by "component|statistic"
+
+        static Layout read(FileChannel channel, Path file) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(StatisticsFileWriter.HEADER_BYTES);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getLong() != StatisticsFileWriter.MAGIC) {
+                throw new IOException("Not a statistics file: " + file);
+            }
+            int version = header.getInt();
+            if (version != StatisticsFileWriter.VERSION) {
+                throw new IOException("Unsupported statistics file version " + version + ": " + file);
+            }
+            Layout layout = new Layout();
+            layout.blockRecords = header.getInt();
+            layout.blocksPerSegment = header.getInt();
+            header.getInt(); // reserved
+            layout.records = header.getLong();
+            long footerOffset = header.getLong();
+            if (layout.records == StatisticsFileWriter.NOT_CLOSED) {
+                throw new IOException("Statistics file was not closed by its writer: " + file);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate((int) (channel.size() - footerOffset));
+            readFully(channel, footer, footerOffset);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+            layout.components = readNames(in);
+            layout.statistics = readNames(in);
+            int kinds = in.readInt();
+            for (int i = 0; i < kinds; i++) {
+                String key = in.readUTF() + "|" + in.readUTF();
+                layout.kinds.put(key, StatisticKind.ofCode(in.readByte()));
+            }
+            return layout;
+        }
+    }
+
+    private static String[] readNames(DataInputStream in) throws IOException {
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer into, long position) throws IOException {
+        while (into.hasRemaining()) {
+            int read = channel.read(into, position + into.position());
+            if (read < 0) {
+                throw new IOException("Statistics file is truncated");
+            }
+        }
+    }
+}
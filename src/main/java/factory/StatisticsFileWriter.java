@@ -0,0 +1,377 @@
+package factory;
+
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams every statistic update of a run to a binary file as it happens,
+ * so the samples survive the process and can be analysed offline (see
+ * StatisticsFileReader).
+ *
+ * Each sample is a component id, a statistic id, a timestamp (nanoseconds
+ * since the writer was opened) and the value. Component ids are stored plus
+ * one, so a slot left at zero (claimed, but its write failed) reads as empty
+ * and is skipped. Samples are stored in blocks
+ * of blockRecords, column by column within a block, and the file is written
+ * through memory-mapped segments of whole blocks. Only the last few segments
+ * stay mapped, so heap use doesn't grow with the file, however large.
+ *
+ * Recording doesn't lock or map: a sample claims its slot with one atomic
+ * increment and is written straight into the mapped segment on the caller's
+ * thread, while a mapper thread keeps the next segment mapped ahead of the
+ * writers. A writer only waits if it gets a whole segment ahead of the mapper,
+ * which in turn waits for writers still finishing the segment it would
+ * replace, so a burst of updates can briefly hold up a unit thread.
+ * Install it with StatisticsContainer.setRecorder so it sees every update of
+ * that simulation, or pass it to a StatisticEventBus with the BLOCK policy.
+ * The id dictionary is written as a footer by close(); a file that wasn't
+ * closed can't be read back. Given the simulation's container, the footer
+ * also says which kind of statistic each one was, so the reader can rebuild
+ * it as that kind.
+ *
+ * Layout: a HEADER_BYTES header (magic, version, blockRecords,
+ * blocksPerSegment, sample count, footer offset), then the blocks, then the
+ * footer (component names, then statistic names, in id order, then a count
+ * and that many component name, statistic name, StatisticKind code entries).
+ */
+public class StatisticsFileWriter implements StatisticObserver, AutoCloseable {
+    static final long MAGIC = 0x5346535441545331L; // "SFSTATS1"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 64;
+    // component id, statistic id, timestamp, value
+    static final int RECORD_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES + Float.BYTES;
+    static final long NOT_CLOSED = -1;
+
+    public static final int DEFAULT_BLOCK_RECORDS = 4096;
+    public static final int DEFAULT_BLOCKS_PER_SEGMENT = 256; // 20 MB segments
+    private static final int MAPPED_SEGMENTS = 4;
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final long MAPPER_IDLE_NANOS = 1_000_000L;
+    private static final long WAIT_NANOS = 10_000L;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final SimulationClock clock;
+    private final StatisticsContainer source;
+    private final long origin;
+    private final int blockRecords;
+    private final int blocksPerSegment;
+    private final long blockBytes;
+    private final long segmentBytes;
+    private final int segmentRecords;
+
+    private final AtomicLong next = new AtomicLong(); // next sample slot; CLOSED bit once closed
+    private final LongAdder done = new LongAdder();   // samples finished writing (or given up on)
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private final AtomicReferenceArray<Segment> mapped = new AtomicReferenceArray<>(MAPPED_SEGMENTS);
+    private final NameDictionary components = new NameDictionary();
+    private final NameDictionary statistics = new NameDictionary();
+    private final Thread mapper;
+    private volatile boolean stopping;
+    private volatile boolean mapFailed;
+    private long mappedThrough; // last segment mapped; only the mapper thread touches it after construction
+
+    /** Opens a writer with the default block and segment sizes, timed by the wall clock. */
+    public StatisticsFileWriter(Path path) throws IOException {
+        this(path, null);
+    }
+
+    /**
+     * Opens a writer with the default block and segment sizes, timed by the wall clock.
+     * @param source the container whose statistics are recorded, or null if the kinds aren't known
+     */
+    public StatisticsFileWriter(Path path, StatisticsContainer source) throws IOException {
+        this(path, SimulationClock.SYSTEM, DEFAULT_BLOCK_RECORDS, DEFAULT_BLOCKS_PER_SEGMENT, source);
+    }
+
+    /** Opens a writer that doesn't know the statistics' kinds; see the constructor below. */
+    public StatisticsFileWriter(Path path, SimulationClock clock,
+                                int blockRecords, int blocksPerSegment) throws IOException {
+        this(path, clock, blockRecords, blocksPerSegment, null);
+    }
+
+    /**
+     * Creates (or replaces) the file and writes its header.
+     * @param path             where to write
+     * @param clock            time source for the sample timestamps
+     * @param blockRecords     samples per columnar block
+     * @param blocksPerSegment blocks mapped at a time; a segment must stay under 2 GB
+     * @param source           the container whose statistics are recorded, or null if
+     *                         the kinds aren't known (they read back as StreamingStatistics)
+     */
+    public StatisticsFileWriter(Path path, SimulationClock clock, int blockRecords,
+                                int blocksPerSegment, StatisticsContainer source) throws IOException {
+        if (blockRecords < 1 || blocksPerSegment < 1) {
+            throw new IllegalArgumentException("Block records and blocks per segment must be positive");
+        }
+        this.blockBytes = (long) blockRecords * RECORD_BYTES;
+        this.segmentBytes = blockBytes * blocksPerSegment;
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segments must be under 2 GB: " + segmentBytes + " bytes");
+        }
+        this.path = path;
+        this.clock = clock;
+        this.source = source;
+        this.blockRecords = blockRecords;
+        this.blocksPerSegment = blocksPerSegment;
+        this.segmentRecords = blockRecords * blocksPerSegment;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(NOT_CLOSED, NOT_CLOSED);
+        try {
+            map(0);
+            map(1);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.mappedThrough = 1;
+        this.mapper = new Thread(this::mapAhead, "statistics-file-mapper");
+        this.mapper.setDaemon(true);
+        this.origin = clock.nanoTime();
+        this.mapper.start();
+    }
+
+    /**
+     * Opens a writer for the file named by the "StatisticsFile" input key.
+     * @param source the container whose statistics will be recorded
+     * @return the writer, or null if the key isn't set
+     */
+    public static StatisticsFileWriter fromInput(SimulationInput input, StatisticsContainer source)
+            throws IOException {
+        if (!input.hasInput("StatisticsFile")) {
+            return null;
+        }
+        return new StatisticsFileWriter(Paths.get(input.getValues("StatisticsFile").get(0)), source);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Records one sample, or does nothing once closed. Takes no lock, but may
+     * wait briefly for the mapper if writers got a whole segment ahead of it.
+     */
+    @Override
+    public void onStatisticUpdated(String component, String statName, float newValue) {
+        long slot = next.getAndIncrement();
+        if (slot < 0) {
+            dropped.incrementAndGet(); // closed
+            return;
+        }
+        try {
+            long timestamp = clock.nanoTime() - origin;
+            write(slot, components.idOf(component), statistics.idOf(statName), timestamp, newValue);
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+            dropped.incrementAndGet();
+        } finally {
+            done.increment();
+        }
+    }
+
+    /** @return samples recorded so far */
+    public long getRecorded() {
+        return (next.get() & ~CLOSED) - dropped.get();
+    }
+
+    /** @return samples that arrived after close or couldn't be written */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops recording, waits for samples still being written, then writes the
+     * footer and the final header.
+     * @throws IOException if writing the file failed at any point during the run
+     */
+    @Override
+    public void close() throws IOException {
+        long claimed = next.getAndUpdate(v -> v | CLOSED);
+        if (claimed < 0) {
+            return; // already closed
+        }
+        while (done.sum() < claimed) {
+            LockSupport.parkNanos(1_000L);
+        }
+        stopping = true;
+        LockSupport.unpark(mapper);
+        boolean interrupted = false;
+        while (mapper.isAlive()) {
+            try {
+                mapper.join();
+            } catch (InterruptedException e) {
+                interrupted = true; // finish closing first, the file would be unreadable otherwise
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            long blocks = (claimed + blockRecords - 1) / blockRecords;
+            long footerOffset = HEADER_BYTES + blocks * blockBytes;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                components.writeTo(out);
+                statistics.writeTo(out);
+                writeKinds(out);
+            }
+            ByteBuffer footer = ByteBuffer.wrap(bytes.toByteArray());
+            long position = footerOffset;
+            while (footer.hasRemaining()) {
+                position += channel.write(footer, position);
+            }
+            writeHeader(claimed, footerOffset);
+            for (int i = 0; i < MAPPED_SEGMENTS; i++) {
+                mapped.set(i, null);
+            }
+            try {
+                // mapping may have grown the file past the footer
+                channel.truncate(position);
+            } catch (IOException e) {
+                // some platforms refuse while a segment is still mapped; the
+                // reader goes by the header, so the tail is only wasted space
+            }
+        } finally {
+            channel.close();
+        }
+        IOException failed = failure.get();
+        if (failed != null) {
+            throw new IOException("Some samples could not be written to " + path, failed);
+        }
+    }
+
+    private void write(long slot, int component, int stat, long timestamp, float value) throws IOException {
+        long block = slot / blockRecords;
+        int index = (int) (slot % blockRecords);
+        long segment = block / blocksPerSegment;
+        int base = (int) ((block % blocksPerSegment) * blockBytes);
+        if (index == 0 && base == 0) {
+            LockSupport.unpark(mapper); // first sample of a segment: time to map the one after it
+        }
+        Segment target = segment(segment);
+        MappedByteBuffer buffer = target.buffer;
+        // columns: all component ids of the block, then statistic ids, timestamps and values;
+        // the component goes last, so a record is only non-empty once it's whole
+        buffer.putInt(base + blockRecords * Integer.BYTES + index * Integer.BYTES, stat);
+        buffer.putLong(base + blockRecords * 2 * Integer.BYTES + index * Long.BYTES, timestamp);
+        buffer.putFloat(base + blockRecords * (2 * Integer.BYTES + Long.BYTES) + index * Float.BYTES, value);
+        buffer.putInt(base + index * Integer.BYTES, component + 1);
+        target.written.incrementAndGet();
+    }
+
+    /**
+     * The mapped segment, waiting for the mapper if this writer got ahead of it.
+     * A segment stays mapped until all of its samples are written, so a late
+     * writer always finds its own.
+     */
+    private Segment segment(long index) throws IOException {
+        int slot = (int) (index % MAPPED_SEGMENTS);
+        Segment current = mapped.get(slot);
+        while (current == null || current.index != index) {
+            if (mapFailed) {
+                throw new IOException("Segment " + index + " of " + path + " could not be mapped", failure.get());
+            }
+            LockSupport.unpark(mapper);
+            LockSupport.parkNanos(WAIT_NANOS);
+            current = mapped.get(slot);
+        }
+        return current;
+    }
+
+    /**
+     * The mapper thread: keeps the segment after the one being written mapped.
+     * It won't replace a segment that still has samples being written, so it
+     * waits for late writers instead of pulling their segment from under them.
+     */
+    private void mapAhead() {
+        while (!stopping) {
+            long claimed = next.get() & ~CLOSED;
+            long wanted = (claimed == 0 ? 0 : (claimed - 1) / segmentRecords) + 1;
+            while (mappedThrough < wanted && !stopping) {
+                Segment old = mapped.get((int) ((mappedThrough + 1) % MAPPED_SEGMENTS));
+                if (old != null && old.written.get() < segmentRecords) {
+                    break; // still being written; try again shortly
+                }
+                try {
+                    map(mappedThrough + 1);
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                    mapFailed = true;
+                    return;
+                }
+                mappedThrough++;
+            }
+            LockSupport.parkNanos(this, mappedThrough < wanted ? WAIT_NANOS : MAPPER_IDLE_NANOS);
+        }
+    }
+
+    private void map(long index) throws IOException {
+        mapped.set((int) (index % MAPPED_SEGMENTS), new Segment(index, channel.map(FileChannel.MapMode.READ_WRITE,
+                HEADER_BYTES + index * segmentBytes, segmentBytes)));
+    }
+
+    private void writeKinds(DataOutputStream out) throws IOException {
+        if (source == null) {
+            out.writeInt(0);
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int count = 0;
+        try (DataOutputStream entries = new DataOutputStream(bytes)) {
+            for (String component : source.getComponentNames()) {
+                Statistics stats = source.getComponent(component);
+                for (String name : stats.getStatisticNames()) {
+                    entries.writeUTF(component);
+                    entries.writeUTF(name);
+                    entries.writeByte(StatisticKind.of(stats.getStatistic(name)).ordinal());
+                    count++;
+                }
+            }
+        }
+        out.writeInt(count);
+        bytes.writeTo(out);
+    }
+
+    private void writeHeader(long records, long footerOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putLong(MAGIC).putInt(VERSION).putInt(blockRecords).putInt(blocksPerSegment)
+                .putInt(0).putLong(records).putLong(footerOffset);
+        header.clear();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    private static final class Segment {
+        final long index;
+        final MappedByteBuffer buffer;
+        final AtomicInteger written = new AtomicInteger(); // samples finished in this segment
+
+        Segment(long index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package factory;
+
+import factory.cli.Csv;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The consolidated table of a parameter sweep: one row per run, in grid
+ * order, with the swept parameters first and the run's totals after them.
+ */
+public class SweepResult {
+    private final List<String> columns;
+    private final List<List<String>> rows = new ArrayList<>();
+
+    SweepResult(List<String> columns) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    }
+
+    void addRow(List<String> row) {
+        rows.add(Collections.unmodifiableList(new ArrayList<>(row)));
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<List<String>> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * @param row    row index
+     * @param column column name
+     * @return the cell, or "" if the run didn't produce that column
+     */
+    public String get(int row, String column) {
+        int index = columns.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+        return rows.get(row).get(index);
+    }
+
+    /** Writes the table as CSV with a header line. */
+    public void writeCsv(Appendable out) {
+        try {
+            writeLine(out, columns);
+            for (List<String> row : rows) {
+                writeLine(out, row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeLine(Appendable out, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) out.append(',');
+            out.append(Csv.quote(cells.get(i)));
+        }
+        out.append(System.lineSeparator());
+    }
+}
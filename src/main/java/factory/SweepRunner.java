@@ -0,0 +1,187 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one layout over a grid of parameter values, several simulations at a
+ * time, and collects the results into one SweepResult.
+ *
+ * The swept keys are listed under "SweepParameters"; every value of each of
+ * those keys is one point on its axis, e.g.
+ * 		NumRobots = [1, 2, 4], NumBelts = [1, 2], SweepParameters = [NumRobots, NumBelts]
+ * gives six runs. Each run records into its own StatisticsContainer, so runs
+ * don't see each other's numbers. "SweepThreads" caps how many run at once
+ * (one per core by default). With ExecutionMode=discrete, or Pacing=none,
+ * runs don't wait on the wall clock and a sweep is limited only by cores.
+ *
+ * Each row has the run's parameters, its wall time, the sum of every
+ * CounterStatistic by name over all components (ItemsMoved, ItemsProcessed,
+ * ActionsPerformed, ...) and the error if the run failed.
+ */
+public class SweepRunner {
+    private final SimulationInput base;
+    private final List<String> parameters;
+    private final int threads;
+
+    /**
+     * @param base       input every run starts from, holding the values to sweep
+     * @param parameters keys to sweep over all of their values
+     * @param threads    most runs at once
+     */
+    public SweepRunner(SimulationInput base, List<String> parameters, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Sweep threads must be positive: " + threads);
+        }
+        this.base = base;
+        this.parameters = List.copyOf(parameters);
+        this.threads = threads;
+    }
+
+    /** Builds a runner from the "SweepParameters" and "SweepThreads" keys. */
+    public static SweepRunner fromInput(SimulationInput input) {
+        return new SweepRunner(input, input.getValues("SweepParameters"),
+                input.getIntegerInput("SweepThreads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @return one input per grid point, the first parameter varying slowest
+     * @throws IllegalArgumentException if a swept key has no values, which would leave nothing to run
+     */
+    public List<SimulationInput> expand() {
+        List<Map<String, List<String>>> points = new ArrayList<>();
+        points.add(new LinkedHashMap<>());
+        for (String key : parameters) {
+            List<String> values = base.getValues(key);
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Swept key has no values: " + key);
+            }
+            List<Map<String, List<String>>> next = new ArrayList<>();
+            for (Map<String, List<String>> point : points) {
+                for (String value : values) {
+                    Map<String, List<String>> extended = new LinkedHashMap<>(point);
+                    extended.put(key, List.of(value));
+                    next.add(extended);
+                }
+            }
+            points = next;
+        }
+        List<SimulationInput> inputs = new ArrayList<>(points.size());
+        for (Map<String, List<String>> point : points) {
+            inputs.add(base.withOverrides(point));
+        }
+        return inputs;
+    }
+
+    /** Runs every grid point and waits for all of them. */
+    public SweepResult run() {
+        List<SimulationInput> inputs = expand();
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, inputs.size()), r -> {
+            Thread t = new Thread(r, "sweep-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<Run>> futures = new ArrayList<>(inputs.size());
+        try {
+            for (SimulationInput input : inputs) {
+                futures.add(pool.submit(runOf(input)));
+            }
+            List<Run> runs = new ArrayList<>(inputs.size());
+            for (Future<Run> future : futures) {
+                runs.add(future.get());
+            }
+            return tabulate(runs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sweep run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Callable<Run> runOf(SimulationInput input) {
+        return () -> {
+            Run run = new Run(input);
+            StatisticsContainer container = StatisticsContainer.newInstance(input);
+            long start = System.nanoTime();
+            try {
+                Matrix.run(input, container);
+            } catch (RuntimeException e) {
+                run.error = e.toString();
+            }
+            run.wallMillis = (System.nanoTime() - start) / 1_000_000;
+            for (String component : container.getComponentNames()) {
+                Statistics stats = container.getComponent(component);
+                for (String name : stats.getStatisticNames()) {
+                    Statistic stat = stats.getStatistic(name);
+                    if (stat instanceof CounterStatistic) {
+                        run.totals.merge(name, stat.summarizeExact(), Double::sum);
+                    }
+                }
+            }
+            return run;
+        };
+    }
+
+    private SweepResult tabulate(List<Run> runs) {
+        TreeSet<String> counters = new TreeSet<>();
+        for (Run run : runs) {
+            counters.addAll(run.totals.keySet());
+        }
+        List<String> columns = new ArrayList<>();
+        columns.add("Run");
+        columns.addAll(parameters);
+        columns.add("WallMillis");
+        columns.addAll(counters);
+        columns.add("Error");
+
+        SweepResult result = new SweepResult(columns);
+        for (int i = 0; i < runs.size(); i++) {
+            Run run = runs.get(i);
+            List<String> row = new ArrayList<>(columns.size());
+            row.add(String.valueOf(i + 1));
+            for (String key : parameters) {
+                row.add(run.input.getValues(key).get(0));
+            }
+            row.add(String.valueOf(run.wallMillis));
+            for (String counter : counters) {
+                Double total = run.totals.get(counter);
+                row.add(total == null ? "" : String.format("%.0f", total));
+            }
+            row.add(run.error);
+            result.addRow(row);
+        }
+        return result;
+    }
+
+    /** What one grid point produced. */
+    private static final class Run {
+        final SimulationInput input;
+        final Map<String, Double> totals = new TreeMap<>();
+        long wallMillis;
+        String error = "";
+
+        Run(SimulationInput input) {
+            this.input = input;
+        }
+    }
+}
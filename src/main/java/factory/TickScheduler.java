@@ -0,0 +1,363 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+import Skeleton.StreamingStatistic;
+import Skeleton.Unit;
+import Skeleton.UnitState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces many units from one timer thread instead of a sleeping thread each.
+ *
+ * A TimingWheel driven by System.nanoTime() fires each unit's next action at
+ * its `ActionsPerSecond` rate and hands it to a small worker pool, which runs
+ * the action and its statistics. A unit's actions never overlap: the next one
+ * is only scheduled once the current one is done.
+ *
+ * Workers must not block, so units act through tryPerformAction. A unit that
+ * can't act yet is retried a little later within the same action slot. If
+ * nothing in the whole plant makes progress for STALL_NANOS, units that are
+ * still waiting are given up on and reported by getStarvedUnits.
+ *
+ * In work-stealing mode the workers are a ForkJoinPool instead of a fixed
+ * pool. An action whose next slot is already due when it finishes (an
+ * overrun, or Pacing=none, which drops the slots altogether) re-submits its
+ * unit from the worker itself, bypassing the timer. That lands on the
+ * worker's own queue, so the unit stays on the core that just ran it unless
+ * an idle worker steals it. "Steals" in the statistics counts how often that
+ * happened.
+ *
+ * Pacing problems are reported in the "Scheduler" statistics component.
+ * "LateTicks" counts actions dispatched more than one wheel tick after they
+ * were due, meaning the scheduler or its workers fell behind, and
+ * "TickLateness" records by how much (ms). "MissedTicks" counts action
+ * slots that passed entirely while the unit was still busy with, or blocked
+ * on, an earlier action. Like Unit.run, the schedule then slips instead of
+ * running the missed actions back to back.
+ *
+ * Units with random timing (see Skeleton.ActionTiming) are scheduled at the
+ * gaps they draw and act until the next action would start after `Time`
+ * seconds, as in Unit.run. One still blocked then has run out of time rather
+ * than starved.
+ */
+public class TickScheduler implements AutoCloseable {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    public static final long DEFAULT_RESOLUTION_NANOS = 100_000L;
+    static final long STALL_NANOS = 2 * NANOS_PER_SECOND;
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    private final int workerThreads;
+    private final long resolution;
+    private final long origin = System.nanoTime();
+    private final TimingWheel<Ticker> wheel;
+    private final Queue<Ticker> pending = new ConcurrentLinkedQueue<>();
+    private final ExecutorService workers;
+    private final Thread timer;
+    private final CounterStatistic steals; // null unless work stealing
+    private volatile boolean running = true;
+    private volatile boolean parked; // the timer is waiting for the next due timer or new work
+
+    private final AtomicLong lastProgress = new AtomicLong(System.nanoTime());
+    private final List<Unit> starved = Collections.synchronizedList(new ArrayList<>());
+    private final CounterStatistic lateTicks;
+    private final CounterStatistic missedTicks;
+    private final StreamingStatistic lateness;
+
+    /**
+     * Starts the timer thread and a fixed worker pool.
+     * @param workerThreads   threads that run unit actions
+     * @param resolutionNanos length of one wheel tick; actions fire at most this late
+     * @param stats           where to register the scheduler's statistics
+     */
+    public TickScheduler(int workerThreads, long resolutionNanos, Statistics stats) {
+        this(workerThreads, resolutionNanos, false, stats);
+    }
+
+    /**
+     * Starts the timer thread and the worker pool.
+     * @param workStealing    run actions on a ForkJoinPool instead of a fixed pool
+     */
+    public TickScheduler(int workerThreads, long resolutionNanos, boolean workStealing, Statistics stats) {
+        if (workerThreads < 1 || resolutionNanos < 1) {
+            throw new IllegalArgumentException("Worker threads and resolution must be positive");
+        }
+        this.workerThreads = workerThreads;
+        this.resolution = resolutionNanos;
+        this.wheel = new TimingWheel<>(0);
+        this.lateTicks = (CounterStatistic) stats.addStatistic("LateTicks", new CounterStatistic("LateTicks"));
+        this.missedTicks = (CounterStatistic) stats.addStatistic("MissedTicks", new CounterStatistic("MissedTicks"));
+        this.lateness = (StreamingStatistic) stats.addStatistic("TickLateness", new StreamingStatistic("TickLateness"));
+
+        AtomicInteger count = new AtomicInteger();
+        if (workStealing) {
+            this.steals = (CounterStatistic) stats.addStatistic("Steals", new CounterStatistic("Steals"));
+            // async mode: each worker runs its own queue first in, first out, like events
+            this.workers = new ForkJoinPool(workerThreads, pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("steal-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, null, true);
+        } else {
+            this.steals = null;
+            this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+                Thread t = new Thread(r, "tick-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.timer = new Thread(this::timerLoop, "tick-scheduler");
+        this.timer.setDaemon(true);
+        this.timer.start();
+    }
+
+    /**
+     * Builds a scheduler with "SchedulerThreads" workers (one per core by
+     * default) and a wheel tick of "TickResolutionMicros" (100 by default),
+     * reporting under the "Scheduler" component. The workers steal work when
+     * "ExecutionMode" is work_stealing.
+     */
+    public static TickScheduler fromInput(SimulationInput input, StatisticsContainer container) {
+        int threads = input.getIntegerInput("SchedulerThreads", Runtime.getRuntime().availableProcessors());
+        long resolution = input.getIntegerInput("TickResolutionMicros",
+                (int) (DEFAULT_RESOLUTION_NANOS / 1000)) * 1000L;
+        boolean workStealing = ExecutionMode.fromInput(input) == ExecutionMode.WORK_STEALING;
+        return new TickScheduler(threads, resolution, workStealing, container.addComponent("Scheduler"));
+    }
+
+    /**
+     * Schedules `Time` * `ActionsPerSecond` actions of the unit, less any it
+     * has already completed, the first one now. A unit with random timing
+     * instead acts for `Time` seconds.
+     * @param onDone run once the unit has finished or starved
+     */
+    public void schedule(Unit unit, Runnable onDone) {
+        int actionsPerSec = unit.getSettings().getIntegerInput("ActionsPerSecond");
+        int timeSec = unit.getSettings().getIntegerInput("Time");
+        int totalActions = timeSec * actionsPerSec;
+        long now = System.nanoTime();
+        long horizon = Long.MAX_VALUE;
+        if (unit.getTiming().isRandom()) {
+            horizon = now + timeSec * NANOS_PER_SECOND;
+            totalActions = timeSec > 0 ? Integer.MAX_VALUE : 0;
+        }
+        if (totalActions <= unit.getCompletedActions()) {
+            onDone.run();
+            return;
+        }
+        Ticker ticker = new Ticker(unit, NANOS_PER_SECOND / actionsPerSec, totalActions, horizon, onDone);
+        ticker.deadline = now;
+        enqueue(ticker, ticker.deadline);
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /** @return units given up on because nothing could make progress */
+    public List<Unit> getStarvedUnits() {
+        return starved;
+    }
+
+    /** @return actions dispatched more than one wheel tick after they were due */
+    public long getLateTicks() {
+        return (long) lateTicks.getTotal();
+    }
+
+    /** @return action slots skipped because the unit was still busy or blocked */
+    public long getMissedTicks() {
+        return (long) missedTicks.getTotal();
+    }
+
+    /** @return tasks taken from another worker's queue, or 0 without work stealing */
+    public long getSteals() {
+        return steals == null ? 0 : (long) steals.getTotal();
+    }
+
+    /**
+     * Stops the timer thread and the workers; scheduled actions that haven't
+     * run are dropped, and so is the next action of any unit still acting.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(timer);
+        try {
+            timer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        if (steals != null) {
+            steals.add(((ForkJoinPool) workers).getStealCount());
+        }
+    }
+
+    private void enqueue(Ticker ticker, long dueNanos) {
+        // round up so nothing ever fires before it's due
+        ticker.deadlineTick = (dueNanos - origin + resolution - 1) / resolution;
+        pending.add(ticker);
+        if (parked) {
+            // it may be sleeping until a later deadline than this one
+            LockSupport.unpark(timer);
+        }
+    }
+
+    private void timerLoop() {
+        while (running) {
+            Ticker ticker;
+            while ((ticker = pending.poll()) != null) {
+                wheel.add(ticker, this::dispatch);
+            }
+            long nowTick = (System.nanoTime() - origin) / resolution;
+            wheel.advanceTo(nowTick, this::dispatch);
+
+            // sleep until the next timer is due rather than waking every tick;
+            // enqueue wakes the timer early for anything new
+            long nextTick = wheel.nextTick();
+            long wakeAt = nextTick == Long.MAX_VALUE
+                    ? System.nanoTime() + IDLE_PARK_NANOS
+                    : origin + nextTick * resolution;
+            parked = true;
+            if (pending.isEmpty() && running) {
+                LockSupport.parkNanos(wakeAt - System.nanoTime());
+            }
+            parked = false;
+        }
+    }
+
+    /** Hands the ticker to the workers, or drops it once closed. */
+    private void dispatch(Ticker ticker) {
+        if (running) {
+            try {
+                workers.execute(ticker);
+                return;
+            } catch (RejectedExecutionException e) {
+                // closed after the check: drop it like any other pending action
+            }
+        }
+        ticker.unit.setState(UnitState.IDLE);
+    }
+
+    /** One unit's run: which action it's on and when that one is due. */
+    private final class Ticker extends TimingWheel.Timer implements Runnable {
+        final Unit unit;
+        final long period;
+        final int totalActions;
+        final long horizon; // no action starts from here on; MAX_VALUE unless the timing is random
+        final Runnable onDone;
+        final boolean paced;
+        long deadline; // when the current action was due; unpaced, where the drawn schedule is
+        int attempts;  // tries at the current action
+
+        Ticker(Unit unit, long period, int totalActions, long horizon, Runnable onDone) {
+            this.unit = unit;
+            this.period = period;
+            this.totalActions = totalActions;
+            this.horizon = horizon;
+            this.onDone = onDone;
+            this.paced = !"none".equalsIgnoreCase(unit.getSettings().getStringInput("Pacing", "realtime"));
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            if (attempts == 0) {
+                unit.setState(UnitState.WORKING); // a retry stays BLOCKED until it acts
+            }
+            if (attempts++ == 0 && paced) {
+                long late = start - deadline;
+                if (late > resolution) {
+                    lateTicks.increment();
+                    lateness.record(late / 1_000_000.0);
+                }
+            }
+
+            EventTrace trace = unit.getTrace();
+            if (trace != null) {
+                trace.record(TraceEvent.ACTION_START, unit.getName(), 0, 0);
+            }
+            boolean acted = unit.tryPerformAction();
+            long end = System.nanoTime();
+            if (!acted) {
+                if (trace != null) {
+                    trace.record(TraceEvent.ACTION_BLOCKED, unit.getName(), 0, 0);
+                }
+                unit.setState(UnitState.BLOCKED);
+                retry(end);
+                return;
+            }
+            unit.setState(UnitState.WORKING);
+            lastProgress.set(end);
+            unit.finishAction(end - start);
+
+            if (unit.getCompletedActions() >= totalActions) {
+                unit.setState(UnitState.IDLE);
+                onDone.run();
+                return;
+            }
+            attempts = 0;
+            long delay = unit.nextActionDelay(period);
+            deadline += delay;
+            if (paced) {
+                if (delay > 0 && end - deadline >= delay) {
+                    // whole slots went by while this action ran or waited
+                    missedTicks.add((end - deadline) / delay);
+                }
+                // an overrun pushes the schedule back, as in Unit.run
+                deadline = Math.max(deadline, end);
+            }
+            if (deadline >= horizon) {
+                unit.setState(UnitState.IDLE);
+                onDone.run();
+                return;
+            }
+            if (!paced) {
+                // no waiting: the drawn schedule only decides when the run is over
+                dispatch(this);
+                return;
+            }
+            if (deadline == end) {
+                // due already: straight back to the workers, on this one's own queue if it steals
+                dispatch(this);
+            } else {
+                // idle until it's due; set first, as another worker may run it once it's queued
+                unit.setState(UnitState.IDLE);
+                enqueue(this, deadline);
+            }
+        }
+
+        /** Back off a little more on each failed attempt, up to one period. */
+        private void retry(long now) {
+            boolean outOfTime = paced && now >= horizon;
+            if (outOfTime || now - lastProgress.get() > STALL_NANOS) {
+                // unpaced, a random schedule has no end in real time, so waiting
+                // for the rest of the plant past the stall is running out of time too
+                if (!outOfTime && (paced || horizon == Long.MAX_VALUE)) {
+                    starved.add(unit);
+                }
+                unit.setState(UnitState.IDLE);
+                onDone.run();
+                return;
+            }
+            long backoff = Math.min(period, resolution << Math.min(attempts, 16));
+            enqueue(this, now + backoff);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package factory;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: LEVELS wheels of SLOTS slots each, where a slot
+ * on level n covers SLOTS^n ticks. Adding a timer and advancing by one tick
+ * are constant time no matter how many timers there are or how far out they
+ * are, which is what lets one thread pace thousands of units.
+ *
+ * Timers far out go on a higher level and are moved down ("cascaded") as
+ * their slot comes up. Time is in whole ticks; TickScheduler maps nanoTime
+ * onto them. Not thread-safe: only the scheduler thread touches it.
+ */
+final class TimingWheel<T extends TimingWheel.Timer> {
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /** Something due at a given tick. */
+    static class Timer {
+        long deadlineTick;
+    }
+
+    private final ArrayDeque<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long startTick) {
+        this.wheels = (ArrayDeque<T>[][]) new ArrayDeque<?>[LEVELS][SLOTS];
+        for (ArrayDeque<T>[] level : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startTick;
+    }
+
+    /** @return the last tick advanced to */
+    long currentTick() {
+        return currentTick;
+    }
+
+    /** @return timers waiting in the wheel */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The first tick advanceTo has anything to do at: the deadline of the
+     * next timer on the lowest level, or the tick at which the first
+     * occupied slot of a higher level cascades down, whichever is earlier.
+     * No timer is due before it, so the caller can sleep until then.
+     * @return that tick, or Long.MAX_VALUE if the wheel is empty
+     */
+    long nextTick() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        long next = Long.MAX_VALUE;
+        // level 0 holds timers due within one rotation, one tick per slot
+        for (long tick = currentTick + 1; tick < currentTick + SLOTS; tick++) {
+            if (!wheels[0][(int) (tick & MASK)].isEmpty()) {
+                next = tick;
+                break;
+            }
+        }
+        // a higher level can cascade first, e.g. a level 1 timer due at 520
+        // comes down at 512, ahead of a level 0 timer due at 555
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = BITS * level;
+            long boundary = (currentTick >>> shift) << shift;
+            for (int i = 0; i < SLOTS; i++) {
+                boundary += 1L << shift;
+                if (boundary >= next) {
+                    break;
+                }
+                if (!wheels[level][(int) ((boundary >>> shift) & MASK)].isEmpty()) {
+                    next = boundary;
+                    break;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Adds a timer, or hands it straight to expire if it's already due.
+     */
+    void add(T timer, Consumer<? super T> expire) {
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire.accept(timer);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        // beyond the top level's range the slot comes up early, and the timer
+        // is simply added again from there
+        int slot = (int) ((timer.deadlineTick >>> (BITS * level)) & MASK);
+        wheels[level][slot].add(timer);
+        size++;
+    }
+
+    /**
+     * Moves time forward one tick at a time up to the given tick, expiring
+     * every timer that comes due on the way, in deadline order.
+     */
+    void advanceTo(long tick, Consumer<? super T> expire) {
+        while (currentTick < tick) {
+            currentTick++;
+            // when a level wraps, the next slot of the level above comes due:
+            // move its timers down before expiring this tick's
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                ArrayDeque<T> slot = wheels[level][(int) ((currentTick >>> (BITS * level)) & MASK)];
+                if (slot.isEmpty()) {
+                    continue;
+                }
+                // copy first: a timer beyond the top level's range may land back in this slot
+                Object[] moving = slot.toArray();
+                slot.clear();
+                size -= moving.length;
+                for (Object timer : moving) {
+                    @SuppressWarnings("unchecked")
+                    T t = (T) timer;
+                    add(t, expire);
+                }
+            }
+            ArrayDeque<T> due = wheels[0][(int) (currentTick & MASK)];
+            size -= due.size();
+            T timer;
+            while ((timer = due.poll()) != null) {
+                expire.accept(timer);
+            }
+        }
+    }
+}
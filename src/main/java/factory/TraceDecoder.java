@@ -0,0 +1,189 @@
+package factory;
+
+import factory.cli.Csv;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back a file written by EventTrace, a chunk at a time, and turns it
+ * into CSV:
+ *
+ *     java factory.TraceDecoder TRACE [CSV]
+ *
+ * writes one row per record (Nanos, Thread, Event, Subject, Detail, Value)
+ * to the CSV file, or to standard output without one. For STATISTIC
+ * records Detail is the statistic's name and Value the float; for PUT and
+ * TAKE they are the depth after and the items moved.
+ */
+public final class TraceDecoder {
+    static final String CSV_HEADER = "Nanos,Thread,Event,Subject,Detail,Value";
+    private static final int READ_RECORDS = 4096;
+
+    /** Receives the records of a trace in file order. */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * @param nanos     when it happened, in nanoseconds since the trace was opened
+         * @param thread    name of the thread that recorded it
+         * @param subject   the unit, component or buffer it is about
+         * @param statistic the statistic's name for STATISTIC records, null otherwise
+         * @param detail    see TraceEvent
+         * @param value     see TraceEvent
+         */
+        void record(long nanos, String thread, TraceEvent event, String subject,
+                    String statistic, int detail, long value);
+    }
+
+    private TraceDecoder() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /** @return 0 on success, 1 if the trace couldn't be decoded, 2 for bad arguments */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length < 1 || args.length > 2) {
+            err.println("Usage: factory.TraceDecoder TRACE [CSV]");
+            return 2;
+        }
+        try {
+            if (args.length == 2) {
+                try (Writer csv = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                    toCsv(Paths.get(args[0]), csv);
+                }
+            } else {
+                Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                toCsv(Paths.get(args[0]), csv);
+                csv.flush();
+            }
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            err.println("Cannot decode " + args[0] + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Writes the trace as CSV with a header row.
+     * @return how many records there were
+     */
+    public static long toCsv(Path file, Appendable out) throws IOException {
+        String nl = System.lineSeparator();
+        out.append(CSV_HEADER).append(nl);
+        try {
+            return forEach(file, (nanos, thread, event, subject, statistic, detail, value) -> {
+                try {
+                    out.append(Long.toString(nanos)).append(',')
+                            .append(Csv.quote(thread)).append(',')
+                            .append(event.name()).append(',')
+                            .append(Csv.quote(subject)).append(',');
+                    switch (event) {
+                        case STATISTIC:
+                            out.append(Csv.quote(statistic)).append(',')
+                                    .append(Float.toString(Float.intBitsToFloat((int) value)));
+                            break;
+                        case PUT:
+                        case TAKE:
+                            out.append(Integer.toString(detail)).append(',').append(Long.toString(value));
+                            break;
+                        default:
+                            out.append(',').append(Long.toString(value));
+                    }
+                    out.append(nl);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Hands every record in the file to the visitor.
+     * @return how many records there were
+     * @throws IOException if the file can't be read, isn't a trace, or wasn't
+     *         closed by its EventTrace
+     */
+    public static long forEach(Path file, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(EventTrace.HEADER_BYTES);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getLong() != EventTrace.MAGIC) {
+                throw new IOException("Not a trace file: " + file);
+            }
+            int version = header.getInt();
+            if (version != EventTrace.VERSION) {
+                throw new IOException("Unsupported trace version " + version + ": " + file);
+            }
+            int recordBytes = header.getInt();
+            long records = header.getLong();
+            header.getLong(); // dropped
+            long footerOffset = header.getLong();
+            if (records == EventTrace.NOT_CLOSED) {
+                throw new IOException("Trace file was not closed: " + file);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate((int) (channel.size() - footerOffset));
+            readFully(channel, footer, footerOffset);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+            String[] names = readNames(in);
+            String[] threads = readNames(in);
+
+            ByteBuffer chunk = ByteBuffer.allocateDirect(READ_RECORDS * recordBytes);
+            long position = EventTrace.HEADER_BYTES;
+            for (long done = 0; done < records; ) {
+                int count = (int) Math.min(READ_RECORDS, records - done);
+                chunk.clear().limit(count * recordBytes);
+                readFully(channel, chunk, position);
+                chunk.flip();
+                for (int i = 0; i < count; i++) {
+                    long nanos = chunk.getLong();
+                    TraceEvent event = TraceEvent.ofCode(chunk.getInt());
+                    String thread = threads[chunk.getInt()];
+                    String subject = names[chunk.getInt()];
+                    int detail = chunk.getInt();
+                    long value = chunk.getLong();
+                    String statistic = event == TraceEvent.STATISTIC ? names[detail] : null;
+                    visitor.record(nanos, thread, event, subject, statistic, detail, value);
+                }
+                position += (long) count * recordBytes;
+                done += count;
+            }
+            return records;
+        }
+    }
+
+    private static String[] readNames(DataInputStream in) throws IOException {
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer into, long position) throws IOException {
+        while (into.hasRemaining()) {
+            int read = channel.read(into, position + into.position());
+            if (read < 0) {
+                throw new IOException("Trace file is truncated");
+            }
+        }
+    }
+}
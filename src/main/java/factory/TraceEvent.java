@@ -0,0 +1,30 @@
+package factory;
+
+/**
+ * What an EventTrace record is about. The ordinal is the code in the file,
+ * so new kinds go at the end.
+ */
+public enum TraceEvent {
+    /** A unit starts an action (or an attempt at one). Value: 0. */
+    ACTION_START,
+    /** A unit finished an action. Value: how long it took, in ns. */
+    ACTION_END,
+    /** A non-blocking attempt couldn't act and will be retried. Value: 0. */
+    ACTION_BLOCKED,
+    /** Items were put into a buffer. Detail: depth after; value: items. */
+    PUT,
+    /** Items were taken from a buffer. Detail: depth after; value: items. */
+    TAKE,
+    /** A statistic was updated. Detail: the statistic's name; value: the float's bits. */
+    STATISTIC;
+
+    private static final TraceEvent[] BY_CODE = values();
+
+    /** @throws IllegalArgumentException for codes this version doesn't know */
+    static TraceEvent ofCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown trace event code " + code);
+        }
+        return BY_CODE[code];
+    }
+}
@@ -2,6 +2,9 @@ package factory;
 import Skeleton.Unit;
 
 import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+
+import java.util.List;
 
 /**
  * Factory Method: creates Units by type.
@@ -17,12 +20,69 @@ public class UnitFactory {
     public static Unit create(String type, String name,
                               SimulationInput input,
                               SharedBuffer<String> buffer) {
+        return create(type, name, input, buffer, ResourcePools.none());
+    }
+
+    /**
+     * Robots hold a permit from every pool listed under the "RobotResources"
+     * input key while they act.
+     * @param type   "robot" or "belt"
+     * @param name   the unit’s name
+     * @param input  simulation input
+     * @param buffer shared buffer
+     * @param pools  resource pools of the simulation
+     */
+    public static Unit create(String type, String name,
+                              SimulationInput input,
+                              SharedBuffer<String> buffer,
+                              ResourcePools pools) {
+        return create(type, name, input, buffer, pools, StatisticsContainer.getInstance());
+    }
+
+    /**
+     * @param type      "robot" or "belt"
+     * @param name      the unit’s name
+     * @param input     simulation input
+     * @param buffer    shared buffer
+     * @param pools     resource pools of the simulation
+     * @param container the simulation's statistics
+     * @throws IllegalArgumentException if "RobotResources" names a pool that
+     *         isn't declared, so a typo fails before any unit starts
+     */
+    public static Unit create(String type, String name,
+                              SimulationInput input,
+                              SharedBuffer<String> buffer,
+                              ResourcePools pools,
+                              StatisticsContainer container) {
         if ("robot".equalsIgnoreCase(type)) {
-            return new Robot(name, input, buffer);
+            return new Robot(name, input, buffer, robotStrategy(input, pools), pools, container);
         } else if ("belt".equalsIgnoreCase(type)) {
-            return new ConveyorBelt(name, input, buffer);
+            return new ConveyorBelt(name, input, buffer, container);
         } else {
             throw new IllegalArgumentException("Unknown unit type: " + type);
         }
     }
+
+    /**
+     * Creates a station working one stage of a Pipeline. It records into the
+     * stage's statistics container.
+     * @param name  the unit's name
+     * @param stage the stage it takes items from and passes them on for
+     */
+    public static Unit createStation(String name, PipelineStage stage) {
+        return new Station(name, stage);
+    }
+
+    private static ActionStrategy robotStrategy(SimulationInput input, ResourcePools pools) {
+        List<String> resources;
+        try { resources = input.getInput("RobotResources"); }
+        catch (RuntimeException e) { return new ConsumeStrategy(); }
+        for (String name : resources) {
+            try { pools.get(name); }
+            catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("RobotResources names an undeclared resource pool: " + name, e);
+            }
+        }
+        return new PooledConsumeStrategy(resources);
+    }
 }
@@ -0,0 +1,75 @@
+package factory.buffer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The storage behind a factory.SharedBuffer. Implementations must be safe for
+ * the number of producer and consumer threads their BufferType allows.
+ */
+public interface BufferBackend<T> {
+    /** Add an item, waiting while the buffer is full. */
+    void put(T item) throws InterruptedException;
+
+    /** Remove the oldest item, waiting while the buffer is empty. */
+    T take() throws InterruptedException;
+
+    /** Non-blocking put. @return false if the buffer is full */
+    boolean offer(T item);
+
+    /** Non-blocking take. @return the item, or null if the buffer is empty */
+    T poll();
+
+    /** Put, waiting at most the timeout for room. @return false if it timed out */
+    boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /** Take, waiting at most the timeout for an item. @return null if it timed out */
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Add every item, waiting for room as often as needed. Items go in
+     * order but may interleave with other producers' items.
+     */
+    void putAll(List<? extends T> items) throws InterruptedException;
+
+    /**
+     * Wait until at least one item is available, then move up to max items
+     * into the collection without waiting further.
+     * @return how many items were moved (at least 1)
+     * @throws IllegalArgumentException if max is less than 1
+     */
+    int drainTo(Collection<? super T> into, int max) throws InterruptedException;
+
+    /**
+     * Non-blocking putAll: adds items from index `from` on while there is room.
+     * @return how many items were added
+     */
+    default int offerAll(List<? extends T> items, int from) {
+        int next = from;
+        while (next < items.size() && offer(items.get(next))) {
+            next++;
+        }
+        return next - from;
+    }
+
+    /**
+     * Non-blocking drainTo: moves up to max items that are already there.
+     * @return how many items were moved (possibly 0)
+     */
+    default int pollAll(Collection<? super T> into, int max) {
+        int moved = 0;
+        T item;
+        while (moved < max && (item = poll()) != null) {
+            into.add(item);
+            moved++;
+        }
+        return moved;
+    }
+
+    /** @return how many items are waiting; only a snapshot under concurrency */
+    int size();
+
+    /** @return the most items the buffer holds */
+    int capacity();
+}
@@ -0,0 +1,80 @@
+package factory.buffer;
+
+import Skeleton.SimulationInput;
+
+/**
+ * Which BufferBackend a factory.SharedBuffer uses, chosen with the
+ * "BufferBackend" input key (and "WaitStrategy" for the rings).
+ *
+ * Every backend holds exactly the capacity it is created with.
+ */
+public enum BufferType {
+    /** Locked circular array with batch operations (the default). */
+    ARRAY(Integer.MAX_VALUE, Integer.MAX_VALUE),
+    /** Lock-free ring for any number of producers and consumers. */
+    MPMC(Integer.MAX_VALUE, Integer.MAX_VALUE),
+    /** Lock-free ring for many producers and a single consumer. */
+    MPSC(Integer.MAX_VALUE, 1),
+    /** Lock-free ring for one producer and one consumer. */
+    SPSC(1, 1);
+
+    private final int maxProducers;
+    private final int maxConsumers;
+
+    BufferType(int maxProducers, int maxConsumers) {
+        this.maxProducers = maxProducers;
+        this.maxConsumers = maxConsumers;
+    }
+
+    /**
+     * Reads "BufferBackend" (array|mpmc|mpsc|spsc), defaulting to ARRAY.
+     * @throws IllegalArgumentException if the value is unknown
+     */
+    public static BufferType fromInput(SimulationInput input) {
+        return parse(input, "BufferBackend", BufferType.class, ARRAY);
+    }
+
+    /**
+     * Reads "WaitStrategy" (spin|yield|park), defaulting to PARK.
+     * @throws IllegalArgumentException if the value is unknown
+     */
+    public static WaitStrategy waitStrategyFromInput(SimulationInput input) {
+        return parse(input, "WaitStrategy", WaitStrategy.class, WaitStrategy.PARK);
+    }
+
+    /**
+     * @throws IllegalArgumentException if this backend isn't safe for that many threads
+     */
+    public void checkThreads(int producers, int consumers) {
+        if (producers > maxProducers || consumers > maxConsumers) {
+            throw new IllegalArgumentException(String.format(
+                    "%s buffer supports at most %s producer(s) and %s consumer(s), got %d and %d",
+                    this, limit(maxProducers), limit(maxConsumers), producers, consumers));
+        }
+    }
+
+    /** Creates an empty backend of this type. */
+    public <T> BufferBackend<T> create(int capacity, WaitStrategy waitStrategy) {
+        switch (this) {
+            case MPMC: return new MpmcRingBuffer<>(capacity, waitStrategy);
+            case MPSC: return new MpscRingBuffer<>(capacity, waitStrategy);
+            case SPSC: return new SpscRingBuffer<>(capacity, waitStrategy);
+            default:   return new LockedArrayBackend<>(capacity);
+        }
+    }
+
+    private static String limit(int max) {
+        return max == Integer.MAX_VALUE ? "any" : String.valueOf(max);
+    }
+
+    private static <E extends Enum<E>> E parse(SimulationInput input, String key, Class<E> type, E fallback) {
+        String value;
+        try { value = input.getInput(key).get(0); }
+        catch (RuntimeException e) { return fallback; }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + key + ": " + value);
+        }
+    }
+}
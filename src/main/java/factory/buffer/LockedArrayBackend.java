@@ -0,0 +1,248 @@
+package factory.buffer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The default backend: a circular array guarded by one lock, like
+ * ArrayBlockingQueue, but with batch operations that move a whole group of
+ * items per lock round-trip and wake only as many waiters as there are new
+ * items (or free slots). Safe for any number of producers and consumers.
+ */
+public class LockedArrayBackend<T> implements BufferBackend<T> {
+    private final Object[] items;
+    private int takeIndex;
+    private int putIndex;
+    private int count;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public LockedArrayBackend(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.items = new Object[capacity];
+    }
+
+    @Override
+    public void put(T item) throws InterruptedException {
+        if (item == null) throw new NullPointerException();
+        lock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                notFull.await();
+            }
+            enqueue(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            T item = dequeue();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (item == null) throw new NullPointerException();
+        lock.lock();
+        try {
+            if (count == items.length) {
+                return false;
+            }
+            enqueue(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T poll() {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            T item = dequeue();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        if (item == null) throw new NullPointerException();
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == items.length) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            T item = dequeue();
+            notFull.signal();
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void putAll(List<? extends T> batch) throws InterruptedException {
+        // checked up front, so a bad batch adds nothing
+        for (T item : batch) {
+            if (item == null) throw new NullPointerException();
+        }
+        int next = 0;
+        lock.lockInterruptibly();
+        try {
+            while (next < batch.size()) {
+                while (count == items.length) {
+                    notFull.await();
+                }
+                int added = 0;
+                while (next < batch.size() && count < items.length) {
+                    enqueue(batch.get(next++));
+                    added++;
+                }
+                wake(notEmpty, added);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> into, int max) throws InterruptedException {
+        if (max < 1) throw new IllegalArgumentException("Must drain at least one item: " + max);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return moveTo(into, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int offerAll(List<? extends T> batch, int from) {
+        // checked up front, as in putAll, so waiting consumers never miss the items added before a null
+        for (int i = from; i < batch.size(); i++) {
+            if (batch.get(i) == null) throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            int next = from;
+            while (next < batch.size() && count < items.length) {
+                enqueue(batch.get(next++));
+            }
+            wake(notEmpty, next - from);
+            return next - from;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int pollAll(Collection<? super T> into, int max) {
+        lock.lock();
+        try {
+            return moveTo(into, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return items.length;
+    }
+
+    // the helpers below must be called with the lock held
+
+    private int moveTo(Collection<? super T> into, int max) {
+        int moved = 0;
+        while (moved < max && count > 0) {
+            into.add(dequeue());
+            moved++;
+        }
+        wake(notFull, moved);
+        return moved;
+    }
+
+    private void enqueue(Object item) {
+        items[putIndex] = item;
+        if (++putIndex == items.length) putIndex = 0;
+        count++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T dequeue() {
+        T item = (T) items[takeIndex];
+        items[takeIndex] = null;
+        if (++takeIndex == items.length) takeIndex = 0;
+        count--;
+        return item;
+    }
+
+    /** Signal at most n waiters, one per item (or slot) that became available. */
+    private void wake(Condition condition, int n) {
+        for (int i = 0; i < n && lock.hasWaiters(condition); i++) {
+            condition.signal();
+        }
+    }
+}
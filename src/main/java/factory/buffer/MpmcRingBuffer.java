@@ -0,0 +1,104 @@
+package factory.buffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded lock-free ring for many producers and many consumers (Vyukov's
+ * sequenced array queue). Each slot has a sequence number that says whether
+ * it is free for the producer at a given position or holds an item for the
+ * consumer at that position; threads claim positions with a CAS on tail or
+ * head and never take a lock.
+ *
+ * Slot sequences are spaced a cache line apart, so threads working on
+ * neighbouring slots don't falsely share.
+ */
+public class MpmcRingBuffer<T> extends RingBufferBackend<T> {
+    /** longs per cache line; sequence i lives at index i * SEQUENCE_STRIDE */
+    private static final int SEQUENCE_STRIDE = 8;
+
+    protected static final VarHandle TAIL;
+    protected static final VarHandle HEAD;
+    protected static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    protected static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(RingProducerFields.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(RingConsumerFields.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] sequences;
+
+    public MpmcRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.sequences = new long[elements.length * SEQUENCE_STRIDE];
+        for (int i = 0; i < elements.length; i++) {
+            sequences[i * SEQUENCE_STRIDE] = i;
+        }
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (item == null) throw new NullPointerException();
+        long pos = tail;
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequenceAt(index) - pos;
+            if (diff == 0) {
+                if (capacity < elements.length && pos - head >= capacity) {
+                    return false; // the slot is free, but the ring holds its capacity already
+                }
+                if (TAIL.compareAndSet(this, pos, pos + 1)) {
+                    ELEMENT.set(elements, index, item);
+                    publishSequence(index, pos + 1);
+                    return true;
+                }
+                pos = tail;
+            } else if (diff < 0) {
+                return false; // the consumer one lap behind hasn't freed this slot
+            } else {
+                pos = tail; // another producer got here first
+            }
+        }
+    }
+
+    @Override
+    public T poll() {
+        long pos = head;
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequenceAt(index) - (pos + 1);
+            if (diff == 0) {
+                if (HEAD.compareAndSet(this, pos, pos + 1)) {
+                    return consume(index, pos);
+                }
+                pos = head;
+            } else if (diff < 0) {
+                return null; // empty, or the producer is still writing
+            } else {
+                pos = head;
+            }
+        }
+    }
+
+    /** Reads the slot claimed at pos and hands it back to producers for the next lap. */
+    @SuppressWarnings("unchecked")
+    protected final T consume(int index, long pos) {
+        T item = (T) ELEMENT.get(elements, index);
+        ELEMENT.set(elements, index, null);
+        publishSequence(index, pos + mask + 1);
+        return item;
+    }
+
+    protected final long sequenceAt(int index) {
+        return (long) SEQUENCE.getAcquire(sequences, index * SEQUENCE_STRIDE);
+    }
+
+    private void publishSequence(int index, long value) {
+        SEQUENCE.setRelease(sequences, index * SEQUENCE_STRIDE, value);
+    }
+}
@@ -0,0 +1,24 @@
+package factory.buffer;
+
+/**
+ * MpmcRingBuffer for a single consumer: producers still claim slots with a
+ * CAS, but the one consumer owns head and just advances it.
+ */
+public class MpscRingBuffer<T> extends MpmcRingBuffer<T> {
+
+    public MpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    @Override
+    public T poll() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequenceAt(index) != pos + 1) {
+            return null;
+        }
+        T item = consume(index, pos);
+        HEAD.setRelease(this, pos + 1);
+        return item;
+    }
+}
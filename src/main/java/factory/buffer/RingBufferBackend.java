@@ -0,0 +1,120 @@
+package factory.buffer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared parts of the preallocated lock-free rings: the slot array, and
+ * blocking put/take built from offer/poll plus a WaitStrategy.
+ *
+ * The slot array is rounded up to a power of two so indices can be masked,
+ * but a ring holds no more than the capacity it was created with, so a
+ * buffer of 10 blocks at 10 items like the locked one does.
+ */
+public abstract class RingBufferBackend<T> extends RingIndices implements BufferBackend<T> {
+    protected final Object[] elements;
+    protected final int mask;
+    protected final int capacity; // at most elements.length
+    private final WaitStrategy waitStrategy;
+
+    protected RingBufferBackend(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.elements = new Object[size];
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public void put(T item) throws InterruptedException {
+        int attempts = 0;
+        while (!offer(item)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            attempts = waitStrategy.idle(attempts);
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        int attempts = 0;
+        T item;
+        while ((item = poll()) == null) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            attempts = waitStrategy.idle(attempts);
+        }
+        return item;
+    }
+
+    @Override
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempts = 0;
+        while (!offer(item)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return false;
+            attempts = waitStrategy.idle(attempts);
+        }
+        return true;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempts = 0;
+        T item;
+        while ((item = poll()) == null) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (System.nanoTime() - deadline >= 0) return null;
+            attempts = waitStrategy.idle(attempts);
+        }
+        return item;
+    }
+
+    @Override
+    public void putAll(List<? extends T> items) throws InterruptedException {
+        int next = 0;
+        int attempts = 0;
+        while (next < items.size()) {
+            int added = offerAll(items, next);
+            if (added > 0) {
+                next += added;
+                attempts = 0;
+                continue;
+            }
+            if (Thread.interrupted()) throw new InterruptedException();
+            attempts = waitStrategy.idle(attempts);
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> into, int max) throws InterruptedException {
+        if (max < 1) throw new IllegalArgumentException("Must drain at least one item: " + max);
+        int attempts = 0;
+        int moved;
+        while ((moved = pollAll(into, max)) == 0) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            attempts = waitStrategy.idle(attempts);
+        }
+        return moved;
+    }
+
+    @Override
+    public int size() {
+        long size = tail - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+}
@@ -0,0 +1,9 @@
+package factory.buffer;
+
+/** The consumer side of a ring's indices (see RingIndices). */
+abstract class RingConsumerFields extends RingPadding1 {
+    /** Next position to read. */
+    volatile long head;
+    /** Consumer's last view of tail (single-consumer rings only). */
+    long tailCache;
+}
@@ -0,0 +1,12 @@
+package factory.buffer;
+
+/**
+ * Head and tail of a ring buffer, each on its own cache line so producers and
+ * consumers don't invalidate each other's line on every operation. HotSpot
+ * lays out superclass fields before subclass fields, so the padding longs in
+ * between keep the two groups at least 64 bytes apart. Each level of the
+ * hierarchy is in its own file.
+ */
+abstract class RingIndices extends RingConsumerFields {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
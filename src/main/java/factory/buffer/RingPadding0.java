@@ -0,0 +1,6 @@
+package factory.buffer;
+
+/** Keeps a ring's producer fields off whatever precedes the object (see RingIndices). */
+abstract class RingPadding0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
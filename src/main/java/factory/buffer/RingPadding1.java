@@ -0,0 +1,6 @@
+package factory.buffer;
+
+/** Keeps a ring's producer and consumer fields on separate cache lines (see RingIndices). */
+abstract class RingPadding1 extends RingProducerFields {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,9 @@
+package factory.buffer;
+
+/** The producer side of a ring's indices (see RingIndices). */
+abstract class RingProducerFields extends RingPadding0 {
+    /** Next position to write. */
+    volatile long tail;
+    /** Producer's last view of head (single-producer rings only). */
+    long headCache;
+}
@@ -0,0 +1,102 @@
+package factory.buffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ring for exactly one producer and one consumer. No CAS at all: each side
+ * owns its index and publishes it with a release store, and keeps a cached
+ * copy of the other side's index so it only reads the shared line when the
+ * ring looks full (or empty). Batches publish the index once for the
+ * whole group.
+ */
+public class SpscRingBuffer<T> extends RingBufferBackend<T> {
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(RingProducerFields.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(RingConsumerFields.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public SpscRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (item == null) throw new NullPointerException();
+        long t = (long) TAIL.getOpaque(this);
+        if (t - headCache >= capacity) {
+            headCache = (long) HEAD.getAcquire(this);
+            if (t - headCache >= capacity) {
+                return false;
+            }
+        }
+        ELEMENT.set(elements, (int) (t & mask), item);
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long h = (long) HEAD.getOpaque(this);
+        if (h >= tailCache) {
+            tailCache = (long) TAIL.getAcquire(this);
+            if (h >= tailCache) {
+                return null;
+            }
+        }
+        int index = (int) (h & mask);
+        T item = (T) ELEMENT.get(elements, index);
+        ELEMENT.set(elements, index, null);
+        HEAD.setRelease(this, h + 1);
+        return item;
+    }
+
+    @Override
+    public int offerAll(List<? extends T> items, int from) {
+        int wanted = items.size() - from;
+        long t = (long) TAIL.getOpaque(this);
+        if (t - headCache + wanted > capacity) {
+            headCache = (long) HEAD.getAcquire(this);
+        }
+        int room = (int) Math.min(wanted, capacity - (t - headCache));
+        for (int i = 0; i < room; i++) {
+            T item = items.get(from + i);
+            if (item == null) throw new NullPointerException();
+            ELEMENT.set(elements, (int) ((t + i) & mask), item);
+        }
+        if (room > 0) {
+            TAIL.setRelease(this, t + room);
+        }
+        return Math.max(room, 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int pollAll(Collection<? super T> into, int max) {
+        long h = (long) HEAD.getOpaque(this);
+        if (tailCache - h < max) {
+            tailCache = (long) TAIL.getAcquire(this);
+        }
+        int available = (int) Math.min(max, tailCache - h);
+        for (int i = 0; i < available; i++) {
+            int index = (int) ((h + i) & mask);
+            into.add((T) ELEMENT.get(elements, index));
+            ELEMENT.set(elements, index, null);
+        }
+        if (available > 0) {
+            HEAD.setRelease(this, h + available);
+        }
+        return Math.max(available, 0);
+    }
+}
@@ -0,0 +1,56 @@
+package factory.buffer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits on a full or empty ring buffer. Spinning has the lowest
+ * hand-off latency but burns a core per waiter; parking is the friendliest
+ * when there are more threads than cores.
+ */
+public enum WaitStrategy {
+    /** Busy-spin. Only sensible with a core per waiting thread. */
+    SPIN {
+        @Override
+        public int idle(int attempts) {
+            Thread.onSpinWait();
+            return attempts + 1;
+        }
+    },
+    /** Spin briefly, then give the core away with Thread.yield. */
+    YIELD {
+        @Override
+        public int idle(int attempts) {
+            if (attempts < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return attempts + 1;
+        }
+    },
+    /** Spin, then yield, then sleep in short parks. The default. */
+    PARK {
+        @Override
+        public int idle(int attempts) {
+            if (attempts < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempts < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return attempts + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Wait a little before the caller retries.
+     * @param attempts how many times the caller has already waited (0 the first time)
+     * @return the value to pass on the next call
+     */
+    public abstract int idle(int attempts);
+}
@@ -0,0 +1,119 @@
+package factory.cli;
+
+import Skeleton.StatisticsContainer;
+import factory.Main;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs scenario files without the UI and writes their statistics as CSV or
+ * JSON, for scripts and CI:
+ *
+ *     factory.Main [--format csv|json] [--output results.csv] scenario.json ...
+ *
+ * Scenarios run one after another, each into its own StatisticsContainer.
+ * Nothing is printed per update; the results go to the output file, or to
+ * standard output if there is none. See ScenarioLoader for the file formats.
+ *
+ * Exit codes: 0 when every scenario ran, 1 when one failed to run, 2 for bad
+ * arguments or unreadable scenario files (nothing is run then).
+ */
+public final class BatchCli {
+    public static final int OK = 0;
+    public static final int FAILED = 1;
+    public static final int USAGE = 2;
+
+    private static final String USAGE_TEXT =
+            "Usage: factory.Main [--format csv|json] [--output FILE] SCENARIO...";
+
+    private BatchCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs the scenario files named in the arguments.
+     * @return the exit code
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        ScenarioResults.Format format = ScenarioResults.Format.CSV;
+        Path output = null;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--format") || arg.equals("--output")) {
+                    if (i + 1 == args.length) {
+                        throw new IllegalArgumentException(arg + " needs a value");
+                    }
+                    String value = args[++i];
+                    if (arg.equals("--format")) {
+                        format = ScenarioResults.Format.parse(value);
+                    } else {
+                        output = Paths.get(value);
+                    }
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                } else {
+                    files.add(Paths.get(arg));
+                }
+            }
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("No scenario files given");
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE_TEXT);
+            return USAGE;
+        }
+
+        // Load everything first, so a typo in the last file doesn't waste a long batch
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                scenarios.addAll(ScenarioLoader.load(file));
+            } catch (IOException | IllegalArgumentException e) {
+                err.println("Cannot read scenario " + file + ": " + e.getMessage());
+                return USAGE;
+            }
+        }
+
+        ScenarioResults results = new ScenarioResults();
+        int exitCode = OK;
+        for (Scenario scenario : scenarios) {
+            StatisticsContainer stats = StatisticsContainer.newInstance(scenario.getInput());
+            try {
+                Main.run(scenario.getInput(), stats);
+                results.add(scenario.getName(), stats);
+            } catch (RuntimeException e) {
+                err.println("Scenario " + scenario.getName() + " failed: " + e);
+                exitCode = FAILED;
+            }
+        }
+
+        try {
+            if (output == null) {
+                results.write(out, format);
+                out.flush();
+            } else {
+                try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    results.write(writer, format);
+                }
+            }
+        } catch (IOException e) {
+            err.println("Cannot write results to " + output + ": " + e.getMessage());
+            return FAILED;
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,25 @@
+package factory.cli;
+
+/**
+ * Just enough CSV for the result tables (RFC 4180): cells are quoted only
+ * when they have to be.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * @return the cell as is, or in double quotes with its quotes doubled if
+     *         it holds a comma, a quote or a line break
+     */
+    public static String quote(String cell) {
+        for (int i = 0; i < cell.length(); i++) {
+            char c = cell.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + cell.replace("\"", "\"\"") + '"';
+            }
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,24 @@
+package factory.cli;
+
+import Skeleton.SimulationInput;
+
+/**
+ * One simulation to run: a name for the results and its input.
+ */
+public final class Scenario {
+    private final String name;
+    private final SimulationInput input;
+
+    public Scenario(String name, SimulationInput input) {
+        this.name = name;
+        this.input = input;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SimulationInput getInput() {
+        return input;
+    }
+}
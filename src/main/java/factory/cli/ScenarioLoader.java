@@ -0,0 +1,121 @@
+package factory.cli;
+
+import Skeleton.SimulationInput;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads scenarios from files, by extension:
+ *
+ * A ".json" file holds one object, or an array of objects for several
+ * scenarios. Each key is an input key and each value a number, string or
+ * boolean, or an array of them for keys with several values:
+ *     {"Name": "busy", "Time": 60, "NumRobots": 8, "Stages": ["belt:2", "pack:1"]}
+ *
+ * Anything else is read as a properties file holding one scenario, with
+ * several values of a key separated by commas:
+ *     Time = 60
+ *     Stages = belt:2, pack:1
+ *
+ * The optional "Name" key names the scenario in the results; it defaults to
+ * the file name without its extension (plus "#2", "#3"... in a JSON array).
+ */
+public final class ScenarioLoader {
+
+    private ScenarioLoader() {
+    }
+
+    /**
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if its contents aren't valid scenarios
+     */
+    public static List<Scenario> load(Path file) throws IOException {
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        if (fileName.toLowerCase().endsWith(".json")) {
+            return fromJson(text, baseName);
+        }
+        return List.of(fromProperties(new StringReader(text), baseName));
+    }
+
+    /** Reads one scenario in properties format. */
+    public static Scenario fromProperties(Reader reader, String defaultName) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        SimulationInput input = new SimulationInput();
+        String name = defaultName;
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.equals("Name")) {
+                name = value;
+                continue;
+            }
+            List<String> values = new ArrayList<>();
+            for (String part : value.split(",")) {
+                values.add(part.trim());
+            }
+            input.addInput(key, values);
+        }
+        return new Scenario(name, input);
+    }
+
+    /** Reads one scenario (an object) or several (an array of objects) in JSON. */
+    public static List<Scenario> fromJson(String text, String defaultName) {
+        Object root = Json.parse(text);
+        List<Scenario> scenarios = new ArrayList<>();
+        if (root instanceof List) {
+            List<?> list = (List<?>) root;
+            for (int i = 0; i < list.size(); i++) {
+                String name = list.size() == 1 ? defaultName : defaultName + "#" + (i + 1);
+                scenarios.add(scenario(list.get(i), name));
+            }
+        } else {
+            scenarios.add(scenario(root, defaultName));
+        }
+        return scenarios;
+    }
+
+    private static Scenario scenario(Object node, String defaultName) {
+        if (!(node instanceof Map)) {
+            throw new IllegalArgumentException("A scenario must be a JSON object");
+        }
+        SimulationInput input = new SimulationInput();
+        String name = defaultName;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+            String key = (String) entry.getKey();
+            Object value = entry.getValue();
+            if (key.equals("Name")) {
+                name = scalar(key, value);
+                continue;
+            }
+            List<String> values = new ArrayList<>();
+            if (value instanceof List) {
+                for (Object element : (List<?>) value) {
+                    values.add(scalar(key, element));
+                }
+            } else {
+                values.add(scalar(key, value));
+            }
+            input.addInput(key, values);
+        }
+        return new Scenario(name, input);
+    }
+
+    private static String scalar(String key, Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        throw new IllegalArgumentException("Value of " + key + " must be a number, string or boolean");
+    }
+}
@@ -0,0 +1,100 @@
+package factory.cli;
+
+import Skeleton.Statistic;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The statistics of a batch of scenarios, one row per statistic: the
+ * scenario, the component, the statistic, its summarizeExact() value and
+ * its describe() text. Written as CSV or as a JSON array of objects.
+ */
+public class ScenarioResults {
+
+    /** Output formats for the results. */
+    public enum Format {
+        CSV, JSON;
+
+        /** @throws IllegalArgumentException if the name isn't a format */
+        public static Format parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown format: " + name);
+            }
+        }
+    }
+
+    private static final String[] COLUMNS = {"Scenario", "Component", "Statistic", "Summary", "Details"};
+
+    private final List<String[]> rows = new ArrayList<>();
+    private final List<Double> summaries = new ArrayList<>();
+
+    /** Adds a row for every statistic of the run, components in container order. */
+    public void add(String scenario, StatisticsContainer stats) {
+        for (String component : stats.getComponentNames()) {
+            Statistics statistics = stats.getComponent(component);
+            for (String statName : new TreeSet<>(statistics.getStatisticNames())) {
+                Statistic stat = statistics.getStatistic(statName);
+                double summary = stat.summarizeExact();
+                rows.add(new String[] {scenario, component, statName, summaryText(summary), stat.describe()});
+                summaries.add(summary);
+            }
+        }
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public void write(Appendable out, Format format) throws IOException {
+        if (format == Format.JSON) {
+            writeJson(out);
+        } else {
+            writeCsv(out);
+        }
+    }
+
+    private void writeCsv(Appendable out) throws IOException {
+        out.append(String.join(",", COLUMNS)).append(System.lineSeparator());
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(Csv.quote(row[i]));
+            }
+            out.append(System.lineSeparator());
+        }
+    }
+
+    private void writeJson(Appendable out) throws IOException {
+        out.append('[');
+        for (int r = 0; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            out.append(r == 0 ? "" : ",").append(System.lineSeparator()).append("  {");
+            for (int i = 0; i < row.length; i++) {
+                out.append(i == 0 ? "" : ", ").append(Json.quote(COLUMNS[i])).append(": ");
+                if (i == 3) {
+                    // JSON has no NaN or Infinity
+                    double summary = summaries.get(r);
+                    out.append(Double.isFinite(summary) ? row[i] : "null");
+                } else {
+                    out.append(Json.quote(row[i]));
+                }
+            }
+            out.append('}');
+        }
+        out.append(System.lineSeparator()).append(']').append(System.lineSeparator());
+    }
+
+    // float-valued summaries print as floats did, without double's extra digits
+    private static String summaryText(double summary) {
+        return summary == (float) summary ? Float.toString((float) summary) : Double.toString(summary);
+    }
+}
@@ -0,0 +1,318 @@
+package factory.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws the whole plant on one component, straight from primitive arrays
+ * (kind, position, value, active-until per unit), so it scales to thousands
+ * of units where a panel per unit did not.
+ *
+ * Belts stand in a column on the left, robots in a grid to their right and
+ * storage after them. The mouse wheel zooms around the cursor and dragging
+ * pans. How much is drawn depends on the zoom: single dots when a unit is
+ * only a few pixels wide, plain boxes further in, and names and values once
+ * they are readable. A unit that changes only repaints its own rectangle,
+ * and only units inside the clip are drawn.
+ */
+public class FactoryCanvas extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    static final byte ROBOT = 0;
+    static final byte BELT = 1;
+    static final byte STORAGE = 2;
+
+    // world coordinates: every unit gets one cell
+    static final int CELL_W = 120;
+    static final int CELL_H = 100;
+    static final int UNIT_W = 100;
+    static final int UNIT_H = 80;
+    // zoom levels at which more detail is drawn
+    static final double OUTLINE_SCALE = 0.08;
+    static final double TEXT_SCALE = 0.6;
+    private static final double MIN_SCALE = 0.005;
+    private static final double MAX_SCALE = 4;
+    private static final long ACTIVE_MILLIS = 500;
+
+    private static final Color BACKGROUND = Color.GRAY;
+    private static final Color IDLE_COLOR = new Color(200, 200, 200);
+    private static final Color ACTIVE_COLOR = new Color(100, 200, 100);
+    private static final Color BELT_COLOR = new Color(180, 180, 220);
+    private static final Color BELT_ACTIVE_COLOR = new Color(140, 140, 240);
+    private static final Color STORAGE_COLOR = new Color(200, 230, 200);
+
+    private int count;
+    private String[] names = new String[0];
+    private byte[] kinds = new byte[0];
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private double[] values = new double[0];
+    private long[] activeUntil = new long[0];
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private int storage = -1;
+    private int worldW;
+    private int worldH;
+
+    // screen = world * scale + offset
+    private double scale = 1;
+    private double offsetX;
+    private double offsetY;
+    private boolean fitPending = true;
+    private final DecimalFormat valueFormat = new DecimalFormat("#,##0");
+
+    public FactoryCanvas() {
+        setOpaque(true);
+        setToolTipText(""); // tooltips come from getToolTipText(MouseEvent)
+
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point dragFrom;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragFrom = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragFrom != null) {
+                    panBy(e.getX() - dragFrom.x, e.getY() - dragFrom.y);
+                    dragFrom = e.getPoint();
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragFrom = null;
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAt(e.getX(), e.getY(), Math.pow(1.1, -e.getPreciseWheelRotation()));
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    fitToView();
+                }
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (fitPending) {
+                    fitToView();
+                }
+            }
+        });
+    }
+
+    /**
+     * Lays out a new plant: belts "belt-1".."belt-n", robots "Robot-1".."Robot-n",
+     * named like the components they show, and a storage box. Values start at 0.
+     */
+    public void layoutUnits(int robots, int belts) {
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(robots)));
+        int rows = Math.max(belts, (robots + columns - 1) / columns);
+        count = robots + belts + 1;
+        names = new String[count];
+        kinds = new byte[count];
+        xs = new int[count];
+        ys = new int[count];
+        values = new double[count];
+        activeUntil = new long[count];
+        indexByName.clear();
+
+        int i = 0;
+        for (int b = 0; b < belts; b++, i++) {
+            place(i, "belt-" + (b + 1), BELT, 0, b);
+        }
+        for (int r = 0; r < robots; r++, i++) {
+            place(i, "Robot-" + (r + 1), ROBOT, 1 + r % columns, r / columns);
+        }
+        storage = i;
+        place(i, "Storage", STORAGE, columns + 1, Math.max(0, rows / 2 - 1));
+        worldW = (columns + 2) * CELL_W;
+        worldH = Math.max(1, rows) * CELL_H;
+        fitToView();
+    }
+
+    private void place(int i, String name, byte kind, int column, int row) {
+        names[i] = name;
+        kinds[i] = kind;
+        xs[i] = column * CELL_W + (CELL_W - UNIT_W) / 2;
+        ys[i] = row * CELL_H + (CELL_H - UNIT_H) / 2;
+        indexByName.put(name, i);
+    }
+
+    /** @return how many units (including storage) are laid out */
+    public int getUnitCount() {
+        return count;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Shows a unit's new total and lights it up for a moment. Robots' totals
+     * also add up into the storage box. Unknown names are ignored.
+     */
+    public void update(String name, double value) {
+        Integer index = indexByName.get(name);
+        if (index == null) {
+            return;
+        }
+        int i = index;
+        if (kinds[i] == ROBOT && storage >= 0) {
+            values[storage] += value - values[i];
+            repaintUnit(storage);
+        }
+        values[i] = value;
+        activeUntil[i] = System.currentTimeMillis() + ACTIVE_MILLIS;
+        repaintUnit(i);
+    }
+
+    /** Dims units that haven't changed for a while. Call it from a timer. */
+    public void expire(long nowMillis) {
+        for (int i = 0; i < count; i++) {
+            if (activeUntil[i] != 0 && activeUntil[i] <= nowMillis) {
+                activeUntil[i] = 0;
+                repaintUnit(i);
+            }
+        }
+    }
+
+    /** Zooms and centers so the whole plant fits. */
+    public void fitToView() {
+        if (getWidth() == 0 || getHeight() == 0 || worldW == 0) {
+            fitPending = true;
+            return;
+        }
+        fitPending = false;
+        scale = clamp(0.95 * Math.min(getWidth() / (double) worldW, getHeight() / (double) worldH));
+        offsetX = (getWidth() - worldW * scale) / 2;
+        offsetY = (getHeight() - worldH * scale) / 2;
+        repaint();
+    }
+
+    /** Zooms by the factor, keeping the world point under (x, y) where it is. */
+    public void zoomAt(int x, int y, double factor) {
+        double next = clamp(scale * factor);
+        offsetX = x - (x - offsetX) * next / scale;
+        offsetY = y - (y - offsetY) * next / scale;
+        scale = next;
+        fitPending = false;
+        repaint();
+    }
+
+    public void panBy(int dx, int dy) {
+        offsetX += dx;
+        offsetY += dy;
+        fitPending = false;
+        repaint();
+    }
+
+    /** @return the name of the unit under the screen point, or null */
+    public String unitAt(int x, int y) {
+        double wx = (x - offsetX) / scale;
+        double wy = (y - offsetY) / scale;
+        for (int i = 0; i < count; i++) {
+            if (wx >= xs[i] && wx < xs[i] + UNIT_W && wy >= ys[i] && wy < ys[i] + UNIT_H) {
+                return names[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        String name = unitAt(e.getX(), e.getY());
+        if (name == null) {
+            return null;
+        }
+        return name + ": " + valueFormat.format(values[indexByName.get(name)]);
+    }
+
+    /** @return the unit's rectangle on screen, one pixel larger all round */
+    Rectangle screenBounds(int i) {
+        int x = (int) Math.floor(xs[i] * scale + offsetX);
+        int y = (int) Math.floor(ys[i] * scale + offsetY);
+        int w = (int) Math.ceil(UNIT_W * scale);
+        int h = (int) Math.ceil(UNIT_H * scale);
+        return new Rectangle(x - 1, y - 1, Math.max(1, w) + 2, Math.max(1, h) + 2);
+    }
+
+    private void repaintUnit(int i) {
+        Rectangle r = screenBounds(i);
+        if (r.intersects(0, 0, getWidth(), getHeight())) {
+            repaint(r); // the RepaintManager merges these into one paint per frame
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(BACKGROUND);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // the clip in world coordinates, to skip units that can't show
+        double left = (clip.x - offsetX) / scale - UNIT_W;
+        double top = (clip.y - offsetY) / scale - UNIT_H;
+        double right = (clip.x + clip.width - offsetX) / scale;
+        double bottom = (clip.y + clip.height - offsetY) / scale;
+        long now = System.currentTimeMillis();
+        int w = Math.max(1, (int) Math.round(UNIT_W * scale));
+        int h = Math.max(1, (int) Math.round(UNIT_H * scale));
+        boolean outlines = scale >= OUTLINE_SCALE;
+        boolean text = scale >= TEXT_SCALE;
+        if (text) {
+            g.setFont(new Font("Segoe UI", Font.PLAIN, Math.max(8, (int) (11 * scale))));
+        }
+        for (int i = 0; i < count; i++) {
+            if (xs[i] < left || xs[i] > right || ys[i] < top || ys[i] > bottom) {
+                continue;
+            }
+            int x = (int) Math.floor(xs[i] * scale + offsetX);
+            int y = (int) Math.floor(ys[i] * scale + offsetY);
+            g.setColor(colorOf(i, activeUntil[i] > now));
+            g.fillRect(x, y, w, h);
+            if (outlines) {
+                g.setColor(Color.DARK_GRAY);
+                g.drawRect(x, y, w - 1, h - 1);
+            }
+            if (text) {
+                g.setColor(Color.BLACK);
+                int line = g.getFontMetrics().getHeight();
+                g.drawString(names[i], x + 4, y + line);
+                g.drawString(valueFormat.format(values[i]), x + 4, y + 2 * line);
+            }
+        }
+    }
+
+    private Color colorOf(int i, boolean active) {
+        switch (kinds[i]) {
+            case BELT:    return active ? BELT_ACTIVE_COLOR : BELT_COLOR;
+            case STORAGE: return STORAGE_COLOR;
+            default:      return active ? ACTIVE_COLOR : IDLE_COLOR;
+        }
+    }
+
+    private static double clamp(double s) {
+        return Math.max(MIN_SCALE, Math.min(MAX_SCALE, s));
+    }
+}
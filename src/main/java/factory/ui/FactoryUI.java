@@ -29,13 +29,13 @@ public class FactoryUI implements StatisticObserver {
     private final Map<String, Integer> rowIndexByKey = new HashMap<>();
     private JLabel statusLabel;
     private JProgressBar simulationProgress;
-    private JPanel factoryVisualization;
+    private FactoryCanvas factoryCanvas;
     private final Timer animationTimer;
+    private final Timer frameTimer;
 
-    // Visualization maps
-    private final Map<String, JPanel> robotPanels = new HashMap<>();
-    private final Map<String, JPanel> beltPanels = new HashMap<>();
-    private JPanel storagePanel;
+    // Updates waiting for the next frame, and the panel labels they go to
+    private static final int FRAME_MILLIS = 33; // ~30 frames per second
+    private final StatisticsFrameBuffer pendingStatistics = new StatisticsFrameBuffer(FactoryUI::findStatistic);
 
     // Controls
     private JSpinner timeSpinner;
@@ -54,8 +54,6 @@ public class FactoryUI implements StatisticObserver {
     private static final Color BACKGROUND_COLOR = new Color(240, 240, 245);
     private static final Color HEADER_COLOR = new Color(60, 90, 120);
     private static final Color ACCENT_COLOR = new Color(70, 130, 180);
-    private static final Color IDLE_COLOR = new Color(200, 200, 200);
-    private static final Color ACTIVE_COLOR = new Color(100, 200, 100);
     private static final Color TABLE_ALT_COLOR = new Color(245, 245, 250);
     private static final Color TEXT_COLOR = new Color(50, 50, 50);
 
@@ -93,6 +91,8 @@ public class FactoryUI implements StatisticObserver {
 
         Statistic.registerObserver(this);
         animationTimer = new Timer(50, e -> updateVisualization());
+        frameTimer = new Timer(FRAME_MILLIS, e -> flushStatistics());
+        frameTimer.start();
 
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
@@ -132,14 +132,11 @@ public class FactoryUI implements StatisticObserver {
         vsplit.setResizeWeight(0.7);
         vsplit.setBorder(null);
 
-        factoryVisualization = new JPanel(null);
-        factoryVisualization.setBackground(Color.GRAY);
-        factoryVisualization.setBorder(BorderFactory.createLineBorder(new Color(200,200,200)));
-        storagePanel = createComponentPanel("Storage", new Color(200,230,200));
-        storagePanel.setBounds(450,250,150,100);
-        factoryVisualization.add(storagePanel);
+        // one painted canvas for the whole plant: wheel zooms, drag pans, double-click fits
+        factoryCanvas = new FactoryCanvas();
+        factoryCanvas.setBorder(BorderFactory.createLineBorder(new Color(200,200,200)));
 
-        vsplit.setTopComponent(factoryVisualization);
+        vsplit.setTopComponent(factoryCanvas);
         vsplit.setBottomComponent(createMonitoringPanel());
         panel.add(vsplit, BorderLayout.CENTER);
 
@@ -191,7 +188,7 @@ public class FactoryUI implements StatisticObserver {
                 new Font("Segoe UI", Font.BOLD,14),
                 ACCENT_COLOR));
 
-        statsTableModel = new DefaultTableModel(new String[]{"Component","Metric","Value"},0) {
+        statsTableModel = new DefaultTableModel(new String[]{"Component","Metric","Value","Details"},0) {
             @Override public boolean isCellEditable(int r,int c){return false;}
         };
         statsTable = new JTable(statsTableModel);
@@ -255,12 +252,12 @@ public class FactoryUI implements StatisticObserver {
         fields.add(actionsPerSecSpinner);
 
         fields.add(new JLabel("Robots:"));
-        numRobotsSpinner = new JSpinner(new SpinnerNumberModel(3,1,10,1));
+        numRobotsSpinner = new JSpinner(new SpinnerNumberModel(3,1,10000,1));
         styleSpinner(numRobotsSpinner);
         fields.add(numRobotsSpinner);
 
         fields.add(new JLabel("Belts:"));
-        numBeltsSpinner = new JSpinner(new SpinnerNumberModel(2,1,5,1));
+        numBeltsSpinner = new JSpinner(new SpinnerNumberModel(2,1,1000,1));
         styleSpinner(numBeltsSpinner);
         fields.add(numBeltsSpinner);
 
@@ -312,22 +309,6 @@ public class FactoryUI implements StatisticObserver {
         return p;
     }
 
-    private JPanel createComponentPanel(String name, Color color) {
-        JPanel p = new JPanel(new BorderLayout());
-        p.setBackground(color);
-        p.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(color.darker()),
-                new EmptyBorder(5,5,5,5)
-        ));
-        JLabel lbl = new JLabel(name, SwingConstants.CENTER);
-        lbl.setFont(new Font("Segoe UI",Font.BOLD,12));
-        p.add(lbl, BorderLayout.NORTH);
-        JPanel inner = new JPanel(new GridLayout(0,1,2,2));
-        inner.setOpaque(false);
-        p.add(inner, BorderLayout.CENTER);
-        return p;
-    }
-
     private void startSimulation() {
         resetVisualization();
         clearStatistics();
@@ -351,6 +332,11 @@ public class FactoryUI implements StatisticObserver {
             in.addInput("ActionsPerSecond", List.of(String.valueOf(aps)));
             in.addInput("NumRobots", List.of(String.valueOf(r)));
             in.addInput("NumBelts", List.of(String.valueOf(b)));
+            if (r + b > 1000) {
+                // a thread per unit gets too heavy for big plants, and virtual
+                // threads need Java 21; a few workers per core pace them all
+                in.addInput("ExecutionMode", List.of("scheduled"));
+            }
 
             // Initialize visuals
             SwingUtilities.invokeLater(() -> initializeFactoryComponents(r,b));
@@ -358,6 +344,7 @@ public class FactoryUI implements StatisticObserver {
 
             SwingUtilities.invokeLater(() -> {
                 animationTimer.stop();
+                flushStatistics();
                 simulationRunning.set(false);
                 startButton.setEnabled(true);
                 pauseButton.setEnabled(false);
@@ -369,51 +356,15 @@ public class FactoryUI implements StatisticObserver {
     }
 
     private void initializeFactoryComponents(int nr, int nb) {
-        factoryVisualization.removeAll();
-        robotPanels.clear();
-        beltPanels.clear();
-        storagePanel = createComponentPanel("Storage", new Color(200,230,200));
-        storagePanel.setBounds(450,250,150,100);
-        factoryVisualization.add(storagePanel);
-
-        // robots in circle
-        double angle=0, step=2*Math.PI/nr; int cx=525, cy=300, r=200;
-        for(int i=0;i<nr;i++){
-            int x=(int)(cx + r*Math.cos(angle)-50);
-            int y=(int)(cy + r*Math.sin(angle)-50);
-            angle+=step;
-            JPanel rob = createComponentPanel("Robot-"+(i+1), IDLE_COLOR);
-            rob.setBounds(x,y,100,80);
-            factoryVisualization.add(rob);
-            robotPanels.put("Robot-"+(i+1),rob);
-        }
-        // belts
-        int bw=80, bh=400, sx=50;
-        int space=(factoryVisualization.getWidth()-2*sx-bw*nb)/(nb+1);
-        for(int i=0;i<nb;i++){
-            int x=sx+(space+bw)*i;
-            JPanel belt = createComponentPanel("Belt-"+(i+1), new Color(180,180,220));
-            belt.setBounds(x,50,bw,bh);
-            factoryVisualization.add(belt);
-            beltPanels.put("Belt-"+(i+1),belt);
-        }
-        factoryVisualization.repaint();
+        factoryCanvas.layoutUnits(nr, nb);
     }
 
     private void updateVisualization() {
         if(!simulationRunning.get()) return;
-        long elapsed=System.currentTimeMillis()-simulationStartTime;
+        long now=System.currentTimeMillis();
+        long elapsed=now-simulationStartTime;
         simulationProgress.setValue((int)Math.min(100, elapsed*100/simulationDuration));
-        long anim=System.currentTimeMillis()%1000;
-
-        // animate robots
-        for(var e:robotPanels.entrySet()){
-            JPanel rob=e.getValue();
-            boolean active=(anim/500)% (robotPanels.size()*2)==
-                    (Integer.parseInt(e.getKey().split("-")[1])-1)*2;
-            rob.setBackground(active?ACTIVE_COLOR:IDLE_COLOR);
-        }
-        factoryVisualization.repaint();
+        factoryCanvas.expire(now);
     }
 
     private void togglePause() {
@@ -442,100 +393,86 @@ public class FactoryUI implements StatisticObserver {
     }
 
     private void clearStatistics(){
+        pendingStatistics.clear();
         statsTableModel.setRowCount(0);
         rowIndexByKey.clear();
     }
 
     private void resetVisualization(){
-        factoryVisualization.removeAll();
-        robotPanels.clear();
-        beltPanels.clear();
-        storagePanel = createComponentPanel("Storage", new Color(200,230,200));
-        storagePanel.setBounds(450,250,150,100);
-        factoryVisualization.add(storagePanel);
-        factoryVisualization.repaint();
+        factoryCanvas.layoutUnits(0,0);
     }
+    /**
+     * Called on unit (or bus) threads: only notes the update. The frame timer
+     * shows it on the next frame, together with everything else that changed.
+     */
     @Override
     public void onStatisticUpdated(String comp, String stat, float val) {
-        // Add debug logging
-        System.out.println("Received update: " + comp + " | " + stat + " | " + val);
+        pendingStatistics.record(comp, stat, val);
+    }
 
-        SwingUtilities.invokeLater(() -> {
-            // Check simulation running state but continue for debugging
-            if(!simulationRunning.get()) {
-                System.out.println("Warning: Update received while simulation not running: " + comp + " | " + stat + " | " + val);
-                // Don't return - let the update go through for debugging
-            }
+    /** Shows every statistic that changed since the last frame. Runs on the EDT. */
+    private void flushStatistics() {
+        pendingStatistics.drain(this::showStatistic);
+    }
 
-            String key = comp + "|" + stat;
+    /** The running simulation's statistic, or null if it isn't in the shared container. */
+    private static Statistic findStatistic(String comp, String stat) {
+        StatisticsContainer stats = StatisticsContainer.getInstance();
+        if (!stats.getComponentNames().contains(comp)) {
+            return null; // don't add it to the container just by looking
+        }
+        return stats.getComponent(comp).getStatistic(stat);
+    }
 
-            // Get latest value from the container if possible
-            float tot = val; // Default to the passed value
-            try {
-                // Try to get from container but handle null gracefully
-                StatisticsContainer container = StatisticsContainer.getInstance();
-                if (container != null) {
-                    Statistics component = container.getComponent(comp);
-                    if (component != null) {
-                        Statistic statistic = component.getStatistic(stat);
-                        if (statistic != null) {
-                            tot = statistic.summarize();
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error getting statistic: " + e.getMessage());
-                // Continue with the value we received
-            }
+    /** Summarizes the statistic once for this frame, however often it changed. */
+    private void showStatistic(StatisticsFrameBuffer.Entry entry) {
+        String comp = entry.getComponent();
+        String stat = entry.getStatName();
+        String key = comp + "|" + stat;
+        Statistic statistic = entry.getStatistic();
+        double total;
+        String details;
+        if (statistic != null) {
+            total = statistic.summarizeExact();
+            details = statistic.describe();
+        } else {
+            total = entry.getLast();
+            details = String.format("last=%.2f", entry.getLast());
+        }
 
-            if(rowIndexByKey.containsKey(key)) {
-                statsTableModel.setValueAt(tot, rowIndexByKey.get(key), 2);
-            } else {
-                int row = statsTableModel.getRowCount();
-                statsTableModel.addRow(new Object[]{comp, stat, tot});
-                rowIndexByKey.put(key, row);
-            }
+        Integer row = rowIndexByKey.get(key);
+        if (row != null) {
+            statsTableModel.setValueAt(total, row, 2);
+            statsTableModel.setValueAt(details, row, 3);
+        } else {
+            rowIndexByKey.put(key, statsTableModel.getRowCount());
+            statsTableModel.addRow(new Object[]{comp, stat, total, details});
+        }
 
-            updateComponentStats(comp, stat, tot);
-        });
+        updateComponentStats(comp, stat, total);
     }
 
-    private void updateComponentStats(String comp, String stat, float v){
-        JPanel p = comp.startsWith("Robot")?robotPanels.get(comp):
-                comp.startsWith("Belt")?beltPanels.get(comp):
-                        comp.equals("Storage")?storagePanel:null;
-        if(p==null) return;
-        JPanel inner=(JPanel)((BorderLayout)p.getLayout())
-                .getLayoutComponent(BorderLayout.CENTER);
-        boolean found=false;
-        for(Component c:inner.getComponents()){
-            if(c instanceof JLabel && ((JLabel)c).getText().startsWith(stat+":")){
-                ((JLabel)c).setText(stat+": "+new DecimalFormat("#0.00").format(v));
-                found=true; break;
-            }
-        }
-        if(!found){
-            JLabel lbl=new JLabel(stat+": "+new DecimalFormat("#0.00").format(v));
-            lbl.setFont(new Font("Segoe UI",Font.PLAIN,10));
-            inner.add(lbl);
-            p.revalidate();
+    /** Robots show the items they processed, belts the items they moved. */
+    private void updateComponentStats(String comp, String stat, double v){
+        if(stat.equals("ItemsProcessed") || stat.equals("ItemsMoved")) {
+            factoryCanvas.update(comp, v);
         }
-        if(stat.equals("ItemsProcessed") && v>0) p.setBackground(ACTIVE_COLOR);
     }
 
     private void showSimulationResults(StatisticsContainer stats){
         JDialog d=new JDialog(frame,"Results",true);
         d.setLayout(new BorderLayout(10,10));
-        d.setSize(500,400);
+        d.setSize(700,400);
         JPanel cp=new JPanel(new BorderLayout(5,5));
         cp.setBorder(new EmptyBorder(10,10,10,10));
-        DefaultTableModel rm=new DefaultTableModel(new String[]{"Comp","Metric","Total"},0);
+        DefaultTableModel rm=new DefaultTableModel(new String[]{"Comp","Metric","Total","Details"},0);
         JTable rt=new JTable(rm);
         styleTable(rt);
         for(String c:stats.getComponentNames()){
             var m=stats.getComponent(c);
             for(String s:m.getStatisticNames()){
-                rm.addRow(new Object[]{c,s,m.getStatistic(s).summarize()});
+                Statistic st=m.getStatistic(s);
+                rm.addRow(new Object[]{c,s,st.summarizeExact(),st.describe()});
             }
         }
         cp.add(new JScrollPane(rt),BorderLayout.CENTER);
@@ -0,0 +1,103 @@
+package factory.ui;
+
+import Skeleton.Statistic;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Collects statistic updates between two frames of the dashboard, so the
+ * EDT handles each changed statistic once per frame instead of once per
+ * update.
+ *
+ * Any thread may record. Updates are coalesced per statistic: the first one
+ * after a frame puts it on a dirty queue, later ones only note the latest
+ * value, and drain hands each dirty statistic to the UI once. The entry
+ * keeps the Statistic itself (found on its first update), so the UI shows
+ * what the statistic says, summarize() and describe(), not a total rebuilt
+ * from updates an event bus may have coalesced or dropped.
+ */
+public class StatisticsFrameBuffer {
+
+    /** One statistic as the dashboard shows it. */
+    public static final class Entry {
+        private final String component;
+        private final String statName;
+        private final Statistic statistic;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile float last;
+
+        Entry(String component, String statName, Statistic statistic) {
+            this.component = component;
+            this.statName = statName;
+            this.statistic = statistic;
+        }
+
+        public String getComponent() {
+            return component;
+        }
+
+        public String getStatName() {
+            return statName;
+        }
+
+        /** @return the statistic, or null if the lookup didn't find it */
+        public Statistic getStatistic() {
+            return statistic;
+        }
+
+        /** @return the latest value recorded, for statistics the lookup didn't find */
+        public float getLast() {
+            return last;
+        }
+    }
+
+    private final BiFunction<String, String, Statistic> lookup;
+    // component -> statistic -> entry, so recording doesn't build a key string
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> dirty = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param lookup finds the statistic for a component and statistic name, or
+     *               returns null; called once per statistic, on the recording thread
+     */
+    public StatisticsFrameBuffer(BiFunction<String, String, Statistic> lookup) {
+        this.lookup = lookup;
+    }
+
+    /** Records an update; cheap and never blocks, so it can run on any thread. */
+    public void record(String component, String statName, float value) {
+        Entry entry = entries.computeIfAbsent(component, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(statName, s -> new Entry(component, s, lookup.apply(component, s)));
+        entry.last = value;
+        if (entry.dirty.compareAndSet(false, true)) {
+            dirty.add(entry);
+        }
+    }
+    /**
+     * Hands every statistic updated since the last drain to the sink, once each.
+     * @return how many statistics were handed over
+     */
+    public int drain(Consumer<Entry> sink) {
+        int drained = 0;
+        Entry entry;
+        while ((entry = dirty.poll()) != null) {
+            // clear first, so an update racing with the sink queues it again
+            entry.dirty.set(false);
+            sink.accept(entry);
+            drained++;
+        }
+        return drained;
+    }
+
+    /** Forgets every statistic, e.g. before a new run. */
+    public void clear() {
+        entries.clear();
+        dirty.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CounterStatisticTest {
+
+    @Test
+    void concurrentIncrements_areAllCountedWithoutKeepingValues() throws InterruptedException {
+        CounterStatistic counter = new CounterStatistic("ItemsMoved");
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.addValue(1);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread t : workers) t.join();
+
+        assertEquals(80_000f, counter.summarize(), "Every increment should be counted");
+        assertFalse(counter.iterator().hasNext(), "Counters should not retain individual values");
+    }
+
+    @Test
+    void mixedNumberTypes_areSummedAndRemovalIsRejected() {
+        CounterStatistic counter = new CounterStatistic("Tonnage");
+        counter.addValue(2);
+        counter.addValue(3L);
+        counter.addValue(0.5f);
+        counter.addValue("1.5");
+
+        assertEquals(7f, counter.summarize(), 1e-6f, "All numeric values should add up");
+        assertThrows(UnsupportedOperationException.class, counter::removeValue);
+    }
+
+    @Test
+    void totalsPastTwoToTheTwentyFour_stayExact() {
+        CounterStatistic counter = new CounterStatistic("ItemsMoved");
+        counter.add(1L << 24);
+        counter.increment();
+
+        assertEquals(16_777_216f, counter.summarize(), "The float summary has run out of precision");
+        assertEquals(16_777_217.0, counter.summarizeExact(), 0.0);
+        assertEquals("16777217.00", counter.describe());
+    }
+}
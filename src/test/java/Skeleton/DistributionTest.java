@@ -0,0 +1,100 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistributionTest {
+
+    @Test
+    void parsedDistributions_drawAroundTheirMeanAndStayInRange() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (String text : List.of("0.1", "constant:0.1", "exponential:0.1", "normal:0.1:0.02",
+                "triangular:0.05:0.08:0.17")) {
+            Distribution d = Distribution.parse(text);
+            double sum = 0;
+            for (int i = 0; i < 100_000; i++) {
+                double value = d.sample(random);
+                assertTrue(value >= 0, text + " drew " + value);
+                if (text.startsWith("triangular")) {
+                    assertTrue(value >= 0.05 && value <= 0.17, text + " drew " + value);
+                }
+                sum += value;
+            }
+            assertEquals(0.1, d.getMean(), 1e-12, text);
+            assertEquals(0.1, sum / 100_000, 0.002, text + " sample mean");
+        }
+    }
+
+    @Test
+    void parse_rejectsUnknownNamesAndBadParameters() {
+        assertThrows(IllegalArgumentException.class, () -> Distribution.parse("gamma:1:2"));
+        assertThrows(IllegalArgumentException.class, () -> Distribution.parse("normal:0.1"));
+        assertThrows(IllegalArgumentException.class, () -> Distribution.parse("exponential:0"));
+        assertThrows(IllegalArgumentException.class, () -> Distribution.parse("triangular:3:1:2"));
+        assertThrows(IllegalArgumentException.class, () -> Distribution.parse("fast"));
+    }
+
+    @Test
+    void zeroActionTimeOrFailureInterval_isRejected() {
+        for (String zero : List.of("0", "constant:0")) {
+            SimulationInput action = new SimulationInput();
+            action.addInput("RobotActionTime", List.of(zero));
+            assertThrows(IllegalArgumentException.class,
+                    () -> ActionTiming.fromSettings(action.snapshot(), "Robot", "Robot-1"), zero);
+
+            SimulationInput failures = new SimulationInput();
+            failures.addInput("RobotFailureInterval", List.of(zero));
+            failures.addInput("RobotRepairTime",      List.of("constant:0.5"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> ActionTiming.fromSettings(failures.snapshot(), "Robot", "Robot-1"), zero);
+        }
+        // a repair can take no time at all
+        SimulationInput instantRepair = new SimulationInput();
+        instantRepair.addInput("RobotFailureInterval", List.of("constant:1"));
+        instantRepair.addInput("RobotRepairTime",      List.of("0"));
+        ActionTiming timing = ActionTiming.fromSettings(instantRepair.snapshot(), "Robot", "Robot-1");
+        assertEquals(2_000_000_000L, timing.nextDelayNanos(2_000_000_000L));
+        assertEquals(2, timing.getLastFailures());
+    }
+
+    @Test
+    void seededTiming_drawsTheSameDelaysPerUnitAndCountsBreakdowns() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Seed",                 List.of("7"));
+        input.addInput("RobotActionTime",      List.of("exponential:0.1"));
+        input.addInput("RobotFailureInterval", List.of("constant:1"));
+        input.addInput("RobotRepairTime",      List.of("constant:0.5"));
+
+        ActionTiming a = ActionTiming.fromSettings(input.snapshot(), "Robot", "Robot-1");
+        ActionTiming b = ActionTiming.fromSettings(input.snapshot(), "Robot", "Robot-1");
+        ActionTiming other = ActionTiming.fromSettings(input.snapshot(), "Robot", "Robot-2");
+        assertTrue(a.isRandom());
+        assertTrue(!ActionTiming.fromSettings(input.snapshot(), "Belt", "belt-1").isRandom(),
+                "Belts have no timing keys of their own");
+
+        long total = 0;
+        long repairs = 0;
+        int failures = 0;
+        boolean differs = false;
+        for (int i = 0; i < 1000; i++) {
+            long delay = a.nextDelayNanos(0);
+            assertEquals(delay, b.nextDelayNanos(0), "Same seed and name, same draws");
+            differs |= delay != other.nextDelayNanos(0);
+            total += delay;
+            repairs += a.getLastRepairNanos();
+            failures += a.getLastFailures();
+        }
+        assertTrue(differs, "Each unit has its own stream");
+        // about 100 s of work with a breakdown every working second
+        double workSeconds = (total - repairs) / 1e9;
+        assertEquals(workSeconds, failures, 1.0);
+        assertEquals(failures * 500_000_000L, repairs);
+        assertTrue(failures > 0);
+    }
+}
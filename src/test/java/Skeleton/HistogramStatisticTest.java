@@ -0,0 +1,39 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramStatisticTest {
+
+    @Test
+    void percentiles_areWithinOneBucketOfTheExactValues() {
+        HistogramStatistic waits = new HistogramStatistic("BufferWait");
+        // 1 .. 100_000 microseconds, one of each
+        for (long us = 1; us <= 100_000; us++) {
+            waits.record(us * 1_000);
+        }
+
+        assertEquals(100_000, waits.getCount());
+        assertEquals(50.0, waits.getPercentile(0.5), 50.0 * 0.04, "p50 within ~3%");
+        assertEquals(99.0, waits.getPercentile(0.99), 99.0 * 0.04, "p99 within ~3%");
+        assertEquals(99.9, waits.getPercentile(0.999), 99.9 * 0.04, "p999 within ~3%");
+        assertEquals(100.0, waits.getMax(), 1e-9, "The maximum is exact");
+        assertEquals(50.0005, waits.getMean(), 1e-6, "The mean is exact");
+    }
+
+    @Test
+    void buckets_coverEveryValueInOrder() {
+        int previous = -1;
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 1L << 40, Long.MAX_VALUE}) {
+            int bucket = HistogramStatistic.bucketOf(value);
+            assertTrue(bucket > previous, "Buckets grow with the value: " + value);
+            assertTrue(HistogramStatistic.lowerBound(bucket) <= value, "Value lies in its bucket: " + value);
+            previous = bucket;
+        }
+        HistogramStatistic empty = new HistogramStatistic("Empty");
+        assertTrue(Double.isNaN(empty.getPercentile(0.5)), "No percentile without recordings");
+        assertEquals(0f, empty.summarize());
+    }
+}
@@ -0,0 +1,75 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RateStatisticTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void beltThatSlowsDown_showsInShortWindowsButNotInTheTotal() {
+        VirtualClock clock = new VirtualClock();
+        RateStatistic rate = new RateStatistic("ItemsMovedRate", clock);
+
+        // 50 items/s for 30 s, then 5 items/s for 30 s
+        for (int i = 0; i < 1500; i++) {
+            clock.advanceTo(i * 20 * MS);
+            rate.increment();
+        }
+        clock.advanceTo(29_990 * MS);
+        assertEquals(50.0, rate.getRate(1), 1.0, "Full speed over the last second");
+        assertEquals(50.0, rate.getRate(10), 1.0, "Full speed over the last 10 seconds");
+
+        for (int i = 0; i < 150; i++) {
+            clock.advanceTo(30_000 * MS + i * 200 * MS);
+            rate.increment();
+        }
+        clock.advanceTo(59_990 * MS);
+        assertEquals(5.0, rate.getRate(1), 0.5, "Slowed down over the last second");
+        assertEquals(5.0, rate.getRate(10), 0.5, "Slowed down over the last 10 seconds");
+        assertEquals(1650 / 59.99, rate.getRate(60), 0.5, "The minute covers both speeds");
+        assertEquals(5f, rate.summarize(), 0.5f, "Summary is the 10 second rate");
+        assertThrows(IllegalArgumentException.class, () -> rate.getRate(61));
+    }
+
+    @Test
+    void concurrentUpdates_landInTheSameBucketWithoutLosingCounts() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        clock.advanceTo(5_000 * MS);
+        RateStatistic rate = new RateStatistic("ActionsPerformedRate", clock);
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    rate.add(1);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread t : workers) t.join();
+
+        // all counted at the same instant: the rate covers one 100 ms bucket
+        assertEquals(800_000.0, rate.getRate(1), 1e-6, "Every update should be counted");
+        assertEquals(80_000.0, rate.getRate(10), 1e-6, "Every update should be counted");
+        assertEquals(0.0, new RateStatistic("Idle", clock).getRate(60), "Nothing counted yet");
+    }
+
+    @Test
+    void lateWriterWithAnOldTime_doesNotWipeANewerBucket() {
+        long[] now = {0};
+        RateStatistic rate = new RateStatistic("ItemsMovedRate", () -> now[0]);
+
+        // 1.6 s is 16 fine buckets on, so it shares a slot with the first 100 ms
+        now[0] = 1_600 * MS;
+        for (int i = 0; i < 10; i++) rate.increment();
+        // a thread that read the clock at 50 ms only gets to add now
+        now[0] = 50 * MS;
+        rate.increment();
+
+        // 10 counts in the 100 ms since the first update
+        now[0] = 1_650 * MS;
+        assertEquals(100.0, rate.getRate(1), 1e-9, "The recent counts survive the late add");
+    }
+}
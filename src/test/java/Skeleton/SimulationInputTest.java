@@ -0,0 +1,53 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulationInputTest {
+
+    @Test
+    void lookups_goThroughOneSnapshotUntilTheInputChanges() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("NumBelts", List.of("3"));
+        input.addInput("NumBelts", List.of("7"));
+        input.addInput("Mode",     List.of("fast", "quiet"));
+
+        InputSnapshot first = input.snapshot();
+        assertSame(first, input.snapshot(), "Unchanged input reuses its snapshot");
+        assertEquals(3, input.getIntegerInput("NumBelts").intValue(), "The first pairing wins");
+        assertEquals(List.of("fast", "quiet"), input.getInput("Mode"));
+        assertEquals(5, input.getIntegerInput("Missing", 5), "Missing keys fall back");
+
+        input.addInput("Time", List.of("60"));
+        assertNotSame(first, input.snapshot(), "Adding input rebuilds the snapshot");
+        assertFalse(first.hasInput("Time"), "Old snapshots stay frozen");
+        assertEquals(60, input.snapshot().getIntegerInput("Time").intValue());
+    }
+
+    @Test
+    void snapshotViews_areReadOnlyAndErrorsMatchTheInput() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Mode", List.of("fast"));
+        InputSnapshot snapshot = input.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getInput("Mode").add("slow"));
+        assertThrows(UnsupportedOperationException.class, () -> input.getValues("Mode").clear());
+        input.getInput("Mode").add("slow"); // getInput still hands out a copy
+        assertEquals(List.of("fast"), input.getValues("Mode"));
+
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> snapshot.getIntegerInput("Time"));
+        assertEquals("Cannot find input key: Time", missing.getMessage());
+        assertThrows(NumberFormatException.class, () -> snapshot.getIntegerInput("Mode"));
+        assertThrows(NumberFormatException.class, () -> snapshot.getIntegerInput("Mode", 1));
+        assertEquals("fast", snapshot.getStringInput("Mode", "slow"));
+        assertTrue(snapshot.keys().contains("Mode"));
+    }
+}
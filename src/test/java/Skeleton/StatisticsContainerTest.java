@@ -0,0 +1,87 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class StatisticsContainerTest {
+
+    @Test
+    void concurrentRegistration_losesNoComponentsOrStatistics() throws InterruptedException {
+        StatisticsContainer container = StatisticsContainer.newInstance(new SimulationInput());
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    container.addComponent("Unit-" + id + "-" + i);
+                    // everyone races to create the same shared component and counter
+                    container.getComponent("Shared")
+                            .addStatistic("Hits", new CounterStatistic("Hits"))
+                            .addValue(1);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread + 1, container.getComponentNames().size(),
+                "Every component is registered exactly once");
+        assertEquals((float) (threads * perThread),
+                container.getComponent("Shared").getStatistic("Hits").summarize(),
+                "All threads counted into the same statistic");
+    }
+
+    @Test
+    void separateContainers_keepTheirStatisticsApart() {
+        SimulationInput input = new SimulationInput();
+        StatisticsContainer first = StatisticsContainer.newInstance(input);
+        StatisticsContainer second = StatisticsContainer.newInstance(input);
+        assertNotSame(first, second);
+
+        first.addComponent("Robot-1").addStatistic("Hits", new CounterStatistic("Hits")).addValue(1);
+        assertFalse(second.getComponentNames().contains("Robot-1"), "Components stay in their own container");
+
+        StatisticsContainer.runWith(second, () ->
+                assertSame(second, StatisticsContainer.getInstance(), "runWith binds the lookup"));
+        assertNotSame(second, StatisticsContainer.getInstance(), "The binding ends with the task");
+    }
+
+    @Test
+    void recorders_onlySeeTheirOwnSimulation() {
+        StatisticsContainer first = StatisticsContainer.newInstance(new SimulationInput());
+        StatisticsContainer second = StatisticsContainer.newInstance(new SimulationInput());
+        List<String> firstSeen = new ArrayList<>();
+        List<String> secondSeen = new ArrayList<>();
+        first.setRecorder((component, statName, value) -> firstSeen.add(component + "." + statName));
+        second.setRecorder((component, statName, value) -> secondSeen.add(component + "." + statName));
+
+        first.getComponent("Robot-1").addStatistic("Hits", new CounterStatistic("Hits")).addValue(1);
+        second.getComponent("Robot-1").addStatistic("Hits", new CounterStatistic("Hits")).addValue(2);
+        second.getComponent("belt-1").addStatistic("Moved", new CounterStatistic("Moved")).addValue(3);
+        first.setRecorder(null);
+        first.getComponent("Robot-1").getStatistic("Hits").addValue(1);
+
+        assertEquals(List.of("Robot-1.Hits"), firstSeen);
+        assertEquals(List.of("Robot-1.Hits", "belt-1.Moved"), secondSeen);
+    }
+}
@@ -0,0 +1,42 @@
+package Skeleton;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingStatisticTest {
+
+    @Test
+    void runningMoments_matchTheSamples() {
+        StreamingStatistic stat = new StreamingStatistic("ActionTime");
+        for (double v : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            stat.record(v);
+        }
+
+        assertEquals(8, stat.getCount());
+        assertEquals(40f, stat.summarize(), "summarize() is the sum, like the other statistics");
+        assertEquals(5.0, stat.getMean(), 1e-9);
+        assertEquals(2.0, stat.getMin(), 1e-9);
+        assertEquals(9.0, stat.getMax(), 1e-9);
+        assertEquals(32.0 / 7.0, stat.getVariance(), 1e-9, "Sample variance");
+        assertFalse(stat.iterator().hasNext(), "No reservoir means no samples are kept");
+    }
+
+    @Test
+    void reservoir_staysBoundedWhileMomentsSeeEverySample() {
+        StreamingStatistic stat = new StreamingStatistic("WaitTime", 16);
+        for (int i = 1; i <= 10_000; i++) {
+            stat.addValue(i);
+        }
+
+        assertEquals(16, stat.getSamples().size(), "Reservoir should never grow past its size");
+        assertEquals(10_000, stat.getCount());
+        assertEquals(5000.5, stat.getMean(), 1e-9);
+        for (Object sample : stat) {
+            double v = (Double) sample;
+            assertTrue(v >= 1 && v <= 10_000, "Samples come from the recorded values");
+        }
+    }
+}
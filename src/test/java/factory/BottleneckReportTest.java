@@ -0,0 +1,87 @@
+package factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BottleneckReportTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    private static StatisticsContainer run(String robotTime, String beltTime) {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("60"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("2"));
+        input.addInput("RobotActionTime",  List.of(robotTime));
+        input.addInput("BeltActionTime",   List.of(beltTime));
+        StatisticsContainer container = StatisticsContainer.newInstance(input);
+        DiscreteEventSimulation.run(input, container);
+        return container;
+    }
+
+    @Test
+    void slowBelts_areTheBottleneckWhileRobotsWaitForItems() {
+        BottleneckReport report = BottleneckReport.of(run("0.05", "0.2"));
+
+        BottleneckReport.Stage belts = report.getBottleneck();
+        assertEquals("belt", belts.getName());
+        assertEquals(2, belts.getUnits());
+        assertTrue(belts.getBlockedShare() < 0.05, "Belts never wait: " + belts.getBlockedShare());
+        assertTrue(belts.getIdleShare() > 0.95, "Actions take no simulated time: " + belts.getIdleShare());
+        BottleneckReport.Stage robots = report.getStages().get(0);
+        assertEquals("Robot", robots.getName());
+        assertTrue(robots.getBlockedShare() > 0.5, "Robots mostly wait for items: " + robots.getBlockedShare());
+        assertEquals(10.0, robots.getThroughput(), 0.5, "Robots only get the belts' 10 items a second");
+        assertTrue(report.toString().contains("Bottleneck: belt"), report.toString());
+    }
+
+    @Test
+    void slowRobots_fillTheBufferAndLittlesLawHolds() {
+        BottleneckReport report = BottleneckReport.of(run("0.2", "0.05"));
+
+        assertEquals("Robot", report.getBottleneck().getName());
+        BottleneckReport.Queue buffer = report.getQueues().get(0);
+        assertEquals("Buffer", buffer.getName());
+        assertEquals(10, buffer.getCapacity());
+        assertTrue(buffer.getMeanDepth() > 9, "A slow consumer keeps the buffer full: " + buffer.getMeanDepth());
+        assertEquals(10.0, buffer.getThroughput(), 0.5);
+        assertEquals(1.0, buffer.getLittleRatio(), 0.05, "L = lambda * W");
+    }
+
+    @Test
+    void pipeline_reportsTheBottleneckThePipelineNamed() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("10"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("Stages",           List.of("belt:1", "machining:1:5:5", "packing:1:5"));
+        StatisticsContainer container = StatisticsContainer.newInstance(input);
+        DiscreteEventSimulation.run(input, container);
+
+        BottleneckReport report = BottleneckReport.of(container);
+        assertEquals("machining", report.getBottleneck().getName());
+        assertEquals(1f, container.getComponent("Stage-machining").getStatistic("Bottleneck").summarize());
+    }
+
+    @Test
+    void unsampledRun_hasNoReport() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",               List.of("1"));
+        input.addInput("ActionsPerSecond",   List.of("5"));
+        input.addInput("SamplePeriodMillis", List.of("0"));
+        StatisticsContainer container = StatisticsContainer.newInstance(input);
+        DiscreteEventSimulation.run(input, container);
+        assertNull(BottleneckReport.of(container));
+    }
+}
@@ -0,0 +1,242 @@
+package factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+import Skeleton.VirtualClock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckpointTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    private static SimulationInput plant(int seconds, String mode) {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of(String.valueOf(seconds)));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of("3"));
+        input.addInput("NumBelts",         List.of("3"));
+        input.addInput("ExecutionMode",    List.of(mode));
+        return input;
+    }
+
+    private static float stat(StatisticsContainer stats, String component, String name) {
+        return stats.getComponent(component).getStatistic(name).summarize();
+    }
+
+    @Test
+    void warmUpCheckpoint_resumesToTheSameTotalsAsOneLongRun() throws IOException {
+        Path file = Files.createTempFile("warmup", ".ckpt");
+
+        SimulationInput warmUp = plant(300, "discrete");
+        warmUp.addInput("CheckpointFile",        List.of(file.toString()));
+        warmUp.addInput("CheckpointEverySeconds", List.of("100"));
+        DiscreteEventSimulation.run(warmUp, StatisticsContainer.newInstance(warmUp));
+
+        Checkpoint checkpoint = Checkpoint.read(file);
+        assertEquals(3000, checkpoint.getCompletedActions("Robot-1"), "Warm-up ran 300 s at 10 actions a second");
+        assertEquals(3000.0, checkpoint.getTotal("belt-2", "ItemsMoved"), 0.0);
+
+        SimulationInput rest = plant(600, "discrete");
+        rest.addInput("ResumeFrom", List.of(file.toString()));
+        StatisticsContainer resumed = StatisticsContainer.newInstance(rest);
+        DiscreteEventSimulation sim = DiscreteEventSimulation.run(rest, resumed);
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(6000f, stat(resumed, "Robot-" + i, "ActionsPerformed"), "Robot-" + i + " picks up where it was");
+            assertEquals(6000f, stat(resumed, "belt-" + i, "ItemsMoved"), "belt-" + i + " picks up where it was");
+        }
+        assertTrue(sim.getClock().nanoTime() < 301_000_000_000L, "Only the remaining 300 s are simulated");
+        assertTrue(sim.getStarvedUnits().isEmpty());
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void threadedRun_checkpointsWhileRunningAndResumesWithoutHanging() throws IOException {
+        Path file = Files.createTempFile("threaded", ".ckpt");
+
+        SimulationInput first = plant(2, "platform");
+        first.addInput("CheckpointFile",         List.of(file.toString()));
+        first.addInput("CheckpointEverySeconds", List.of("1"));
+        Matrix.run(first, StatisticsContainer.newInstance(first));
+        assertEquals(20, Checkpoint.read(file).getCompletedActions("belt-3"));
+
+        SimulationInput rest = plant(3, "work_stealing");
+        rest.addInput("ResumeFrom", List.of(file.toString()));
+        StatisticsContainer resumed = StatisticsContainer.newInstance(rest);
+        Matrix.run(rest, resumed);
+
+        float consumed = 0;
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(30f, stat(resumed, "belt-" + i, "ItemsMoved"));
+            consumed += stat(resumed, "Robot-" + i, "ItemsProcessed");
+        }
+        assertEquals(90f, consumed, "Robots took every item, including any left in the buffer");
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void writeAndRead_roundTripsEveryTotal() throws IOException {
+        Map<String, Integer> completed = new LinkedHashMap<>();
+        completed.put("Robot-1", 12_345_678);
+        Map<String, Map<String, Double>> statistics = new LinkedHashMap<>();
+        statistics.put("Robot-1", Map.of("ItemsProcessed", 123_456_789.0));
+        Path file = Files.createTempFile("roundtrip", ".ckpt");
+
+        new Checkpoint(42L, completed, 7, statistics).write(file);
+        Checkpoint read = Checkpoint.read(file);
+
+        assertEquals(42L, read.getElapsedNanos());
+        assertEquals(7, read.getBufferItems());
+        assertEquals(12_345_678, read.getCompletedActions("Robot-1"));
+        assertEquals(123_456_789.0, read.getTotal("Robot-1", "ItemsProcessed"), 0.0, "Totals beyond float precision");
+        assertTrue(Double.isNaN(read.getTotal("belt-1", "ItemsMoved")));
+
+        Files.write(file, new byte[16]);
+        assertThrows(IOException.class, () -> Checkpoint.read(file));
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void restore_refusesItemsThatDontFitTheBuffer() {
+        SimulationInput input = plant(1, "discrete");
+        StatisticsContainer container = StatisticsContainer.newInstance(input);
+        SharedBuffer<String> buffer = new SharedBuffer<>(5);
+        List<Unit> units = Matrix.createUnits(input, buffer, ResourcePools.none(), container);
+        Checkpoint checkpoint = new Checkpoint(0, Map.of(), 6, Map.of());
+
+        assertThrows(IllegalArgumentException.class, () -> checkpoint.restore(units, buffer, container));
+    }
+
+    private static Unit named(List<Unit> units, String name) {
+        for (Unit unit : units) {
+            if (unit.getName().equals(name)) {
+                return unit;
+            }
+        }
+        throw new AssertionError("No unit " + name);
+    }
+
+    @Test
+    void partlyPlacedBatch_isCheckpointedWithItsBelt() throws IOException {
+        SimulationInput input = plant(1, "discrete");
+        input.addInput("BatchSize", List.of("3"));
+        StatisticsContainer container = StatisticsContainer.newInstance(input);
+        SharedBuffer<String> buffer = new SharedBuffer<>(4);
+        List<Unit> units = Matrix.createUnits(input, buffer, ResourcePools.none(), container);
+        Unit belt = named(units, "belt-1");
+        Unit robot = named(units, "Robot-1");
+
+        assertTrue(belt.tryPerformAction());
+        belt.finishAction(0);                  // 3 items moved
+        assertTrue(!belt.tryPerformAction());  // 1 more fits, 2 to go
+        assertTrue(robot.tryPerformAction());
+        robot.finishAction(0);                 // takes 3
+        assertTrue(robot.tryPerformAction());
+        robot.finishAction(0);                 // takes the placed one too
+
+        Checkpoint checkpoint = Checkpoint.capture(units, buffer, container, 0);
+        assertTrue(checkpoint != null, "4 processed of 3 moved is consistent with 1 placed");
+        assertEquals(0, checkpoint.getBufferItems());
+        assertEquals(1, checkpoint.getPlacedItems("belt-1"));
+        Path file = Files.createTempFile("batch", ".ckpt");
+        checkpoint.write(file);
+        checkpoint = Checkpoint.read(file);
+        Files.deleteIfExists(file);
+        assertEquals(1, checkpoint.getPlacedItems("belt-1"));
+
+        StatisticsContainer resumed = StatisticsContainer.newInstance(input);
+        SharedBuffer<String> fresh = new SharedBuffer<>(4);
+        List<Unit> again = Matrix.createUnits(input, fresh, ResourcePools.none(), resumed);
+        checkpoint.restore(again, fresh, resumed);
+        Unit resumedBelt = named(again, "belt-1");
+        assertTrue(resumedBelt.tryPerformAction());
+        resumedBelt.finishAction(0);
+        assertEquals(2, fresh.size(), "Only the rest of the batch is put in");
+        assertEquals(6f, stat(resumed, "belt-1", "ItemsMoved"));
+    }
+
+    @Test
+    void discreteRunWithBatchesAndASmallBuffer_checkpointsToTheEnd() throws IOException {
+        Path file = Files.createTempFile("batches", ".ckpt");
+
+        SimulationInput warmUp = plant(300, "discrete");
+        warmUp.addInput("BatchSize",              List.of("3"));
+        warmUp.addInput("BufferCapacity",         List.of("4"));
+        warmUp.addInput("CheckpointFile",         List.of(file.toString()));
+        warmUp.addInput("CheckpointEverySeconds", List.of("100"));
+        DiscreteEventSimulation.run(warmUp, StatisticsContainer.newInstance(warmUp));
+        Checkpoint checkpoint = Checkpoint.read(file);
+        assertTrue(checkpoint.getElapsedNanos() >= 299_000_000_000L, "The final checkpoint was taken");
+
+        SimulationInput rest = plant(600, "discrete");
+        rest.addInput("BatchSize",      List.of("3"));
+        rest.addInput("BufferCapacity", List.of("4"));
+        rest.addInput("ResumeFrom",     List.of(file.toString()));
+        StatisticsContainer resumed = StatisticsContainer.newInstance(rest);
+        DiscreteEventSimulation.run(rest, resumed);
+
+        float moved = 0;
+        float processed = 0;
+        for (int i = 1; i <= 3; i++) {
+            moved += stat(resumed, "belt-" + i, "ItemsMoved");
+            processed += stat(resumed, "Robot-" + i, "ItemsProcessed");
+        }
+        // what's left is in the buffer, or was taken from a belt's unfinished batch
+        float left = moved - processed;
+        assertTrue(left >= -3 * 2 && left <= 4, "Moved " + moved + ", processed " + processed);
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void threadedRunWithBatches_refusesToCheckpoint() throws IOException {
+        Path file = Files.createTempFile("refused", ".ckpt");
+        SimulationInput input = plant(1, "platform");
+        input.addInput("BatchSize",      List.of("2"));
+        input.addInput("CheckpointFile", List.of(file.toString()));
+        assertThrows(IllegalArgumentException.class,
+                () -> Matrix.run(input, StatisticsContainer.newInstance(input)));
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void failedCheckpoints_areCountedAndThrownAtTheEnd() throws IOException {
+        SimulationInput input = plant(1, "discrete");
+        StatisticsContainer container = StatisticsContainer.newInstance(input);
+        SharedBuffer<String> buffer = new SharedBuffer<>(5);
+        List<Unit> units = Matrix.createUnits(input, buffer, ResourcePools.none(), container);
+        Path dir = Files.createTempDirectory("checkpoints");
+        Path file = dir.resolve("missing").resolve("run.ckpt");
+        Checkpointer checkpointer = new Checkpointer(file, new VirtualClock(), 10, units, buffer, container, 0);
+
+        checkpointer.begin(0);
+        checkpointer.advanceTo(10);
+        checkpointer.advanceTo(20);
+        assertEquals(2, checkpointer.getFailed(), "The run goes on");
+        assertEquals(0, checkpointer.getWritten());
+
+        Files.createDirectory(file.getParent());
+        assertThrows(UncheckedIOException.class, () -> checkpointer.finish(30));
+        assertEquals(1, checkpointer.getWritten(), "The final checkpoint is on disk all the same");
+        assertTrue(Files.exists(file));
+        Files.delete(file);
+        Files.delete(file.getParent());
+        Files.delete(dir);
+    }
+}
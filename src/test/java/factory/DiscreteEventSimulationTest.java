@@ -0,0 +1,114 @@
+package factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiscreteEventSimulationTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    @Test
+    void tenMinuteShift_runsInSimulatedTimeWithExactCounts() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("600"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of("3"));
+        input.addInput("NumBelts",         List.of("3"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        DiscreteEventSimulation sim = DiscreteEventSimulation.run(input);
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(6000f, stats.getComponent("Robot-" + i).getStatistic("ActionsPerformed").summarize(),
+                    "Robot-" + i + " should act 10 times a second for 600 simulated seconds");
+            assertEquals(6000f, stats.getComponent("belt-" + i).getStatistic("ItemsMoved").summarize(),
+                    "belt-" + i + " should move 10 items a second for 600 simulated seconds");
+        }
+        assertTrue(sim.getStarvedUnits().isEmpty(), "Balanced line should not starve");
+        assertTrue(sim.getClock().nanoTime() < 600_000_000_000L, "Last action starts before the shift ends");
+    }
+
+    @Test
+    void moreRobotsThanBeltsCanFeed_reportsStarvedRobotsInsteadOfHanging() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("5"));
+        input.addInput("ActionsPerSecond", List.of("2"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("1"));
+        input.addInput("ExecutionMode",    List.of("discrete"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        DiscreteEventSimulation sim = DiscreteEventSimulation.run(input);
+
+        float consumed = stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize()
+                + stats.getComponent("Robot-2").getStatistic("ActionsPerformed").summarize();
+        assertEquals(10f, consumed, "Robots can only consume what the single belt produced");
+        assertTrue(!sim.getStarvedUnits().isEmpty(), "A robot should be left waiting on an empty buffer");
+        assertTrue(sim.getStarvedUnits().stream().allMatch(u -> u instanceof Robot), "Only robots starve");
+    }
+
+    @Test
+    void batchedBelts_moveWholeBatchesAndRobotsCountItems() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("10"));
+        input.addInput("ActionsPerSecond", List.of("1"));
+        input.addInput("NumRobots",        List.of("1"));
+        input.addInput("NumBelts",         List.of("1"));
+        input.addInput("BatchSize",        List.of("4"));
+        input.addInput("BufferCapacity",   List.of("8"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        DiscreteEventSimulation.run(input);
+
+        assertEquals(40f, stats.getComponent("belt-1").getStatistic("ItemsMoved").summarize(),
+                "Each belt action moves a batch of four");
+        assertEquals(40f, stats.getComponent("Robot-1").getStatistic("ItemsProcessed").summarize(),
+                "The robot drains whole batches");
+        assertEquals(10f, stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize(),
+                "One robot action per batch");
+    }
+
+    @Test
+    void starvingRobots_areOnlyWokenForItemsThatArrive() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("5"));
+        input.addInput("ActionsPerSecond", List.of("2"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+        SharedBuffer<String> buffer = new SharedBuffer<>(10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        DiscreteEventSimulation sim = new DiscreteEventSimulation();
+        sim.addUnit(new ConveyorBelt("belt-1", input, buffer, stats));
+        int robots = 20;
+        for (int i = 1; i <= robots; i++) {
+            sim.addUnit(new Robot("Robot-" + i, input, buffer, new ConsumeStrategy(), ResourcePools.none(), stats) {
+                @Override
+                public boolean tryPerformAction() {
+                    attempts.incrementAndGet();
+                    return super.tryPerformAction();
+                }
+            });
+        }
+        sim.run();
+
+        float consumed = 0;
+        for (int i = 1; i <= robots; i++) {
+            consumed += stats.getComponent("Robot-" + i).getStatistic("ItemsProcessed").summarize();
+        }
+        assertEquals(10f, consumed, "Every item the belt made is taken");
+        // a robot's first attempt and the one after each item it took may find the buffer
+        // empty; otherwise only an arriving item wakes one of them, never all twenty
+        assertTrue(attempts.get() <= robots + 2 * 10, "Futile retries: " + attempts.get());
+    }
+}
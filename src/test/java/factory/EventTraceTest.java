@@ -0,0 +1,211 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventTraceTest {
+
+    @Test
+    void recordsFromManyThreads_comeBackInPerThreadOrder() throws Exception {
+        Path file = Files.createTempFile("trace", ".bin");
+        try {
+            // tiny chunks so every thread hands many of them to the writer
+            EventTrace trace = new EventTrace(file, new VirtualClock(), 4, 1024);
+            Thread[] units = new Thread[4];
+            for (int t = 0; t < units.length; t++) {
+                String name = "Robot-" + (t + 1);
+                units[t] = new Thread(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        trace.record(TraceEvent.TAKE, name, i % 10, i);
+                        trace.recordStatistic(name, "ItemsProcessed", 1.5f);
+                    }
+                }, name + "-thread");
+                units[t].start();
+            }
+            for (Thread t : units) t.join();
+            trace.close();
+            trace.record(TraceEvent.PUT, "Robot-1", 0, 1); // closed: ignored
+            assertEquals(0, trace.getDropped());
+
+            Map<String, Long> next = new HashMap<>();
+            long records = TraceDecoder.forEach(file, (nanos, thread, event, subject, statistic, detail, value) -> {
+                assertEquals(subject + "-thread", thread);
+                if (event == TraceEvent.TAKE) {
+                    long expected = next.getOrDefault(subject, 0L);
+                    assertEquals(expected, value, "Takes of " + subject + " in order");
+                    assertEquals((int) (expected % 10), detail);
+                    next.put(subject, expected + 1);
+                } else {
+                    assertEquals(TraceEvent.STATISTIC, event);
+                    assertEquals("ItemsProcessed", statistic);
+                    assertEquals(1.5f, Float.intBitsToFloat((int) value));
+                }
+            });
+            assertEquals(4_000, records);
+            for (int t = 1; t <= units.length; t++) {
+                assertEquals(500L, (long) next.get("Robot-" + t));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void moreThreadsThanSpareChunks_stillRecordEverything() throws Exception {
+        Path file = Files.createTempFile("wide", ".trace");
+        try {
+            EventTrace trace = new EventTrace(file, new VirtualClock(), 16, 4);
+            Thread[] units = new Thread[300];
+            for (int t = 0; t < units.length; t++) {
+                String name = "Robot-" + (t + 1);
+                units[t] = new Thread(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        trace.record(TraceEvent.ACTION_START, name, 0, 0);
+                    }
+                });
+                units[t].start();
+            }
+            for (Thread t : units) t.join();
+            trace.close();
+            assertEquals(0, trace.getDropped());
+            assertEquals(1_500, TraceDecoder.forEach(file,
+                    (nanos, thread, event, subject, statistic, detail, value) -> { }));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void simulationRun_tracesActionsBufferAndStatisticsAsCsv() throws Exception {
+        Path file = Files.createTempFile("run", ".trace");
+        try {
+            SimulationInput input = new SimulationInput();
+            input.addInput("Time",             List.of("1"));
+            input.addInput("ActionsPerSecond", List.of("20"));
+            input.addInput("NumRobots",        List.of("2"));
+            input.addInput("NumBelts",         List.of("2"));
+            input.addInput("ExecutionMode",    List.of("discrete"));
+            input.addInput("TraceFile",        List.of(file.toString()));
+            Main.runTest(input);
+
+            StringBuilder csv = new StringBuilder();
+            long records = TraceDecoder.toCsv(file, csv);
+            String[] rows = csv.toString().split(System.lineSeparator());
+            assertEquals(TraceDecoder.CSV_HEADER, rows[0]);
+            assertEquals(records + 1, rows.length);
+
+            Map<String, Integer> counts = new HashMap<>();
+            long last = 0;
+            for (int i = 1; i < rows.length; i++) {
+                String[] cells = rows[i].split(",");
+                counts.merge(cells[2] + " " + cells[3], 1, Integer::sum);
+                last = Math.max(last, Long.parseLong(cells[0]));
+            }
+            // timestamps are the engine's simulated time, which runs for the whole second
+            assertTrue(last >= 900_000_000L && last <= 1_000_000_000L, "Last record at " + last + " ns");
+            assertEquals(20, (int) counts.get("ACTION_END Robot-1"));
+            assertEquals(20, (int) counts.get("ACTION_END belt-2"));
+            assertTrue(counts.get("ACTION_START Robot-1") >= 20);
+            // buffer events are under the unit that moved the items
+            assertEquals(20, (int) counts.get("PUT belt-1"));
+            assertEquals(20, (int) counts.get("TAKE Robot-2"));
+            assertTrue(counts.get("STATISTIC Robot-1") > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void pipelineRun_tracesEveryStationsPutsAndTakes() throws Exception {
+        Path file = Files.createTempFile("stages", ".trace");
+        try {
+            SimulationInput input = new SimulationInput();
+            input.addInput("Time",             List.of("1"));
+            input.addInput("ActionsPerSecond", List.of("20"));
+            input.addInput("ExecutionMode",    List.of("discrete"));
+            input.addInput("Stages",           List.of("belt:1", "machining:1:5", "packing:1:5"));
+            input.addInput("TraceFile",        List.of(file.toString()));
+            StatisticsContainer stats = Main.runTest(input);
+
+            Map<String, Integer> counts = new HashMap<>();
+            TraceDecoder.forEach(file, (nanos, thread, event, subject, statistic, detail, value) -> {
+                if (event == TraceEvent.PUT || event == TraceEvent.TAKE) {
+                    counts.merge(event + " " + subject, (int) value, Integer::sum);
+                }
+            });
+            int machined = (int) stats.getComponent("Stage-machining").getStatistic("ItemsProcessed").summarize();
+            int packed = (int) stats.getComponent("Stage-packing").getStatistic("ItemsProcessed").summarize();
+            assertTrue(machined > 0 && packed > 0, "Items made it down the line");
+            // every item a station took was passed on, used up at the sink, or dropped
+            int dropped = (int) stats.getComponent("Stage-machining").getStatistic("ItemsDropped").summarize();
+            assertEquals(machined + dropped, (int) counts.getOrDefault("TAKE machining-1", 0));
+            assertEquals(packed, (int) counts.getOrDefault("TAKE packing-1", 0));
+            assertEquals(machined, (int) counts.getOrDefault("PUT machining-1", 0));
+            assertTrue(counts.getOrDefault("PUT belt-1", 0) >= machined, "The source's puts are traced too");
+            assertTrue(!counts.containsKey("PUT packing-1"), "A sink passes nothing on");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void trace_onlyRecordsTheSimulationItIsSetOn() throws Exception {
+        Path file = Files.createTempFile("scoped", ".trace");
+        try {
+            EventTrace trace = new EventTrace(file, new VirtualClock(), 16, 4);
+            StatisticsContainer traced = StatisticsContainer.newInstance(new SimulationInput());
+            StatisticsContainer other = StatisticsContainer.newInstance(new SimulationInput());
+            traced.setTrace(trace);
+            CounterStatistic mine = (CounterStatistic) traced.addComponent("belt-1")
+                    .addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved"));
+            CounterStatistic theirs = (CounterStatistic) other.addComponent("belt-9")
+                    .addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved"));
+            for (int i = 0; i < 3; i++) {
+                mine.increment();
+                theirs.increment();
+            }
+            trace.close();
+
+            List<String> subjects = new ArrayList<>();
+            TraceDecoder.forEach(file, (nanos, thread, event, subject, statistic, detail, value) ->
+                    subjects.add(subject));
+            assertEquals(List.of("belt-1", "belt-1", "belt-1"), subjects);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void notATrace_isRejected() throws Exception {
+        Path file = Files.createTempFile("other", ".bin");
+        try {
+            Files.write(file, new byte[EventTrace.HEADER_BYTES]);
+            assertThrows(IOException.class, () -> TraceDecoder.forEach(file,
+                    (nanos, thread, event, subject, statistic, detail, value) -> { }));
+
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(new ByteArrayOutputStream());
+            assertEquals(1, TraceDecoder.run(new String[] {file.toString()}, out, new PrintStream(err)));
+            assertEquals(2, TraceDecoder.run(new String[0], out, new PrintStream(err)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -4,10 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import Skeleton.SimulationInput;
 import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MatrixTest {
 
@@ -44,4 +46,106 @@ public class MatrixTest {
         assertEquals(3f, totalRobotActions, "3 robots should each perform 1 action");
         assertEquals(3f, totalBeltMoves,    "3 belts should each move 1 item");
     }
+
+    @Test
+    void virtualExecutionMode_producesSameCountsAsPlatformThreads() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("2"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("2"));
+        input.addInput("ExecutionMode",    List.of("virtual"));
+
+        var stats = Main.runTest(input);
+
+        float totalRobotActions =
+                stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize()
+                        + stats.getComponent("Robot-2").getStatistic("ActionsPerformed").summarize();
+        float totalBeltMoves =
+                stats.getComponent("belt-1").getStatistic("ItemsMoved").summarize()
+                        + stats.getComponent("belt-2").getStatistic("ItemsMoved").summarize();
+
+        assertEquals(4f, totalRobotActions, "2 robots should each perform 2 actions");
+        assertEquals(4f, totalBeltMoves,    "2 belts should each move 2 items");
+    }
+
+    @Test
+    void lockFreeRingBackend_producesSameCountsAsDefaultBuffer() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("2"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("2"));
+        input.addInput("BufferBackend",    List.of("mpmc"));
+        input.addInput("WaitStrategy",     List.of("park"));
+
+        var stats = Main.runTest(input);
+
+        float totalRobotActions =
+                stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize()
+                        + stats.getComponent("Robot-2").getStatistic("ActionsPerformed").summarize();
+        assertEquals(4f, totalRobotActions, "2 robots should each perform 2 actions");
+    }
+
+    @Test
+    void randomTiming_stopsUnitsStillBlockedWhenTheTimeIsUp() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("20"));
+        input.addInput("NumRobots",        List.of("3"));
+        input.addInput("NumBelts",         List.of("1"));
+        input.addInput("Seed",             List.of("5"));
+        input.addInput("BeltActionTime",   List.of("exponential:0.05"));
+
+        long start = System.nanoTime();
+        var stats = Main.runTest(input);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        // three robots at 20/s can't all be fed by one belt; they are stopped, not left hanging
+        assertTrue(millis < 5_000, "Took " + millis + " ms");
+        float moved = stats.getComponent("belt-1").getStatistic("ItemsMoved").summarize();
+        float processed = stats.getComponent("Robot-1").getStatistic("ItemsProcessed").summarize()
+                + stats.getComponent("Robot-2").getStatistic("ItemsProcessed").summarize()
+                + stats.getComponent("Robot-3").getStatistic("ItemsProcessed").summarize();
+        assertTrue(moved > 0, "The belt ran");
+        assertEquals(moved, processed, "Every item that arrived was taken");
+    }
+
+    @Test
+    void fixedUnitNextToRandomOnes_stopsAtTheActionItWasBlockedOn() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of("1"));
+        input.addInput("NumBelts",         List.of("1"));
+        // the belt places one item, then its next batch would be past `Time`
+        input.addInput("BeltActionTime",   List.of("constant:5"));
+
+        var stats = Main.runTest(input);
+
+        // the robot took that item and was stopped waiting for the next one
+        assertEquals(1f, stats.getComponent("belt-1").getStatistic("ItemsMoved").summarize());
+        assertEquals(1f, stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize(),
+                "The interrupted take isn't counted as an action");
+        assertEquals(1f, stats.getComponent("Robot-1").getStatistic("ItemsProcessed").summarize());
+    }
+
+    @Test
+    void moreRobotsThanBeltsCanFeed_reportsStarvedRobotsInsteadOfHanging() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("5"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("1"));
+        input.addInput("Pacing",           List.of("none"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+        List<Unit> starved = Matrix.run(input, stats);
+
+        float consumed = stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize()
+                + stats.getComponent("Robot-2").getStatistic("ActionsPerformed").summarize();
+        assertEquals(5f, consumed, "Robots can only consume what the single belt produced");
+        assertTrue(!starved.isEmpty(), "A robot should be left waiting on an empty buffer");
+        assertTrue(starved.stream().allMatch(u -> u instanceof Robot), "Only robots starve");
+    }
 }
@@ -0,0 +1,99 @@
+package factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.Unit;
+import Skeleton.UnitState;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OccupancySamplerTest {
+    private static final long MS = 1_000_000L;
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    private static Unit idleUnit(String name, StatisticsContainer container) {
+        return new Unit(name, new SimulationInput(), container) {
+            @Override
+            public void performAction() {
+            }
+
+            @Override
+            public void submitStatistics() {
+            }
+        };
+    }
+
+    @Test
+    void unitShares_areWeightedByTimeInEachState() {
+        StatisticsContainer container = StatisticsContainer.newInstance(new SimulationInput());
+        Unit unit = idleUnit("Robot-1", container);
+        OccupancySampler sampler = new OccupancySampler(SimulationClock.SYSTEM, MS);
+        sampler.addUnit(unit);
+
+        unit.setState(UnitState.WORKING);
+        sampler.begin(0);
+        sampler.advanceTo(60 * MS);
+        unit.setState(UnitState.BLOCKED);
+        sampler.advanceTo(90 * MS);
+        unit.setState(UnitState.IDLE);
+        sampler.finish(100 * MS);
+
+        assertEquals(0.6, sampler.getShare(unit, UnitState.WORKING), 0.02, "Worked for 60 of 100 ms");
+        assertEquals(0.3, sampler.getShare(unit, UnitState.BLOCKED), 0.02, "Blocked for 30 of 100 ms");
+        assertEquals(0.1, sampler.getShare(unit, UnitState.IDLE), 0.02, "Idle for the last 10 ms");
+        assertEquals(100 * MS, sampler.getElapsedNanos());
+
+        sampler.publish(container);
+        assertEquals(0.6, container.getComponent("Robot-1").getStatistic("Utilization").summarize(), 0.02);
+        assertEquals(0.3, container.getComponent("Robot-1").getStatistic("BlockedShare").summarize(), 0.02);
+    }
+
+    @Test
+    void steadyQueue_satisfiesLittlesLaw() {
+        // one item arrives every ms and leaves exactly 5 ms later
+        AtomicLong now = new AtomicLong();
+        OccupancySampler sampler = new OccupancySampler(SimulationClock.SYSTEM, MS);
+        sampler.addQueue("Buffer", 10,
+                () -> (int) (now.get() - departed(now.get())),
+                () -> departed(now.get()));
+
+        sampler.begin(0);
+        for (long t = 1; t <= 1000; t++) {
+            now.set(t);
+            sampler.advanceTo(t * MS);
+        }
+        sampler.finish(1000 * MS);
+
+        double meanDepth = sampler.getMeanDepth("Buffer");
+        double throughput = sampler.getThroughput("Buffer");
+        double waitSeconds = sampler.getMeanWaitNanos("Buffer") / 1e9;
+        assertEquals(5.0, sampler.getMeanWaitNanos("Buffer") / MS, 0.01, "Every item waited 5 ms");
+        assertEquals(995.0, throughput, 1.0, "Items left at about 1000 a second");
+        assertEquals(meanDepth, throughput * waitSeconds, 0.02 * meanDepth, "L = lambda * W");
+    }
+
+    private static long departed(long t) {
+        return Math.max(0, t - 5);
+    }
+
+    @Test
+    void zeroPeriod_turnsSamplingOff() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("SamplePeriodMillis", List.of("0"));
+        assertNull(OccupancySampler.forLayout(input, SimulationClock.SYSTEM, List.of(), Pipeline.none()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new OccupancySampler(SimulationClock.SYSTEM, 0));
+    }
+}
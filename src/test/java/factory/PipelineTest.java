@@ -0,0 +1,140 @@
+package factory;
+
+import Skeleton.HistogramStatistic;
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipelineTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    private static float stat(StatisticsContainer stats, String component, String name) {
+        return stats.getComponent(component).getStatistic(name).summarize();
+    }
+
+    private static HistogramStatistic waits(StatisticsContainer stats, String component) {
+        return (HistogramStatistic) stats.getComponent(component).getStatistic("BufferWait");
+    }
+
+    @Test
+    void slowMiddleStage_limitsTheLineAndIsReportedAsTheBottleneck() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("10"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("ExecutionMode",    List.of("discrete"));
+        input.addInput("Stages",           List.of("belt:1", "machining:1:5:5", "packing:1:5"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        DiscreteEventSimulation sim = new DiscreteEventSimulation();
+        Pipeline pipeline = Pipeline.fromInput(input, sim.getClock(), stats, 1);
+        for (Skeleton.Unit unit : pipeline.createUnits()) {
+            sim.addUnit(unit);
+        }
+        sim.run();
+        pipeline.publishStatistics();
+
+        assertEquals(50f, stat(stats, "Stage-machining", "ItemsProcessed"), "Machining runs at half the rate");
+        assertEquals(50f, stat(stats, "Stage-packing", "ItemsProcessed"), "Packing gets only what machining passed on");
+        assertTrue(stat(stats, "Stage-belt", "ItemsDropped") > 0, "The belt is left with items nobody takes");
+        assertEquals("machining", pipeline.getBottleneck().getName());
+        assertTrue(sim.getStarvedUnits().isEmpty(), "Stations idle instead of starving once the line is done");
+        float seconds = sim.getClock().nanoTime() / 1e9f;
+        assertEquals(50f / seconds, stat(stats, "Stage-packing", "Throughput"), 0.01f,
+                "Throughput is items per simulated second");
+    }
+
+    @Test
+    void splitStage_roundRobinsItemsOverItsDownstreamStages() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("2"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("ExecutionMode",    List.of("discrete"));
+        input.addInput("Stages",           List.of("belt:1", "machining:1:20", "inspection:1:20"));
+        input.addInput("StageEdges",       List.of("belt->machining", "belt->inspection"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        Matrix.run(input);
+
+        assertEquals(20f, stat(stats, "Stage-belt", "ItemsProcessed"));
+        assertEquals(10f, stat(stats, "Stage-machining", "ItemsProcessed"));
+        assertEquals(10f, stat(stats, "Stage-inspection", "ItemsProcessed"));
+        assertEquals(10f, stat(stats, "machining-1", "ItemsProcessed"));
+    }
+
+    @Test
+    void threadedChain_propagatesBackpressureAndFinishesWhenTheLineIsDone() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("200"));
+        input.addInput("Pacing",           List.of("none"));
+        input.addInput("Stages",           List.of("belt:2", "machining:2", "packing:1:10"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        Matrix.run(input);
+
+        assertEquals(400f, stat(stats, "Stage-belt", "ItemsProcessed"));
+        assertEquals(200f, stat(stats, "Stage-packing", "ItemsProcessed"), "Packing does all its actions");
+        assertEquals(190f, stat(stats, "Stage-machining", "ItemsDropped"),
+                "What packing never took, minus a full buffer, is dropped");
+        assertEquals(210f, stat(stats, "Stage-machining", "ItemsProcessed"),
+                "Machining took all 400 items but only passed on packing's 200 and a full buffer");
+        // stations record their waits like belts and robots: one sample per item at least
+        assertTrue(waits(stats, "belt-1").getCount() >= 200, "Puts into machining are recorded");
+        assertTrue(waits(stats, "packing-1").getCount() >= 200, "Takes from packing's buffer are recorded");
+    }
+
+    @Test
+    void downstreamFinishingFirst_countsLeftoverItemsAsDroppedNotProcessed() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("10"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("ExecutionMode",    List.of("discrete"));
+        // packing does its 50 actions at 5 a second, then machining has nobody to pass to
+        input.addInput("Stages",           List.of("belt:1", "machining:1:5", "packing:1:5:5"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+
+        DiscreteEventSimulation sim = new DiscreteEventSimulation();
+        Pipeline pipeline = Pipeline.fromInput(input, sim.getClock(), stats, 1);
+        for (Skeleton.Unit unit : pipeline.createUnits()) {
+            sim.addUnit(unit);
+        }
+        sim.run();
+
+        int machiningLeft = pipeline.getStages().get(1).getInbound().size();
+        int packingLeft = pipeline.getStages().get(2).getInbound().size();
+        float taken = stat(stats, "Stage-belt", "ItemsProcessed") - machiningLeft;
+        float processed = stat(stats, "Stage-machining", "ItemsProcessed");
+        float dropped = stat(stats, "Stage-machining", "ItemsDropped");
+        assertTrue(dropped > 0, "Machining outlives packing and drops what it takes after that");
+        assertEquals(taken, processed + dropped, "Every item taken is either processed or dropped, never both");
+        assertEquals(processed, stat(stats, "Stage-packing", "ItemsProcessed") + packingLeft,
+                "Machining only counts what it passed on to packing");
+    }
+
+    @Test
+    void badTopologies_areRejected() {
+        SimulationInput cycle = new SimulationInput();
+        cycle.addInput("Stages",     List.of("a:1", "b:1"));
+        cycle.addInput("StageEdges", List.of("a->b", "b->a"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Pipeline.fromInput(cycle, SimulationClock.SYSTEM, StatisticsContainer.getInstance(), 1));
+
+        SimulationInput unknown = new SimulationInput();
+        unknown.addInput("Stages",     List.of("a:1"));
+        unknown.addInput("StageEdges", List.of("a->c"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Pipeline.fromInput(unknown, SimulationClock.SYSTEM, StatisticsContainer.getInstance(), 1));
+    }
+}
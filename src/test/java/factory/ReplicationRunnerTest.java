@@ -0,0 +1,84 @@
+package factory;
+
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplicationRunnerTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    private static SimulationInput poissonBelt() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",               List.of("60"));
+        input.addInput("ActionsPerSecond",   List.of("10"));
+        input.addInput("ExecutionMode",      List.of("discrete"));
+        input.addInput("NumRobots",          List.of("1"));
+        input.addInput("NumBelts",           List.of("1"));
+        input.addInput("BeltActionTime",     List.of("exponential:0.1"));
+        input.addInput("RobotActionTime",    List.of("triangular:0.01:0.02:0.06"));
+        input.addInput("Replications",       List.of("12"));
+        input.addInput("ReplicationThreads", List.of("4"));
+        input.addInput("Seed",               List.of("2024"));
+        return input;
+    }
+
+    @Test
+    void seededReplications_areReproducibleAndTheirIntervalCoversTheArrivalRate() {
+        ReplicationResult first = ReplicationRunner.fromInput(poissonBelt()).run();
+        ReplicationResult second = ReplicationRunner.fromInput(poissonBelt()).run();
+
+        ReplicationResult.Estimate moved = first.get("ItemsMoved");
+        assertEquals(12, first.getReplications());
+        assertTrue(Arrays.equals(moved.getValues(), second.get("ItemsMoved").getValues()),
+                "Same seed, same replications, whatever the thread interleaving");
+        assertTrue(moved.getStdDev() > 0, "Arrivals are random");
+        // a Poisson stream of 10/s over 60 s: mean 600, standard deviation about 24.5
+        assertTrue(moved.getLower() < 600 && 600 < moved.getUpper(),
+                moved.getLower() + " .. " + moved.getUpper());
+        assertEquals(24.5, moved.getStdDev(), 12);
+        // the faster robot keeps up, so it takes what the belt brought, bar the last few
+        double[] processed = first.get("ItemsProcessed").getValues();
+        double[] arrived = moved.getValues();
+        for (int i = 0; i < arrived.length; i++) {
+            assertTrue(arrived[i] - processed[i] <= 2, "Robot fell behind: " + arrived[i] + " vs " + processed[i]);
+        }
+
+        StringBuilder csv = new StringBuilder();
+        first.writeCsv(csv);
+        assertTrue(csv.toString().startsWith("Metric,Replications,Mean,StdDev,Confidence,Lower,Upper"), csv.toString());
+    }
+
+    @Test
+    void breakdowns_costCapacityAndAreCounted() {
+        SimulationInput input = poissonBelt();
+        input.addInput("BeltFailureInterval", List.of("exponential:10"));
+        input.addInput("BeltRepairTime",      List.of("constant:2"));
+
+        ReplicationResult result = ReplicationRunner.fromInput(input).run();
+
+        // the belt works 10 s, then stands 2 s: 5/6 of the time
+        ReplicationResult.Estimate moved = result.get("ItemsMoved");
+        assertEquals(500, moved.getMean(), 40);
+        assertTrue(result.get("Failures").getMean() > 2, "About 5 breakdowns a run");
+    }
+
+    @Test
+    void tQuantile_matchesTables() {
+        assertEquals(12.706, ReplicationResult.tQuantile(0.975, 1), 0.001);
+        assertEquals(4.303, ReplicationResult.tQuantile(0.975, 2), 0.001);
+        assertEquals(3.182, ReplicationResult.tQuantile(0.975, 3), 0.005);
+        assertEquals(2.262, ReplicationResult.tQuantile(0.975, 9), 0.001);
+        assertEquals(1.960, ReplicationResult.normalQuantile(0.975), 0.001);
+    }
+}
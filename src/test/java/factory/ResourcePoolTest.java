@@ -0,0 +1,118 @@
+package factory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import Skeleton.SimulationClock;
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import Skeleton.StreamingStatistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourcePoolTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    @Test
+    void singlePermitPool_makesSecondHolderWaitAndReportsUtilization() throws InterruptedException {
+        SimulationInput input = new SimulationInput();
+        input.addInput("ResourcePools", List.of("tools:1:fair", "cells:4"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+        ResourcePools pools = ResourcePools.fromInput(input, SimulationClock.SYSTEM, stats);
+        ResourcePool tools = pools.get("tools");
+
+        tools.acquire();
+        Thread waiter = new Thread(() -> {
+            try {
+                tools.acquire();
+                tools.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        tools.release();
+        waiter.join();
+        pools.publishStatistics();
+
+        StreamingStatistic wait = (StreamingStatistic) stats.getComponent("Pool-tools").getStatistic("WaitTime");
+        assertEquals(2, wait.getCount(), "Both acquisitions are timed");
+        assertTrue(wait.getMax() >= 50, "The second holder waited for the first to release");
+        float utilization = stats.getComponent("Pool-tools").getStatistic("Utilization").summarize();
+        assertTrue(utilization > 0.5f && utilization <= 1.0f, "The only permit was held most of the time");
+        assertEquals(4, pools.get("cells").getPermits());
+    }
+
+    @Test
+    void fairPool_servesAWaitingCallerBeforeALateArrival() throws InterruptedException {
+        SimulationInput input = new SimulationInput();
+        input.addInput("ResourcePools", List.of("tools:1:fair"));
+        StatisticsContainer stats = StatisticsContainer.getInstance(input);
+        ResourcePool tools = ResourcePools.fromInput(input, SimulationClock.SYSTEM, stats).get("tools");
+        List<String> served = Collections.synchronizedList(new ArrayList<>());
+
+        tools.acquire();
+        Thread waiter = new Thread(() -> {
+            try {
+                tools.acquire();
+                served.add("waiter");
+                tools.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(100); // the waiter is queued by now
+        tools.release();
+        tools.acquire(); // arrives after the waiter, while the permit is free
+        served.add("late");
+        tools.release();
+        waiter.join();
+
+        assertEquals(List.of("waiter", "late"), served);
+    }
+
+    @Test
+    void robotsDeclaringResources_runThroughThePoolInsteadOfAGlobalCap() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("2"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("2"));
+        input.addInput("ResourcePools",    List.of("cells:1"));
+        input.addInput("RobotResources",   List.of("cells"));
+
+        var stats = Main.runTest(input);
+
+        float actions = stats.getComponent("Robot-1").getStatistic("ActionsPerformed").summarize()
+                + stats.getComponent("Robot-2").getStatistic("ActionsPerformed").summarize();
+        assertEquals(4f, actions, "Robots still perform every action");
+        assertEquals(4f, stats.getComponent("Pool-cells").getStatistic("Acquisitions").summarize(),
+                "Every robot action took a cell");
+        assertThrows(IllegalArgumentException.class, () -> ResourcePools.none().get("cells"));
+    }
+
+    @Test
+    void robotResourcesNamingAnUndeclaredPool_failBeforeAnyUnitStarts() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("2"));
+        input.addInput("ResourcePools",    List.of("tools:2"));
+        input.addInput("RobotResources",   List.of("tool"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Matrix.run(input));
+        assertTrue(e.getMessage().contains("tool"), e.getMessage());
+        assertTrue(StatisticsContainer.getInstance().getComponentNames().stream()
+                .noneMatch(name -> name.startsWith("Robot-")), "No robot was built, let alone started");
+    }
+}
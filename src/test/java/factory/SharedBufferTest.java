@@ -0,0 +1,38 @@
+package factory;
+
+import Skeleton.HistogramStatistic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SharedBufferTest {
+
+    @Test
+    void recordingView_recordsHowLongEachCallerWaited() throws InterruptedException {
+        SharedBuffer<String> buffer = new SharedBuffer<>(1);
+        HistogramStatistic takeWaits = new HistogramStatistic("BufferWait");
+        HistogramStatistic putWaits = new HistogramStatistic("BufferWait");
+        SharedBuffer<String> consumer = buffer.recordingWaits(takeWaits);
+        SharedBuffer<String> producer = buffer.recordingWaits(putWaits);
+
+        Thread late = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                producer.put("widget");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        late.start();
+        assertEquals("widget", consumer.take(), "The consumer gets the late item");
+        late.join();
+
+        producer.put("widget"); // room available: no wait
+        assertEquals(1, takeWaits.getCount());
+        assertTrue(takeWaits.getMax() >= 80, "The take waited for the producer: " + takeWaits.getMax());
+        assertEquals(2, putWaits.getCount());
+        assertEquals(0.0, putWaits.getPercentile(0.5), "Puts that found room record no wait");
+        assertEquals(1, buffer.size(), "Views share the one buffer");
+    }
+}
@@ -0,0 +1,118 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatisticEventBusTest {
+
+    @Test
+    void everyUpdateIsDeliveredInBatchesOffThePublishingThread() {
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        List<String> threads = new ArrayList<>();
+        StatisticObserver counter = new StatisticObserver() {
+            @Override
+            public void onStatisticUpdated(String component, String statName, float newValue) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void onStatisticsUpdated(List<StatisticUpdate> batch) {
+                batches.incrementAndGet();
+                threads.add(Thread.currentThread().getName());
+                StatisticObserver.super.onStatisticsUpdated(batch);
+            }
+        };
+
+        StatisticEventBus bus = new StatisticEventBus(List.of(counter), 64, 16,
+                StatisticEventBus.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 1000; i++) {
+            bus.publish("Robot-1", "ActionsPerformed", 1f);
+        }
+        bus.close();
+
+        assertEquals(1000, received.get(), "BLOCK never loses updates");
+        assertTrue(batches.get() <= 1000 && batches.get() >= 1000 / 16, "Updates arrive in batches of at most 16");
+        assertTrue(threads.stream().allMatch("statistic-dispatcher"::equals), "Delivery happens on the dispatcher");
+    }
+
+    @Test
+    void slowObserverDoesNotSlowPublishers_andCoalescingKeepsLatestValue() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Float> latest = new ConcurrentHashMap<>();
+        StatisticObserver slow = (component, statName, newValue) -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            latest.put(component + "|" + statName, newValue);
+        };
+
+        StatisticEventBus bus = new StatisticEventBus(List.of(slow), 8, 4,
+                StatisticEventBus.OverflowPolicy.COALESCE);
+        long start = System.nanoTime();
+        for (int i = 1; i <= 10_000; i++) {
+            bus.publish("belt-1", "ItemsMoved", i);
+        }
+        long publishMillis = (System.nanoTime() - start) / 1_000_000;
+        release.countDown();
+        bus.close();
+
+        assertTrue(publishMillis < 5_000, "Publishing must not wait for the stuck observer");
+        assertTrue(bus.getDropped() > 0, "A full queue should coalesce updates");
+        assertEquals(10_000f, latest.get("belt-1|ItemsMoved").floatValue(), "The newest value is delivered last");
+    }
+
+    @Test
+    void eventBus_onlyCarriesTheUpdatesOfItsOwnSimulation() {
+        StatisticsContainer bused = StatisticsContainer.newInstance(new SimulationInput());
+        StatisticsContainer direct = StatisticsContainer.newInstance(new SimulationInput());
+        List<String> viaBus = new ArrayList<>();
+        List<String> viaObserver = new ArrayList<>();
+        StatisticObserver registered = (component, statName, value) -> viaObserver.add(component);
+        StatisticEventBus bus = new StatisticEventBus(List.<StatisticObserver>of(
+                (component, statName, value) -> viaBus.add(component)), 64, 16,
+                StatisticEventBus.OverflowPolicy.BLOCK);
+        Statistic.registerObserver(registered);
+        try {
+            bused.setEventBus(bus);
+            bused.addComponent("belt-1").addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved")).addValue(1);
+            direct.addComponent("belt-2").addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved")).addValue(1);
+            bused.setEventBus(null);
+            bus.close();
+        } finally {
+            Statistic.unregisterObserver(registered);
+        }
+
+        assertEquals(List.of("belt-1"), viaBus, "The bus only sees its own simulation");
+        assertEquals(List.of("belt-2"), viaObserver, "Other simulations still reach observers directly");
+    }
+
+    @Test
+    void fromInput_startsNoBusWithoutObservers() {
+        SimulationInput input = new SimulationInput();
+        assertNull(StatisticEventBus.fromInput(input, List.of()), "Nobody to deliver to, so no dispatcher");
+
+        StatisticEventBus bus = StatisticEventBus.fromInput(input, List.<StatisticObserver>of(
+                (component, statName, value) -> { }));
+        assertNotNull(bus, "Async is the default once someone listens");
+        bus.close();
+    }
+}
@@ -0,0 +1,159 @@
+package factory;
+
+import Skeleton.CounterStatistic;
+import Skeleton.HistogramStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistics;
+import Skeleton.StatisticsContainer;
+import Skeleton.StreamingStatistic;
+import Skeleton.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatisticsFileTest {
+
+    @Test
+    void samplesFromManyThreads_spanSegmentsAndReadBackExactly() throws Exception {
+        Path file = Files.createTempFile("stats", ".bin");
+        try {
+            VirtualClock clock = new VirtualClock();
+            // tiny blocks and segments so the run crosses many of both
+            StatisticsFileWriter writer = new StatisticsFileWriter(file, clock, 16, 2);
+            Thread[] units = new Thread[4];
+            for (int t = 0; t < units.length; t++) {
+                String component = "Robot-" + (t + 1);
+                units[t] = new Thread(() -> {
+                    for (int i = 0; i < 2_500; i++) {
+                        writer.onStatisticUpdated(component, "ActionsPerformed", 1f);
+                        writer.onStatisticUpdated(component, "ItemsProcessed", 2f);
+                    }
+                });
+                units[t].start();
+            }
+            for (Thread t : units) t.join();
+            writer.close();
+            writer.onStatisticUpdated("Robot-1", "ActionsPerformed", 1f);
+            assertEquals(1, writer.getDropped(), "Samples after close are dropped");
+
+            StatisticsContainer stats = StatisticsFileReader.read(file);
+            for (int t = 1; t <= units.length; t++) {
+                assertEquals(2_500f, stats.getComponent("Robot-" + t).getStatistic("ActionsPerformed").summarize());
+                assertEquals(5_000f, stats.getComponent("Robot-" + t).getStatistic("ItemsProcessed").summarize());
+            }
+            AtomicLong visited = new AtomicLong();
+            assertEquals(20_000, StatisticsFileReader.forEach(file, (c, s, nanos, v) -> visited.incrementAndGet()));
+            assertEquals(20_000, visited.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void simulationRun_streamsItsStatisticsToTheFile() throws Exception {
+        Path file = Files.createTempFile("run", ".bin");
+        try {
+            SimulationInput input = new SimulationInput();
+            input.addInput("Time",             List.of("1"));
+            input.addInput("ActionsPerSecond", List.of("20"));
+            input.addInput("NumRobots",        List.of("2"));
+            input.addInput("NumBelts",         List.of("2"));
+            input.addInput("StatisticsFile",   List.of(file.toString()));
+
+            StatisticsContainer live = Main.runTest(input);
+            StatisticsContainer loaded = StatisticsFileReader.read(file);
+
+            for (String belt : List.of("belt-1", "belt-2")) {
+                assertEquals(live.getComponent(belt).getStatistic("ItemsMoved").summarize(),
+                        loaded.getComponent(belt).getStatistic("ItemsMoved").summarize(),
+                        belt + " moved the same number of items on disk");
+            }
+            assertTrue(loaded.getComponentNames().contains("Robot-1"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void unfinishedFile_isRejected() throws Exception {
+        Path file = Files.createTempFile("open", ".bin");
+        try {
+            StatisticsFileWriter writer = new StatisticsFileWriter(file);
+            writer.onStatisticUpdated("belt-1", "ItemsMoved", 1f);
+            assertThrows(IOException.class, () -> StatisticsFileReader.read(file));
+            writer.close();
+            assertEquals(1f, StatisticsFileReader.read(file).getComponent("belt-1").getStatistic("ItemsMoved").summarize());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void emptySlots_areSkipped() throws Exception {
+        Path file = Files.createTempFile("gaps", ".bin");
+        try {
+            StatisticsFileWriter writer = new StatisticsFileWriter(file, new VirtualClock(), 16, 2);
+            writer.onStatisticUpdated("belt-1", "ItemsMoved", 1f);
+            writer.onStatisticUpdated("belt-1", "ItemsMoved", 2f);
+            writer.onStatisticUpdated("belt-1", "ItemsMoved", 4f);
+            writer.close();
+            // clear the middle sample's component, as if its write had failed
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Integer.BYTES), StatisticsFileWriter.HEADER_BYTES + Integer.BYTES);
+            }
+
+            AtomicLong visited = new AtomicLong();
+            assertEquals(2, StatisticsFileReader.forEach(file, (c, s, nanos, v) -> visited.incrementAndGet()));
+            assertEquals(2, visited.get());
+            assertEquals(5f, StatisticsFileReader.read(file).getComponent("belt-1").getStatistic("ItemsMoved").summarize());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void statistics_readBackAsTheKindThatRecordedThem() throws Exception {
+        Path file = Files.createTempFile("kinds", ".bin");
+        try {
+            VirtualClock clock = new VirtualClock();
+            StatisticsContainer live = StatisticsContainer.newInstance(new SimulationInput());
+            StatisticsFileWriter writer = new StatisticsFileWriter(file, clock, 16, 2, live);
+            live.setRecorder(writer);
+            Statistics robot = live.addComponent("Robot-1");
+            CounterStatistic moved = (CounterStatistic) robot.addStatistic("ItemsMoved", new CounterStatistic("ItemsMoved"));
+            HistogramStatistic latency = (HistogramStatistic) robot.addStatistic("ActionLatency", new HistogramStatistic("ActionLatency"));
+            StreamingStatistic batch = (StreamingStatistic) robot.addStatistic("BatchSize", new StreamingStatistic("BatchSize"));
+            for (int i = 1; i <= 10; i++) {
+                clock.advanceTo(i * 1_000_000L);
+                moved.add(3L);
+                latency.record(i * 2_000_000L);
+                batch.record(i);
+            }
+            writer.close();
+
+            Statistics loaded = StatisticsFileReader.read(file).getComponent("Robot-1");
+            assertTrue(loaded.getStatistic("ItemsMoved") instanceof CounterStatistic);
+            assertEquals(30.0, loaded.getStatistic("ItemsMoved").summarizeExact());
+            HistogramStatistic readLatency = (HistogramStatistic) loaded.getStatistic("ActionLatency");
+            assertEquals(10L, readLatency.getCount());
+            assertEquals(latency.getMean(), readLatency.getMean(), 1e-6);
+            assertEquals(latency.describe(), readLatency.describe());
+            StreamingStatistic readBatch = (StreamingStatistic) loaded.getStatistic("BatchSize");
+            assertEquals(batch.getMean(), readBatch.getMean(), 1e-9);
+            assertEquals(batch.getMax(), readBatch.getMax(), 1e-9);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package factory;
+
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SweepRunnerTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    @Test
+    void grid_runsEveryPointInIsolationAndTabulatesInOrder() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("60"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("ExecutionMode",    List.of("discrete"));
+        input.addInput("NumRobots",        List.of("1", "2", "3"));
+        input.addInput("NumBelts",         List.of("1", "3"));
+        input.addInput("SweepParameters",  List.of("NumRobots", "NumBelts"));
+        input.addInput("SweepThreads",     List.of("4"));
+
+        SweepResult result = SweepRunner.fromInput(input).run();
+
+        assertEquals(6, result.getRows().size(), "Three robot counts times two belt counts");
+        int row = 0;
+        for (int robots = 1; robots <= 3; robots++) {
+            for (int belts : new int[]{1, 3}) {
+                assertEquals(String.valueOf(robots), result.get(row, "NumRobots"));
+                assertEquals(String.valueOf(belts), result.get(row, "NumBelts"));
+                // surplus belts stop once the 10-item buffer is full
+                int moved = belts <= robots ? belts * 600 : robots * 600 + 10;
+                assertEquals(String.valueOf(moved), result.get(row, "ItemsMoved"),
+                        "Each run only counts its own belts");
+                assertEquals("", result.get(row, "Error"));
+                row++;
+            }
+        }
+        assertTrue(StatisticsContainer.getInstance().getComponentNames().isEmpty(),
+                "Runs never touch the shared container");
+
+        StringBuilder csv = new StringBuilder();
+        result.writeCsv(csv);
+        assertTrue(csv.toString().startsWith("Run,NumRobots,NumBelts,WallMillis,"), csv.toString());
+        assertEquals(7, csv.toString().split(System.lineSeparator()).length, "Header plus one line per run");
+    }
+
+    @Test
+    void sweptKeyWithoutValues_isRejectedByName() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of());
+        input.addInput("SweepParameters",  List.of("NumRobots"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SweepRunner.fromInput(input).run());
+        assertTrue(e.getMessage().contains("NumRobots"), e.getMessage());
+    }
+}
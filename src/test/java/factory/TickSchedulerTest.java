@@ -0,0 +1,289 @@
+package factory;
+
+import Skeleton.SimulationInput;
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TickSchedulerTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    static final class Due extends TimingWheel.Timer {
+        Due(long tick) {
+            deadlineTick = tick;
+        }
+    }
+
+    @Test
+    void timingWheel_firesEveryTimerOnItsTickAcrossLevels() {
+        TimingWheel<Due> wheel = new TimingWheel<>(0);
+        List<Long> firedAt = new ArrayList<>();
+        List<Long> due = new ArrayList<>();
+        long[] ticks = {1, 5, 255, 256, 257, 1000, 65_535, 65_536, 70_000, 16_777_300};
+        for (long tick : ticks) {
+            wheel.add(new Due(tick), t -> fail());
+        }
+        assertEquals(ticks.length, wheel.size());
+
+        for (long now = 0; now < 16_777_300 + 97; now += 97) {
+            final long at = now;
+            wheel.advanceTo(now, t -> {
+                firedAt.add(at);
+                due.add(t.deadlineTick);
+                assertTrue(t.deadlineTick <= wheel.currentTick(), "Never fires early");
+            });
+        }
+        assertEquals(ticks.length, due.size(), "Every timer fires once");
+        for (int i = 0; i < ticks.length; i++) {
+            assertEquals(ticks[i], due.get(i).longValue(), "Timers fire in deadline order");
+            assertTrue(firedAt.get(i) - ticks[i] < 97, "Fires on the first advance past its tick");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timingWheel_nextTickLetsTheCallerSleepUntilSomethingIsDue() {
+        TimingWheel<Due> wheel = new TimingWheel<>(0);
+        assertEquals(Long.MAX_VALUE, wheel.nextTick());
+        long[] ticks = {5, 300, 70_000, 16_777_300};
+        for (long tick : ticks) {
+            wheel.add(new Due(tick), t -> fail());
+        }
+        assertEquals(5, wheel.nextTick(), "Due within this rotation: exactly its tick");
+
+        List<Long> due = new ArrayList<>();
+        int wakeups = 0;
+        while (wheel.size() > 0) {
+            long next = wheel.nextTick();
+            assertTrue(next > wheel.currentTick());
+            wheel.advanceTo(next, t -> {
+                due.add(t.deadlineTick);
+                assertEquals(t.deadlineTick, wheel.currentTick(), "Never sleeps past a deadline");
+            });
+            wakeups++;
+        }
+        assertEquals(ticks.length, due.size());
+        assertTrue(wakeups < 20, "A wakeup per timer and a few cascades, not one per tick: " + wakeups);
+    }
+
+    @Test
+    void timingWheel_nextTickStopsAtAHigherLevelCascadeBeforeALowerTimer() {
+        // 520 sits on level 1 and comes down at 512, ahead of 555 on level 0
+        TimingWheel<Due> wheel = new TimingWheel<>(0);
+        wheel.add(new Due(520), t -> fail());
+        wheel.advanceTo(300, t -> fail());
+        wheel.add(new Due(555), t -> fail());
+        assertEquals(512, wheel.nextTick(), "Level 1 cascades before level 0 is due");
+        assertFiresOnTime(wheel, 520, 555);
+
+        // 65,540 sits on level 2 and comes down at 65,536, ahead of level 1's 65,792
+        wheel = new TimingWheel<>(0);
+        wheel.add(new Due(65_540), t -> fail());
+        wheel.advanceTo(65_300, t -> fail());
+        wheel.add(new Due(65_800), t -> fail());
+        assertEquals(65_536, wheel.nextTick(), "Level 2 cascades before level 1 does");
+        assertFiresOnTime(wheel, 65_540, 65_800);
+    }
+
+    private static void assertFiresOnTime(TimingWheel<Due> wheel, long... ticks) {
+        List<Long> due = new ArrayList<>();
+        while (wheel.size() > 0) {
+            wheel.advanceTo(wheel.nextTick(), t -> {
+                due.add(t.deadlineTick);
+                assertEquals(t.deadlineTick, wheel.currentTick(), "Never sleeps past a deadline");
+            });
+        }
+        assertEquals(ticks.length, due.size());
+        for (int i = 0; i < ticks.length; i++) {
+            assertEquals(ticks[i], due.get(i).longValue());
+        }
+    }
+
+    private static void fail() {
+        throw new AssertionError("Timer in the future fired on add");
+    }
+
+    @Test
+    void scheduledMode_pacesEveryUnitFromOneTimerWithExactCounts() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("200"));
+        input.addInput("NumRobots",        List.of("3"));
+        input.addInput("NumBelts",         List.of("3"));
+        input.addInput("SchedulerThreads", List.of("2"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+        long start = System.nanoTime();
+        TickScheduler scheduler = Matrix.runScheduled(input, stats);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(200f, stats.getComponent("Robot-" + i).getStatistic("ActionsPerformed").summarize(),
+                    "Robot-" + i + " should act 200 times");
+            assertEquals(200f, stats.getComponent("belt-" + i).getStatistic("ItemsMoved").summarize(),
+                    "belt-" + i + " should move 200 items");
+        }
+        assertTrue(scheduler.getStarvedUnits().isEmpty(), "Balanced line should not starve");
+        assertTrue(elapsedMs >= 990, "Paced to the configured rate, took " + elapsedMs + " ms");
+        assertNotNull(stats.getComponent("Scheduler").getStatistic("LateTicks"));
+        assertNotNull(stats.getComponent("Scheduler").getStatistic("MissedTicks"));
+    }
+
+    @Test
+    void scheduledMode_givesUpOnRobotsNothingCanFeed() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of("2"));
+        input.addInput("NumBelts",         List.of("1"));
+        input.addInput("ExecutionMode",    List.of("scheduled"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+        TickScheduler scheduler = Matrix.runScheduled(input, stats);
+
+        float consumed = stats.getComponent("Robot-1").getStatistic("ItemsProcessed").summarize()
+                + stats.getComponent("Robot-2").getStatistic("ItemsProcessed").summarize();
+        assertEquals(10f, consumed, "Robots can only consume what the single belt produced");
+        assertFalse(scheduler.getStarvedUnits().isEmpty(), "A robot should be reported as starved");
+        assertTrue(scheduler.getStarvedUnits().stream().allMatch(u -> u instanceof Robot), "Only robots starve");
+    }
+
+    @Test
+    void workStealingMode_drivesManyUnitsFromASmallPoolWithExactCounts() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("1"));
+        input.addInput("ActionsPerSecond", List.of("100"));
+        input.addInput("NumRobots",        List.of("16"));
+        input.addInput("NumBelts",         List.of("16"));
+        input.addInput("SchedulerThreads", List.of("2"));
+        input.addInput("ExecutionMode",    List.of("work-stealing"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+        TickScheduler scheduler = Matrix.runScheduled(input, stats);
+
+        for (int i = 1; i <= 16; i++) {
+            assertEquals(100f, stats.getComponent("Robot-" + i).getStatistic("ActionsPerformed").summarize(),
+                    "Robot-" + i + " should act 100 times");
+            assertEquals(100f, stats.getComponent("belt-" + i).getStatistic("ItemsMoved").summarize(),
+                    "belt-" + i + " should move 100 items");
+        }
+        assertTrue(scheduler.getStarvedUnits().isEmpty(), "Balanced line should not starve");
+        assertTrue(scheduler.getSteals() > 0, "Idle workers should take units off the busy one's queue");
+        assertEquals((float) scheduler.getSteals(),
+                stats.getComponent("Scheduler").getStatistic("Steals").summarize());
+    }
+
+    @Test
+    void unpacedWorkStealing_runsActionsBackToBackWithoutTheTimer() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("600"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("NumRobots",        List.of("4"));
+        input.addInput("NumBelts",         List.of("4"));
+        input.addInput("SchedulerThreads", List.of("2"));
+        input.addInput("ExecutionMode",    List.of("work_stealing"));
+        input.addInput("Pacing",           List.of("none"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+        long start = System.nanoTime();
+        TickScheduler scheduler = Matrix.runScheduled(input, stats);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        float consumed = 0;
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(6000f, stats.getComponent("belt-" + i).getStatistic("ItemsMoved").summarize(),
+                    "belt-" + i + " should do all its actions");
+            consumed += stats.getComponent("Robot-" + i).getStatistic("ItemsProcessed").summarize();
+        }
+        assertEquals(24000f, consumed, "Robots take everything the belts moved");
+        assertTrue(elapsedMs < 30_000, "A ten-minute shift shouldn't take real time, took " + elapsedMs + " ms");
+        // every unit re-submits itself to its own worker, so the other worker only gets work by stealing
+        assertTrue(scheduler.getSteals() > 0, "Units should move between workers");
+    }
+
+    @Test
+    void closingWhileAUnitActsBackToBack_dropsItsNextAction() throws InterruptedException {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("100000"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("Pacing",           List.of("none"));
+        AtomicReference<Throwable> uncaught = new AtomicReference<>();
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> uncaught.set(e));
+        try {
+            for (boolean workStealing : new boolean[] {false, true}) {
+                StatisticsContainer stats = StatisticsContainer.newInstance(input);
+                // room for every item, so the belt never waits on the timer to retry
+                ConveyorBelt belt = new ConveyorBelt("belt-1", input, new SharedBuffer<>(1_000_000), stats);
+                TickScheduler scheduler = new TickScheduler(2, TickScheduler.DEFAULT_RESOLUTION_NANOS,
+                        workStealing, stats.addComponent("Scheduler"));
+                scheduler.schedule(belt, () -> { });
+                Thread.sleep(50);
+                scheduler.close(); // while the belt keeps re-submitting itself
+                Thread.sleep(50);
+
+                assertEquals(null, uncaught.get(), "Nothing is handed to the stopped workers");
+                assertTrue(belt.getCompletedActions() < 1_000_000, "The run was cut short");
+                int acted = belt.getCompletedActions();
+                Thread.sleep(20);
+                assertEquals(acted, belt.getCompletedActions(), "No actions after close");
+            }
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+
+    @Test
+    void randomTiming_isFollowedInBothSchedulerModes() {
+        for (String mode : List.of("scheduled", "work_stealing")) {
+            SimulationInput input = new SimulationInput();
+            input.addInput("Time",             List.of("1"));
+            input.addInput("ActionsPerSecond", List.of("10"));
+            input.addInput("ExecutionMode",    List.of(mode));
+            input.addInput("RobotActionTime",  List.of("constant:0.05"));
+            input.addInput("BeltActionTime",   List.of("constant:0.05"));
+            StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+            TickScheduler scheduler = Matrix.runScheduled(input, stats);
+
+            float moved = stats.getComponent("belt-1").getStatistic("ItemsMoved").summarize();
+            assertTrue(moved >= 19 && moved <= 20, mode + ": an item every 50 ms for a second, got " + moved);
+            assertTrue(scheduler.getStarvedUnits().isEmpty(), mode + ": out of time is not starved");
+        }
+    }
+
+    @Test
+    void unpacedRandomTiming_followsTheDrawnScheduleToTheEnd() {
+        SimulationInput input = new SimulationInput();
+        input.addInput("Time",             List.of("600"));
+        input.addInput("ActionsPerSecond", List.of("10"));
+        input.addInput("ExecutionMode",    List.of("work_stealing"));
+        input.addInput("Pacing",           List.of("none"));
+        input.addInput("SchedulerThreads", List.of("2"));
+        input.addInput("NumRobots",        List.of("1"));
+        input.addInput("NumBelts",         List.of("1"));
+        input.addInput("RobotActionTime",  List.of("constant:0.05"));
+        input.addInput("BeltActionTime",   List.of("constant:0.05"));
+        StatisticsContainer stats = StatisticsContainer.newInstance(input);
+
+        TickScheduler scheduler = Matrix.runScheduled(input, stats);
+
+        assertEquals(12000f, stats.getComponent("belt-1").getStatistic("ItemsMoved").summarize(),
+                "600 s of a batch every 50 ms");
+        assertEquals(12000f, stats.getComponent("Robot-1").getStatistic("ItemsProcessed").summarize());
+        assertTrue(scheduler.getStarvedUnits().isEmpty());
+    }
+}
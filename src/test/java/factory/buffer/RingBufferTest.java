@@ -0,0 +1,165 @@
+package factory.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferTest {
+
+    @Test
+    void mpmcRing_handsEveryItemOverExactlyOnce() throws InterruptedException {
+        BufferBackend<Long> ring = new MpmcRingBuffer<>(16, WaitStrategy.YIELD);
+        int producers = 4, consumers = 4, perProducer = 50_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong count = new AtomicLong();
+
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    for (long i = 1; i <= perProducer; i++) ring.put(i);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.addAndGet(ring.take());
+                        count.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+
+        long expected = producers * ((long) perProducer * (perProducer + 1) / 2);
+        assertEquals((long) producers * perProducer, count.get(), "Every item is taken once");
+        assertEquals(expected, sum.get(), "No item is lost or duplicated");
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void spscAndMpscRings_keepFifoOrderAndRespectCapacity() throws InterruptedException {
+        for (BufferType type : new BufferType[]{BufferType.SPSC, BufferType.MPSC}) {
+            BufferBackend<Integer> ring = type.create(10, WaitStrategy.PARK);
+            assertEquals(10, ring.capacity(), "Capacity is the one configured, not the slot count");
+
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100_000; i++) ring.put(i);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            for (int i = 0; i < 100_000; i++) {
+                assertEquals(i, ring.take().intValue(), type + " delivers in order");
+            }
+            producer.join();
+            assertNull(ring.poll(), type + " is empty afterwards");
+
+            for (int i = 0; i < 10; i++) assertTrue(ring.offer(i));
+            assertFalse(ring.offer(10), type + " rejects offers when full");
+        }
+    }
+
+    @Test
+    void everyRing_holdsExactlyItsConfiguredCapacity() {
+        for (BufferType type : BufferType.values()) {
+            BufferBackend<Integer> ring = type.create(10, WaitStrategy.PARK);
+            for (int lap = 0; lap < 3; lap++) {
+                for (int i = 0; i < 10; i++) assertTrue(ring.offer(i), type + " takes item " + i);
+                assertFalse(ring.offer(10), type + " is full at 10");
+                assertEquals(0, ring.offerAll(List.of(1, 2, 3, 4), 0), type + " batches stop at capacity too");
+                assertEquals(10, ring.size());
+                for (int i = 0; i < 10; i++) assertEquals(i, ring.poll().intValue());
+                assertNull(ring.poll());
+            }
+        }
+    }
+
+    @Test
+    void singleThreadRings_rejectLayoutsWithTooManyThreads() {
+        assertThrows(IllegalArgumentException.class, () -> BufferType.SPSC.checkThreads(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> BufferType.MPSC.checkThreads(3, 2));
+        BufferType.MPMC.checkThreads(64, 64);
+    }
+
+    @Test
+    void batchWithANull_isRejectedOnEveryBackend() {
+        List<Integer> batch = new ArrayList<>(List.of(1, 2));
+        batch.add(null);
+        for (BufferType type : BufferType.values()) {
+            BufferBackend<Integer> buffer = type.create(8, WaitStrategy.PARK);
+            assertThrows(NullPointerException.class, () -> buffer.putAll(batch), type.toString());
+            assertThrows(NullPointerException.class, () -> buffer.offerAll(batch, 2), type.toString());
+            while (buffer.poll() != null) {
+                // the rings may have taken the items before the null
+            }
+            assertEquals(0, buffer.size(), type + " holds no empty slots");
+        }
+        BufferBackend<Integer> array = BufferType.ARRAY.create(8, WaitStrategy.PARK);
+        assertThrows(NullPointerException.class, () -> array.putAll(batch));
+        assertThrows(NullPointerException.class, () -> array.offerAll(batch, 0));
+        assertEquals(0, array.size(), "The array checks the whole batch first");
+    }
+
+    @Test
+    void drainingNothing_isRejectedOnEveryBackend() {
+        for (BufferType type : BufferType.values()) {
+            BufferBackend<Integer> buffer = type.create(8, WaitStrategy.PARK);
+            buffer.offer(1);
+            assertThrows(IllegalArgumentException.class, () -> buffer.drainTo(new ArrayList<>(), 0), type.toString());
+            assertEquals(1, buffer.size(), type + " keeps its items");
+        }
+    }
+
+    @Test
+    void batchOperations_moveWholeRunsInOrderOnEveryBackend() throws InterruptedException {
+        for (BufferType type : BufferType.values()) {
+            BufferBackend<Integer> buffer = type.create(8, WaitStrategy.PARK);
+            List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < 12; i++) items.add(i);
+
+            assertEquals(8, buffer.offerAll(items, 0), type + " offers only what fits");
+            assertEquals(0, buffer.offerAll(items, 8), type + " offers nothing when full");
+            List<Integer> out = new ArrayList<>();
+            assertEquals(5, buffer.pollAll(out, 5), type + " polls at most max");
+            assertEquals(4, buffer.offerAll(items, 8), type + " takes the rest after polling");
+            assertEquals(7, buffer.drainTo(out, 100), type + " drains everything available");
+            assertEquals(items, out, type + " keeps batch order");
+            assertEquals(0, buffer.pollAll(out, 5), type + " is empty afterwards");
+
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) buffer.putAll(items);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            int received = 0;
+            List<Integer> chunk = new ArrayList<>();
+            while (received < 12_000) {
+                chunk.clear();
+                received += buffer.drainTo(chunk, 16);
+            }
+            producer.join();
+            assertEquals(12_000, received, type + " hands over every batched item");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package factory.cli;
+
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchCliTest {
+
+    @BeforeEach
+    void resetStats() {
+        StatisticsContainer.resetInstance();
+    }
+
+    @Test
+    void run_writesEveryScenarioOfEveryFileAsCsv() throws Exception {
+        Path json = scenarioFile(".json", "[\n"
+                + "  {\"Name\": \"one-belt\", \"Time\": 60, \"ActionsPerSecond\": 10,"
+                + " \"ExecutionMode\": \"discrete\", \"NumRobots\": 1, \"NumBelts\": [1]},\n"
+                + "  {\"Time\": 60, \"ActionsPerSecond\": 10, \"ExecutionMode\": \"discrete\","
+                + " \"NumRobots\": 2, \"NumBelts\": 2}\n"
+                + "]");
+        Path properties = scenarioFile(".properties", "Time = 60\n"
+                + "ActionsPerSecond = 10\n"
+                + "ExecutionMode = discrete\n"
+                + "NumRobots = 3\n"
+                + "NumBelts = 3\n");
+        Path output = Files.createTempFile("results", ".csv");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        int code = BatchCli.run(new String[] {json.toString(), properties.toString(), "--output", output.toString()},
+                new PrintStream(out, true), new PrintStream(err, true));
+
+        assertEquals(BatchCli.OK, code, err.toString());
+        assertEquals("", out.toString(), "Nothing is printed while the scenarios run");
+        String csv = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("Scenario,Component,Statistic,Summary,Details"), csv);
+        String base = fileBase(json);
+        String props = fileBase(properties);
+        assertTrue(csv.contains("one-belt,belt-1,ItemsMoved,600.0,"), csv);
+        assertTrue(csv.contains(base + "#2,belt-2,ItemsMoved,600.0,"), csv);
+        assertTrue(csv.contains(props + ",belt-3,ItemsMoved,600.0,"), csv);
+    }
+
+    @Test
+    void run_writesJsonWithNumericSummaries() throws Exception {
+        Path json = scenarioFile(".json", "{\"Name\": \"single\", \"Time\": 60, \"ActionsPerSecond\": 10,"
+                + " \"ExecutionMode\": \"discrete\", \"NumRobots\": 1, \"NumBelts\": 1}");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int code = BatchCli.run(new String[] {"--format", "json", json.toString()},
+                new PrintStream(out, true), new PrintStream(new ByteArrayOutputStream(), true));
+
+        assertEquals(BatchCli.OK, code);
+        String text = out.toString().trim();
+        assertTrue(text.startsWith("[") && text.endsWith("]"), text);
+        assertTrue(text.contains("{\"Scenario\": \"single\", \"Component\": \"belt-1\", "
+                + "\"Statistic\": \"ItemsMoved\", \"Summary\": 600.0, "), text);
+        assertTrue(!text.contains("\"Summary\": NaN"), "JSON has no NaN: " + text);
+    }
+
+    @Test
+    void run_rejectsBadArgumentsAndFilesWithoutRunning() throws Exception {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream errStream = new PrintStream(err, true);
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true);
+
+        assertEquals(BatchCli.USAGE, BatchCli.run(new String[] {"--format", "xml", "a.json"}, out, errStream));
+        assertTrue(err.toString().contains("Unknown format: xml"), err.toString());
+        assertEquals(BatchCli.USAGE, BatchCli.run(new String[0], out, errStream));
+
+        Path broken = scenarioFile(".json", "{\"Time\": 60,, }");
+        err.reset();
+        assertEquals(BatchCli.USAGE, BatchCli.run(new String[] {broken.toString()}, out, errStream));
+        assertTrue(err.toString().contains("at offset 12"), err.toString());
+    }
+
+    @Test
+    void fromJson_keepsNumbersAsWrittenAndRejectsNestedObjects() {
+        List<Scenario> scenarios = ScenarioLoader.fromJson(
+                "{\"Time\": 1.50, \"Stages\": [\"belt:2\", \"pack:1\"], \"Flag\": true}", "base");
+
+        assertEquals(1, scenarios.size());
+        assertEquals("base", scenarios.get(0).getName());
+        assertEquals(List.of("1.50"), scenarios.get(0).getInput().getValues("Time"));
+        assertEquals(List.of("belt:2", "pack:1"), scenarios.get(0).getInput().getValues("Stages"));
+        assertEquals(List.of("true"), scenarios.get(0).getInput().getValues("Flag"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScenarioLoader.fromJson("{\"Time\": {\"value\": 1}}", "base"));
+    }
+
+    private static Path scenarioFile(String suffix, String content) throws Exception {
+        Path file = Files.createTempFile("scenario", suffix);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String fileBase(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,18 @@
+package factory.cli;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CsvTest {
+
+    @Test
+    void cellsAreQuotedOnlyWhenTheyHaveTo() {
+        assertEquals("Robot-1", Csv.quote("Robot-1"));
+        assertEquals("", Csv.quote(""));
+        assertEquals("\"a,b\"", Csv.quote("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", Csv.quote("say \"hi\""));
+        assertEquals("\"two\nlines\"", Csv.quote("two\nlines"));
+        assertEquals("\"carriage\rreturn\"", Csv.quote("carriage\rreturn"));
+    }
+}
@@ -0,0 +1,46 @@
+package factory.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FactoryCanvasTest {
+
+    @Test
+    void tenThousandUnitPlant_fitsZoomsAndPaintsFromItsArrays() {
+        FactoryCanvas canvas = new FactoryCanvas();
+        canvas.setSize(800, 600);
+        canvas.layoutUnits(9_900, 100);
+
+        assertEquals(10_001, canvas.getUnitCount(), "Robots, belts and storage");
+        assertTrue(canvas.getScale() < FactoryCanvas.OUTLINE_SCALE, "The whole plant only fits as dots");
+
+        canvas.update("Robot-42", 7);
+        canvas.update("Robot-43", 5);
+        canvas.update("NoSuchUnit", 1); // ignored
+        Rectangle unit = canvas.screenBounds(100 + 41);
+        assertTrue(unit.width <= 10 && unit.height <= 10, "A changed unit repaints only its own few pixels");
+
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        canvas.paint(g);
+
+        // zoom far in on the first belt until names are drawn
+        Rectangle belt = canvas.screenBounds(0);
+        canvas.zoomAt(belt.x + 1, belt.y + 1, 1_000);
+        assertTrue(canvas.getScale() >= FactoryCanvas.TEXT_SCALE, "Zoomed in far enough for text");
+        Rectangle zoomed = canvas.screenBounds(0);
+        assertEquals("belt-1", canvas.unitAt(zoomed.x + zoomed.width / 2, zoomed.y + zoomed.height / 2));
+        canvas.paint(g);
+
+        canvas.panBy(100_000, 0);
+        assertNull(canvas.unitAt(400, 300), "Panned away from every unit");
+        g.dispose();
+    }
+}
@@ -0,0 +1,56 @@
+package factory.ui;
+
+import Skeleton.CounterStatistic;
+import Skeleton.SimulationInput;
+import Skeleton.Statistic;
+import Skeleton.StatisticsContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatisticsFrameBufferTest {
+
+    @Test
+    void manyUpdatesPerFrame_reachTheUiOncePerStatisticWithItsOwnSummary() throws InterruptedException {
+        StatisticsContainer stats = StatisticsContainer.newInstance(new SimulationInput());
+        StatisticsFrameBuffer buffer = new StatisticsFrameBuffer(
+                (component, name) -> stats.getComponent(component).getStatistic(name));
+        Thread[] units = new Thread[4];
+        for (int t = 0; t < units.length; t++) {
+            String component = "Robot-" + (t + 1);
+            CounterStatistic actions = (CounterStatistic) stats.addComponent(component)
+                    .addStatistic("ActionsPerformed", new CounterStatistic("ActionsPerformed"));
+            units[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    actions.increment();
+                    buffer.record(component, "ActionsPerformed", 1f);
+                }
+                buffer.record(component, "ItemsProcessed", 3f); // not in the container
+            });
+            units[t].start();
+        }
+        for (Thread t : units) t.join();
+
+        Map<String, StatisticsFrameBuffer.Entry> frame = new HashMap<>();
+        int drained = buffer.drain(e -> {
+            StatisticsFrameBuffer.Entry previous = frame.put(e.getComponent() + "|" + e.getStatName(), e);
+            assertEquals(null, previous, "Each statistic is flushed once per frame");
+        });
+
+        assertEquals(8, drained, "Two statistics for each of four robots");
+        Statistic actions = frame.get("Robot-2|ActionsPerformed").getStatistic();
+        assertTrue(actions == stats.getComponent("Robot-2").getStatistic("ActionsPerformed"),
+                "The entry is the statistic itself");
+        assertEquals(100_000.0, actions.summarizeExact());
+        assertEquals(null, frame.get("Robot-4|ItemsProcessed").getStatistic());
+        assertEquals(3f, frame.get("Robot-4|ItemsProcessed").getLast(), "The latest value is kept");
+        assertEquals(0, buffer.drain(e -> { }), "Nothing changed since the last frame");
+
+        buffer.record("Robot-1", "ActionsPerformed", 1f);
+        assertEquals(1, buffer.drain(e -> assertTrue(e.getStatistic() != null, "Found once, kept across frames")));
+    }
+}